@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import org.apache.wicket.markup.html.WebPage;
+
+/**
+ * A page with a deep tree of {@link NestedPanel}s.
+ */
+public class DeepPage extends WebPage
+{
+	private static final long serialVersionUID = 1L;
+
+	private final NestedPanel root;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param depth
+	 *            depth of the tree
+	 * @param breadth
+	 *            count of children of each panel
+	 */
+	public DeepPage(int depth, int breadth)
+	{
+		add(root = new NestedPanel("root", depth, breadth));
+	}
+
+	/**
+	 * @return the root panel
+	 */
+	public NestedPanel getRoot()
+	{
+		return root;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupParser;
+import org.apache.wicket.markup.parser.IXmlPullParser.HttpTagType;
+import org.apache.wicket.markup.parser.XmlPullParser;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of large templates with {@link XmlPullParser} and {@link MarkupParser}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupParserBenchmark
+{
+	@Param({ "100", "1000" })
+	private int elements;
+
+	private WicketTester tester;
+
+	private String template;
+
+	@Setup
+	public void setup()
+	{
+		// markup settings are taken from the application
+		tester = new WicketTester(new MockApplication());
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("<html xmlns:wicket=\"http://wicket.apache.org\">\n");
+		builder.append("<head><title>Template</title></head>\n<body>\n");
+		for (int i = 0; i < elements; i++)
+		{
+			builder.append("<div wicket:id=\"container").append(i)
+				.append("\" class=\"item\" data-index=\"").append(i).append("\">");
+			builder.append("<!-- element ").append(i).append(" -->");
+			builder.append("<span wicket:id=\"label\">text &amp; more</span><br/>");
+			builder.append("<wicket:message key=\"message\">message</wicket:message>");
+			builder.append("</div>\n");
+		}
+		builder.append("</body>\n</html>");
+		template = builder.toString();
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		tester.destroy();
+	}
+
+	@Benchmark
+	public int xmlPullParser() throws IOException, ParseException
+	{
+		XmlPullParser parser = new XmlPullParser();
+		parser.parse(template);
+
+		int tags = 0;
+		while (parser.next() != HttpTagType.NOT_INITIALIZED)
+		{
+			tags++;
+		}
+		return tags;
+	}
+
+	@Benchmark
+	public Markup markupParser() throws IOException, ResourceStreamNotFoundException
+	{
+		return new MarkupParser(template).parse();
+	}
+}
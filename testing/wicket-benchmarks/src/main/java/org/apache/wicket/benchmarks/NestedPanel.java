@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.markup.repeater.RepeatingView;
+
+/**
+ * A panel with a label and nested children.
+ */
+public class NestedPanel extends Panel
+{
+	private static final long serialVersionUID = 1L;
+
+	private final RepeatingView children;
+
+	/**
+	 * Construct.
+	 * 
+	 * @param id
+	 *            component id
+	 * @param depth
+	 *            depth of children
+	 * @param breadth
+	 *            count of children
+	 */
+	public NestedPanel(String id, int depth, int breadth)
+	{
+		super(id);
+
+		setOutputMarkupId(true);
+
+		add(new Label("label", "depth " + depth));
+
+		add(children = new RepeatingView("children"));
+		if (depth > 0)
+		{
+			for (int i = 0; i < breadth; i++)
+			{
+				children.add(new NestedPanel(children.newChildId(), depth - 1, breadth));
+			}
+		}
+	}
+
+	/**
+	 * @return the container of children
+	 */
+	public RepeatingView getChildren()
+	{
+		return children;
+	}
+}
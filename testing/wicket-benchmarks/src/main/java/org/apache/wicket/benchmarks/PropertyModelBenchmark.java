@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.model.PropertyModel;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolution of {@link PropertyModel}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyModelBenchmark
+{
+	private WicketTester tester;
+
+	private Person person;
+
+	@Setup
+	public void setup()
+	{
+		// property locator is cached per application
+		tester = new WicketTester(new MockApplication());
+
+		person = new Person();
+		person.name = "name";
+		person.address = new Address();
+		person.address.street = new Street();
+		person.address.street.name = "street";
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		tester.destroy();
+	}
+
+	@Benchmark
+	public Object field()
+	{
+		return new PropertyModel<String>(person, "name").getObject();
+	}
+
+	@Benchmark
+	public Object getter()
+	{
+		return new PropertyModel<String>(person, "address.number").getObject();
+	}
+
+	@Benchmark
+	public Object nested()
+	{
+		return new PropertyModel<String>(person, "address.street.name").getObject();
+	}
+
+	@Benchmark
+	public Object set()
+	{
+		PropertyModel<String> model = new PropertyModel<>(person, "address.street.name");
+		model.setObject("other");
+		return model;
+	}
+
+	/**
+	 * A person.
+	 */
+	public static class Person implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private String name;
+
+		private Address address;
+	}
+
+	/**
+	 * An address.
+	 */
+	public static class Address implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private int number = 42;
+
+		private Street street;
+
+		/**
+		 * @return number
+		 */
+		public int getNumber()
+		{
+			return number;
+		}
+	}
+
+	/**
+	 * A street.
+	 */
+	public static class Street implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private String name;
+
+		/**
+		 * @return name
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * @param name
+		 *            name
+		 */
+		public void setName(String name)
+		{
+			this.name = name;
+		}
+	}
+}
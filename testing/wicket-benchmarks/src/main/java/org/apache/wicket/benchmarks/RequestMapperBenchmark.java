@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.core.request.mapper.MountedMapper;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.mock.MockHomePage;
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.mapper.CompoundRequestMapper;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mapping of requests with a {@link CompoundRequestMapper} holding many mounted pages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMapperBenchmark
+{
+	@Param({ "100", "500" })
+	private int mounts;
+
+	private WicketTester tester;
+
+	private CompoundRequestMapper mapper;
+
+	private Request first;
+
+	private Request last;
+
+	private Request unmapped;
+
+	@Setup
+	public void setup()
+	{
+		tester = new WicketTester(new MockApplication());
+
+		mapper = new CompoundRequestMapper();
+		for (int i = 0; i < mounts; i++)
+		{
+			mapper.add(new MountedMapper("/section" + i + "/page/${id}", MockHomePage.class));
+		}
+
+		first = new MockWebRequest(Url.parse("section0/page/42"));
+		last = new MockWebRequest(Url.parse("section" + (mounts - 1) + "/page/42"));
+		unmapped = new MockWebRequest(Url.parse("unknown/page/42"));
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		tester.destroy();
+	}
+
+	@Benchmark
+	public IRequestHandler mapFirst()
+	{
+		return mapper.mapRequest(first);
+	}
+
+	@Benchmark
+	public IRequestHandler mapLast()
+	{
+		return mapper.mapRequest(last);
+	}
+
+	@Benchmark
+	public IRequestHandler mapUnmapped()
+	{
+		return mapper.mapRequest(unmapped);
+	}
+}
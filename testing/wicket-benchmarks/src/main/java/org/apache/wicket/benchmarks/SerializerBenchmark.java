@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.serialize.java.CompactJavaSerializer;
+import org.apache.wicket.serialize.java.DeflatedJavaSerializer;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of a rendered page with a deep component tree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark
+{
+	@Param({ "java", "deflated", "compact" })
+	private String serializerName;
+
+	@Param({ "4" })
+	private int depth;
+
+	@Param({ "4" })
+	private int breadth;
+
+	private WicketTester tester;
+
+	private ISerializer serializer;
+
+	private Page page;
+
+	private byte[] data;
+
+	@Setup
+	public void setup()
+	{
+		tester = new WicketTester(new MockApplication());
+
+		String key = tester.getApplication().getApplicationKey();
+		switch (serializerName)
+		{
+			case "deflated" :
+				serializer = new DeflatedJavaSerializer(key);
+				break;
+			case "compact" :
+				serializer = new CompactJavaSerializer(key);
+				break;
+			default :
+				serializer = new JavaSerializer(key);
+		}
+
+		page = tester.startPage(new DeepPage(depth, breadth));
+		data = serializer.serialize(page);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		tester.destroy();
+	}
+
+	@Benchmark
+	public byte[] serialize()
+	{
+		return serializer.serialize(page);
+	}
+
+	@Benchmark
+	public Object deserialize()
+	{
+		return serializer.deserialize(data);
+	}
+
+	@Benchmark
+	public Object roundTrip()
+	{
+		return serializer.deserialize(serializer.serialize(page));
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.request.Url;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of {@link Url}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlBenchmark
+{
+	private static final String[] URLS = {
+			"",
+			"wicket/page?5",
+			"wicket/bookmarkable/org.apache.wicket.benchmarks.DeepPage?12-1.0-root-children-1-link",
+			"section/42/page/17?filter=name&sort=asc&page=3",
+			"http://www.example.com:8080/context/filter/path/to/resource.css;jsessionid=1234?v=5",
+			"wicket/resource/org.apache.wicket.ajax.AbstractDefaultAjaxBehavior/res/js/wicket-ajax-jquery-ver-1612345678901.js",
+			"../../relative/path?a=1&b=2&c=3&d=%C3%A4%C3%B6%C3%BC" };
+
+	@Benchmark
+	public void parse(Blackhole blackhole)
+	{
+		for (String url : URLS)
+		{
+			blackhole.consume(Url.parse(url));
+		}
+	}
+
+	@Benchmark
+	public void parseAndRender(Blackhole blackhole)
+	{
+		for (String url : URLS)
+		{
+			blackhole.consume(Url.parse(url).toString());
+		}
+	}
+}
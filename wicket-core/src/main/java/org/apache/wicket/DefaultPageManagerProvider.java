@@ -23,13 +23,16 @@ import org.apache.wicket.page.PageManager;
 import org.apache.wicket.pageStore.AsynchronousPageStore;
 import org.apache.wicket.pageStore.CachingPageStore;
 import org.apache.wicket.pageStore.CryptingPageStore;
+import org.apache.wicket.pageStore.DeltaPageStore;
 import org.apache.wicket.pageStore.DiskPageStore;
 import org.apache.wicket.pageStore.FilePageStore;
 import org.apache.wicket.pageStore.GroupingPageStore;
 import org.apache.wicket.pageStore.IPageStore;
 import org.apache.wicket.pageStore.InMemoryPageStore;
 import org.apache.wicket.pageStore.InSessionPageStore;
+import org.apache.wicket.pageStore.MappedPageStore;
 import org.apache.wicket.pageStore.NoopPageStore;
+import org.apache.wicket.pageStore.OffHeapPageStore;
 import org.apache.wicket.pageStore.RequestPageStore;
 import org.apache.wicket.pageStore.SerializedPage;
 import org.apache.wicket.pageStore.SerializingPageStore;
@@ -46,6 +49,8 @@ import org.apache.wicket.util.lang.Bytes;
  * <li>{@link CachingPageStore} caching with an ...</li>
  * <li>{@link InSessionPageStore} keeping the last accessed page in the session</li>
  * <li>{@link SerializingPageStore} serializing all pages (so they are available for back-button)</li>
+ * <li>{@link CachingPageStore} caching serialized pages with an {@link OffHeapPageStore} (disabled by default in {@link StoreSettings#getOffHeapCacheSize()})</li>
+ * <li>{@link DeltaPageStore} storing pages as deltas to a base page (disabled by default in {@link StoreSettings#isDeltaEncoded()})</li>
  * <li>{@link AsynchronousPageStore} moving storage of pages to an asynchronous worker thread (enabled by default with {@link StoreSettings#isAsynchronous()})</li>
  * <li>{@link CryptingPageStore} encrypting all pages (disabled by default in {@link StoreSettings#isEncrypted()})</li>
  * <li>{@link DiskPageStore} persisting all pages, configured according to {@link StoreSettings}</li>
@@ -77,6 +82,7 @@ import org.apache.wicket.util.lang.Bytes;
  * <li>{@link NoopPageStore} discards all pages</li>
  * <li>{@link GroupingPageStore} groups pages, e.g. to limit storage size on a per-group basis</li>
  * <li>{@link FilePageStore} as an alternative to the trusted {@link DiskPageStore}</li>
+ * <li>{@link MappedPageStore} keeping pages in memory-mapped files (enabled with {@link StoreSettings#isMemoryMapped()})</li>
  * <li>other implementations from <a href="https://github.com/wicketstuff/core/tree/master/datastores-parent">wicketstuff-datastores</a></li>
  * </ul>
  */
@@ -103,6 +109,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		store = newCryptingStore(store);
 
 		store = newAsynchronousStore(store);
+
+		store = newDeltaStore(store);
+
+		store = newOffHeapCachingStore(store);
 		
 		store = newSerializingStore(store);
 
@@ -168,6 +178,49 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		return pageStore;
 	}
 
+	/**
+	 * Store pages as deltas, if enabled in {@link StoreSettings#isDeltaEncoded()}.
+	 * 
+	 * @see DeltaPageStore
+	 */
+	protected IPageStore newDeltaStore(IPageStore pageStore)
+	{
+		StoreSettings storeSettings = application.getStoreSettings();
+
+		if (storeSettings.isDeltaEncoded())
+		{
+			pageStore = new DeltaPageStore(pageStore);
+		}
+
+		return pageStore;
+	}
+
+	/**
+	 * Cache serialized pages off-heap, if enabled in {@link StoreSettings#getOffHeapCacheSize()}.
+	 * 
+	 * @see OffHeapPageStore
+	 */
+	protected IPageStore newOffHeapCachingStore(IPageStore pageStore)
+	{
+		StoreSettings storeSettings = application.getStoreSettings();
+
+		Bytes cacheSize = storeSettings.getOffHeapCacheSize();
+		if (cacheSize != null)
+		{
+			// a single session cannot use more than the whole cache
+			Bytes maxSizePerSession = storeSettings.getMaxSizePerSession();
+			if (maxSizePerSession.greaterThan(cacheSize))
+			{
+				maxSizePerSession = cacheSize;
+			}
+
+			pageStore = new CachingPageStore(pageStore, new OffHeapPageStore(application.getName(),
+				cacheSize, maxSizePerSession));
+		}
+
+		return pageStore;
+	}
+
 	/**
 	 * Serialize pages.
 	 * 
@@ -199,8 +252,10 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 	 * Keep persistent copies of all pages on disk.
 	 * 
 	 * @see DiskPageStore
+	 * @see MappedPageStore
 	 * @see StoreSettings#getMaxSizePerSession()
 	 * @see StoreSettings#getFileStoreFolder()
+	 * @see StoreSettings#isMemoryMapped()
 	 */
 	protected IPageStore newPersistentStore()
 	{
@@ -208,6 +263,12 @@ public class DefaultPageManagerProvider implements IPageManagerProvider
 		Bytes maxSizePerSession = storeSettings.getMaxSizePerSession();
 		File fileStoreFolder = storeSettings.getFileStoreFolder();
 
+		if (storeSettings.isMemoryMapped())
+		{
+			return new MappedPageStore(application.getName(), fileStoreFolder, maxSizePerSession,
+				storeSettings.getSegmentSize());
+		}
+
 		return new DiskPageStore(application.getName(), fileStoreFolder, maxSizePerSession);
 	}
 }
\ No newline at end of file
@@ -16,22 +16,21 @@
  */
 package org.apache.wicket;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Objects;
 
 import org.apache.wicket.core.util.string.interpolator.ConvertingPropertyVariableInterpolator;
 import org.apache.wicket.markup.repeater.AbstractRepeater;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.Model;
+import org.apache.wicket.resource.LocalizerCache;
 import org.apache.wicket.resource.loader.IStringResourceLoader;
 import org.apache.wicket.settings.ResourceSettings;
-import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,14 +56,23 @@ public class Localizer
 {
 	private static final Logger log = LoggerFactory.getLogger(Localizer.class);
 
-	/** ConcurrentHashMap does not allow null values */
+	/** The cache does not allow null values */
 	private static final String NULL_VALUE = "<null-value>";
 
-	/** Cache properties */
-	private Map<String, String> cache = newCache();
+	/** Replaces the id of auto components in cache keys */
+	private static final String AUTO_COMPONENT_ID = "wicket-auto";
 
-	/** Database that maps class names to an integer id. */
-	private final ClassMetaDatabase metaDatabase = new ClassMetaDatabase();
+	/**
+	 * Whether a subclass overrides any of the cache hooks working on string keys, which are then
+	 * used instead of the structured cache keys.
+	 */
+	private final boolean stringCacheKeys = overridesCacheHooks();
+
+	/**
+	 * Cache properties, with keys from {@link #newCacheKey(String, Component, Locale, String, String)}
+	 * or string keys from {@link #getCacheKey(String, Component, Locale, String, String)}.
+	 */
+	private volatile Map<Object, String> cache = createCache();
 
 	/**
 	 * @return Same as Application.get().getResourceSettings().getLocalizer()
@@ -83,18 +91,28 @@ public class Localizer
 	}
 
 	/**
-	 * Clear all cache entries by instantiating a new cache object
-	 * 
-	 * @see #newCache()
+	 * Clear all cache entries
 	 */
 	public final void clearCache()
 	{
+		Map<Object, String> cache = this.cache;
 		if (cache != null)
 		{
-			cache = newCache();
+			cache.clear();
 		}
 	}
 
+	/**
+	 * @return the cache of the looked up strings, or {@code null} if caching is disabled or
+	 *         {@link #newCache()} does not create a {@link LocalizerCache}
+	 * @see #setEnableCache(boolean)
+	 */
+	public final LocalizerCache<?> getCache()
+	{
+		Map<Object, String> cache = this.cache;
+		return (cache instanceof LocalizerCache) ? (LocalizerCache<?>)cache : null;
+	}
+
 	/**
 	 * @see #getString(String, Component, IModel, Locale, String, String)
 	 * 
@@ -338,7 +356,7 @@ public class Localizer
 			}
 		}
 
-		String cacheKey = null;
+		Object cacheKey = null;
 		String value;
 
 		// Make sure locale, style and variation have the right values
@@ -364,15 +382,30 @@ public class Localizer
 
 		// If this component is not yet added to page we do not want to check
 		// cache as we can generate an invalid cache key
+		Map<Object, String> cache = this.cache;
 		if ((cache != null) && ((component == null) || addedToPage))
 		{
-			cacheKey = getCacheKey(key, component, locale, style, variation);
+			if (stringCacheKeys)
+			{
+				cacheKey = getCacheKey(key, component, locale, style, variation);
+			}
+			else
+			{
+				cacheKey = newCacheKey(key, component, locale, style, variation);
+			}
 		}
 
 		// Value not found are cached as well (value = null)
 		if ((cacheKey != null) && cache.containsKey(cacheKey))
 		{
-			value = getFromCache(cacheKey);
+			if (stringCacheKeys)
+			{
+				value = getFromCache((String)cacheKey);
+			}
+			else
+			{
+				value = getCachedValue(cache, cacheKey);
+			}
 			if (log.isDebugEnabled())
 			{
 				log.debug("Property found in cache: '" + key + "'; Component: '" +
@@ -400,7 +433,14 @@ public class Localizer
 			// Cache the result incl null if not found
 			if (cacheKey != null)
 			{
-				putIntoCache(cacheKey, value);
+				if (stringCacheKeys)
+				{
+					putIntoCache((String)cacheKey, value);
+				}
+				else
+				{
+					cache.put(cacheKey, value == null ? NULL_VALUE : value);
+				}
 			}
 
 			if ((value == null) && log.isDebugEnabled())
@@ -443,12 +483,13 @@ public class Localizer
 	 */
 	protected void putIntoCache(final String cacheKey, final String string)
 	{
+		Map<Object, String> cache = this.cache;
 		if (cache == null)
 		{
 			return;
 		}
 
-		// ConcurrentHashMap does not allow null values
+		// the cache does not allow null values
 		if (string == null)
 		{
 			cache.put(cacheKey, NULL_VALUE);
@@ -467,14 +508,20 @@ public class Localizer
 	 */
 	protected String getFromCache(final String cacheKey)
 	{
+		Map<Object, String> cache = this.cache;
 		if (cache == null)
 		{
 			return null;
 		}
 
+		return getCachedValue(cache, cacheKey);
+	}
+
+	private String getCachedValue(final Map<Object, String> cache, final Object cacheKey)
+	{
 		final String value = cache.get(cacheKey);
 
-		// ConcurrentHashMap does not allow null values
+		// the cache does not allow null values
 		if (NULL_VALUE == value)
 		{
 			return null;
@@ -483,7 +530,11 @@ public class Localizer
 	}
 
 	/**
-	 * Gets the cache key
+	 * Gets the cache key as a string.
+	 * <p>
+	 * By default the localizer uses structured cache keys, which are cheaper to create and compare.
+	 * This method and {@link #putIntoCache(String, String)} and {@link #getFromCache(String)} are
+	 * used instead only if a subclass overrides any of them or {@link #newCache()}.
 	 * 
 	 * @param key
 	 * @param component
@@ -505,7 +556,7 @@ public class Localizer
 
 			while (cursor != null)
 			{
-				buffer.append('-').append(metaDatabase.id(cursor.getClass()));
+				buffer.append('-').append(cursor.getClass().getName());
 
 				if (cursor instanceof Page)
 				{
@@ -526,7 +577,7 @@ public class Localizer
 
 				if (skip == false)
 				{
-					String cursorKey = cursor.isAuto() ? "wicket-auto" : cursor.getId();
+					String cursorKey = cursor.isAuto() ? AUTO_COMPONENT_ID : cursor.getId();
 					buffer.append(':').append(cursorKey);
 				}
 
@@ -546,7 +597,65 @@ public class Localizer
 		}
 	}
 
-/**
+	/**
+	 * Creates a structured cache key, holding the classes and ids of the components up to the page.
+	 * 
+	 * @param key
+	 * @param component
+	 * @param locale
+	 *            Guaranteed to be != null
+	 * @param style
+	 * @param variation
+	 * @return The cache key
+	 */
+	private Object newCacheKey(final String key, final Component component, final Locale locale,
+		final String style, final String variation)
+	{
+		if (component != null)
+		{
+			int depth = 0;
+			for (Component cursor = component; cursor != null; cursor = cursor.getParent())
+			{
+				depth++;
+				if (cursor instanceof Page)
+				{
+					break;
+				}
+			}
+
+			Object[] path = new Object[depth * 2];
+			int index = 0;
+			Component cursor = component;
+			while (cursor != null)
+			{
+				path[index++] = cursor.getClass();
+
+				if (cursor instanceof Page)
+				{
+					break;
+				}
+
+				// see getCacheKey() for loop items and auto components
+				final Component parent = cursor.getParent();
+				if (parent instanceof AbstractRepeater == false)
+				{
+					path[index] = cursor.isAuto() ? AUTO_COMPONENT_ID : cursor.getId();
+				}
+				index++;
+
+				cursor = parent;
+			}
+
+			return new CacheKey(key, path, locale, style, variation);
+		}
+		else
+		{
+			// locale is guaranteed to be != null
+			return new CacheKey(key, null, locale, style, null);
+		}
+	}
+
+	/**
 	 * Helper method to handle property variable substitution in strings.
 	 * 
 	 * @param component
@@ -603,55 +712,129 @@ public class Localizer
 		}
 		else if (cache == null)
 		{
-			cache = newCache();
+			cache = createCache();
 		}
 	}
 
 	/**
 	 * Create a new cache, override this method if you want a different map to store the cache keys,
-	 * for example a map that hold only the last X number of elements..
+	 * for example a cache of a different size.
 	 * 
-	 * By default it uses the {@link ConcurrentHashMap}
+	 * By default it uses a {@link LocalizerCache} of {@value LocalizerCache#DEFAULT_MAX_SIZE}
+	 * entries. Overriding this method makes the localizer use string cache keys, see
+	 * {@link #getCacheKey(String, Component, Locale, String, String)}.
 	 * 
 	 * @return cache
 	 */
 	protected Map<String, String> newCache()
 	{
-		return new ConcurrentHashMap<>();
+		return new LocalizerCache<>();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<Object, String> createCache()
+	{
+		if (stringCacheKeys)
+		{
+			// string keys only are put into this cache
+			return (Map<Object, String>)(Map<?, String>)newCache();
+		}
+		return new LocalizerCache<>();
 	}
 
 	/**
-	 * Database that maps class names to an integer id. This is used to make localizer keys shorter
-	 * because sometimes they can contain a large number of class names.
-	 * 
-	 * @author igor.vaynberg
+	 * @return whether any of the hooks working on string cache keys is overridden
 	 */
-	private static class ClassMetaDatabase
+	private boolean overridesCacheHooks()
 	{
-		private final ConcurrentMap<String, Long> nameToId = Generics.newConcurrentHashMap();
-		private final AtomicLong nameCounter = new AtomicLong();
-
-		/**
-		 * Returns a unique id that represents this class' name. This can be used for compressing
-		 * class names. Notice this id should not be used across cluster nodes.
-		 * 
-		 * @param clazz
-		 * @return long id of class name
-		 */
-		public long id(Class<?> clazz)
-		{
-			final String name = clazz.getName();
-			Long id = nameToId.get(name);
-			if (id == null)
+		for (Class<?> clazz = getClass(); clazz != Localizer.class; clazz = clazz.getSuperclass())
+		{
+			if (declares(clazz, "newCache") ||
+				declares(clazz, "getCacheKey", String.class, Component.class, Locale.class,
+					String.class, String.class) ||
+				declares(clazz, "putIntoCache", String.class, String.class) ||
+				declares(clazz, "getFromCache", String.class))
 			{
-				id = nameCounter.incrementAndGet();
-				Long previousId = nameToId.putIfAbsent(name, id);
-				if (previousId != null)
-				{
-					id = previousId;
-				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean declares(Class<?> clazz, String name, Class<?>... parameterTypes)
+	{
+		try
+		{
+			clazz.getDeclaredMethod(name, parameterTypes);
+			return true;
+		}
+		catch (NoSuchMethodException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * A cache key of a string resource, with a precomputed hash.
+	 */
+	private static final class CacheKey
+	{
+		private final String key;
+
+		/** the class and id of each component up to the page, the id is null for loop items */
+		private final Object[] path;
+
+		private final Locale locale;
+
+		private final String style;
+
+		private final String variation;
+
+		private final int hash;
+
+		private CacheKey(String key, Object[] path, Locale locale, String style, String variation)
+		{
+			this.key = key;
+			this.path = path;
+			this.locale = locale;
+			this.style = style;
+			this.variation = variation;
+
+			int h = Objects.hashCode(key);
+			h = 31 * h + Arrays.hashCode(path);
+			h = 31 * h + locale.hashCode();
+			h = 31 * h + Objects.hashCode(style);
+			h = 31 * h + Objects.hashCode(variation);
+			hash = h;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+			{
+				return true;
+			}
+			if (o instanceof CacheKey == false)
+			{
+				return false;
 			}
-			return id;
+			CacheKey that = (CacheKey)o;
+			return hash == that.hash && Objects.equals(key, that.key) &&
+				Arrays.equals(path, that.path) && locale.equals(that.locale) &&
+				Objects.equals(style, that.style) && Objects.equals(variation, that.variation);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public String toString()
+		{
+			return key + '-' + Arrays.toString(path) + '-' + locale + '-' + style + '-' + variation;
 		}
 	}
 }
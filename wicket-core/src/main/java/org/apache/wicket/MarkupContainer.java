@@ -23,15 +23,12 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
-import org.apache.commons.collections4.map.LinkedMap;
 import org.apache.wicket.core.util.string.ComponentStrings;
 import org.apache.wicket.markup.ComponentTag;
 import org.apache.wicket.markup.ComponentTag.IAutoComponentFactory;
@@ -106,13 +103,10 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 {
 	private static final long serialVersionUID = 1L;
 
-	private static final int INITIAL_CHILD_LIST_CAPACITY = 12;
-
 	/**
-	 * The threshold where we start using a Map to store children in, replacing a List. Adding
-	 * components to a list is O(n), and to a map O(1). The magic number is 24, due to a Map using
-	 * more memory to store its elements and below 24 children there's no discernible difference
-	 * between adding to a Map or a List.
+	 * The threshold where we start indexing the children by id, replacing a linear search. The
+	 * index costs an int per child, and below 24 children there's no discernible difference
+	 * between a search and an indexed lookup.
 	 * 
 	 * We have focused on adding elements to a list, instead of indexed lookups because adding is an
 	 * action that is performed very often, and lookups often are done by component IDs, not index.
@@ -129,7 +123,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * This is stored in meta data because it only is necessary when a child is removed, and this
 	 * saves the memory necessary for a field on a widely used class.
 	 */
-	private static final MetaDataKey<LinkedList<RemovedChild>> REMOVALS_KEY = new MetaDataKey<>()
+	private static final MetaDataKey<ArrayList<RemovedChild>> REMOVALS_KEY = new MetaDataKey<>()
 	{
 		private static final long serialVersionUID = 1L;
 	};
@@ -164,8 +158,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 
 	/**
 	 * The children of this markup container, if any. Can be a Component when there's only one
-	 * child, a List when the number of children is fewer than {@link #MAPIFY_THRESHOLD} or a Map
-	 * when there are more children.
+	 * child or {@link MarkupContainerChildren} when there are more children.
 	 */
 	private Object children;
 
@@ -309,7 +302,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		// that's all what most auto-components need. Unfortunately child.onDetach() will not / can
 		// not be invoked, since the parent doesn't known its one of his children. Hence we need to
 		// properly add it.
-		children_remove(component.getId());
+		children_remove(component.getId(), true);
 		add(component);
 
 		return true;
@@ -603,22 +596,23 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 				{
 					internalIterator = Collections.singleton((Component)children).iterator();
 				}
-				else if (children instanceof List)
-				{
-					List<Component> childrenList = children();
-					internalIterator = childrenList.iterator();
-				}
 				else
 				{
-					Map<String, Component> childrenMap = children();
-					internalIterator = childrenMap.values().iterator();
+					MarkupContainerChildren kids = children();
+					internalIterator = kids.iterator();
 				}
 
 				// since we now have a new iterator, we need to set it to the last known position
 				currentComponent = findLastExistingChildAlreadyReturned(currentComponent);
 				expectedModCounter = modCounter;
 
-				if (currentComponent != null)
+				if (currentComponent != null && children instanceof MarkupContainerChildren)
+				{
+					// continue directly after the last processed component
+					MarkupContainerChildren kids = children();
+					internalIterator = kids.iteratorAfter(currentComponent);
+				}
+				else if (currentComponent != null)
 				{
 					// move the new internal iterator to the place of the last processed component
 					while (internalIterator.hasNext() &&
@@ -633,7 +627,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 				if (current == null) {
 					indexInRemovalsSinceLastUpdate = 0;
 				} else {
-					LinkedList<RemovedChild> removals = removals_get();
+					List<RemovedChild> removals = removals_get();
 					if (removals != null) {
 						check_removed:
 						while (current != null)
@@ -693,12 +687,37 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 
 		Args.notNull(component, "component");
 
-		children_remove(component.getId());
+		children_remove(component.getId(), true);
 		removedComponent(component);
 
 		return this;
 	}
 
+	/**
+	 * THIS METHOD IS NOT PART OF THE WICKET PUBLIC API. DO NOT USE IT.
+	 * <p>
+	 * Removes a rendered child which was added with {@link #autoAdd(Component, MarkupStream)}.
+	 * Unlike {@link #remove(Component)} the removal is not kept until the end of the request, so
+	 * the child can be garbage collected right away. An iterator over the children which returned
+	 * the child last ends after it.
+	 * 
+	 * @param component
+	 *            the auto component to remove
+	 */
+	protected final void removeRenderedAutoComponent(final Component component)
+	{
+		Args.notNull(component, "component");
+
+		if (component.getParent() != this || component.isAuto() == false)
+		{
+			throw new IllegalArgumentException(
+				exceptionMessage("Not an auto component of this container: " + component));
+		}
+
+		children_remove(component.getId(), false);
+		removedComponent(component);
+	}
+
 	/**
 	 * Removes the given component
 	 * 
@@ -1072,10 +1091,9 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * 
 	 * - a component when there's only one child
 	 * 
-	 * - a list of components when there are more than 1 children
-	 * 
-	 * - a map of components when the number of children makes looking up children by id more costly
-	 * than an indexed search (see MAPIFY_THRESHOLD)
+	 * - an array of components when there are more than 1 children, which is indexed by id when
+	 * the number of children makes searching for children by id more costly than an indexed
+	 * lookup (see MAPIFY_THRESHOLD and MarkupContainerChildren)
 	 * 
 	 * To ensure that iterating through the list of children keeps working even when children are
 	 * added, replaced and removed without throwing a ConcurrentModificationException a special
@@ -1114,34 +1132,23 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			Component child = children();
 			return child.getId().equals(childId) ? child : null;
 		}
-		if (children instanceof List)
-		{
-			List<Component> kids = children();
-			for (Component child : kids)
-			{
-				if (child.getId().equals(childId))
-				{
-					return child;
-				}
-			}
-			return null;
-		}
-		Map<String, Component> kids = children();
+		MarkupContainerChildren kids = children();
 		return kids.get(childId);
 	}
 
 	/**
 	 * Removes the child component identified by {@code childId} from the list of children.
 	 * 
-	 * Will change the internal list or map to a single component when the number of children hits
-	 * 1, but not change the internal map to a list when the threshold is reached (the memory was
-	 * already claimed, so there's little to be gained other than wasting CPU cycles for the
-	 * conversion).
+	 * Will change the internal array to a single component when the number of children hits 1, but
+	 * not drop the index when the threshold is reached (the memory was already claimed, so there's
+	 * little to be gained other than wasting CPU cycles for the conversion).
 	 * 
 	 * @param childId
 	 *            the id of the child component to remove
+	 * @param record
+	 *            whether to record the removal for iterators over the children
 	 */
-	private void children_remove(String childId)
+	private void children_remove(String childId, boolean record)
 	{
 		if (children instanceof Component)
 		{
@@ -1149,43 +1156,44 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			if (oldChild.getId().equals(childId))
 			{
 				children = null;
-				removals_add(oldChild, null);
+				children_removed(oldChild, null, record);
 			}
 		}
-		else if (children instanceof List)
+		else if (children instanceof MarkupContainerChildren)
 		{
-			List<Component> childrenList = children();
-			Iterator<Component> it = childrenList.iterator();
-			Component prevChild = null;
-			while (it.hasNext())
+			MarkupContainerChildren kids = children();
+			Component[] removal = new Component[2];
+			if (kids.remove(childId, removal))
 			{
-				Component child = it.next();
-				if (child.getId().equals(childId))
+				children_removed(removal[0], removal[1], record);
+				if (kids.size() == 1)
 				{
-					it.remove();
-					removals_add(child, prevChild);
-					if (childrenList.size() == 1)
-					{
-						children = childrenList.get(0);
-					}
-					return;
+					children = kids.single();
 				}
-				prevChild = child;
 			}
 		}
-		else if (children instanceof LinkedMap)
+	}
+
+	/**
+	 * Notifies the iterators over the children of a removal.
+	 * 
+	 * @param removedChild
+	 *            the child that was removed
+	 * @param prevSibling
+	 *            the child that was the previous sibling of the removed child
+	 * @param record
+	 *            whether to record the removal, so iterators can continue after the previous
+	 *            sibling
+	 */
+	private void children_removed(Component removedChild, Component prevSibling, boolean record)
+	{
+		if (record)
+		{
+			removals_add(removedChild, prevSibling);
+		}
+		else
 		{
-			LinkedMap<String, Component> childrenMap = children();
-			if (childrenMap.containsKey(childId))
-			{
-				String prevSiblingId = childrenMap.previousKey(childId);
-				Component oldChild = childrenMap.remove(childId);
-				removals_add(oldChild, childrenMap.get(prevSiblingId));
-				if (childrenMap.size() == 1)
-				{
-					children = childrenMap.values().iterator().next();
-				}
-			}
+			modCounter++;
 		}
 	}
 
@@ -1204,12 +1212,8 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		{
 			return 1;
 		}
-		if (children instanceof List)
-		{
-			List<?> kids = children();
-			return kids.size();
-		}
-		return ((Map<?, ?>)children).size();
+		MarkupContainerChildren kids = children();
+		return kids.size();
 	}
 
 	/**
@@ -1251,13 +1255,9 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			{
 				/*
 				 * the put doesn't replace the existing child, so we need to increase the children
-				 * storage to a list and add the existing and new child to it
+				 * storage to an array holding the existing and new child
 				 */
-				Component originalChild = children();
-				List<Component> newChildren = new ArrayList<>(INITIAL_CHILD_LIST_CAPACITY);
-				newChildren.add(originalChild);
-				newChildren.add(child);
-				children = newChildren;
+				children = new MarkupContainerChildren(oldChild, child);
 
 				// it is an addtion, so we need to notify the iterators of this change.
 				modCounter++;
@@ -1265,46 +1265,8 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 			}
 		}
 
-		if (children instanceof List)
-		{
-			List<Component> childrenList = children();
-
-			// first see if the child replaces an existing child
-			for (int i = 0; i < childrenList.size(); i++)
-			{
-				Component curChild = childrenList.get(i);
-				if (curChild.getId().equals(child.getId()))
-				{
-					return childrenList.set(i, child);
-				}
-			}
-
-			// it is an addtion, so we need to notify the iterators of this change.
-			modCounter++;
-
-			/*
-			 * If it still fits in the allotted number of items of a List, just add it, otherwise
-			 * change the internal data structure to a Map for speedier lookups.
-			 */
-			if (childrenList.size() < MAPIFY_THRESHOLD)
-			{
-				childrenList.add(child);
-			}
-			else
-			{
-				Map<String, Component> newChildren = new LinkedMap<>(MAPIFY_THRESHOLD * 2);
-				for (Component curChild : childrenList)
-				{
-					newChildren.put(curChild.getId(), curChild);
-				}
-				newChildren.put(child.getId(), child);
-				children = newChildren;
-			}
-			return null;
-		}
-
-		Map<String, Component> childrenMap = children();
-		Component oldChild = childrenMap.put(child.getId(), child);
+		MarkupContainerChildren kids = children();
+		Component oldChild = kids.put(child);
 
 		if (oldChild == null)
 		{
@@ -1320,7 +1282,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * 
 	 * @return the list of removed children, may be {@code null}
 	 */
-	private LinkedList<RemovedChild> removals_get()
+	private List<RemovedChild> removals_get()
 	{
 		return getRequestFlag(RFLAG_CONTAINER_HAS_REMOVALS) ? getMetaData(REMOVALS_KEY) : null;
 	}
@@ -1332,7 +1294,7 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	 * @param removals
 	 *            the new list of removals
 	 */
-	private void removals_set(LinkedList<RemovedChild> removals)
+	private void removals_set(ArrayList<RemovedChild> removals)
 	{
 		setRequestFlag(RFLAG_CONTAINER_HAS_REMOVALS, removals != null);
 		setMetaData(REMOVALS_KEY, removals);
@@ -1362,11 +1324,12 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	{
 		modCounter++;
 
-		LinkedList<RemovedChild> removals = removals_get();
+		List<RemovedChild> removals = removals_get();
 		if (removals == null)
 		{
-			removals = new LinkedList<>();
-			removals_set(removals);
+			ArrayList<RemovedChild> newRemovals = new ArrayList<>(4);
+			removals_set(newRemovals);
+			removals = newRemovals;
 		}
 		removals.add(new RemovedChild(removedChild, prevSibling));
 	}
@@ -1700,7 +1663,6 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 	/**
 	 * @return a copy of the children array.
 	 */
-	@SuppressWarnings("unchecked")
 	private List<Component> copyChildren()
 	{
 		if (children == null)
@@ -1711,13 +1673,9 @@ public abstract class MarkupContainer extends Component implements Iterable<Comp
 		{
 			return Collections.singletonList((Component)children);
 		}
-		else if (children instanceof List)
-		{
-			return new ArrayList<>((List<Component>)children);
-		}
 		else
 		{
-			return new ArrayList<>(((Map<String, Component>)children).values());
+			return ((MarkupContainerChildren)children).toList();
 		}
 	}
 
@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Storage for the children of a {@link MarkupContainer} with two or more children, keeping the
+ * order of addition.
+ * <p>
+ * The children are held in an array, removed children leave a hole which is reclaimed when the
+ * array would have to grow. Up to {@link MarkupContainer#MAPIFY_THRESHOLD} children are looked up
+ * by scanning this array, for more children an open addressing hash table of array slots indexed
+ * by component id is maintained. The table is not serialized, only the children are written. After
+ * deserialization it is rebuilt on the first lookup.
+ * <p>
+ * Compared to a map every child costs just an array element and a table slot, with no entry
+ * objects.
+ */
+final class MarkupContainerChildren implements Iterable<Component>, Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	/** the children in order of addition, with {@code null} for removed children */
+	private transient Component[] components;
+
+	/** the number of used slots in {@link #components}, including holes */
+	private transient int end;
+
+	/** the number of children */
+	private transient int size;
+
+	/**
+	 * Slots of children plus one by hash of their id, {@code 0} marks a free entry. {@code null}
+	 * while there are few children.
+	 */
+	private transient int[] index;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param first
+	 *            the first child
+	 * @param second
+	 *            the second child
+	 */
+	MarkupContainerChildren(Component first, Component second)
+	{
+		components = new Component[INITIAL_CAPACITY];
+		components[0] = first;
+		components[1] = second;
+		end = 2;
+		size = 2;
+	}
+
+	/**
+	 * @return the number of children
+	 */
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @param id
+	 *            the component id
+	 * @return the child with the given id, or {@code null}
+	 */
+	Component get(String id)
+	{
+		int slot = slotOf(id);
+		return slot < 0 ? null : components[slot];
+	}
+
+	/**
+	 * @return {@code true} if the children are looked up by the hash table
+	 */
+	boolean isIndexed()
+	{
+		return index != null;
+	}
+
+	/**
+	 * @return the only remaining child, or {@code null} if there are more children
+	 */
+	Component single()
+	{
+		if (size == 1)
+		{
+			for (int i = 0; i < end; i++)
+			{
+				if (components[i] != null)
+				{
+					return components[i];
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the child, replacing the child with the same id at its position or appending it.
+	 * 
+	 * @param child
+	 *            the child
+	 * @return the replaced child, or {@code null} if the child was added
+	 */
+	Component put(Component child)
+	{
+		int slot = slotOf(child.getId());
+		if (slot >= 0)
+		{
+			Component replaced = components[slot];
+			components[slot] = child;
+			return replaced;
+		}
+
+		if (end == components.length)
+		{
+			makeRoom();
+		}
+		components[end] = child;
+		if (index != null)
+		{
+			index(end);
+		}
+		end++;
+		size++;
+
+		if (index == null && size > MarkupContainer.MAPIFY_THRESHOLD)
+		{
+			rebuildIndex();
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the child with the given id.
+	 * 
+	 * @param id
+	 *            the component id
+	 * @param removal
+	 *            receives the removed child at {@code 0} and its previous sibling at {@code 1}
+	 * @return {@code true} if a child was removed
+	 */
+	boolean remove(String id, Component[] removal)
+	{
+		int slot = slotOf(id);
+		if (slot < 0)
+		{
+			return false;
+		}
+
+		removal[0] = components[slot];
+		removal[1] = null;
+		for (int i = slot - 1; i >= 0; i--)
+		{
+			if (components[i] != null)
+			{
+				removal[1] = components[i];
+				break;
+			}
+		}
+
+		if (index != null)
+		{
+			unindex(slot);
+		}
+		components[slot] = null;
+		size--;
+		while (end > 0 && components[end - 1] == null)
+		{
+			end--;
+		}
+		return true;
+	}
+
+	/**
+	 * @return a copy of the children
+	 */
+	List<Component> toList()
+	{
+		List<Component> list = new ArrayList<>(size);
+		for (int i = 0; i < end; i++)
+		{
+			if (components[i] != null)
+			{
+				list.add(components[i]);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * An iterator over the children, reflecting replacements but not additions or removals.
+	 */
+	@Override
+	public Iterator<Component> iterator()
+	{
+		return new ChildIterator(0);
+	}
+
+	/**
+	 * An iterator positioned after the given child.
+	 * 
+	 * @param child
+	 *            the last child already iterated
+	 * @return iterator over the children after {@code child}, which is empty if {@code child} is
+	 *         no longer present
+	 */
+	Iterator<Component> iteratorAfter(Component child)
+	{
+		int slot = slotOf(child.getId());
+		if (slot < 0 || components[slot] != child)
+		{
+			return new ChildIterator(end);
+		}
+		return new ChildIterator(slot + 1);
+	}
+
+	/**
+	 * @param id
+	 *            the component id
+	 * @return the slot of the child with the id, or {@code -1}
+	 */
+	private int slotOf(String id)
+	{
+		if (index == null && size > MarkupContainer.MAPIFY_THRESHOLD)
+		{
+			// not built by readObject(), children might still be deserializing their ids
+			rebuildIndex();
+		}
+
+		int hash = id.hashCode();
+		if (index == null)
+		{
+			for (int i = 0; i < end; i++)
+			{
+				Component child = components[i];
+				if (child != null)
+				{
+					String childId = child.getId();
+					if (childId.hashCode() == hash && childId.equals(id))
+					{
+						return i;
+					}
+				}
+			}
+			return -1;
+		}
+
+		int mask = index.length - 1;
+		for (int i = spread(hash) & mask;; i = (i + 1) & mask)
+		{
+			int entry = index[i];
+			if (entry == 0)
+			{
+				return -1;
+			}
+			if (components[entry - 1].getId().equals(id))
+			{
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Reclaims the holes of removed children, or grows the array if there are few.
+	 */
+	private void makeRoom()
+	{
+		if (end - size > size / 2)
+		{
+			int slot = 0;
+			for (int i = 0; i < end; i++)
+			{
+				if (components[i] != null)
+				{
+					components[slot++] = components[i];
+				}
+			}
+			Arrays.fill(components, slot, end, null);
+			end = slot;
+		}
+		else
+		{
+			components = Arrays.copyOf(components, components.length * 2);
+		}
+
+		if (index != null)
+		{
+			rebuildIndex();
+		}
+	}
+
+	/**
+	 * Builds the table for the current children, with at most half of its entries used.
+	 */
+	private void rebuildIndex()
+	{
+		index = new int[components.length * 2];
+		for (int i = 0; i < end; i++)
+		{
+			if (components[i] != null)
+			{
+				index(i);
+			}
+		}
+	}
+
+	private void index(int slot)
+	{
+		int mask = index.length - 1;
+		int i = spread(components[slot].getId().hashCode()) & mask;
+		while (index[i] != 0)
+		{
+			i = (i + 1) & mask;
+		}
+		index[i] = slot + 1;
+	}
+
+	/**
+	 * Removes the slot from the table, moving following entries of the probe sequence back so
+	 * lookups need no tombstones.
+	 */
+	private void unindex(int slot)
+	{
+		int mask = index.length - 1;
+		int i = spread(components[slot].getId().hashCode()) & mask;
+		while (index[i] != slot + 1)
+		{
+			i = (i + 1) & mask;
+		}
+
+		for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask)
+		{
+			int home = spread(components[index[j] - 1].getId().hashCode()) & mask;
+			boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+			if (!reachable)
+			{
+				index[i] = index[j];
+				i = j;
+			}
+		}
+		index[i] = 0;
+	}
+
+	private static int spread(int hash)
+	{
+		return hash ^ (hash >>> 16);
+	}
+
+	private void writeObject(ObjectOutputStream s) throws IOException
+	{
+		s.defaultWriteObject();
+		s.writeInt(size);
+		for (int i = 0; i < end; i++)
+		{
+			if (components[i] != null)
+			{
+				s.writeObject(components[i]);
+			}
+		}
+	}
+
+	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException
+	{
+		s.defaultReadObject();
+		size = s.readInt();
+		int capacity = INITIAL_CAPACITY;
+		while (capacity < size)
+		{
+			capacity *= 2;
+		}
+		components = new Component[capacity];
+		for (int i = 0; i < size; i++)
+		{
+			components[i] = (Component)s.readObject();
+		}
+		end = size;
+	}
+
+	private class ChildIterator implements Iterator<Component>
+	{
+		private int next;
+
+		private ChildIterator(int next)
+		{
+			this.next = next;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (next < end && components[next] == null)
+			{
+				next++;
+			}
+			return next < end;
+		}
+
+		@Override
+		public Component next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			return components[next++];
+		}
+	}
+}
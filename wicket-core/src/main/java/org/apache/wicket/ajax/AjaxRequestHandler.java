@@ -42,6 +42,7 @@ import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.response.StringResponse;
 import org.apache.wicket.response.filter.IResponseFilter;
+import org.apache.wicket.settings.RequestCycleSettings;
 import org.apache.wicket.util.encoding.UrlDecoder;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Classes;
@@ -271,8 +272,10 @@ public class AjaxRequestHandler extends AbstractPartialPageRequestHandler implem
 
 		page.send(app, Broadcast.BREADTH, this);
 
+		final RequestCycleSettings settings = app.getRequestCycleSettings();
+
 		// Determine encoding
-		final String encoding = app.getRequestCycleSettings().getResponseRequestEncoding();
+		final String encoding = settings.getResponseRequestEncoding();
 
 		// Set content type based on markup type for page
 		update.setContentType(response, encoding);
@@ -280,10 +283,21 @@ public class AjaxRequestHandler extends AbstractPartialPageRequestHandler implem
 		// Make sure it is not cached by a client
 		response.disableCaching();
 
-		final StringResponse bodyResponse = new StringResponse();
-		update.writeTo(bodyResponse, encoding);
-		CharSequence filteredResponse = invokeResponseFilters(bodyResponse);
-		response.write(filteredResponse);
+		List<IResponseFilter> responseFilters = settings.getResponseFilters();
+		if (settings.getBufferAjaxResponse() == false &&
+			(responseFilters == null || responseFilters.isEmpty()))
+		{
+			// nothing to filter, so write components directly to the response
+			update.setStreaming(true);
+			update.writeTo(response, encoding);
+		}
+		else
+		{
+			final StringResponse bodyResponse = new StringResponse();
+			update.writeTo(bodyResponse, encoding);
+			CharSequence filteredResponse = invokeResponseFilters(bodyResponse);
+			response.write(filteredResponse);
+		}
 	}
 
 	private boolean shouldRedirectToPage(IRequestCycle requestCycle)
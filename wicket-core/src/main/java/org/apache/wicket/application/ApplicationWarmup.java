@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Component;
+import org.apache.wicket.IApplicationListener;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.Page;
+import org.apache.wicket.Session;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.core.request.mapper.MountedMapper;
+import org.apache.wicket.core.request.mapper.ResourceMapper;
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.mapper.ICompoundRequestMapper;
+import org.apache.wicket.request.mapper.IRequestMapperDelegate;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.request.resource.caching.ResourceUrl;
+import org.apache.wicket.resource.loader.IStringResourceLoader;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms up the caches of an application on startup, so the first requests after a (re)start do
+ * not have to pay for loading markup, properties and resource versions.
+ * <p>
+ * The home page, all mounted pages and resources, the resource references held in static fields
+ * of these pages and any explicitly {@link #add(Class) added} component classes are collected.
+ * For each of them the markup, the properties files and the versions of static resources are
+ * loaded in parallel into the {@link org.apache.wicket.markup.MarkupCache}, the
+ * {@link org.apache.wicket.resource.IPropertiesFactory} and the
+ * {@link org.apache.wicket.request.resource.caching.version.CachingResourceVersion}.
+ * <p>
+ * Warm-up is opt-in, register it in {@link Application#init()} after all pages and resources are
+ * mounted:
+ * 
+ * <pre>
+ * getApplicationListeners().add(new ApplicationWarmup(Locale.ENGLISH, Locale.GERMAN));
+ * </pre>
+ * 
+ * Since application listeners are notified after the application is initialized, warm-up
+ * finishes before any request is accepted. Failures are logged and do not prevent the application
+ * from starting.
+ */
+public class ApplicationWarmup implements IApplicationListener
+{
+	private static final Logger log = LoggerFactory.getLogger(ApplicationWarmup.class);
+
+	/**
+	 * A key no string resource is expected for, thus all properties files are loaded on lookup.
+	 */
+	private static final String WARMUP_KEY = ApplicationWarmup.class.getName();
+
+	private final List<Locale> locales;
+
+	private final Set<Class<? extends Component>> componentClasses = new LinkedHashSet<>();
+
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Construct.
+	 * 
+	 * @param locales
+	 *            locales to warm up, the default locale if none is given
+	 */
+	public ApplicationWarmup(Locale... locales)
+	{
+		if (locales.length == 0)
+		{
+			this.locales = Arrays.asList(Locale.getDefault());
+		}
+		else
+		{
+			this.locales = Arrays.asList(locales);
+		}
+	}
+
+	/**
+	 * Add a component class to warm up in addition to the home page and the mounted pages, e.g. a
+	 * panel used on many pages.
+	 * 
+	 * @param componentClass
+	 *            component class
+	 * @return {@code this} for chaining
+	 */
+	public ApplicationWarmup add(Class<? extends Component> componentClass)
+	{
+		Args.notNull(componentClass, "componentClass");
+
+		componentClasses.add(componentClass);
+
+		return this;
+	}
+
+	/**
+	 * Set the number of threads to warm up with.
+	 * 
+	 * @param parallelism
+	 *            number of threads, defaults to the number of available processors
+	 * @return {@code this} for chaining
+	 */
+	public ApplicationWarmup setParallelism(int parallelism)
+	{
+		Args.isTrue(parallelism > 0, "parallelism must be positive");
+
+		this.parallelism = parallelism;
+
+		return this;
+	}
+
+	@Override
+	public void onAfterInitialized(Application application)
+	{
+		warmup(application);
+	}
+
+	/**
+	 * Warm up the given application, waiting until all caches are loaded.
+	 * 
+	 * @param application
+	 *            application
+	 */
+	public void warmup(final Application application)
+	{
+		final long start = System.currentTimeMillis();
+
+		Set<Class<? extends Component>> classes = new LinkedHashSet<>();
+		Set<ResourceReference> references = new LinkedHashSet<>();
+
+		Class<? extends Page> homePage = application.getHomePage();
+		if (homePage != null)
+		{
+			classes.add(homePage);
+		}
+		collect(application.getRootRequestMapper(), classes, references);
+		classes.addAll(componentClasses);
+		for (Class<?> clazz : classes)
+		{
+			collectStaticReferences(clazz, references);
+		}
+
+		List<Callable<Void>> tasks = new ArrayList<>();
+		for (Locale locale : locales)
+		{
+			for (Class<? extends Component> clazz : classes)
+			{
+				tasks.add(task(application, locale, () -> warmupComponent(clazz, locale)));
+			}
+			tasks.add(task(application, locale,
+				() -> warmupProperties(application.getClass(), locale)));
+		}
+		for (ResourceReference reference : references)
+		{
+			tasks.add(task(application, locales.get(0), () -> warmupResource(reference)));
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			pool.invokeAll(tasks);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		log.info("Warmed up {} component classes and {} resources in {} locales within {} ms",
+			classes.size(), references.size(), locales.size(), System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Collect pages and resources from the given mapper.
+	 */
+	@SuppressWarnings("unchecked")
+	private void collect(IRequestMapper mapper, Set<Class<? extends Component>> classes,
+		Set<ResourceReference> references)
+	{
+		while (mapper instanceof IRequestMapperDelegate)
+		{
+			mapper = ((IRequestMapperDelegate)mapper).getDelegateMapper();
+		}
+
+		if (mapper instanceof ICompoundRequestMapper)
+		{
+			for (IRequestMapper child : (ICompoundRequestMapper)mapper)
+			{
+				collect(child, classes, references);
+			}
+		}
+		else if (mapper instanceof MountedMapper)
+		{
+			Class<?> pageClass = ((MountedMapper)mapper).getPageClass();
+			if (pageClass != null && Component.class.isAssignableFrom(pageClass))
+			{
+				classes.add((Class<? extends Component>)pageClass);
+			}
+		}
+		else if (mapper instanceof ResourceMapper)
+		{
+			references.add(((ResourceMapper)mapper).getResourceReference());
+		}
+	}
+
+	/**
+	 * Collect the resource references held in static fields of the given class and its
+	 * superclasses.
+	 */
+	private void collectStaticReferences(Class<?> clazz, Set<ResourceReference> references)
+	{
+		while (clazz != null && isStopClass(clazz) == false)
+		{
+			for (Field field : clazz.getDeclaredFields())
+			{
+				if (Modifier.isStatic(field.getModifiers()) &&
+					ResourceReference.class.isAssignableFrom(field.getType()))
+				{
+					try
+					{
+						field.setAccessible(true);
+
+						Object reference = field.get(null);
+						if (reference != null)
+						{
+							references.add((ResourceReference)reference);
+						}
+					}
+					catch (Exception | LinkageError ex)
+					{
+						log.debug("Cannot read resource reference {}", field, ex);
+					}
+				}
+			}
+
+			clazz = clazz.getSuperclass();
+		}
+	}
+
+	/**
+	 * Load the markup and properties of a component class.
+	 * 
+	 * @param clazz
+	 *            component class
+	 * @param locale
+	 *            locale
+	 */
+	protected void warmupComponent(Class<? extends Component> clazz, Locale locale)
+	{
+		if (MarkupContainer.class.isAssignableFrom(clazz))
+		{
+			MarkupFactory.get().getMarkup(clazz.asSubclass(MarkupContainer.class), locale, null);
+		}
+
+		warmupProperties(clazz, locale);
+	}
+
+	/**
+	 * Load the properties of a class and its superclasses by looking up a string resource that
+	 * does not exist.
+	 * 
+	 * @param clazz
+	 *            class
+	 * @param locale
+	 *            locale
+	 */
+	protected void warmupProperties(Class<?> clazz, Locale locale)
+	{
+		String style = Session.get().getStyle();
+
+		for (IStringResourceLoader loader : Application.get()
+			.getResourceSettings()
+			.getStringResourceLoaders())
+		{
+			loader.loadStringResource(clazz, WARMUP_KEY, locale, style, null);
+		}
+	}
+
+	/**
+	 * Calculate the version of a static resource.
+	 * 
+	 * @param reference
+	 *            reference of the resource
+	 */
+	protected void warmupResource(ResourceReference reference)
+	{
+		IResource resource = reference.getResource();
+
+		if (resource instanceof IStaticCacheableResource)
+		{
+			IResourceCachingStrategy strategy = Application.get()
+				.getResourceSettings()
+				.getCachingStrategy();
+
+			strategy.decorateUrl(new ResourceUrl(reference.getName(), new PageParameters()),
+				(IStaticCacheableResource)resource);
+		}
+	}
+
+	private static boolean isStopClass(Class<?> clazz)
+	{
+		return clazz.equals(Object.class) || clazz.equals(Application.class) ||
+			clazz.equals(WebPage.class) || clazz.equals(WebMarkupContainer.class) ||
+			clazz.equals(WebComponent.class) || clazz.equals(Page.class) ||
+			clazz.equals(MarkupContainer.class) || clazz.equals(Component.class);
+	}
+
+	/**
+	 * Create a task running the given warm-up inside a bound {@link ThreadContext} with a request
+	 * cycle and session, as rendering would.
+	 */
+	private Callable<Void> task(final Application application, final Locale locale,
+		final Runnable warmup)
+	{
+		return () -> {
+			ThreadContext oldContext = ThreadContext.detach();
+			try
+			{
+				ThreadContext.setApplication(application);
+
+				MockWebRequest request = new MockWebRequest(Url.parse("/"));
+				request.setLocale(locale);
+				MockWebResponse response = new MockWebResponse();
+
+				RequestCycle cycle = application.createRequestCycle(request, response);
+				ThreadContext.setRequestCycle(cycle);
+
+				Session session = application.newSession(request, response);
+				session.setLocale(locale);
+				ThreadContext.setSession(session);
+
+				warmup.run();
+			}
+			catch (RuntimeException ex)
+			{
+				log.warn("Warm-up failed", ex);
+			}
+			finally
+			{
+				ThreadContext.restore(oldContext);
+			}
+			return null;
+		};
+	}
+}
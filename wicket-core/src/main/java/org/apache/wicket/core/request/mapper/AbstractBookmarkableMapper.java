@@ -38,6 +38,7 @@ import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.mapper.IMountedRequestMapper;
 import org.apache.wicket.request.mapper.info.ComponentInfo;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.info.PageInfo;
@@ -829,4 +830,25 @@ public abstract class AbstractBookmarkableMapper extends AbstractComponentMapper
 			return getMatchedSegmentSizes(url) != null;
 		}
 	}
+
+	/**
+	 * Gets the mount segments up to the first optional placeholder, which every mapped URL starts
+	 * with at fixed positions.
+	 * 
+	 * @return the leading mount segments with {@code null} for required placeholders
+	 * @see IMountedRequestMapper#getRequiredSegments()
+	 */
+	protected final String[] getRequiredMountSegments()
+	{
+		List<String> required = new ArrayList<>();
+		for (String segment : mountSegments)
+		{
+			if (getOptionalPlaceholder(segment) != null)
+			{
+				break;
+			}
+			required.add(getPlaceholder(segment) == null ? segment : null);
+		}
+		return required.toArray(new String[0]);
+	}
 }
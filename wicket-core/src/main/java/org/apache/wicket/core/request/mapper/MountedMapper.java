@@ -17,13 +17,20 @@
 package org.apache.wicket.core.request.mapper;
 
 import java.util.Objects;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import org.apache.wicket.core.request.handler.BookmarkableListenerRequestHandler;
+import org.apache.wicket.core.request.handler.BookmarkablePageRequestHandler;
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
 import org.apache.wicket.core.request.handler.ListenerRequestHandler;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestHandlerDelegate;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.IMountedRequestMapper;
 import org.apache.wicket.request.mapper.info.ComponentInfo;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.info.PageInfo;
@@ -62,8 +69,11 @@ import org.apache.wicket.util.string.Strings;
  * 
  * @author Matej Knopp
  */
-public class MountedMapper extends AbstractBookmarkableMapper
+public class MountedMapper extends AbstractBookmarkableMapper implements IMountedRequestMapper
 {
+	/** computes the {@link #getHandlerKey() key} of a handler */
+	private static final Function<IRequestHandler, Object> PAGE_CLASS_KEY = MountedMapper::getPageClassKey;
+
 	/** bookmarkable page class. */
 	private final Supplier<Class<? extends IRequestablePage>> pageClassProvider;
 
@@ -206,6 +216,67 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		return encodePageParameters(url, copy, pageParametersEncoder);
 	}
 
+	/**
+	 * Subclasses are not indexed, since they might match URLs differently.
+	 */
+	@Override
+	public String[] getRequiredSegments()
+	{
+		// the home page is mapped with an URL without segments
+		return getClass() == MountedMapper.class ? getRequiredMountSegments() : null;
+	}
+
+	/**
+	 * The key is the name of the page class. Subclasses are not indexed, since they might map
+	 * other handlers, and neither are mappers with a page class provider other than a
+	 * {@link ClassReference}, which might provide a different class later on.
+	 */
+	@Override
+	public Object getHandlerKey()
+	{
+		if (getClass() == MountedMapper.class && pageClassProvider instanceof ClassReference)
+		{
+			return getPageClass().getName();
+		}
+		return null;
+	}
+
+	@Override
+	public Function<IRequestHandler, Object> getHandlerKeyFunction()
+	{
+		return PAGE_CLASS_KEY;
+	}
+
+	/**
+	 * Returns the name of the page class a handler is mapped for by
+	 * {@link #mapHandler(IRequestHandler)}. The mapper compares the classes themselves.
+	 * 
+	 * @param requestHandler
+	 * @return page class name or {@code null} if the handler is not mapped by any mounted mapper
+	 */
+	private static Object getPageClassKey(IRequestHandler requestHandler)
+	{
+		if (requestHandler instanceof ListenerRequestHandler)
+		{
+			IRequestablePage page = ((ListenerRequestHandler)requestHandler).getPage();
+			return page != null ? page.getClass().getName() : null;
+		}
+
+		while (requestHandler instanceof IRequestHandlerDelegate)
+		{
+			requestHandler = ((IRequestHandlerDelegate)requestHandler).getDelegateHandler();
+		}
+
+		if (requestHandler instanceof BookmarkablePageRequestHandler ||
+			requestHandler instanceof RenderPageRequestHandler ||
+			requestHandler instanceof BookmarkableListenerRequestHandler)
+		{
+			Class<?> pageClass = ((IPageClassRequestHandler)requestHandler).getPageClass();
+			return pageClass != null ? pageClass.getName() : null;
+		}
+		return null;
+	}
+
 	/**
 	 * Check if the URL is for home page and the home page class match mounted class. If so,
 	 * redirect to mounted URL.
@@ -257,7 +328,10 @@ public class MountedMapper extends AbstractBookmarkableMapper
 		return Objects.equals(pageClass, this.getPageClass());
 	}
 
-	private Class<? extends IRequestablePage> getPageClass()
+	/**
+	 * @return the class of the page this mapper is mounted for
+	 */
+	public Class<? extends IRequestablePage> getPageClass()
 	{
 		return pageClassProvider.get();
 	}
@@ -23,6 +23,7 @@ import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.mapper.IMountedRequestMapper;
 import org.apache.wicket.request.mapper.info.PageComponentInfo;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
@@ -61,7 +62,7 @@ import org.apache.wicket.util.string.Strings;
  *  (these will redirect to hybrid if page is not stateless)
  * </pre>
  */
-public class PackageMapper extends AbstractBookmarkableMapper
+public class PackageMapper extends AbstractBookmarkableMapper implements IMountedRequestMapper
 {
 	/**
 	 * the name of the package for which all bookmarkable pages should be mounted
@@ -132,6 +133,15 @@ public class PackageMapper extends AbstractBookmarkableMapper
 		return null;
 	}
 
+	/**
+	 * Subclasses are not indexed, since they might match URLs differently.
+	 */
+	@Override
+	public String[] getRequiredSegments()
+	{
+		return getClass() == PackageMapper.class ? getRequiredMountSegments() : null;
+	}
+
 	@Override
 	protected UrlInfo parseRequest(Request request)
 	{
@@ -17,6 +17,7 @@
 package org.apache.wicket.core.request.mapper;
 
 import java.util.List;
+import java.util.function.Function;
 
 import javax.servlet.http.HttpServletResponse;
 
@@ -27,6 +28,7 @@ import org.apache.wicket.request.Request;
 import org.apache.wicket.request.Url;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
 import org.apache.wicket.request.http.flow.AbortWithHttpErrorCodeException;
+import org.apache.wicket.request.mapper.IMountedRequestMapper;
 import org.apache.wicket.request.mapper.parameter.INamedParameters;
 import org.apache.wicket.request.mapper.parameter.IPageParametersEncoder;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
@@ -70,8 +72,11 @@ import org.apache.wicket.util.string.Strings;
  *
  * @author Peter Ertl
  */
-public class ResourceMapper extends AbstractBookmarkableMapper
+public class ResourceMapper extends AbstractBookmarkableMapper implements IMountedRequestMapper
 {
+	// computes the key of a handler, see getHandlerKey()
+	private static final Function<IRequestHandler, Object> RESOURCE_REFERENCE_KEY = ResourceMapper::getResourceReferenceKey;
+
 	// encode page parameters into url + decode page parameters from url
 	private final IPageParametersEncoder parametersEncoder;
 
@@ -158,6 +163,58 @@ public class ResourceMapper extends AbstractBookmarkableMapper
 		return new ResourceReferenceRequestHandler(resourceReference, parameters);
 	}
 
+	/**
+	 * Subclasses are not indexed, since they might match URLs differently.
+	 */
+	@Override
+	public String[] getRequiredSegments()
+	{
+		if (getClass() != ResourceMapper.class)
+		{
+			return null;
+		}
+
+		String[] segments = getRequiredMountSegments();
+		if (segments.length > 0)
+		{
+			// the last segment of the url might carry caching decoration
+			segments[segments.length - 1] = null;
+		}
+		return segments;
+	}
+
+	/**
+	 * Subclasses are not indexed, since they might map other handlers.
+	 */
+	@Override
+	public Object getHandlerKey()
+	{
+		return getClass() == ResourceMapper.class ? resourceReference.getKey() : null;
+	}
+
+	@Override
+	public Function<IRequestHandler, Object> getHandlerKeyFunction()
+	{
+		return RESOURCE_REFERENCE_KEY;
+	}
+
+	/**
+	 * Returns the key of the resource reference a handler is mapped for by
+	 * {@link #mapHandler(IRequestHandler)}.
+	 * 
+	 * @param requestHandler
+	 * @return resource reference key or {@code null} if the handler is not mapped by any resource
+	 *         mapper
+	 */
+	private static Object getResourceReferenceKey(IRequestHandler requestHandler)
+	{
+		if (requestHandler instanceof ResourceReferenceRequestHandler)
+		{
+			return ((ResourceReferenceRequestHandler)requestHandler).getResourceReference().getKey();
+		}
+		return null;
+	}
+
 	@Override
 	protected final UrlInfo parseRequest(final Request request) {
 		throw new UnsupportedOperationException();
@@ -244,6 +301,14 @@ public class ResourceMapper extends AbstractBookmarkableMapper
 		return encodePageParameters(url, parameters, parametersEncoder);
 	}
 
+	/**
+	 * @return the reference of the resource this mapper is mounted for
+	 */
+	public ResourceReference getResourceReference()
+	{
+		return resourceReference;
+	}
+
 	protected IResourceCachingStrategy getCachingStrategy()
 	{
 		return Application.get().getResourceSettings().getCachingStrategy();
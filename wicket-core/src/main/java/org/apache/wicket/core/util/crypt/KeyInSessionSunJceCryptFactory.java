@@ -22,6 +22,7 @@ import java.util.UUID;
 
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.Session;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.util.crypt.ICrypt;
 import org.apache.wicket.util.crypt.ICryptFactory;
 import org.apache.wicket.util.crypt.SunJceCrypt;
@@ -33,6 +34,9 @@ import org.apache.wicket.util.lang.Args;
  * attacks.
  * <br>
  * Note that the use of this crypt factory will result in an immediate creation of a session.
+ * <br>
+ * During a request the same crypt is returned for all invocations with the same session key, so
+ * encrypting many URLs does not set up a new crypt for each one.
  *
  * @author igor.vaynberg
  */
@@ -44,6 +48,12 @@ public class KeyInSessionSunJceCryptFactory implements ICryptFactory
 		private static final long serialVersionUID = 1L;
 	};
 
+	/** metadata-key used to store the crypt for the current request in request cycle metadata */
+	private static final MetaDataKey<KeyedCrypt> CRYPT = new MetaDataKey<>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
 	private final String cryptMethod;
 
 	/**
@@ -97,17 +107,55 @@ public class KeyInSessionSunJceCryptFactory implements ICryptFactory
 			session.setMetaData(KEY, key);
 		}
 
+		// reuse the crypt of the current request if built by this factory for the same key
+		RequestCycle requestCycle = RequestCycle.get();
+		if (requestCycle != null)
+		{
+			KeyedCrypt keyedCrypt = requestCycle.getMetaData(CRYPT);
+			if (keyedCrypt != null && keyedCrypt.factory == this && keyedCrypt.key.equals(key))
+			{
+				return keyedCrypt.crypt;
+			}
+		}
+
 		// build the crypt based on session key
 		ICrypt crypt = createCrypt();
 		crypt.setKey(key);
+
+		if (requestCycle != null)
+		{
+			requestCycle.setMetaData(CRYPT, new KeyedCrypt(this, key, crypt));
+		}
 		return crypt;
 	}
 
 	/**
+	 * Creates the crypt for a session key. Override to return e.g. an
+	 * {@link org.apache.wicket.util.crypt.AesGcmCrypt} for authenticated encryption.
+	 * 
 	 * @return the {@link org.apache.wicket.util.crypt.ICrypt} to use
 	 */
 	protected ICrypt createCrypt()
 	{
 		return new SunJceCrypt(cryptMethod);
 	}
+
+	/**
+	 * A crypt with the factory and the session key it was built by.
+	 */
+	private static final class KeyedCrypt
+	{
+		private final KeyInSessionSunJceCryptFactory factory;
+
+		private final String key;
+
+		private final ICrypt crypt;
+
+		private KeyedCrypt(KeyInSessionSunJceCryptFactory factory, String key, ICrypt crypt)
+		{
+			this.factory = factory;
+			this.key = key;
+			this.crypt = crypt;
+		}
+	}
 }
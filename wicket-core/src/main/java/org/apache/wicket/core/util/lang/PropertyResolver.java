@@ -16,13 +16,21 @@
  */
 package org.apache.wicket.core.util.lang;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.Session;
@@ -916,12 +924,42 @@ public final class PropertyResolver
 		private final Method setMethod;
 		private final Field field;
 
+		/** generated accessor calling the get method, {@code null} to use reflection */
+		private final Function<Object, Object> getter;
+
+		/** generated accessor calling the set method, {@code null} to use reflection */
+		private final BiConsumer<Object, Object> setter;
+
 		MethodGetAndSet(Method getMethod, Method setMethod, Field field)
+		{
+			this(getMethod, setMethod, field, null, null);
+		}
+
+		private MethodGetAndSet(Method getMethod, Method setMethod, Field field,
+			Function<Object, Object> getter, BiConsumer<Object, Object> setter)
 		{
 			this.getMethod = getMethod;
 			this.getMethod.setAccessible(true);
 			this.field = field;
 			this.setMethod = setMethod;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		/**
+		 * @return a copy using generated accessors instead of reflection, or this instance if
+		 *         the accessors cannot be generated
+		 */
+		private MethodGetAndSet withGeneratedAccessors()
+		{
+			Function<Object, Object> getter = LambdaPropertyLocator.generateGetter(getMethod);
+			if (getter == null)
+			{
+				return this;
+			}
+			BiConsumer<Object, Object> setter = setMethod != null
+				? LambdaPropertyLocator.generateSetter(setMethod) : null;
+			return new MethodGetAndSet(getMethod, setMethod, field, getter, setter);
 		}
 
 		/**
@@ -933,7 +971,8 @@ public final class PropertyResolver
 			Object ret;
 			try
 			{
-				ret = getMethod.invoke(object, (Object[])null);
+				ret = getter != null ? getter.apply(object)
+					: getMethod.invoke(object, (Object[])null);
 			}
 			catch (InvocationTargetException ex)
 			{
@@ -992,7 +1031,14 @@ public final class PropertyResolver
 			{
 				try
 				{
-					setMethod.invoke(object, converted);
+					if (setter != null)
+					{
+						setter.accept(object, converted);
+					}
+					else
+					{
+						setMethod.invoke(object, converted);
+					}
 				}
 				catch (InvocationTargetException ex)
 				{
@@ -1307,7 +1353,7 @@ public final class PropertyResolver
 	 */
 	public static class CachingPropertyLocator implements IPropertyLocator
 	{
-		private final ConcurrentHashMap<String, IGetAndSet> map = Generics.newConcurrentHashMap(16);
+		private final ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, IGetAndSet>> map = Generics.newConcurrentHashMap(16);
 		
 		/**
 		 * Special token to put into the cache representing no located {@link IGetAndSet}. 
@@ -1337,15 +1383,18 @@ public final class PropertyResolver
 
 		@Override
 		public IGetAndSet get(Class<?> clz, String exp) {
-			String key = clz.getName() + "#" + exp;
+			ConcurrentHashMap<String, IGetAndSet> byExpression = map.get(clz);
+			if (byExpression == null) {
+				byExpression = map.computeIfAbsent(clz, c -> Generics.newConcurrentHashMap());
+			}
 			
-			IGetAndSet located = map.get(key);
+			IGetAndSet located = byExpression.get(exp);
 			if (located == null) {
 				located = locator.get(clz, exp);
 				if (located == null) {
 					located = NONE;
 				}
-				map.put(key, located);
+				byExpression.put(exp, located);
 			}
 			
 			if (located == NONE) {
@@ -1356,6 +1405,122 @@ public final class PropertyResolver
 		}
 	}
 
+	/**
+	 * A wrapper for another {@link IPropertyLocator} that replaces the reflective calls of getter
+	 * and setter methods with accessors generated by {@link LambdaMetafactory}, falling back to
+	 * reflection for methods which are not accessible this way. Fields, maps, lists and arrays are
+	 * accessed like the wrapped locator does.
+	 * <p>
+	 * Each property gets its own generated classes, so this locator should be wrapped in a
+	 * {@link CachingPropertyLocator}:
+	 * 
+	 * <pre>
+	 * PropertyResolver.setLocator(application, new CachingPropertyLocator(new LambdaPropertyLocator()));
+	 * </pre>
+	 */
+	public static class LambdaPropertyLocator implements IPropertyLocator
+	{
+		private final IPropertyLocator locator;
+
+		/**
+		 * Wraps a {@link DefaultPropertyLocator}.
+		 */
+		public LambdaPropertyLocator()
+		{
+			this(new DefaultPropertyLocator());
+		}
+
+		/**
+		 * @param locator
+		 *            the locator to wrap
+		 */
+		public LambdaPropertyLocator(IPropertyLocator locator)
+		{
+			this.locator = locator;
+		}
+
+		@Override
+		public IGetAndSet get(Class<?> clz, String exp)
+		{
+			IGetAndSet getAndSet = locator.get(clz, exp);
+			if (getAndSet instanceof MethodGetAndSet)
+			{
+				getAndSet = ((MethodGetAndSet)getAndSet).withGeneratedAccessors();
+			}
+			return getAndSet;
+		}
+
+		/**
+		 * @param method
+		 *            an instance method without parameters
+		 * @return a function calling the method, or {@code null} if it cannot be generated
+		 */
+		@SuppressWarnings("unchecked")
+		static Function<Object, Object> generateGetter(Method method)
+		{
+			if (Modifier.isStatic(method.getModifiers()) || method.getReturnType() == void.class)
+			{
+				return null;
+			}
+			try
+			{
+				MethodHandles.Lookup lookup = lookup(method);
+				MethodHandle handle = lookup.unreflect(method);
+				CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+					MethodType.methodType(Function.class),
+					MethodType.methodType(Object.class, Object.class), handle, handle.type());
+				return (Function<Object, Object>)site.getTarget().invoke();
+			}
+			catch (Throwable t)
+			{
+				log.debug("Cannot generate accessor for {}, using reflection", method, t);
+				return null;
+			}
+		}
+
+		/**
+		 * @param method
+		 *            an instance method with one parameter
+		 * @return a consumer calling the method, or {@code null} if it cannot be generated
+		 */
+		@SuppressWarnings("unchecked")
+		static BiConsumer<Object, Object> generateSetter(Method method)
+		{
+			if (Modifier.isStatic(method.getModifiers()))
+			{
+				return null;
+			}
+			try
+			{
+				MethodHandles.Lookup lookup = lookup(method);
+				MethodHandle handle = lookup.unreflect(method);
+				// primitive parameters are passed boxed
+				Class<?> parameterType = MethodType.methodType(method.getParameterTypes()[0])
+					.wrap()
+					.returnType();
+				CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+					MethodType.methodType(BiConsumer.class),
+					MethodType.methodType(void.class, Object.class, Object.class), handle,
+					MethodType.methodType(void.class, method.getDeclaringClass(), parameterType));
+				return (BiConsumer<Object, Object>)site.getTarget().invoke();
+			}
+			catch (Throwable t)
+			{
+				log.debug("Cannot generate accessor for {}, using reflection", method, t);
+				return null;
+			}
+		}
+
+		/**
+		 * The generated classes are defined in the nest of the method's class, so they can call
+		 * it even if the class is not public.
+		 */
+		private static MethodHandles.Lookup lookup(Method method) throws IllegalAccessException
+		{
+			return MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup());
+		}
+	}
+
 	/**
 	 * Default locator supporting <em>Java Beans</em> properties, maps, lists and method invocations.
 	 */
@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.markup;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,11 +30,13 @@ import java.util.Map;
 import org.apache.wicket.Component;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.markup.parser.XmlTag;
 import org.apache.wicket.markup.parser.XmlTag.TagType;
 import org.apache.wicket.markup.parser.filter.HtmlHandler;
 import org.apache.wicket.request.Response;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.io.IClusterable;
 import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.apache.wicket.util.string.StringValue;
@@ -51,6 +56,8 @@ import org.slf4j.LoggerFactory;
  */
 public class ComponentTag extends MarkupElement
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Factory that creates component during markup root container's initialization. These
 	 * components get queued, which allows other components to be dequeued under these auto
@@ -58,7 +65,7 @@ public class ComponentTag extends MarkupElement
 	 * 
 	 * @author igor
 	 */
-	public interface IAutoComponentFactory
+	public interface IAutoComponentFactory extends IClusterable
 	{
 		/**
 		 * Creates a new instance of auto component to be queued
@@ -116,7 +123,7 @@ public class ComponentTag extends MarkupElement
 	 * about the tags origin is lost. In some cases like wicket:head and wicket:link this
 	 * information however is required.
 	 */
-	private WeakReference<Class<? extends Component>> markupClassRef = null;
+	private transient WeakReference<Class<? extends Component>> markupClassRef = null;
 
 	/** added behaviors */
 	private List<Behavior> behaviors;
@@ -883,6 +890,25 @@ public class ComponentTag extends MarkupElement
 		}
 	}
 
+	private void writeObject(final ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+
+		Class<? extends Component> markupClass = getMarkupClass();
+		out.writeObject(markupClass == null ? null : markupClass.getName());
+	}
+
+	private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+
+		String markupClassName = (String)in.readObject();
+		if (markupClassName != null)
+		{
+			setMarkupClass(WicketObjects.<Component> resolveClass(markupClassName));
+		}
+	}
+
 	/**
 	 * @see org.apache.wicket.markup.MarkupElement#equalTo(org.apache.wicket.markup.MarkupElement)
 	 */
@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.markup;
 
+import org.apache.wicket.util.io.IClusterable;
+
 /**
  * Base class for different kinds of markup elements. Markup elements are held in a Markup container
  * object.
@@ -31,8 +33,10 @@ package org.apache.wicket.markup;
  * @see ComponentTag
  * @author Jonathan Locke
  */
-public abstract class MarkupElement
+public abstract class MarkupElement implements IClusterable
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Constructor.
 	 */
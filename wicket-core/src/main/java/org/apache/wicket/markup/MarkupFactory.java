@@ -16,13 +16,17 @@
  */
 package org.apache.wicket.markup;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Locale;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.markup.loader.CompiledMarkupLoader;
 import org.apache.wicket.markup.loader.DefaultMarkupLoader;
 import org.apache.wicket.markup.loader.IMarkupLoader;
+import org.apache.wicket.markup.loader.SimpleMarkupLoader;
 import org.apache.wicket.markup.parser.IMarkupFilter;
 import org.apache.wicket.markup.parser.IXmlPullParser;
 import org.apache.wicket.markup.parser.XmlPullParser;
@@ -73,11 +77,20 @@ public class MarkupFactory
 	 * single file, but e.g. like in markup inheritance it could also be that the markup from
 	 * different sources must be merged.
 	 * 
-	 * @return By default an instance of {@link DefaultMarkupLoader} will be returned. Via
-	 *         subclassing you may return your own markup loader (chain).
+	 * @return By default an instance of {@link DefaultMarkupLoader} will be returned, loading
+	 *         compiled markup if a
+	 *         {@link org.apache.wicket.settings.MarkupSettings#setCompiledMarkupFolder(File)
+	 *         folder for compiled markup} is configured. Via subclassing you may return your own
+	 *         markup loader (chain).
 	 */
 	public IMarkupLoader getMarkupLoader()
 	{
+		File folder = Application.get().getMarkupSettings().getCompiledMarkupFolder();
+		if (folder != null)
+		{
+			return new DefaultMarkupLoader(
+				new CompiledMarkupLoader(folder, new SimpleMarkupLoader()));
+		}
 		return new DefaultMarkupLoader();
 	}
 
@@ -178,6 +191,37 @@ public class MarkupFactory
 		return markupCache != null;
 	}
 
+	/**
+	 * Get the markup associated with a container class, without an instance of it, e.g. to load
+	 * markup before it is needed for the first time.
+	 * <p>
+	 * The markup is looked up as for a container with html markup and the given locale and
+	 * variation, the style is taken from the current session. Markup of classes providing their
+	 * own markup resource stream or cache key cannot be loaded this way.
+	 * 
+	 * @param clazz
+	 *            the container class
+	 * @param locale
+	 *            locale of the markup
+	 * @param variation
+	 *            variation of the markup, may be {@code null}
+	 * @return The markup associated with the container class. Null, if the markup was not found or
+	 *         could not be loaded without an instance.
+	 */
+	public final Markup getMarkup(final Class<? extends MarkupContainer> clazz,
+		final Locale locale, final String variation)
+	{
+		Args.notNull(clazz, "clazz");
+
+		if (IMarkupResourceStreamProvider.class.isAssignableFrom(clazz) ||
+			IMarkupCacheKeyProvider.class.isAssignableFrom(clazz))
+		{
+			return null;
+		}
+
+		return getMarkup(new MarkupContainerStub(locale, variation), clazz, false);
+	}
+
 	/**
 	 * Get the markup associated with the container.
 	 * 
@@ -355,7 +399,8 @@ public class MarkupFactory
 		{
 			containerClass = container.getClass();
 		}
-		else if (!clazz.isAssignableFrom(container.getClass()))
+		else if (!clazz.isAssignableFrom(container.getClass()) &&
+			!(container instanceof MarkupContainerStub))
 		{
 			throw new IllegalArgumentException("Parameter clazz must be an instance of " +
 				container.getClass().getName() + ", but is a " + clazz.getName());
@@ -454,4 +499,44 @@ public class MarkupFactory
 		// Markup not found. Errors should throw a Wicket exception
 		return null;
 	}
+
+	/**
+	 * Stands in for an instance of a container class.
+	 * 
+	 * @see MarkupFactory#getMarkup(Class, Locale, String)
+	 */
+	private static class MarkupContainerStub extends MarkupContainer
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Locale locale;
+
+		private final String variation;
+
+		private MarkupContainerStub(final Locale locale, final String variation)
+		{
+			super("stub");
+
+			this.locale = locale;
+			this.variation = variation;
+		}
+
+		@Override
+		public Locale getLocale()
+		{
+			return locale;
+		}
+
+		@Override
+		public String getVariation()
+		{
+			return variation;
+		}
+
+		@Override
+		public MarkupType getMarkupType()
+		{
+			return MarkupType.HTML_MARKUP_TYPE;
+		}
+	}
 }
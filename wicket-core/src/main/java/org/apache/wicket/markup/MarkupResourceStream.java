@@ -250,7 +250,7 @@ public class MarkupResourceStream implements IResourceStream, IFixedLocationReso
 	 * @param encoding
 	 *            encoding
 	 */
-	final void setEncoding(final String encoding)
+	public final void setEncoding(final String encoding)
 	{
 		this.encoding = encoding;
 	}
@@ -26,6 +26,8 @@ package org.apache.wicket.markup;
  */
 public class RawMarkup extends MarkupElement
 {
+	private static final long serialVersionUID = 1L;
+
 	/** The raw markup string * */
 	private final CharSequence string;
 
@@ -41,6 +41,8 @@ import org.apache.wicket.markup.resolver.WicketMessageResolver;
  */
 public class WicketTag extends ComponentTag
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Constructor
 	 * 
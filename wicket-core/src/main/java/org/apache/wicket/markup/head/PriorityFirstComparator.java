@@ -19,7 +19,6 @@ package org.apache.wicket.markup.head;
 import java.io.Serializable;
 import java.util.Comparator;
 
-import org.apache.wicket.Page;
 import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItem;
 import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItemLocation;
 
@@ -113,18 +112,10 @@ public class PriorityFirstComparator implements Comparator<RecordedHeaderItem>,
 
 		if (renderPageFirst)
 		{
-			if (item.getItem() instanceof PageHeaderItem)
+			if (item.getItem() instanceof PageHeaderItem || item.isAddedByPage())
 			{
 				return HeaderItemType.PAGE;
 			}
-
-			for (RecordedHeaderItemLocation curLocation : item.getLocations())
-			{
-				if (curLocation.getRenderBase() instanceof Page)
-				{
-					return HeaderItemType.PAGE;
-				}
-			}
 		}
 
 		return HeaderItemType.COMPONENT;
@@ -19,6 +19,7 @@ package org.apache.wicket.markup.head;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.Set;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.Component;
+import org.apache.wicket.Page;
 import org.apache.wicket.core.request.handler.IPartialPageRequestHandler;
 import org.apache.wicket.markup.html.DecoratingHeaderResponse;
 import org.apache.wicket.request.cycle.RequestCycle;
@@ -123,6 +125,8 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 		
 		private int minDepth = Integer.MAX_VALUE;
 
+		private boolean addedByPage;
+
 		/**
 		 * Construct.
 		 * 
@@ -147,6 +151,7 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 			locations.add(new RecordedHeaderItemLocation(renderBase, indexInRequest));
 			
 			minDepth = Integer.MAX_VALUE;
+			addedByPage |= renderBase instanceof Page;
 		}
 
 		/**
@@ -181,6 +186,13 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 			return minDepth;
 		}
 
+		/**
+		 * @return whether any of the locations at which the item was added is a page.
+		 */
+		public boolean isAddedByPage()
+		{
+			return addedByPage;
+		}
 
 		@Override
 		public String toString()
@@ -191,6 +203,13 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 
 	private final Map<HeaderItem, RecordedHeaderItem> itemsToBeRendered;
 
+	/**
+	 * The recorded dependencies of each item, transitively and in the order they were recorded.
+	 * Items are rendered by many components with the same dependencies, these are resolved once
+	 * only.
+	 */
+	private final Map<HeaderItem, List<RecordedHeaderItem>> recordedDependencies;
+
 	/**
 	 * Header items which should be executed once the DOM is ready.
 	 * Collects OnDomReadyHeaderItems and OnEventHeaderItems
@@ -215,6 +234,7 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 		super(real);
 
 		itemsToBeRendered = new LinkedHashMap<>();
+		recordedDependencies = new HashMap<>();
 		domReadyItemsToBeRendered = new ArrayList<>();
 		loadItemsToBeRendered = new ArrayList<>();
 	}
@@ -250,27 +270,64 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 		}
 	}
 
-	private void recordHeaderItem(HeaderItem item, Set<HeaderItem> depsDone)
+	/**
+	 * Records the item and its dependencies.
+	 * 
+	 * @param item
+	 * @param depsDone
+	 *            the items depending on this item, to detect circular dependencies
+	 * @param recorded
+	 *            optional list to collect the recorded items in
+	 */
+	private void recordHeaderItem(HeaderItem item, Set<HeaderItem> depsDone,
+		List<RecordedHeaderItem> recorded)
 	{
-		renderDependencies(item, depsDone);
+		List<RecordedHeaderItem> dependencies = recordedDependencies.get(item);
+		if (dependencies == null)
+		{
+			dependencies = new ArrayList<>();
+			renderDependencies(item, depsDone, dependencies);
+			recordedDependencies.put(item, dependencies);
+		}
+		else
+		{
+			// resolved before, record the same dependencies in the same order again
+			for (RecordedHeaderItem dependency : dependencies)
+			{
+				recordLocation(dependency);
+			}
+		}
+
 		RecordedHeaderItem recordedItem = itemsToBeRendered.get(item);
 		if (recordedItem == null)
 		{
 			recordedItem = new RecordedHeaderItem(item);
 			itemsToBeRendered.put(item, recordedItem);
 		}
+		recordLocation(recordedItem);
+
+		if (recorded != null)
+		{
+			recorded.addAll(dependencies);
+			recorded.add(recordedItem);
+		}
+	}
+
+	private void recordLocation(RecordedHeaderItem recordedItem)
+	{
 		recordedItem.addLocation(renderBase, indexInRequest);
 		indexInRequest++;
 	}
 
-	private void renderDependencies(HeaderItem item, Set<HeaderItem> depsDone)
+	private void renderDependencies(HeaderItem item, Set<HeaderItem> depsDone,
+		List<RecordedHeaderItem> recorded)
 	{
 		for (HeaderItem curDependency : item.getDependencies())
 		{
 			curDependency = getItemToBeRendered(curDependency);
 			if (depsDone.add(curDependency))
 			{
-				recordHeaderItem(curDependency, depsDone);
+				recordHeaderItem(curDependency, depsDone, recorded);
 			}
 			else
 			{
@@ -286,19 +343,19 @@ public class ResourceAggregator extends DecoratingHeaderResponse
 		item = getItemToBeRendered(item);
 		if (item instanceof OnDomReadyHeaderItem || item instanceof OnEventHeaderItem)
 		{
-			renderDependencies(item, new LinkedHashSet<HeaderItem>());
+			renderDependencies(item, new LinkedHashSet<HeaderItem>(), null);
 			domReadyItemsToBeRendered.add(item);
 		}
 		else if (item instanceof OnLoadHeaderItem)
 		{
-			renderDependencies(item, new LinkedHashSet<HeaderItem>());
+			renderDependencies(item, new LinkedHashSet<HeaderItem>(), null);
 			loadItemsToBeRendered.add((OnLoadHeaderItem)item);
 		}
 		else
 		{
 			Set<HeaderItem> depsDone = new LinkedHashSet<>();
 			depsDone.add(item);
-			recordHeaderItem(item, depsDone);
+			recordHeaderItem(item, depsDone, null);
 		}
 	}
 
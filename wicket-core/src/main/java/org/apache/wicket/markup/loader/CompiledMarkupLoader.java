@@ -0,0 +1,457 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.loader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.markup.ComponentTag.IAutoComponentFactory;
+import org.apache.wicket.markup.ContainerInfo;
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupElement;
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.markup.parser.IMarkupFilter;
+import org.apache.wicket.markup.parser.XmlTag;
+import org.apache.wicket.settings.MarkupSettings;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.apache.wicket.util.string.Strings;
+import org.apache.wicket.util.value.ValueMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A markup loader which keeps the markup loaded by another loader in a compiled binary form in a
+ * folder, so it can be loaded again without parsing, e.g. after a restart of the application.
+ * <p>
+ * Compiled markup is used only if the markup resource was not modified and the Wicket version,
+ * the relevant {@link MarkupSettings} and the {@link IMarkupFilter}s are unchanged. Otherwise the
+ * markup is parsed again and the compiled form is replaced.
+ * <p>
+ * Markup elements are compiled with Java serialization, markup with elements that cannot be
+ * serialized (e.g. because a custom filter added a non-serializable behavior) is always parsed.
+ * Only markup elements and the classes referenced by the standard markup filters are accepted when
+ * compiled markup is deserialized from the folder, still it must not be writable by untrusted
+ * parties.
+ * 
+ * @see MarkupSettings#setCompiledMarkupFolder(File)
+ */
+public class CompiledMarkupLoader implements IMarkupLoader
+{
+	private static final Logger log = LoggerFactory.getLogger(CompiledMarkupLoader.class);
+
+	/**
+	 * Version of the binary format.
+	 */
+	private static final int FORMAT = 1;
+
+	private static final String EXTENSION = ".markup";
+
+	private final File folder;
+
+	private final IMarkupLoader delegate;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param folder
+	 *            folder for compiled markup
+	 * @param delegate
+	 *            loader for markup that is not compiled yet, e.g. a {@link SimpleMarkupLoader}
+	 */
+	public CompiledMarkupLoader(final File folder, final IMarkupLoader delegate)
+	{
+		this.folder = Args.notNull(folder, "folder");
+		this.delegate = Args.notNull(delegate, "delegate");
+	}
+
+	@Override
+	public Markup loadMarkup(final MarkupContainer container,
+		final MarkupResourceStream markupResourceStream, final IMarkupLoader baseLoader,
+		final boolean enforceReload) throws IOException, ResourceStreamNotFoundException
+	{
+		Instant lastModified = markupResourceStream.lastModifiedTime();
+		if (lastModified == null)
+		{
+			// changes cannot be detected
+			return delegate.loadMarkup(container, markupResourceStream, baseLoader, enforceReload);
+		}
+
+		File file = getFile(markupResourceStream);
+		String version = getVersion(markupResourceStream);
+
+		if (enforceReload == false)
+		{
+			Markup markup = read(file, markupResourceStream, version, lastModified);
+			if (markup != null)
+			{
+				return markup;
+			}
+		}
+
+		Markup markup = delegate.loadMarkup(container, markupResourceStream, baseLoader,
+			enforceReload);
+
+		if (markup != null && markup.getClass() == Markup.class)
+		{
+			write(file, markup, version, lastModified);
+		}
+
+		return markup;
+	}
+
+	/**
+	 * Get the version of compiled markup, any difference in versions results in markup to be
+	 * parsed again.
+	 * 
+	 * @param markupResourceStream
+	 *            the markup resource stream
+	 * @return version
+	 */
+	protected String getVersion(final MarkupResourceStream markupResourceStream)
+	{
+		Application application = Application.get();
+		MarkupSettings settings = application.getMarkupSettings();
+
+		StringBuilder version = new StringBuilder();
+		version.append(application.getFrameworkSettings().getVersion());
+		version.append(',').append(settings.getAutomaticLinking());
+		version.append(',').append(settings.getCompressWhitespace());
+		version.append(',').append(settings.getStripComments());
+		version.append(',').append(settings.getDefaultMarkupEncoding());
+
+		for (IMarkupFilter filter : MarkupFactory.get()
+			.newMarkupParser(markupResourceStream)
+			.getMarkupFilters())
+		{
+			version.append(',').append(filter.getClass().getName());
+		}
+
+		return version.toString();
+	}
+
+	/**
+	 * Get the file to store compiled markup in.
+	 * 
+	 * @param markupResourceStream
+	 *            the markup resource stream
+	 * @return file
+	 */
+	private File getFile(final MarkupResourceStream markupResourceStream)
+	{
+		String key = markupResourceStream.getCacheKey();
+		if (key == null)
+		{
+			key = markupResourceStream.locationAsString();
+		}
+
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest(key.getBytes(StandardCharsets.UTF_8));
+
+			return new File(folder, Strings.toHexString(hash) + EXTENSION);
+		}
+		catch (NoSuchAlgorithmException ex)
+		{
+			throw new WicketRuntimeException(ex);
+		}
+	}
+
+	private Markup read(final File file, final MarkupResourceStream markupResourceStream,
+		final String version, final Instant lastModified)
+	{
+		if (file.exists() == false)
+		{
+			return null;
+		}
+
+		try (ObjectInputStream in = new MarkupInputStream(
+			new BufferedInputStream(new FileInputStream(file)), markupResourceStream))
+		{
+			if (in.readInt() != FORMAT || version.equals(in.readUTF()) == false ||
+				in.readLong() != lastModified.toEpochMilli() ||
+				markupResourceStream.locationAsString().equals(in.readObject()) == false)
+			{
+				log.debug("Compiled markup is outdated: {}", markupResourceStream);
+				return null;
+			}
+
+			String encoding = (String)in.readObject();
+			String wicketNamespace = (String)in.readObject();
+			String doctype = (String)in.readObject();
+
+			@SuppressWarnings("unchecked")
+			List<MarkupElement> elements = (List<MarkupElement>)in.readObject();
+
+			markupResourceStream.setEncoding(encoding);
+			markupResourceStream.setWicketNamespace(wicketNamespace);
+			if (doctype != null)
+			{
+				markupResourceStream.setDoctype("!DOCTYPE " + doctype);
+			}
+
+			Markup markup = new Markup(markupResourceStream);
+			for (MarkupElement element : elements)
+			{
+				markup.addMarkupElement(element);
+			}
+			markup.makeImmutable();
+
+			return markup;
+		}
+		catch (IOException | ClassNotFoundException | ClassCastException ex)
+		{
+			log.debug("Cannot read compiled markup " + markupResourceStream, ex);
+			return null;
+		}
+	}
+
+	private void write(final File file, final Markup markup, final String version,
+		final Instant lastModified)
+	{
+		MarkupResourceStream markupResourceStream = markup.getMarkupResourceStream();
+
+		List<MarkupElement> elements = new ArrayList<>(markup.size());
+		for (MarkupElement element : markup)
+		{
+			elements.add(element);
+		}
+
+		File temp = null;
+		try
+		{
+			folder.mkdirs();
+
+			// write to a temporary file first, so readers never see a partial file
+			temp = File.createTempFile(file.getName(), ".tmp", folder);
+
+			try (ObjectOutputStream out = new MarkupOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temp)), markupResourceStream))
+			{
+				out.writeInt(FORMAT);
+				out.writeUTF(version);
+				out.writeLong(lastModified.toEpochMilli());
+				out.writeObject(markupResourceStream.locationAsString());
+				out.writeObject(markupResourceStream.getEncoding());
+				out.writeObject(markupResourceStream.getWicketNamespace());
+				out.writeObject(markupResourceStream.getDoctype());
+				out.writeObject(elements);
+			}
+
+			java.nio.file.Files.move(temp.toPath(), file.toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			temp = null;
+		}
+		catch (NotSerializableException ex)
+		{
+			log.debug("Markup cannot be compiled {}: {}", markupResourceStream, ex.getMessage());
+		}
+		catch (IOException ex)
+		{
+			log.warn("Cannot write compiled markup " + markupResourceStream, ex);
+		}
+		finally
+		{
+			if (temp != null)
+			{
+				Files.remove(temp);
+			}
+		}
+	}
+
+	/**
+	 * Placeholders for objects that are specific to the loaded markup resource.
+	 */
+	private enum Placeholder
+	{
+		MARKUP_RESOURCE_STREAM, CONTAINER_INFO
+	}
+
+	/**
+	 * Replaces resource specific objects with placeholders.
+	 */
+	private static class MarkupOutputStream extends ObjectOutputStream
+	{
+		private final MarkupResourceStream markupResourceStream;
+
+		private MarkupOutputStream(final OutputStream out,
+			final MarkupResourceStream markupResourceStream) throws IOException
+		{
+			super(out);
+
+			this.markupResourceStream = markupResourceStream;
+
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(final Object obj) throws IOException
+		{
+			if (obj == markupResourceStream)
+			{
+				return Placeholder.MARKUP_RESOURCE_STREAM;
+			}
+			else if (obj != null && obj == markupResourceStream.getContainerInfo())
+			{
+				return Placeholder.CONTAINER_INFO;
+			}
+			return obj;
+		}
+	}
+
+	/**
+	 * Resolves placeholders and classes with the application's class resolver.
+	 */
+	private static class MarkupInputStream extends ObjectInputStream
+	{
+		/**
+		 * Classes allowed in compiled markup.
+		 */
+		private static final Set<Class<?>> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+			Object.class, String.class, Boolean.class, Character.class, Integer.class, Long.class,
+			Enum.class, ArrayList.class, HashMap.class, LinkedHashMap.class, Map.Entry.class,
+			Behavior.class, Placeholder.class, MarkupResourceStream.class, ContainerInfo.class));
+
+		/**
+		 * Types whose subclasses are allowed in compiled markup.
+		 */
+		private static final Class<?>[] ALLOWED_TYPES = { MarkupElement.class, XmlTag.class,
+				ValueMap.class, IAutoComponentFactory.class };
+
+		private final MarkupResourceStream markupResourceStream;
+
+		private MarkupInputStream(final InputStream in,
+			final MarkupResourceStream markupResourceStream) throws IOException
+		{
+			super(in);
+
+			this.markupResourceStream = markupResourceStream;
+
+			enableResolveObject(true);
+
+			setObjectInputFilter(this::checkInput);
+		}
+
+		/**
+		 * Allows markup elements, the objects referenced by them and placeholders only.
+		 */
+		private ObjectInputFilter.Status checkInput(final ObjectInputFilter.FilterInfo info)
+		{
+			Class<?> clazz = info.serialClass();
+			if (clazz == null)
+			{
+				return ObjectInputFilter.Status.UNDECIDED;
+			}
+
+			while (clazz.isArray())
+			{
+				clazz = clazz.getComponentType();
+			}
+
+			if (isAllowed(clazz))
+			{
+				return ObjectInputFilter.Status.ALLOWED;
+			}
+
+			log.debug("Rejected class in compiled markup: {}", clazz.getName());
+			return ObjectInputFilter.Status.REJECTED;
+		}
+
+		private boolean isAllowed(final Class<?> clazz)
+		{
+			if (clazz.isPrimitive() || ALLOWED_CLASSES.contains(clazz))
+			{
+				return true;
+			}
+
+			for (Class<?> allowed : ALLOWED_TYPES)
+			{
+				if (allowed.isAssignableFrom(clazz))
+				{
+					return true;
+				}
+			}
+
+			// enums and behaviors declared by markup elements or markup filters
+			Class<?> enclosing = clazz.getEnclosingClass();
+			return enclosing != null && (MarkupElement.class.isAssignableFrom(enclosing) ||
+				XmlTag.class == enclosing || IMarkupFilter.class.isAssignableFrom(enclosing));
+		}
+
+		@Override
+		protected Object resolveObject(final Object obj) throws IOException
+		{
+			if (obj == Placeholder.MARKUP_RESOURCE_STREAM)
+			{
+				return markupResourceStream;
+			}
+			else if (obj == Placeholder.CONTAINER_INFO)
+			{
+				return markupResourceStream.getContainerInfo();
+			}
+			return obj;
+		}
+
+		@Override
+		protected Class<?> resolveClass(final ObjectStreamClass desc)
+			throws IOException, ClassNotFoundException
+		{
+			try
+			{
+				return super.resolveClass(desc);
+			}
+			catch (ClassNotFoundException ex)
+			{
+				return Application.get()
+					.getApplicationSettings()
+					.getClassResolver()
+					.resolveClass(desc.getName());
+			}
+		}
+	}
+}
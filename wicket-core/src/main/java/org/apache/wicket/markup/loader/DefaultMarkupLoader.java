@@ -21,6 +21,7 @@ import java.io.IOException;
 import org.apache.wicket.MarkupContainer;
 import org.apache.wicket.markup.Markup;
 import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
 
 /**
@@ -31,15 +32,29 @@ import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
  */
 public class DefaultMarkupLoader implements IMarkupLoader
 {
+	private final IMarkupLoader resourceLoader;
+
 	/**
 	 * Constructor.
 	 */
 	public DefaultMarkupLoader()
 	{
+		this(new SimpleMarkupLoader());
+	}
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param resourceLoader
+	 *            loader of a single markup resource, e.g. a {@link SimpleMarkupLoader}
+	 */
+	public DefaultMarkupLoader(final IMarkupLoader resourceLoader)
+	{
+		this.resourceLoader = Args.notNull(resourceLoader, "resourceLoader");
 	}
 
 	/**
-	 * Uses {@link SimpleMarkupLoader} to load the resource(s), read it and check if markup
+	 * Uses the resource loader (by default a {@link SimpleMarkupLoader}) to load the resource(s), read it and check if markup
 	 * inheritance applies. If yes, load the required other markup and merge them using
 	 * {@link InheritedMarkupMarkupLoader}.
 	 */
@@ -49,7 +64,6 @@ public class DefaultMarkupLoader implements IMarkupLoader
 		final boolean enforceReload) throws IOException, ResourceStreamNotFoundException
 	{
 		IMarkupLoader loader = new InheritedMarkupMarkupLoader();
-		return loader.loadMarkup(container, markupResourceStream, new SimpleMarkupLoader(),
-			enforceReload);
+		return loader.loadMarkup(container, markupResourceStream, resourceLoader, enforceReload);
 	}
 }
@@ -18,6 +18,7 @@ package org.apache.wicket.markup.parser;
 
 import java.util.Map;
 
+import org.apache.wicket.util.io.IClusterable;
 import org.apache.wicket.util.lang.Objects;
 import org.apache.wicket.util.string.AppendingStringBuffer;
 import org.apache.wicket.util.string.StringValue;
@@ -31,8 +32,10 @@ import org.apache.wicket.util.value.IValueMap;
  * 
  * @author Jonathan Locke
  */
-public class XmlTag
+public class XmlTag implements IClusterable
 {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Enumerated type for different kinds of component tags.
 	 */
@@ -585,8 +588,10 @@ public class XmlTag
 		return buffer;
 	}
 
-	static class TextSegment
+	static class TextSegment implements IClusterable
 	{
+		private static final long serialVersionUID = 1L;
+
 		/** Column number. */
 		final int columnNumber;
 
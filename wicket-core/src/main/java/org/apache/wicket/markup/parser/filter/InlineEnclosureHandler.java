@@ -119,16 +119,8 @@ public final class InlineEnclosureHandler extends AbstractMarkupFilter
 					}
 
 					tag.setAutoComponentTag(true);
-					tag.setAutoComponentFactory(new ComponentTag.IAutoComponentFactory()
-					{
-						@Override
-						public Component newComponent(MarkupContainer container, ComponentTag tag)
-						{
-							String attributeName = getInlineEnclosureAttributeName(null);
-							String childId = tag.getAttribute(attributeName);
-							return new InlineEnclosure(tag.getId(), childId);
-						}
-					});
+					tag.setAutoComponentFactory(
+						new InlineEnclosureFactory(getInlineEnclosureAttributeName(null)));
 					tag.setModified(true);
 				}
 
@@ -213,4 +205,27 @@ public final class InlineEnclosureHandler extends AbstractMarkupFilter
 		return getWicketNamespace(markupStream) + ':' + INLINE_ENCLOSURE_ATTRIBUTE_NAME;
 	}
 
+	/**
+	 * Factory of inline enclosures, holding the attribute name only so it can be serialized along
+	 * with the markup.
+	 */
+	private static class InlineEnclosureFactory implements ComponentTag.IAutoComponentFactory
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String attributeName;
+
+		private InlineEnclosureFactory(String attributeName)
+		{
+			this.attributeName = attributeName;
+		}
+
+		@Override
+		public Component newComponent(MarkupContainer container, ComponentTag tag)
+		{
+			String childId = tag.getAttribute(attributeName);
+			return new InlineEnclosure(tag.getId(), childId);
+		}
+	}
+
 }
@@ -18,8 +18,13 @@ package org.apache.wicket.markup.repeater;
 
 import java.util.Iterator;
 
+import org.apache.wicket.Component;
 import org.apache.wicket.markup.repeater.util.ModelIteratorAdapter;
 import org.apache.wicket.model.IModel;
+import org.apache.wicket.protocol.http.BufferedWebResponse;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.lang.Generics;
 
 
@@ -38,6 +43,10 @@ import org.apache.wicket.util.lang.Generics;
  * The provided {@link ModelIteratorAdapter} can make implementing
  * {@link RefreshingView#getItemModels() } easier if you have an iterator over item objects.
  * </p>
+ * <p>
+ * Views which only display data can be switched to {@link #setFlyweight(boolean) flyweight} mode,
+ * so their items are created while rendering and are not kept afterwards.
+ * </p>
  * 
  * @see RepeatingView
  * @see ModelIteratorAdapter
@@ -59,6 +68,25 @@ public abstract class RefreshingView<T> extends RepeatingView
 	 */
 	private IItemReuseStrategy itemReuseStrategy;
 
+	/**
+	 * Whether items are created one at a time while rendering and removed once they are rendered.
+	 * 
+	 * @see #setFlyweight(boolean)
+	 */
+	private boolean flyweight;
+
+	/**
+	 * The number of items after which an unbuffered response is flushed, {@code 0} to never flush.
+	 * 
+	 * @see #setFlushInterval(int)
+	 */
+	private int flushInterval;
+
+	/**
+	 * The number of items rendered since the response was last flushed.
+	 */
+	private transient int renderedSinceFlush;
+
 	/**
 	 * Constructor
 	 * 
@@ -90,6 +118,13 @@ public abstract class RefreshingView<T> extends RepeatingView
 	@Override
 	protected final void onPopulate()
 	{
+		if (isFlyweight())
+		{
+			// items are created while rendering
+			removeAll();
+			return;
+		}
+
 		Iterator<IModel<T>> models = getItemModels();
 		Iterator<Item<T>> items = getItemReuseStrategy().getItems(newItemFactory(), models,
 			getItems());
@@ -97,6 +132,48 @@ public abstract class RefreshingView<T> extends RepeatingView
 		addItems(items);
 	}
 
+	/**
+	 * In flyweight mode iterates over items created from {@link #getItemModels()}, otherwise over
+	 * the children of this view.
+	 */
+	@Override
+	protected Iterator<? extends Component> renderIterator()
+	{
+		renderedSinceFlush = 0;
+
+		if (isFlyweight())
+		{
+			return new FlyweightIterator();
+		}
+		return super.renderIterator();
+	}
+
+	/**
+	 * In flyweight mode the item is removed after it was rendered. Flushes the response after
+	 * every {@link #setFlushInterval(int) flush interval} items.
+	 */
+	@Override
+	protected void renderChild(Component child)
+	{
+		super.renderChild(child);
+
+		if (isFlyweight())
+		{
+			removeRenderedAutoComponent(child);
+		}
+
+		if (flushInterval > 0 && ++renderedSinceFlush >= flushInterval)
+		{
+			renderedSinceFlush = 0;
+
+			Response response = getResponse();
+			if (response instanceof WebResponse && !(response instanceof BufferedWebResponse))
+			{
+				((WebResponse)response).flush();
+			}
+		}
+	}
+
 	/**
 	 * Create a new IItemFactory based upon the RefreshingView
 	 * 
@@ -167,7 +244,8 @@ public abstract class RefreshingView<T> extends RepeatingView
 	}
 
 	/**
-	 * @return iterator over item instances that exist as children of this view
+	 * @return iterator over item instances that exist as children of this view, always empty
+	 *         outside of rendering in {@link #setFlyweight(boolean) flyweight} mode
 	 */
 	public Iterator<Item<T>> getItems()
 	{
@@ -239,5 +317,103 @@ public abstract class RefreshingView<T> extends RepeatingView
 		return this;
 	}
 
+	/**
+	 * @return whether this view is in flyweight mode
+	 * 
+	 * @see #setFlyweight(boolean)
+	 */
+	public boolean isFlyweight()
+	{
+		return flyweight;
+	}
+
+	/**
+	 * Sets the flyweight mode for read-only views. Each item is created, populated and rendered
+	 * while the view renders, and removed before the next one is created, so no items are kept
+	 * after rendering and stored with the page.
+	 * <p>
+	 * Components inside the items cannot be interacted with, i.e. no links, forms or Ajax updates
+	 * of single items are possible. The view itself can still be updated by Ajax as part of its
+	 * parent. The {@link #getItemReuseStrategy() item reuse strategy} is not used.
+	 * 
+	 * @param flyweight
+	 *            {@code true} to render the items without keeping them
+	 * @return this for chaining
+	 */
+	public RefreshingView<T> setFlyweight(boolean flyweight)
+	{
+		if (this.flyweight != flyweight)
+		{
+			if (isVersioned())
+			{
+				addStateChange();
+			}
+			this.flyweight = flyweight;
+		}
+		return this;
+	}
+
+	/**
+	 * @return the number of items after which the response is flushed, {@code 0} if it is never
+	 *         flushed
+	 * 
+	 * @see #setFlushInterval(int)
+	 */
+	public int getFlushInterval()
+	{
+		return flushInterval;
+	}
 
+	/**
+	 * Sets the number of items after which the response is flushed while rendering.
+	 * <p>
+	 * Only a {@link WebResponse} which is not a {@link BufferedWebResponse} is flushed. Pages are
+	 * rendered into a {@link BufferedWebResponse} by default, so the interval applies only to
+	 * pages rendered by a renderer which opts in to
+	 * {@link org.apache.wicket.request.handler.render.WebPageRenderer#shouldRenderPageUnbuffered(org.apache.wicket.request.cycle.RequestCycle)
+	 * unbuffered rendering}. Ajax responses are always buffered. Once flushed, an error in a later
+	 * item can no longer be turned into an error page.
+	 * 
+	 * @param flushInterval
+	 *            the number of items, {@code 0} to never flush
+	 * @return this for chaining
+	 */
+	public RefreshingView<T> setFlushInterval(int flushInterval)
+	{
+		Args.withinRange(0, Integer.MAX_VALUE, flushInterval, "flushInterval");
+
+		this.flushInterval = flushInterval;
+		return this;
+	}
+
+	/**
+	 * Creates the items while rendering, added as auto components so the hierarchy may change
+	 * during render.
+	 */
+	private class FlyweightIterator implements Iterator<Item<T>>
+	{
+		private final Iterator<IModel<T>> models = getItemModels();
+
+		private final IItemFactory<T> factory = newItemFactory();
+
+		private int index;
+
+		@Override
+		public boolean hasNext()
+		{
+			return models.hasNext();
+		}
+
+		@Override
+		public Item<T> next()
+		{
+			Item<T> item = factory.newItem(index, models.next());
+			item.setIndex(index);
+			index++;
+
+			// the item renders and is removed before the next one is created
+			autoAdd(item, null);
+			return item;
+		}
+	}
 }
@@ -126,6 +126,11 @@ public abstract class PartialPageUpdate
 	 * The page which components are being updated.
 	 */
 	private final Page page;
+
+	/**
+	 * Should components be written directly to the response.
+	 */
+	private boolean streaming = false;
 	
 	/**
 	 * Constructor.
@@ -143,6 +148,33 @@ public abstract class PartialPageUpdate
 		headerBuffer = new ResponseBuffer(response);
 	}
 
+	/**
+	 * Set whether the markup of components should be written directly to the response instead of
+	 * being buffered first. This lowers memory consumption for large updates, but a failure while
+	 * rendering a component leaves a partially written response.
+	 * <p>
+	 * Streaming requires support of the concrete update, see
+	 * {@link #writeComponentStart(Response, String)}.
+	 *
+	 * @param streaming
+	 *      {@code true} to stream components
+	 * @return {@code this}
+	 */
+	public PartialPageUpdate setStreaming(boolean streaming)
+	{
+		this.streaming = streaming;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if components are written directly to the response
+	 * @see #setStreaming(boolean)
+	 */
+	public boolean isStreaming()
+	{
+		return streaming;
+	}
+
 	/**
 	 * Serializes this object to the response.
 	 *
@@ -390,7 +422,12 @@ public abstract class PartialPageUpdate
 			writeHeaderContribution(response, component);
 			
 			bodyBuffer.reset();
-			
+
+			if (streaming)
+			{
+				bodyBuffer.target = writeComponentStart(response, markupId);
+			}
+
 			try
 			{
 				component.renderPart();
@@ -400,6 +437,10 @@ public abstract class PartialPageUpdate
 				bodyBuffer.reset();
 				throw e;
 			}
+			finally
+			{
+				bodyBuffer.target = null;
+			}
 		}
 		finally
 		{
@@ -407,7 +448,14 @@ public abstract class PartialPageUpdate
 			RequestCycle.get().setResponse(oldResponse);
 		}
 
-		writeComponent(response, markupId, bodyBuffer.getContents());
+		if (streaming)
+		{
+			writeComponentEnd(response, markupId);
+		}
+		else
+		{
+			writeComponent(response, markupId, bodyBuffer.getContents());
+		}
 
 		bodyBuffer.reset();
 	}
@@ -437,6 +485,39 @@ public abstract class PartialPageUpdate
 		throw new UnsupportedOperationException();
 	}
 
+	/**
+	 * Starts writing a streamed component to the response.
+	 * <p>
+	 * Must be overridden by updates supporting {@link #setStreaming(boolean) streaming}.
+	 *
+	 * @param response
+	 *      the response to write to
+	 * @param markupId
+	 *      the markup id to use for the component replacement
+	 * @return response to write the component's markup to
+	 * @see #writeComponentEnd(Response, String)
+	 */
+	protected Response writeComponentStart(Response response, String markupId)
+	{
+		throw new UnsupportedOperationException(getClass().getName() + " does not support streaming");
+	}
+
+	/**
+	 * Finishes writing a streamed component to the response.
+	 * <p>
+	 * Must be overridden by updates supporting {@link #setStreaming(boolean) streaming}.
+	 *
+	 * @param response
+	 *      the response to write to
+	 * @param markupId
+	 *      the markup id to use for the component replacement
+	 * @see #writeComponentStart(Response, String)
+	 */
+	protected void writeComponentEnd(Response response, String markupId)
+	{
+		throw new UnsupportedOperationException(getClass().getName() + " does not support streaming");
+	}
+
 	/**
 	 * TODO make abstract in Wicket 10
 	 */
@@ -792,7 +873,8 @@ public abstract class PartialPageUpdate
 	}
 
 	/**
-	 * Wrapper of a response that buffers its contents.
+	 * Wrapper of a response that buffers its contents, or passes them on to a target response
+	 * when streaming.
 	 *
 	 * @author Igor Vaynberg (ivaynberg)
 	 * @author Sven Meier (svenmeier)
@@ -806,6 +888,11 @@ public abstract class PartialPageUpdate
 
 		private final WebResponse originalResponse;
 
+		/**
+		 * Optional response to pass contents to instead of buffering them.
+		 */
+		private Response target;
+
 		/**
 		 * Constructor.
 		 *
@@ -840,7 +927,14 @@ public abstract class PartialPageUpdate
 		@Override
 		public void write(CharSequence cs)
 		{
-			buffer.append(cs);
+			if (target == null)
+			{
+				buffer.append(cs);
+			}
+			else
+			{
+				target.write(cs);
+			}
 		}
 
 		/**
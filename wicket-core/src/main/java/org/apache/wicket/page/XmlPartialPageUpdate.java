@@ -73,6 +73,21 @@ public class XmlPartialPageUpdate extends PartialPageUpdate
 		response.write("]]></component>");
 	}
 
+	@Override
+	protected Response writeComponentStart(Response response, String markupId)
+	{
+		response.write("<component id=\"");
+		response.write(markupId);
+		response.write("\" ><![CDATA[");
+		return new CDataResponse(response);
+	}
+
+	@Override
+	protected void writeComponentEnd(Response response, String markupId)
+	{
+		response.write("]]></component>");
+	}
+
 	@Override
 	protected void writeFooter(Response response, String encoding)
 	{
@@ -116,5 +131,80 @@ public class XmlPartialPageUpdate extends PartialPageUpdate
 		return Strings.replaceAll(str, "]]>", "]]]]><![CDATA[>"); 
 	}
 
+	/**
+	 * A response encoding streamed contents for a CDATA section just like {@link #encode(CharSequence)},
+	 * even if a CDATA end is split over several writes.
+	 */
+	private static class CDataResponse extends Response
+	{
+		private final Response response;
+
+		/**
+		 * Count of consecutive closing brackets written last.
+		 */
+		private int brackets;
+
+		private CDataResponse(Response response)
+		{
+			this.response = response;
+		}
+
+		@Override
+		public void write(CharSequence sequence)
+		{
+			int start = 0;
+			for (int i = 0; i < sequence.length(); i++)
+			{
+				char c = sequence.charAt(i);
+				if (c == ']')
+				{
+					brackets++;
+				}
+				else
+				{
+					if (c == '>' && brackets >= 2)
+					{
+						response.write(sequence.subSequence(start, i));
+						response.write("]]><![CDATA[");
+						start = i;
+					}
+					brackets = 0;
+				}
+			}
+
+			if (start == 0)
+			{
+				response.write(sequence);
+			}
+			else
+			{
+				response.write(sequence.subSequence(start, sequence.length()));
+			}
+		}
+
+		@Override
+		public void write(byte[] array)
+		{
+			throw new UnsupportedOperationException("Cannot write binary data.");
+		}
+
+		@Override
+		public void write(byte[] array, int offset, int length)
+		{
+			throw new UnsupportedOperationException("Cannot write binary data.");
+		}
+
+		@Override
+		public String encodeURL(CharSequence url)
+		{
+			return response.encodeURL(url);
+		}
+
+		@Override
+		public Object getContainerResponse()
+		{
+			return response.getContainerResponse();
+		}
+	}
 
 }
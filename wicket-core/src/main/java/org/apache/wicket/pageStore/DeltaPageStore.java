@@ -0,0 +1,539 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A store that keeps a base snapshot per session and passes only the differences to it for each
+ * page version to its delegate.
+ * <p>
+ * Successive versions of a page (and pages of the same kind) serialize to nearly identical
+ * bytes, e.g. when an Ajax request changed a single label only. This store encodes each added page
+ * as a delta of copied ranges from the last <em>base</em> page and inserted bytes. A new base is
+ * taken after {@link #getMaxDeltas()} pages or when a delta grows larger than half of its page.
+ * <p>
+ * Each base is added to the delegate once only, under a negative id which never collides with an
+ * id of a page. The current base is pinned in the session too (but not serialized with it), so
+ * pages are encoded and recent pages are decoded without reading the base back, even if the
+ * delegate has evicted it already. Older bases and the current base of a deserialized session are
+ * read from the delegate. Pages whose base is no longer available are considered expired.
+ * <p>
+ * All pages passing through this store are restricted to be {@link SerializedPage}s. You can
+ * achieve this with
+ * <ul>
+ * <li>a {@link SerializingPageStore} delegating to this store and</li>
+ * <li>delegating to a store that does not deserialize its pages, e.g. a {@link DiskPageStore}.</li>
+ * </ul>
+ */
+public class DeltaPageStore extends DelegatingPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(DeltaPageStore.class);
+
+	private static final MetaDataKey<SessionData> KEY = new MetaDataKey<>()
+	{
+		private static final long serialVersionUID = 1L;
+	};
+
+	/**
+	 * Default count of pages encoded against a single base.
+	 */
+	public static final int DEFAULT_MAX_DELTAS = 10;
+
+	/**
+	 * Marker of encoded data, ASCII 'WDLT'.
+	 */
+	private static final int MAGIC = 0x57444C54;
+
+	private static final int HEADER_LENGTH = 5 * 4;
+
+	/**
+	 * Length of blocks to match against the base.
+	 */
+	private static final int BLOCK = 16;
+
+	private static final int INSERT = 0;
+
+	private static final int COPY = 1;
+
+	private final int maxDeltas;
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 */
+	public DeltaPageStore(IPageStore delegate)
+	{
+		this(delegate, DEFAULT_MAX_DELTAS);
+	}
+
+	/**
+	 * @param delegate
+	 *            store to delegate to
+	 * @param maxDeltas
+	 *            count of pages to encode against a single base
+	 */
+	public DeltaPageStore(IPageStore delegate, int maxDeltas)
+	{
+		super(delegate);
+
+		this.maxDeltas = Args.withinRange(1, Integer.MAX_VALUE, maxDeltas, "maxDeltas");
+	}
+
+	/**
+	 * Get the count of pages encoded against a single base.
+	 *
+	 * @return count of pages
+	 */
+	public int getMaxDeltas()
+	{
+		return maxDeltas;
+	}
+
+	/**
+	 * Supports asynchronous add if the delegate supports it.
+	 */
+	@Override
+	public boolean canBeAsynchronous(IPageContext context)
+	{
+		// session data must be added here *before* any asynchronous calls
+		// when session is no longer available
+		getSessionData(context);
+
+		return getDelegate().canBeAsynchronous(context);
+	}
+
+	private SessionData getSessionData(IPageContext context)
+	{
+		return context.getSessionData(KEY, SessionData::new);
+	}
+
+	@Override
+	public IManageablePage getPage(IPageContext context, int id)
+	{
+		IManageablePage page = getDelegate().getPage(context, id);
+
+		if (page instanceof SerializedPage)
+		{
+			SerializedPage serializedPage = (SerializedPage)page;
+
+			byte[] delta = serializedPage.getData();
+			if (isDelta(delta))
+			{
+				byte[] data = decode(context, delta);
+				if (data == null)
+				{
+					return null;
+				}
+
+				page = new SerializedPage(id, serializedPage.getPageType(), data);
+			}
+		}
+
+		return page;
+	}
+
+	@Override
+	public void addPage(IPageContext context, IManageablePage page)
+	{
+		if (page instanceof SerializedPage == false)
+		{
+			throw new WicketRuntimeException("DeltaPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		byte[] data = serializedPage.getData();
+
+		SessionData sessionData = getSessionData(context);
+
+		SerializedPage newBase = null;
+		byte[] delta = null;
+		synchronized (sessionData)
+		{
+			if (sessionData.baseId != 0 && sessionData.deltas < maxDeltas)
+			{
+				byte[] base = getCurrentBase(context, sessionData);
+				if (base != null)
+				{
+					delta = diff(sessionData.baseId, base, sessionData.baseChecksum, data,
+						Math.max(HEADER_LENGTH + BLOCK, data.length / 2));
+				}
+			}
+
+			if (delta == null)
+			{
+				sessionData.rebase(data);
+				newBase = new SerializedPage(sessionData.baseId, serializedPage.getPageType(), data);
+
+				// copies the whole base only
+				delta = diff(sessionData.baseId, data, sessionData.baseChecksum, data,
+					Integer.MAX_VALUE);
+			}
+			sessionData.deltas++;
+		}
+
+		if (newBase != null)
+		{
+			getDelegate().addPage(context, newBase);
+		}
+
+		getDelegate().addPage(context,
+			new SerializedPage(page.getPageId(), serializedPage.getPageType(), delta));
+	}
+
+	/**
+	 * Get the current base of a session, reading it from the delegate if the session was
+	 * deserialized.
+	 *
+	 * @return base or {@code null} if it is no longer available
+	 */
+	private byte[] getCurrentBase(IPageContext context, SessionData sessionData)
+	{
+		if (sessionData.base == null)
+		{
+			sessionData.base = getBase(context, sessionData.baseId, sessionData.baseChecksum);
+		}
+		return sessionData.base;
+	}
+
+	/**
+	 * Get a base from the delegate.
+	 *
+	 * @return base or {@code null} if it is no longer available or does not match the checksum
+	 */
+	private byte[] getBase(IPageContext context, int baseId, int baseChecksum)
+	{
+		IManageablePage base = getDelegate().getPage(context, baseId);
+		if (base instanceof SerializedPage == false)
+		{
+			log.debug("base {} is no longer available", baseId);
+			return null;
+		}
+
+		// base might have been replaced, e.g. after the session was serialized
+		byte[] data = ((SerializedPage)base).getData();
+		if (checksum(data) != baseChecksum)
+		{
+			log.debug("base {} does not match", baseId);
+			return null;
+		}
+
+		return data;
+	}
+
+	@Override
+	public void removeAllPages(IPageContext context)
+	{
+		SessionData sessionData = getSessionData(context);
+		synchronized (sessionData)
+		{
+			sessionData.reset();
+		}
+
+		super.removeAllPages(context);
+	}
+
+	/**
+	 * Decode the given delta.
+	 *
+	 * @return data or {@code null} if the base is no longer available
+	 */
+	private byte[] decode(IPageContext context, byte[] delta)
+	{
+		ByteBuffer buffer = ByteBuffer.wrap(delta);
+		buffer.getInt(); // magic
+		int baseId = buffer.getInt();
+		int baseChecksum = buffer.getInt();
+
+		byte[] base;
+		SessionData sessionData = getSessionData(context);
+		synchronized (sessionData)
+		{
+			if (baseId == sessionData.baseId && baseChecksum == sessionData.baseChecksum)
+			{
+				base = getCurrentBase(context, sessionData);
+			}
+			else
+			{
+				base = getBase(context, baseId, baseChecksum);
+			}
+		}
+		if (base == null)
+		{
+			return null;
+		}
+
+		try
+		{
+			return apply(base, buffer);
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException ex)
+		{
+			log.warn("corrupt delta of base {}", baseId, ex);
+			return null;
+		}
+	}
+
+	private static boolean isDelta(byte[] data)
+	{
+		return data.length >= HEADER_LENGTH && ByteBuffer.wrap(data).getInt() == MAGIC;
+	}
+
+	private static int checksum(byte[] data)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, data.length);
+		return (int)crc.getValue();
+	}
+
+	private static int hash(byte[] data, int offset)
+	{
+		int hash = 0;
+		for (int i = offset; i < offset + BLOCK; i++)
+		{
+			hash = 31 * hash + data[i];
+		}
+		return hash * 0x9E3779B9;
+	}
+
+	/**
+	 * Index all blocks of the given base by their hash.
+	 *
+	 * @return offsets of blocks plus one
+	 */
+	private static int[] index(byte[] base)
+	{
+		int blocks = base.length / BLOCK;
+
+		int size = Integer.highestOneBit(Math.max(blocks, 1) * 2 - 1) << 1;
+		int[] index = new int[size];
+
+		int shift = Integer.numberOfLeadingZeros(size - 1);
+		for (int offset = 0; offset + BLOCK <= base.length; offset += BLOCK)
+		{
+			int slot = hash(base, offset) >>> shift;
+			if (index[slot] == 0)
+			{
+				index[slot] = offset + 1;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Encode the given data as copies from the base and inserted bytes.
+	 *
+	 * @return delta or {@code null} if larger than the given limit
+	 */
+	private static byte[] diff(int baseId, byte[] base, int baseChecksum, byte[] data, int limit)
+	{
+		int[] index = index(base);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(data.length, 1024));
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+		header.putInt(MAGIC).putInt(baseId).putInt(baseChecksum).putInt(base.length)
+			.putInt(data.length);
+		out.write(header.array(), 0, HEADER_LENGTH);
+
+		int shift = Integer.numberOfLeadingZeros(index.length - 1);
+
+		int literal = 0;
+		int position = 0;
+		while (position + BLOCK <= data.length)
+		{
+			int slot = hash(data, position) >>> shift;
+			int candidate = index[slot] - 1;
+			if (candidate >= 0 && matches(base, candidate, data, position))
+			{
+				// extend match backwards into pending literal and forwards
+				int start = position;
+				int baseStart = candidate;
+				while (start > literal && baseStart > 0 && data[start - 1] == base[baseStart - 1])
+				{
+					start--;
+					baseStart--;
+				}
+				int end = position + BLOCK;
+				int baseEnd = candidate + BLOCK;
+				while (end < data.length && baseEnd < base.length && data[end] == base[baseEnd])
+				{
+					end++;
+					baseEnd++;
+				}
+
+				insert(out, data, literal, start - literal);
+				writeVarint(out, ((end - start) << 1) | COPY);
+				writeVarint(out, baseStart);
+
+				if (out.size() > limit)
+				{
+					return null;
+				}
+
+				position = end;
+				literal = end;
+			}
+			else
+			{
+				position++;
+			}
+		}
+		insert(out, data, literal, data.length - literal);
+
+		if (out.size() > limit)
+		{
+			return null;
+		}
+		return out.toByteArray();
+	}
+
+	private static boolean matches(byte[] base, int baseOffset, byte[] data, int offset)
+	{
+		for (int i = 0; i < BLOCK; i++)
+		{
+			if (base[baseOffset + i] != data[offset + i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void insert(ByteArrayOutputStream out, byte[] data, int offset, int length)
+	{
+		if (length > 0)
+		{
+			writeVarint(out, (length << 1) | INSERT);
+			out.write(data, offset, length);
+		}
+	}
+
+	/**
+	 * Apply a delta to its base, the given buffer is positioned after base id and checksum.
+	 */
+	private static byte[] apply(byte[] base, ByteBuffer delta)
+	{
+		int baseLength = delta.getInt();
+		if (baseLength != base.length)
+		{
+			throw new IndexOutOfBoundsException("base length " + base.length);
+		}
+
+		byte[] data = new byte[delta.getInt()];
+
+		int position = 0;
+		while (position < data.length)
+		{
+			int op = readVarint(delta);
+			int length = op >>> 1;
+			if ((op & 1) == COPY)
+			{
+				System.arraycopy(base, readVarint(delta), data, position, length);
+			}
+			else
+			{
+				delta.get(data, position, length);
+			}
+			position += length;
+		}
+		return data;
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write(value);
+	}
+
+	private static int readVarint(ByteBuffer buffer)
+	{
+		int value = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			b = buffer.get() & 0xFF;
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * The current base of a session.
+	 */
+	private static class SessionData implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Next id for a base, always negative.
+		 */
+		private int nextBaseId = -1;
+
+		/**
+		 * Id of the current base, {@code 0} if there is none.
+		 */
+		private int baseId;
+
+		private int baseChecksum;
+
+		/**
+		 * Data of the current base, read from the delegate again after deserialization.
+		 */
+		private transient byte[] base;
+
+		/**
+		 * Count of pages encoded against the current base.
+		 */
+		private int deltas;
+
+		void rebase(byte[] data)
+		{
+			baseId = nextBaseId;
+			nextBaseId = nextBaseId == Integer.MIN_VALUE ? -1 : nextBaseId - 1;
+
+			base = data;
+			baseChecksum = checksum(data);
+			deltas = 0;
+		}
+
+		void reset()
+		{
+			baseId = 0;
+			base = null;
+			deltas = 0;
+		}
+	}
+}
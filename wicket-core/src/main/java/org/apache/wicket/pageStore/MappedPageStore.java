@@ -0,0 +1,1064 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A storage of pages in memory-mapped files.
+ * <p>
+ * All pages passed into this store are restricted to be {@link SerializedPage}s.
+ * <p>
+ * Pages of all sessions are appended to fixed-size segment files, which are mapped into memory.
+ * Concurrent writers only contend on the append pointer of the current segment, there is no file
+ * per session as in {@link DiskPageStore}. The location of each page is kept in an index per
+ * session, lookups of pages do not require any locking.
+ * <p>
+ * Similar to {@link DiskPageStore} the oldest pages of a session are evicted as soon as the
+ * maximum size per session is exceeded. Segments are deleted and unmapped once all their pages have
+ * been evicted or removed. Segments with only a few live pages left are compacted, by copying these
+ * pages into the current segment.
+ */
+public class MappedPageStore extends AbstractPersistentPageStore implements IPersistentPageStore
+{
+	private static final Logger log = LoggerFactory.getLogger(MappedPageStore.class);
+
+	/**
+	 * Name of the file where the page index is stored.
+	 */
+	private static final String INDEX_FILE_NAME = "MappedPageStoreIndex";
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".data";
+
+	/**
+	 * Sealed segments are compacted once less than this part of their capacity is live.
+	 */
+	private static final double COMPACTION_THRESHOLD = 0.25;
+
+	/**
+	 * Unsafe#invokeCleaner(ByteBuffer) to unmap buffers, {@code null} if not available.
+	 */
+	private static final Method INVOKE_CLEANER;
+
+	private static final Object UNSAFE;
+
+	static
+	{
+		Method invokeCleaner = null;
+		Object unsafe = null;
+		try
+		{
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch (Exception | LinkageError ex)
+		{
+			log.debug("Mapped segments cannot be unmapped explicitly", ex);
+		}
+		INVOKE_CLEANER = invokeCleaner;
+		UNSAFE = unsafe;
+	}
+
+	private final File folder;
+
+	private final Bytes maxSizePerSession;
+
+	private final int segmentSize;
+
+	private final ConcurrentMap<String, SessionPages> sessions = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Integer, Segment> segments = new ConcurrentHashMap<>();
+
+	private final AtomicInteger segmentCounter = new AtomicInteger();
+
+	/**
+	 * Segments waiting to be compacted.
+	 */
+	private final Queue<Segment> compactions = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The segment new pages are appended to.
+	 */
+	private volatile Segment current;
+
+	/**
+	 * Create a store that supports {@link SerializedPage}s only.
+	 *
+	 * @param applicationName
+	 *            name of application
+	 * @param fileStoreFolder
+	 *            folder to store to
+	 * @param maxSizePerSession
+	 *            maximum size per session
+	 * @param segmentSize
+	 *            size of each memory-mapped segment
+	 *
+	 * @see SerializingPageStore
+	 */
+	public MappedPageStore(String applicationName, File fileStoreFolder, Bytes maxSizePerSession,
+		Bytes segmentSize)
+	{
+		super(applicationName);
+
+		this.folder = new File(fileStoreFolder, applicationName + "-mappedstore");
+		this.maxSizePerSession = Args.notNull(maxSizePerSession, "maxSizePerSession");
+		this.segmentSize = Args.withinRange(1L, (long)Integer.MAX_VALUE,
+			Args.notNull(segmentSize, "segmentSize").bytes(), "segmentSize").intValue();
+
+		try
+		{
+			if (folder.exists() || folder.mkdirs())
+			{
+				loadIndex();
+			}
+			else
+			{
+				log.warn("Cannot create file store folder for some reason.");
+			}
+		}
+		catch (SecurityException e)
+		{
+			throw new WicketRuntimeException(
+				"SecurityException occurred while creating MappedPageStore. Consider using a non-disk based IPageStore implementation. "
+					+ "See org.apache.wicket.Application.setPageManagerProvider(IPageManagerProvider)",
+				e);
+		}
+	}
+
+	/**
+	 * Pages are already serialized.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	@Override
+	public void destroy()
+	{
+		log.debug("Destroying...");
+		saveIndex();
+
+		for (Segment segment : segments.values())
+		{
+			segment.close();
+		}
+
+		super.destroy();
+		log.debug("Destroyed.");
+	}
+
+	@Override
+	protected IManageablePage getPersistedPage(String sessionIdentifier, int id)
+	{
+		SessionPages pages = sessions.get(sessionIdentifier);
+		if (pages != null)
+		{
+			PageEntry entry = pages.get(id);
+			while (entry != null)
+			{
+				byte[] data = entry.read();
+				if (data != null)
+				{
+					if (log.isDebugEnabled())
+					{
+						log.debug("Returning page with id '{}' in session with id '{}'", id, sessionIdentifier);
+					}
+
+					return new SerializedPage(id, entry.pageType, data);
+				}
+
+				// the entry might have been relocated by a compaction and its segment unmapped in
+				// the meantime, so retry with the current entry
+				PageEntry current = pages.get(id);
+				if (current == entry)
+				{
+					break;
+				}
+				entry = current;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	protected void removePersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		SessionPages pages = sessions.get(sessionIdentifier);
+		if (pages != null)
+		{
+			if (log.isDebugEnabled())
+			{
+				log.debug("Removing page with id '{}' in session with id '{}'", page.getPageId(), sessionIdentifier);
+			}
+
+			pages.remove(page.getPageId());
+
+			compact();
+		}
+	}
+
+	@Override
+	protected void removeAllPersistedPages(String sessionIdentifier)
+	{
+		SessionPages pages = sessions.remove(sessionIdentifier);
+		if (pages != null)
+		{
+			pages.clear();
+
+			compact();
+		}
+	}
+
+	@Override
+	protected void addPersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		if (page instanceof SerializedPage == false)
+		{
+			throw new WicketRuntimeException("MappedPageStore works with serialized pages only");
+		}
+		SerializedPage serializedPage = (SerializedPage)page;
+
+		log.debug("Storing data for page with id '{}' in session with id '{}'", serializedPage.getPageId(), sessionIdentifier);
+
+		byte[] data = serializedPage.getData();
+
+		PageEntry entry = write(serializedPage.getPageId(), serializedPage.getPageType(), data);
+		if (entry == null)
+		{
+			return;
+		}
+
+		SessionPages pages = getSessionPages(sessionIdentifier);
+		pages.add(entry);
+
+		if (sessions.get(sessionIdentifier) != pages)
+		{
+			// all pages were removed concurrently
+			pages.clear();
+		}
+
+		compact();
+	}
+
+	/**
+	 * Compact all segments which were scheduled for compaction.
+	 */
+	private void compact()
+	{
+		Segment segment;
+		while ((segment = compactions.poll()) != null)
+		{
+			segment.compact();
+		}
+	}
+
+	/**
+	 * Unmap a buffer.
+	 */
+	private static void unmap(MappedByteBuffer buffer)
+	{
+		if (INVOKE_CLEANER != null)
+		{
+			try
+			{
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			}
+			catch (Exception ex)
+			{
+				log.debug("Cannot unmap segment", ex);
+			}
+		}
+	}
+
+	private SessionPages getSessionPages(String sessionIdentifier)
+	{
+		SessionPages pages = sessions.get(sessionIdentifier);
+		if (pages == null)
+		{
+			pages = new SessionPages();
+			SessionPages existing = sessions.putIfAbsent(sessionIdentifier, pages);
+			if (existing != null)
+			{
+				pages = existing;
+			}
+		}
+		return pages;
+	}
+
+	/**
+	 * Write the given data into a segment.
+	 *
+	 * @return entry for the written data or {@code null} if the data could not be written
+	 */
+	private PageEntry write(int pageId, String pageType, byte[] data)
+	{
+		int length = data.length;
+
+		try
+		{
+			if (length > segmentSize)
+			{
+				// data does not fit into a regular segment, so it gets one of its own
+				Segment segment = newSegment(length);
+				segment.live.addAndGet(length);
+				int offset = segment.allocate(length);
+				segment.write(offset, data);
+				segment.seal();
+
+				return new PageEntry(pageId, pageType, segment, offset, length);
+			}
+
+			while (true)
+			{
+				Segment segment = current;
+				if (segment != null)
+				{
+					// count as live before allocation, so the segment is not deleted concurrently
+					segment.live.addAndGet(length);
+
+					int offset = segment.allocate(length);
+					if (offset != -1)
+					{
+						segment.write(offset, data);
+
+						return new PageEntry(pageId, pageType, segment, offset, length);
+					}
+
+					segment.release(length);
+				}
+
+				roll(segment);
+			}
+		}
+		catch (IOException ex)
+		{
+			log.error("Cannot save page with id '{}' because the segment cannot be mapped.", pageId, ex);
+
+			return null;
+		}
+	}
+
+	/**
+	 * Replace the given full segment with a new one.
+	 *
+	 * @param full
+	 *            segment that is full, may be {@code null}
+	 */
+	private synchronized void roll(Segment full) throws IOException
+	{
+		if (current == full)
+		{
+			current = newSegment(segmentSize);
+
+			if (full != null)
+			{
+				full.seal();
+			}
+		}
+	}
+
+	private Segment newSegment(int capacity) throws IOException
+	{
+		int id = segmentCounter.incrementAndGet();
+
+		Segment segment = new Segment(id, new File(folder, SEGMENT_PREFIX + id + SEGMENT_SUFFIX),
+			capacity);
+		segments.put(id, segment);
+
+		return segment;
+	}
+
+	/**
+	 * Load the index.
+	 */
+	private void loadIndex()
+	{
+		File index = new File(folder, INDEX_FILE_NAME);
+		if (index.exists() && index.length() > 0)
+		{
+			try (DataInputStream input = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(index))))
+			{
+				int sessionCount = input.readInt();
+				for (int s = 0; s < sessionCount; s++)
+				{
+					String sessionIdentifier = input.readUTF();
+					SessionPages pages = getSessionPages(sessionIdentifier);
+
+					int pageCount = input.readInt();
+					for (int p = 0; p < pageCount; p++)
+					{
+						int pageId = input.readInt();
+						String pageType = input.readBoolean() ? input.readUTF() : null;
+						int segmentId = input.readInt();
+						int offset = input.readInt();
+						int length = input.readInt();
+
+						Segment segment = loadSegment(segmentId);
+						if (segment != null && offset + (long)length <= segment.capacity)
+						{
+							segment.live.addAndGet(length);
+							pages.add(new PageEntry(pageId, pageType, segment, offset, length));
+						}
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't load MappedPageStore index from file " + index + ".", e);
+
+				sessions.clear();
+				segments.clear();
+			}
+		}
+		Files.remove(index);
+
+		// remove all segments not referenced by the index
+		File[] files = folder.listFiles();
+		if (files != null)
+		{
+			for (File file : files)
+			{
+				Integer segmentId = getSegmentId(file);
+				if (segmentId != null && segments.containsKey(segmentId) == false)
+				{
+					Files.remove(file);
+				}
+			}
+		}
+	}
+
+	private Segment loadSegment(int segmentId) throws IOException
+	{
+		Segment segment = segments.get(segmentId);
+		if (segment == null)
+		{
+			File file = new File(folder, SEGMENT_PREFIX + segmentId + SEGMENT_SUFFIX);
+			if (file.exists() == false || file.length() > Integer.MAX_VALUE)
+			{
+				return null;
+			}
+
+			segment = new Segment(segmentId, file, (int)file.length());
+			segment.sealed = true;
+			segments.put(segmentId, segment);
+
+			if (segmentId > segmentCounter.get())
+			{
+				segmentCounter.set(segmentId);
+			}
+		}
+		return segment;
+	}
+
+	private Integer getSegmentId(File file)
+	{
+		String name = file.getName();
+		if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+		{
+			try
+			{
+				return Integer.valueOf(
+					name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+			}
+			catch (NumberFormatException ex)
+			{
+				log.debug("unexpected file {}", file.getAbsolutePath());
+			}
+		}
+		return null;
+	}
+
+	private void saveIndex()
+	{
+		if (folder.exists())
+		{
+			for (Segment segment : segments.values())
+			{
+				segment.force();
+			}
+
+			File index = new File(folder, INDEX_FILE_NAME);
+			Files.remove(index);
+			try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(index))))
+			{
+				List<String> sessionIdentifiers = new ArrayList<>(sessions.keySet());
+				output.writeInt(sessionIdentifiers.size());
+				for (String sessionIdentifier : sessionIdentifiers)
+				{
+					SessionPages pages = sessions.get(sessionIdentifier);
+					List<PageEntry> entries = pages != null ? pages.getEntries() : Collections.emptyList();
+
+					output.writeUTF(sessionIdentifier);
+					output.writeInt(entries.size());
+					for (PageEntry entry : entries)
+					{
+						output.writeInt(entry.pageId);
+						output.writeBoolean(entry.pageType != null);
+						if (entry.pageType != null)
+						{
+							output.writeUTF(entry.pageType);
+						}
+						output.writeInt(entry.segment.id);
+						output.writeInt(entry.offset);
+						output.writeInt(entry.length);
+					}
+				}
+			}
+			catch (Exception e)
+			{
+				log.error("Couldn't write MappedPageStore index to file " + index + ".", e);
+			}
+		}
+	}
+
+	@Override
+	public Set<String> getSessionIdentifiers()
+	{
+		return Collections.unmodifiableSet(sessions.keySet());
+	}
+
+	@Override
+	public List<IPersistedPage> getPersistedPages(String sessionIdentifier)
+	{
+		List<IPersistedPage> pages = new ArrayList<>();
+
+		SessionPages sessionPages = sessions.get(sessionIdentifier);
+		if (sessionPages != null)
+		{
+			for (PageEntry entry : sessionPages.getEntries())
+			{
+				pages.add(new PersistedPage(entry.pageId, entry.pageType, entry.length));
+			}
+		}
+		return pages;
+	}
+
+	@Override
+	public Bytes getTotalSize()
+	{
+		long size = 0;
+
+		for (SessionPages pages : sessions.values())
+		{
+			size = size + pages.size.get();
+		}
+
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * The pages of a single session, linked from oldest to newest. Lookups by page id do not lock,
+	 * all changes are guarded by the instance.
+	 */
+	private class SessionPages
+	{
+		private final ConcurrentMap<Integer, PageEntry> pages = new ConcurrentHashMap<>();
+
+		private final AtomicLong size = new AtomicLong();
+
+		private PageEntry oldest;
+
+		private PageEntry newest;
+
+		public PageEntry get(int pageId)
+		{
+			return pages.get(pageId);
+		}
+
+		public synchronized List<PageEntry> getEntries()
+		{
+			List<PageEntry> entries = new ArrayList<>();
+			for (PageEntry entry = oldest; entry != null; entry = entry.next)
+			{
+				entries.add(entry);
+			}
+			return entries;
+		}
+
+		/**
+		 * Add an entry, replacing an existing entry with the same page id and evicting the oldest
+		 * entries if the maximum size is exceeded.
+		 */
+		public synchronized void add(PageEntry entry)
+		{
+			entry.prev = newest;
+			if (newest == null)
+			{
+				oldest = entry;
+			}
+			else
+			{
+				newest.next = entry;
+			}
+			newest = entry;
+			entry.session = this;
+			size.addAndGet(entry.length);
+
+			PageEntry previous = pages.put(entry.pageId, entry);
+			if (previous != null)
+			{
+				discard(previous);
+			}
+
+			while (size.get() > maxSizePerSession.bytes())
+			{
+				PageEntry evicted = oldest;
+				if (evicted == null || evicted == entry)
+				{
+					break;
+				}
+
+				pages.remove(evicted.pageId, evicted);
+				discard(evicted);
+			}
+		}
+
+		public synchronized void remove(int pageId)
+		{
+			PageEntry entry = pages.remove(pageId);
+			if (entry != null)
+			{
+				discard(entry);
+			}
+		}
+
+		public synchronized void clear()
+		{
+			while (oldest != null)
+			{
+				PageEntry entry = oldest;
+				pages.remove(entry.pageId, entry);
+				discard(entry);
+			}
+		}
+
+		/**
+		 * Copy the data of an entry into the current segment, keeping its position in this
+		 * session.
+		 */
+		public synchronized void relocate(PageEntry entry)
+		{
+			if (entry.session != this)
+			{
+				// discarded in the meantime
+				return;
+			}
+
+			// an entry of this session is not relocated concurrently, so its segment cannot be deleted
+			// and a failed read means the store was destroyed
+			byte[] data = entry.read();
+			if (data == null)
+			{
+				return;
+			}
+
+			PageEntry moved = write(entry.pageId, entry.pageType, data);
+			if (moved == null)
+			{
+				return;
+			}
+
+			moved.session = this;
+			moved.prev = entry.prev;
+			moved.next = entry.next;
+			if (entry.prev == null)
+			{
+				oldest = moved;
+			}
+			else
+			{
+				entry.prev.next = moved;
+			}
+			if (entry.next == null)
+			{
+				newest = moved;
+			}
+			else
+			{
+				entry.next.prev = moved;
+			}
+			entry.prev = entry.next = null;
+			entry.session = null;
+
+			pages.replace(entry.pageId, entry, moved);
+
+			entry.segment.release(entry);
+		}
+
+		private void discard(PageEntry entry)
+		{
+			if (entry.session == this)
+			{
+				if (entry.prev == null)
+				{
+					oldest = entry.next;
+				}
+				else
+				{
+					entry.prev.next = entry.next;
+				}
+				if (entry.next == null)
+				{
+					newest = entry.prev;
+				}
+				else
+				{
+					entry.next.prev = entry.prev;
+				}
+				entry.prev = entry.next = null;
+				entry.session = null;
+
+				size.addAndGet(-entry.length);
+
+				entry.segment.release(entry);
+			}
+		}
+	}
+
+	/**
+	 * The location of a page in a segment.
+	 */
+	private static class PageEntry
+	{
+		private final int pageId;
+
+		private final String pageType;
+
+		private final Segment segment;
+
+		private final int offset;
+
+		private final int length;
+
+		/**
+		 * The session holding this entry, {@code null} if not added yet or already discarded.
+		 * Guarded by the session, as the links are.
+		 */
+		private SessionPages session;
+
+		private PageEntry prev;
+
+		private PageEntry next;
+
+		private PageEntry(int pageId, String pageType, Segment segment, int offset, int length)
+		{
+			this.pageId = pageId;
+			this.pageType = pageType;
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+
+			segment.entries.add(this);
+		}
+
+		/**
+		 * @return data or {@code null} if the segment was released already
+		 */
+		public byte[] read()
+		{
+			return segment.read(offset, length);
+		}
+	}
+
+	/**
+	 * A memory-mapped file holding pages of possibly several sessions.
+	 */
+	private class Segment
+	{
+		private final int id;
+
+		private final File file;
+
+		private final int capacity;
+
+		private final MappedByteBuffer buffer;
+
+		/**
+		 * Pointer for appending of data.
+		 */
+		private final AtomicInteger position = new AtomicInteger();
+
+		/**
+		 * Count of bytes still referenced from pages.
+		 */
+		private final AtomicLong live = new AtomicLong();
+
+		/**
+		 * The entries of pages in this segment.
+		 */
+		private final Set<PageEntry> entries = ConcurrentHashMap.newKeySet();
+
+		private final AtomicBoolean deleted = new AtomicBoolean();
+
+		private final AtomicBoolean compacting = new AtomicBoolean();
+
+		/**
+		 * Guards the buffer against accesses after it was unmapped.
+		 */
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		private boolean unmapped;
+
+		/**
+		 * Is this segment no longer used for appending.
+		 */
+		private volatile boolean sealed;
+
+		private Segment(int id, File file, int capacity) throws IOException
+		{
+			this.id = id;
+			this.file = file;
+			this.capacity = capacity;
+
+			FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try
+			{
+				buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+			}
+			finally
+			{
+				IOUtils.closeQuietly(channel);
+			}
+		}
+
+		/**
+		 * Allocate space in this segment.
+		 *
+		 * @param length
+		 *            length of data
+		 * @return offset or {@code -1} if the segment is full
+		 */
+		public int allocate(int length)
+		{
+			while (true)
+			{
+				int offset = position.get();
+				if (offset + (long)length > capacity)
+				{
+					return -1;
+				}
+
+				if (position.compareAndSet(offset, offset + length))
+				{
+					return offset;
+				}
+			}
+		}
+
+		public void write(int offset, byte[] data)
+		{
+			lock.readLock().lock();
+			try
+			{
+				if (unmapped == false)
+				{
+					ByteBuffer target = buffer.duplicate();
+					target.position(offset);
+					target.put(data);
+				}
+			}
+			finally
+			{
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * @return data or {@code null} if this segment is unmapped already
+		 */
+		public byte[] read(int offset, int length)
+		{
+			lock.readLock().lock();
+			try
+			{
+				if (unmapped)
+				{
+					return null;
+				}
+
+				ByteBuffer source = buffer.duplicate();
+				source.position(offset);
+
+				byte[] data = new byte[length];
+				source.get(data);
+				return data;
+			}
+			finally
+			{
+				lock.readLock().unlock();
+			}
+		}
+
+		public void seal()
+		{
+			sealed = true;
+
+			// prevent any further allocation
+			position.set(capacity);
+
+			checkLive(live.get());
+		}
+
+		public void release(PageEntry entry)
+		{
+			entries.remove(entry);
+
+			release(entry.length);
+		}
+
+		public void release(long length)
+		{
+			checkLive(live.addAndGet(-length));
+		}
+
+		/**
+		 * Delete this segment if no page is live anymore, or schedule it for compaction when only
+		 * a small part is still live.
+		 */
+		private void checkLive(long live)
+		{
+			if (sealed)
+			{
+				if (live == 0)
+				{
+					delete();
+				}
+				else if (live < capacity * COMPACTION_THRESHOLD && compacting.compareAndSet(false, true))
+				{
+					compactions.add(this);
+				}
+			}
+		}
+
+		/**
+		 * Move all live pages into the current segment, so this segment can be deleted.
+		 */
+		public void compact()
+		{
+			for (PageEntry entry : new ArrayList<>(entries))
+			{
+				SessionPages session = entry.session;
+				if (session != null)
+				{
+					session.relocate(entry);
+				}
+			}
+
+			// allow another compaction of entries that could not be relocated
+			compacting.set(false);
+		}
+
+		public void force()
+		{
+			lock.readLock().lock();
+			try
+			{
+				if (unmapped == false)
+				{
+					buffer.force();
+				}
+			}
+			finally
+			{
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * Unmap the buffer right away, instead of waiting for it to be garbage collected.
+		 */
+		public void close()
+		{
+			lock.writeLock().lock();
+			try
+			{
+				if (unmapped == false)
+				{
+					unmapped = true;
+
+					unmap(buffer);
+				}
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+
+		private void delete()
+		{
+			if (deleted.compareAndSet(false, true))
+			{
+				segments.remove(id, this);
+
+				close();
+
+				if (!Files.remove(file))
+				{
+					log.debug("cannot remove segment {}", file);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * An application-wide storage of serialized pages in direct memory, i.e. outside of the Java heap.
+ * <p>
+ * All pages passed into this store are restricted to be {@link SerializedPage}s.
+ * <p>
+ * This store is meant to be used as a cache in front of a persistent store, so that pages missing
+ * in the {@link InSessionPageStore} do not have to be read from disk again:
+ *
+ * <pre>
+ * new CachingPageStore(diskStore, new OffHeapPageStore(application.getName(), maxBytes, maxBytesPerSession))
+ * </pre>
+ *
+ * The pages are held in fixed-size blocks of a few preallocated direct buffers. The least recently
+ * used pages are evicted when either the total size of the cache or the size of a single session
+ * exceeds its limit.
+ *
+ * @see CachingPageStore
+ */
+public class OffHeapPageStore extends AbstractPersistentPageStore implements IPersistentPageStore
+{
+	private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	private static final int MAX_STRIPES = 16;
+
+	private final Stripe[] stripes;
+
+	/**
+	 * Keep pages up to {@code maxBytes} in direct memory, limiting each session to
+	 * {@code maxBytesPerSession}.
+	 *
+	 * @param applicationName
+	 *            {@link Application#getName()}
+	 * @param maxBytes
+	 *            maximum bytes to keep for all sessions
+	 * @param maxBytesPerSession
+	 *            maximum bytes to keep for a single session
+	 */
+	public OffHeapPageStore(String applicationName, Bytes maxBytes, Bytes maxBytesPerSession)
+	{
+		this(applicationName, maxBytes, maxBytesPerSession, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Keep pages up to {@code maxBytes} in direct memory, limiting each session to
+	 * {@code maxBytesPerSession}.
+	 *
+	 * @param applicationName
+	 *            {@link Application#getName()}
+	 * @param maxBytes
+	 *            maximum bytes to keep for all sessions
+	 * @param maxBytesPerSession
+	 *            maximum bytes to keep for a single session
+	 * @param blockSize
+	 *            size of blocks pages are stored in
+	 */
+	public OffHeapPageStore(String applicationName, Bytes maxBytes, Bytes maxBytesPerSession,
+		int blockSize)
+	{
+		super(applicationName);
+
+		Args.notNull(maxBytes, "maxBytes");
+		Args.notNull(maxBytesPerSession, "maxBytesPerSession");
+		Args.withinRange(1, Integer.MAX_VALUE, blockSize, "blockSize");
+		Args.withinRange(Bytes.bytes(blockSize), Bytes.MAX, maxBytesPerSession, "maxBytesPerSession");
+		Args.withinRange(maxBytesPerSession, Bytes.MAX, maxBytes, "maxBytes");
+
+		// each stripe must be able to hold the pages of a single session
+		int stripeCount = (int)Math.max(1,
+			Math.min(MAX_STRIPES, maxBytes.bytes() / maxBytesPerSession.bytes()));
+
+		long blocksPerStripe = maxBytes.bytes() / stripeCount / blockSize;
+		if (blocksPerStripe * blockSize > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("maxBytes is too large: " + maxBytes);
+		}
+
+		stripes = new Stripe[stripeCount];
+		for (int s = 0; s < stripeCount; s++)
+		{
+			stripes[s] = new Stripe((int)blocksPerStripe, blockSize, maxBytesPerSession.bytes());
+		}
+	}
+
+	/**
+	 * Pages are serialized, so versioning is supported.
+	 */
+	@Override
+	public boolean supportsVersioning()
+	{
+		return true;
+	}
+
+	private Stripe getStripe(String sessionIdentifier)
+	{
+		int hash = sessionIdentifier.hashCode();
+		hash ^= (hash >>> 16);
+
+		return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+	}
+
+	@Override
+	protected IManageablePage getPersistedPage(String sessionIdentifier, int id)
+	{
+		return getStripe(sessionIdentifier).get(sessionIdentifier, id);
+	}
+
+	@Override
+	protected void removePersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		getStripe(sessionIdentifier).remove(sessionIdentifier, page.getPageId());
+	}
+
+	@Override
+	protected void removeAllPersistedPages(String sessionIdentifier)
+	{
+		getStripe(sessionIdentifier).removeAll(sessionIdentifier);
+	}
+
+	@Override
+	protected void addPersistedPage(String sessionIdentifier, IManageablePage page)
+	{
+		if (page instanceof SerializedPage == false)
+		{
+			throw new WicketRuntimeException("OffHeapPageStore works with serialized pages only");
+		}
+
+		getStripe(sessionIdentifier).add(sessionIdentifier, (SerializedPage)page);
+	}
+
+	@Override
+	public void destroy()
+	{
+		for (Stripe stripe : stripes)
+		{
+			stripe.clear();
+		}
+
+		super.destroy();
+	}
+
+	@Override
+	public Set<String> getSessionIdentifiers()
+	{
+		Set<String> identifiers = new HashSet<>();
+		for (Stripe stripe : stripes)
+		{
+			stripe.collectSessionIdentifiers(identifiers);
+		}
+		return Collections.unmodifiableSet(identifiers);
+	}
+
+	@Override
+	public List<IPersistedPage> getPersistedPages(String sessionIdentifier)
+	{
+		return getStripe(sessionIdentifier).getPersistedPages(sessionIdentifier);
+	}
+
+	@Override
+	public Bytes getTotalSize()
+	{
+		long size = 0;
+		for (Stripe stripe : stripes)
+		{
+			size += stripe.getSize();
+		}
+		return Bytes.bytes(size);
+	}
+
+	/**
+	 * Key of a cached page.
+	 */
+	private static class Key
+	{
+		private final String sessionIdentifier;
+
+		private final int pageId;
+
+		private Key(String sessionIdentifier, int pageId)
+		{
+			this.sessionIdentifier = sessionIdentifier;
+			this.pageId = pageId;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof Key == false)
+			{
+				return false;
+			}
+			Key other = (Key)obj;
+			return pageId == other.pageId && sessionIdentifier.equals(other.sessionIdentifier);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(sessionIdentifier, pageId);
+		}
+	}
+
+	/**
+	 * A cached page.
+	 */
+	private static class Entry
+	{
+		private final Key key;
+
+		private final String pageType;
+
+		private final int length;
+
+		private final int[] blocks;
+
+		private Entry(Key key, String pageType, int length, int[] blocks)
+		{
+			this.key = key;
+			this.pageType = pageType;
+			this.length = length;
+			this.blocks = blocks;
+		}
+	}
+
+	/**
+	 * A part of the cache with its own buffer and lock.
+	 */
+	private static class Stripe
+	{
+		private final ByteBuffer buffer;
+
+		private final int blockSize;
+
+		private final long maxBytesPerSession;
+
+		/**
+		 * Stack of free blocks.
+		 */
+		private final int[] free;
+
+		private int freeCount;
+
+		/**
+		 * All entries in access-order.
+		 */
+		private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		/**
+		 * Entries of each session in access-order.
+		 */
+		private final Map<String, LinkedHashMap<Integer, Entry>> sessions = new HashMap<>();
+
+		private final Map<String, Long> sessionSizes = new HashMap<>();
+
+		private long size;
+
+		private Stripe(int blockCount, int blockSize, long maxBytesPerSession)
+		{
+			this.blockSize = blockSize;
+			this.maxBytesPerSession = maxBytesPerSession;
+
+			buffer = ByteBuffer.allocateDirect(blockCount * blockSize);
+
+			free = new int[blockCount];
+			for (int b = 0; b < blockCount; b++)
+			{
+				free[b] = blockCount - 1 - b;
+			}
+			freeCount = blockCount;
+		}
+
+		public synchronized SerializedPage get(String sessionIdentifier, int pageId)
+		{
+			Entry entry = entries.get(new Key(sessionIdentifier, pageId));
+			if (entry == null)
+			{
+				return null;
+			}
+			sessions.get(sessionIdentifier).get(pageId);
+
+			byte[] data = new byte[entry.length];
+			ByteBuffer source = buffer.duplicate();
+			int offset = 0;
+			for (int block : entry.blocks)
+			{
+				int count = Math.min(blockSize, entry.length - offset);
+				source.limit(block * blockSize + count).position(block * blockSize);
+				source.get(data, offset, count);
+				offset += count;
+			}
+
+			return new SerializedPage(pageId, entry.pageType, data);
+		}
+
+		public synchronized void add(String sessionIdentifier, SerializedPage page)
+		{
+			remove(sessionIdentifier, page.getPageId());
+
+			byte[] data = page.getData();
+			int blockCount = (data.length + blockSize - 1) / blockSize;
+			if (data.length > maxBytesPerSession || blockCount > free.length)
+			{
+				// too large to be cached at all
+				return;
+			}
+
+			LinkedHashMap<Integer, Entry> sessionEntries = sessions.computeIfAbsent(sessionIdentifier,
+				k -> new LinkedHashMap<>(16, 0.75f, true));
+
+			// make room in session
+			long sessionSize = sessionSizes.getOrDefault(sessionIdentifier, 0L);
+			Iterator<Entry> oldest = sessionEntries.values().iterator();
+			while (sessionSize + data.length > maxBytesPerSession)
+			{
+				Entry entry = oldest.next();
+				oldest.remove();
+				entries.remove(entry.key);
+				release(entry);
+
+				sessionSize -= entry.length;
+			}
+
+			// make room in stripe
+			Iterator<Entry> eldest = entries.values().iterator();
+			while (freeCount < blockCount)
+			{
+				Entry entry = eldest.next();
+				eldest.remove();
+				release(entry);
+
+				if (entry.key.sessionIdentifier.equals(sessionIdentifier))
+				{
+					sessionEntries.remove(entry.key.pageId);
+					sessionSize -= entry.length;
+				}
+				else
+				{
+					removeFromSession(entry);
+				}
+			}
+
+			int[] blocks = new int[blockCount];
+			ByteBuffer target = buffer.duplicate();
+			int offset = 0;
+			for (int b = 0; b < blockCount; b++)
+			{
+				int block = free[--freeCount];
+				blocks[b] = block;
+
+				int count = Math.min(blockSize, data.length - offset);
+				target.position(block * blockSize);
+				target.put(data, offset, count);
+				offset += count;
+			}
+
+			Key key = new Key(sessionIdentifier, page.getPageId());
+			Entry entry = new Entry(key, page.getPageType(), data.length, blocks);
+			entries.put(key, entry);
+			sessionEntries.put(key.pageId, entry);
+
+			sessionSizes.put(sessionIdentifier, sessionSize + data.length);
+			size += data.length;
+		}
+
+		public synchronized void remove(String sessionIdentifier, int pageId)
+		{
+			Entry entry = entries.remove(new Key(sessionIdentifier, pageId));
+			if (entry != null)
+			{
+				release(entry);
+
+				removeFromSession(entry);
+			}
+		}
+
+		public synchronized void removeAll(String sessionIdentifier)
+		{
+			LinkedHashMap<Integer, Entry> sessionEntries = sessions.remove(sessionIdentifier);
+			if (sessionEntries != null)
+			{
+				for (Entry entry : sessionEntries.values())
+				{
+					entries.remove(entry.key);
+					release(entry);
+				}
+			}
+			sessionSizes.remove(sessionIdentifier);
+		}
+
+		public synchronized void clear()
+		{
+			for (Entry entry : entries.values())
+			{
+				release(entry);
+			}
+			entries.clear();
+			sessions.clear();
+			sessionSizes.clear();
+		}
+
+		public synchronized void collectSessionIdentifiers(Set<String> identifiers)
+		{
+			identifiers.addAll(sessions.keySet());
+		}
+
+		public synchronized List<IPersistedPage> getPersistedPages(String sessionIdentifier)
+		{
+			List<IPersistedPage> pages = new ArrayList<>();
+
+			LinkedHashMap<Integer, Entry> sessionEntries = sessions.get(sessionIdentifier);
+			if (sessionEntries != null)
+			{
+				for (Entry entry : sessionEntries.values())
+				{
+					pages.add(new PersistedPage(entry.key.pageId, entry.pageType, entry.length));
+				}
+			}
+
+			return pages;
+		}
+
+		public synchronized long getSize()
+		{
+			return size;
+		}
+
+		private void removeFromSession(Entry entry)
+		{
+			String sessionIdentifier = entry.key.sessionIdentifier;
+
+			LinkedHashMap<Integer, Entry> sessionEntries = sessions.get(sessionIdentifier);
+			sessionEntries.remove(entry.key.pageId);
+			if (sessionEntries.isEmpty())
+			{
+				sessions.remove(sessionIdentifier);
+				sessionSizes.remove(sessionIdentifier);
+			}
+			else
+			{
+				sessionSizes.put(sessionIdentifier,
+					sessionSizes.get(sessionIdentifier) - entry.length);
+			}
+		}
+
+		private void release(Entry entry)
+		{
+			for (int block : entry.blocks)
+			{
+				free[freeCount++] = block;
+			}
+			size -= entry.length;
+		}
+	}
+}
@@ -524,7 +524,11 @@ public abstract class AbstractRequestLogger implements IRequestLogger
 		return buf.toString();
 	}
 
-	private int getRequestsWindowSize()
+	/**
+	 * @return the {@link org.apache.wicket.settings.RequestLoggerSettings#getRequestsWindowSize()
+	 *         configured window size}
+	 */
+	protected int getRequestsWindowSize()
 	{
 		int requestsWindowSize = 0;
 		if (Application.exists())
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A {@link RequestLogger} that records requests without any locking, so it can be left enabled
+ * on machines with many cores without serializing all requests.
+ * <p>
+ * Instead of a single rounded buffer guarded by a lock, requests are recorded into several
+ * stripes, each a rounded buffer with a capacity of the full window size. A request goes into the
+ * stripe of its thread, so concurrent requests rarely write to the same stripe. On read the
+ * stripes are merged and the most recent requests up to the window size are kept, thus
+ * {@link #getRequests()}, {@link #getAverageRequestTime()} and {@link #getRequestsPerMinute()}
+ * return the same as for {@link RequestLogger}, for the price of up to one window of requests
+ * being held per stripe.
+ * <p>
+ * The window size is read from the {@link org.apache.wicket.settings.RequestLoggerSettings} once on
+ * construction, later changes of the settings do not apply.
+ * <p>
+ * Additionally all request times since start are recorded in a histogram, see
+ * {@link #getRequestTimePercentile(double)}.
+ * <p>
+ * To use this logger, override {@link WebApplication#newRequestLogger()}:
+ * 
+ * <pre>
+ * protected IRequestLogger newRequestLogger()
+ * {
+ * 	return new StripedRequestLogger();
+ * }
+ * </pre>
+ */
+public class StripedRequestLogger extends RequestLogger
+{
+	/**
+	 * Request times below this are recorded exactly in the histogram.
+	 */
+	private static final int LINEAR_BUCKETS = 16;
+
+	/**
+	 * Number of buckets for each power of two above {@link #LINEAR_BUCKETS}, giving a precision
+	 * of 12.5%.
+	 */
+	private static final int SUB_BUCKETS = 8;
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int LINEAR_BITS = 4;
+
+	private static final Comparator<Entry> BY_TIME = Comparator.comparingLong(e -> e.time);
+
+	private final Window window;
+
+	private final LongAdder requestCount = new LongAdder();
+
+	private final LongAdder totalRequestTime = new LongAdder();
+
+	private final LongAdder[] histogram;
+
+	/**
+	 * Construct with one stripe per available processor.
+	 */
+	public StripedRequestLogger()
+	{
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Construct.
+	 * 
+	 * @param stripes
+	 *            number of stripes, rounded up to a power of two
+	 */
+	public StripedRequestLogger(int stripes)
+	{
+		Args.withinRange(1, 1 << 16, stripes, "stripes");
+
+
+		histogram = new LongAdder[bucket(Long.MAX_VALUE) + 1];
+		for (int i = 0; i < histogram.length; i++)
+		{
+			histogram[i] = new LongAdder();
+		}
+
+		window = new Window(getRequestsWindowSize(),
+			stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1);
+	}
+
+	@Override
+	protected void addRequest(RequestData rd)
+	{
+		long timeTaken = Math.max(0, rd.getTimeTaken());
+		requestCount.increment();
+		totalRequestTime.add(timeTaken);
+		histogram[bucket(timeTaken)].increment();
+
+		window.add(new Entry(System.nanoTime(), rd));
+	}
+
+	@Override
+	public List<RequestData> getRequests()
+	{
+		Entry[] entries = window.snapshot();
+
+		RequestData[] requests = new RequestData[entries.length];
+		for (int i = 0; i < entries.length; i++)
+		{
+			requests[i] = entries[i].data;
+		}
+		return Arrays.asList(requests);
+	}
+
+	@Override
+	public long getAverageRequestTime()
+	{
+		Entry[] entries = window.snapshot();
+		if (entries.length == 0)
+		{
+			return 0;
+		}
+
+		long total = 0;
+		for (Entry entry : entries)
+		{
+			total += entry.data.getTimeTaken();
+		}
+		return total / entries.length;
+	}
+
+	@Override
+	public long getRequestsPerMinute()
+	{
+		Entry[] entries = window.snapshot();
+		if (entries.length == 0)
+		{
+			return 0;
+		}
+
+		long start = Long.MAX_VALUE;
+		for (Entry entry : entries)
+		{
+			start = Math.min(start, entry.data.getStartDate().getTime());
+		}
+		double diff = System.currentTimeMillis() - start;
+		return Math.round(entries.length / (diff / 60000.0));
+	}
+
+	/**
+	 * @return the number of requests since start
+	 */
+	public long getRequestCount()
+	{
+		return requestCount.sum();
+	}
+
+	/**
+	 * @return the average time taken of all requests since start
+	 */
+	public long getTotalAverageRequestTime()
+	{
+		long count = requestCount.sum();
+		if (count == 0)
+		{
+			return 0;
+		}
+		return totalRequestTime.sum() / count;
+	}
+
+	/**
+	 * Get the time taken by the given percentile of all requests since start, e.g. {@code 99}
+	 * for the time 99% of all requests took at most. Times of 16 milliseconds and more are
+	 * approximated by up to 12.5% too high.
+	 * 
+	 * @param percentile
+	 *            percentile greater than 0 and at most 100
+	 * @return time in milliseconds, 0 if no request was recorded yet
+	 */
+	public long getRequestTimePercentile(double percentile)
+	{
+		Args.isTrue(percentile > 0 && percentile <= 100, "percentile must be within (0, 100]");
+
+		long[] counts = new long[histogram.length];
+		long total = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			counts[i] = histogram[i].sum();
+			total += counts[i];
+		}
+		if (total == 0)
+		{
+			return 0;
+		}
+
+		long rank = (long)Math.ceil(total * percentile / 100);
+		long count = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			count += counts[i];
+			if (count >= rank)
+			{
+				return highestValue(i);
+			}
+		}
+		return highestValue(counts.length - 1);
+	}
+
+	/**
+	 * Index of the histogram bucket for a time, linear below {@value #LINEAR_BUCKETS} and
+	 * {@value #SUB_BUCKETS} buckets for each power of two above.
+	 */
+	private static int bucket(long time)
+	{
+		if (time < LINEAR_BUCKETS)
+		{
+			return (int)time;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(time);
+		int sub = (int)(time >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (exponent - LINEAR_BITS) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Highest time recorded in a histogram bucket.
+	 */
+	private static long highestValue(int bucket)
+	{
+		if (bucket < LINEAR_BUCKETS)
+		{
+			return bucket;
+		}
+
+		int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + LINEAR_BITS;
+		long sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+		long lowest = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+		return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * A recorded request.
+	 */
+	private static class Entry
+	{
+		/** when the request was recorded, for ordering across stripes */
+		private final long time;
+
+		private final RequestData data;
+
+		private Entry(long time, RequestData data)
+		{
+			this.time = time;
+			this.data = data;
+		}
+	}
+
+	/**
+	 * The stripes for a window size.
+	 */
+	private static class Window
+	{
+		private final int size;
+
+		private final AtomicReferenceArray<Entry>[] buffers;
+
+		private final AtomicLong[] cursors;
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private Window(int size, int stripes)
+		{
+			this.size = size;
+
+			buffers = new AtomicReferenceArray[stripes];
+			cursors = new AtomicLong[stripes];
+			for (int i = 0; i < stripes; i++)
+			{
+				buffers[i] = new AtomicReferenceArray<>(size);
+				cursors[i] = new AtomicLong();
+			}
+		}
+
+		private void add(Entry entry)
+		{
+			if (size == 0)
+			{
+				return;
+			}
+
+			long id = Thread.currentThread().getId();
+			int stripe = (int)(id ^ (id >>> 16)) & (buffers.length - 1);
+
+			long index = cursors[stripe].getAndIncrement();
+			buffers[stripe].lazySet((int)(index % size), entry);
+		}
+
+		/**
+		 * @return the most recent entries up to the window size, oldest first
+		 */
+		private Entry[] snapshot()
+		{
+			List<Entry> entries = new ArrayList<>();
+			for (AtomicReferenceArray<Entry> buffer : buffers)
+			{
+				for (int i = 0; i < buffer.length(); i++)
+				{
+					Entry entry = buffer.get(i);
+					if (entry != null)
+					{
+						entries.add(entry);
+					}
+				}
+			}
+			entries.sort(BY_TIME);
+
+			int from = Math.max(0, entries.size() - size);
+			return entries.subList(from, entries.size()).toArray(new Entry[0]);
+		}
+	}
+}
@@ -16,6 +16,12 @@
  */
 package org.apache.wicket.request.cycle;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.apache.wicket.Application;
@@ -46,6 +52,7 @@ import org.apache.wicket.request.UrlRenderer;
 import org.apache.wicket.request.component.IRequestablePage;
 import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
 import org.apache.wicket.request.handler.resource.ResourceRequestHandler;
+import org.apache.wicket.request.mapper.parameter.INamedParameters.NamedPair;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.ResourceReference;
@@ -124,6 +131,15 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 
 	private Response activeResponse;
 
+	/** the urls rendered for handlers, see {@link RenderedUrlKey} */
+	private Map<RenderedUrlKey, RenderedUrl> renderedUrls;
+
+	/** the base url {@link #renderedUrls} are relative to */
+	private Url renderedUrlsBase;
+
+	/** the id of the session {@link #renderedUrls} were encoded for */
+	private String renderedUrlsSessionId;
+
 	/**
 	 * Construct.
 	 * 
@@ -553,6 +569,10 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 	 * have been rendered.
 	 * <p>
 	 * The resulting URL will be relative to current page.
+	 * <p>
+	 * URLs for bookmarkable pages and resource references are memoized for the rest of the
+	 * request, as long as the base URL of the {@link #getUrlRenderer() url renderer} and the
+	 * session do not change. Listeners are notified about a copy of the mapped URL nevertheless.
 	 * 
 	 * @param handler
 	 * @return Url String or <code>null</code>
@@ -561,8 +581,23 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 	{
 		try
 		{
+			RenderedUrlKey key = RenderedUrlKey.of(handler);
+			if (key != null)
+			{
+				RenderedUrl rendered = getRenderedUrls().get(key);
+				if (rendered != null)
+				{
+					listeners.onUrlMapped(this, handler, new Url(rendered.url));
+					return rendered.string;
+				}
+			}
+
 			Url mappedUrl = mapUrlFor(handler);
-			CharSequence url = renderUrl(mappedUrl, handler);
+			String url = renderUrl(mappedUrl, handler);
+			if (key != null && url != null)
+			{
+				renderedUrls.put(key, new RenderedUrl(new Url(mappedUrl), url));
+			}
 			return url;
 		}
 		catch (Exception x)
@@ -573,6 +608,24 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 
 	}
 
+	/**
+	 * @return the urls rendered for the current base url and session
+	 */
+	private Map<RenderedUrlKey, RenderedUrl> getRenderedUrls()
+	{
+		Url base = getUrlRenderer().getBaseUrl();
+		String sessionId = Session.exists() ? Session.get().getId() : null;
+
+		if (renderedUrls == null || renderedUrlsBase != base ||
+			Objects.equals(renderedUrlsSessionId, sessionId) == false)
+		{
+			renderedUrls = new HashMap<>();
+			renderedUrlsBase = base;
+			renderedUrlsSessionId = sessionId;
+		}
+		return renderedUrls;
+	}
+
 	private String renderUrl(Url url, IRequestHandler handler)
 	{
 		if (url != null)
@@ -638,6 +691,10 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 
 	private void onInternalDetach()
 	{
+		renderedUrls = null;
+		renderedUrlsBase = null;
+		renderedUrlsSessionId = null;
+
 		if (Session.exists())
 		{
 			Session.get().internalDetach();
@@ -889,6 +946,122 @@ public class RequestCycle implements IRequestCycle, IEventSink, IMetadataContext
 		return Optional.empty();
 	}
 
+	/**
+	 * The key of a handler which is mapped and rendered to the same url as all other handlers with
+	 * an equal key.
+	 */
+	private static final class RenderedUrlKey
+	{
+		private final Object target;
+
+		private final Object[] values;
+
+		private final int hashCode;
+
+		private RenderedUrlKey(Object target, Object[] values)
+		{
+			this.target = target;
+			this.values = values;
+			hashCode = 31 * target.hashCode() + Arrays.hashCode(values);
+		}
+
+		/**
+		 * @param handler
+		 * @return the key of the handler or {@code null} if its url is not memoized
+		 */
+		private static RenderedUrlKey of(IRequestHandler handler)
+		{
+			if (handler.getClass() == BookmarkablePageRequestHandler.class)
+			{
+				BookmarkablePageRequestHandler pageHandler = (BookmarkablePageRequestHandler)handler;
+				Class<? extends IRequestablePage> pageClass = pageHandler.getPageClass();
+				if (pageClass != null)
+				{
+					return new RenderedUrlKey(pageClass,
+						values(pageHandler.getPageParameters(), 0));
+				}
+			}
+			else if (handler.getClass() == ResourceReferenceRequestHandler.class)
+			{
+				ResourceReference reference = ((ResourceReferenceRequestHandler)handler).getResourceReference();
+
+				// the url of a resource might depend on the locale and style of the session
+				Object[] values = values(((ResourceReferenceRequestHandler)handler).getPageParameters(), 3);
+				values[0] = reference.getClass();
+				if (Session.exists())
+				{
+					values[1] = Session.get().getLocale();
+					values[2] = Session.get().getStyle();
+				}
+				return new RenderedUrlKey(reference.getKey(), values);
+			}
+			return null;
+		}
+
+		/**
+		 * @return all parameters in order, starting at the given offset
+		 */
+		private static Object[] values(PageParameters parameters, int offset)
+		{
+			int indexedCount = parameters != null ? parameters.getIndexedCount() : 0;
+			List<NamedPair> named = parameters != null ? parameters.getAllNamed()
+				: Collections.emptyList();
+
+			Object[] values = new Object[offset + 1 + indexedCount + named.size() * 3];
+			int i = offset;
+			values[i++] = indexedCount;
+			for (int index = 0; index < indexedCount; index++)
+			{
+				values[i++] = parameters.get(index).toString();
+			}
+			for (NamedPair pair : named)
+			{
+				values[i++] = pair.getKey();
+				values[i++] = pair.getValue();
+				values[i++] = pair.getType();
+			}
+			return values;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+			{
+				return true;
+			}
+			if (obj instanceof RenderedUrlKey == false)
+			{
+				return false;
+			}
+			RenderedUrlKey that = (RenderedUrlKey)obj;
+			return hashCode == that.hashCode && target.equals(that.target) &&
+				Arrays.equals(values, that.values);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+	}
+
+	/**
+	 * A mapped url with its rendered string.
+	 */
+	private static final class RenderedUrl
+	{
+		private final Url url;
+
+		private final String string;
+
+		private RenderedUrl(Url url, String string)
+		{
+			this.url = url;
+			this.string = string;
+		}
+	}
+
 	/**
 	 * Adapts {@link RequestHandlerExecutor} to this {@link RequestCycle}
 	 * 
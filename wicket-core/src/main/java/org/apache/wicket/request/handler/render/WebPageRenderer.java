@@ -19,6 +19,7 @@ package org.apache.wicket.request.handler.render;
 import java.util.List;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.IPageRendererProvider;
 import org.apache.wicket.Session;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
 import org.apache.wicket.core.request.handler.RenderPageRequestHandler.RedirectPolicy;
@@ -147,6 +148,71 @@ public class WebPageRenderer extends PageRenderer
 		}
 	}
 
+	/**
+	 * Renders page directly to the response of the request cycle, without buffering it first. All
+	 * URLs in page will be rendered relative to <code>targetUrl</code>
+	 * 
+	 * @param targetUrl
+	 * @param requestCycle
+	 * @see #shouldRenderPageUnbuffered(RequestCycle)
+	 */
+	protected void renderPageUnbuffered(Url targetUrl, RequestCycle requestCycle)
+	{
+		// get the page before checking for a scheduled request handler because
+		// the page may call setResponsePage in its constructor
+		IRequestablePage requestablePage = getPage();
+
+		if (requestCycle.getRequestHandlerScheduledAfterCurrent() != null)
+		{
+			// no need to render
+			return;
+		}
+
+		// keep the original base URL
+		Url originalBaseUrl = requestCycle.getUrlRenderer().setBaseUrl(targetUrl);
+
+		try
+		{
+			requestablePage.renderPage();
+
+			if (requestCycle.getRequestHandlerScheduledAfterCurrent() != null)
+			{
+				// Same special case as in #renderPage(), but the output is already written: this
+				// works only as long as the response is not committed yet
+				((WebResponse)requestCycle.getResponse()).reset();
+			}
+		}
+		finally
+		{
+			requestCycle.getUrlRenderer().setBaseUrl(originalBaseUrl);
+		}
+	}
+
+	/**
+	 * Should the page be rendered directly to the response, instead of to a
+	 * {@link BufferedWebResponse} first. This applies only when the page is rendered and written
+	 * in the same request, e.g. with
+	 * {@link org.apache.wicket.settings.RequestCycleSettings.RenderStrategy#ONE_PASS_RENDER}, but
+	 * not for a redirect to buffer.
+	 * <p>
+	 * An unbuffered page can be flushed while it is rendered, e.g. by a
+	 * {@link org.apache.wicket.markup.repeater.RefreshingView#setFlushInterval(int) RefreshingView},
+	 * so the client receives the beginning of a large page early. But
+	 * {@link org.apache.wicket.response.filter.IResponseFilter}s are not applied, headers set
+	 * after the response is committed are lost, and neither a redirect nor an error page can
+	 * replace what was written already.
+	 * <p>
+	 * Returns {@code false} by default. Override it in a custom renderer, see
+	 * {@link Application#setPageRendererProvider(IPageRendererProvider)}.
+	 * 
+	 * @param requestCycle
+	 * @return {@code true} to render the page unbuffered
+	 */
+	protected boolean shouldRenderPageUnbuffered(RequestCycle requestCycle)
+	{
+		return false;
+	}
+
 	/**
 	 * 
 	 * @param url
@@ -192,6 +258,12 @@ public class WebPageRenderer extends PageRenderer
 
 		if (shouldRenderPageAndWriteResponse(requestCycle, currentUrl, targetUrl))
 		{
+			if (shouldRenderPageUnbuffered(requestCycle))
+			{
+				renderPageUnbuffered(currentUrl, requestCycle);
+				return;
+			}
+
 			BufferedWebResponse response = renderPage(currentUrl, requestCycle);
 			if (response != null)
 			{
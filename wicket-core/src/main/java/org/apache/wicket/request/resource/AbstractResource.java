@@ -797,6 +797,12 @@ public abstract class AbstractResource implements IResource
 			if (!resourceResponse.dataNeedsToBeWritten(attributes))
 			{
 				webResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+				// a cache has to know what the not modified response was negotiated on
+				for (String value : resourceResponse.getHeaders().getHeaderValues("Vary"))
+				{
+					webResponse.addHeader("Vary", value);
+				}
 				return;
 			}
 
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+
+/**
+ * A bounded cache of gzip encoded contents of {@link PackageResource}s, so each resource is
+ * compressed once only instead of on each request.
+ * <p>
+ * Entries are keyed by the resource's cache key and its last modification time, the least recently
+ * used entries are evicted when the cache exceeds its maximum size.
+ *
+ * @see org.apache.wicket.settings.ResourceSettings#setContentEncodingCache(ContentEncodingCache)
+ */
+public class ContentEncodingCache
+{
+	/**
+	 * Encoding of cached contents.
+	 */
+	public static final String GZIP = "gzip";
+
+	private final long maxSize;
+
+	private final Map<Key, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxSize
+	 *            maximum size of all cached contents
+	 */
+	public ContentEncodingCache(Bytes maxSize)
+	{
+		this.maxSize = Args.notNull(maxSize, "maxSize").bytes();
+	}
+
+	/**
+	 * Get the gzip encoded content.
+	 *
+	 * @param cacheKey
+	 *            key of the resource
+	 * @param lastModified
+	 *            last modification of the resource, may be {@code null}
+	 * @param content
+	 *            supplier of the content to encode if not cached yet
+	 * @return encoded content
+	 */
+	public byte[] getEncoded(Serializable cacheKey, Instant lastModified,
+		Supplier<byte[]> content)
+	{
+		Key key = new Key(Args.notNull(cacheKey, "cacheKey"), lastModified);
+
+		byte[] encoded;
+		synchronized (entries)
+		{
+			encoded = entries.get(key);
+		}
+
+		if (encoded == null)
+		{
+			encoded = encode(content.get());
+
+			synchronized (entries)
+			{
+				if (encoded.length <= maxSize && entries.containsKey(key) == false)
+				{
+					entries.put(key, encoded);
+					size += encoded.length;
+
+					Iterator<byte[]> iterator = entries.values().iterator();
+					while (size > maxSize)
+					{
+						size -= iterator.next().length;
+						iterator.remove();
+					}
+				}
+			}
+		}
+
+		return encoded;
+	}
+
+	/**
+	 * Encode the given content.
+	 *
+	 * @param content
+	 *            content
+	 * @return encoded content
+	 */
+	protected byte[] encode(byte[] content)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4 + 32);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out))
+		{
+			gzip.write(content);
+		}
+		catch (IOException ex)
+		{
+			throw new WicketRuntimeException(ex);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return count of cached contents
+	 */
+	public int size()
+	{
+		synchronized (entries)
+		{
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Remove all cached contents.
+	 */
+	public void clear()
+	{
+		synchronized (entries)
+		{
+			entries.clear();
+			size = 0;
+		}
+	}
+
+	private static class Key
+	{
+		private final Serializable cacheKey;
+
+		private final Instant lastModified;
+
+		private Key(Serializable cacheKey, Instant lastModified)
+		{
+			this.cacheKey = cacheKey;
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o)
+				return true;
+			if (!(o instanceof Key))
+				return false;
+
+			Key key = (Key)o;
+
+			return cacheKey.equals(key.cacheKey) && Objects.equals(lastModified, key.lastModified);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * cacheKey.hashCode() + Objects.hashCode(lastModified);
+		}
+	}
+}
@@ -36,11 +36,13 @@ import org.apache.wicket.javascript.IJavaScriptCompressor;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.mock.MockWebRequest;
 import org.apache.wicket.request.Url;
+import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
 import org.apache.wicket.resource.IScopeAwareTextResourceProcessor;
 import org.apache.wicket.resource.ITextResourceCompressor;
 import org.apache.wicket.response.StringResponse;
+import org.apache.wicket.settings.ResourceSettings;
 import org.apache.wicket.util.io.IOUtils;
 import org.apache.wicket.util.lang.Classes;
 import org.apache.wicket.util.lang.Packages;
@@ -101,6 +103,44 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		}
 	}
 
+	private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+	private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+	/**
+	 * Encodings of pre-compressed resources in order of preference.
+	 */
+	private static final String[] PRECOMPRESSED_ENCODINGS = { "br", ContentEncodingCache.GZIP };
+
+	/**
+	 * Suffixes of pre-compressed resources.
+	 */
+	private static final String[] PRECOMPRESSED_SUFFIXES = { ".br", ".gz" };
+
+	/**
+	 * Whether a class overrides {@link #processResponse(Attributes, byte[])}.
+	 */
+	private static final ClassValue<Boolean> OVERRIDES_PROCESS_RESPONSE = new ClassValue<>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			for (Class<?> c = type; c != PackageResource.class; c = c.getSuperclass())
+			{
+				try
+				{
+					c.getDeclaredMethod("processResponse", Attributes.class, byte[].class);
+					return true;
+				}
+				catch (NoSuchMethodException ex)
+				{
+					// try the superclass
+				}
+			}
+			return false;
+		}
+	};
+
 	/**
 	 * The path to the resource
 	 */
@@ -333,6 +373,12 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 		resourceResponse.setLastModified(lastModified);
 
+		if (isContentEncodingNegotiated(attributes))
+		{
+			// response depends on the accepted encodings, even if not encoded or not modified
+			resourceResponse.getHeaders().setHeader("Vary", ACCEPT_ENCODING_HEADER);
+		}
+
 		if (resourceResponse.dataNeedsToBeWritten(attributes))
 		{
 			String contentType = resourceStream.getContentType();
@@ -353,6 +399,22 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 
 			try
 			{
+				// get content range information
+				RequestCycle cycle = RequestCycle.get();
+				Long startbyte = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
+				Long endbyte = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
+
+				// send encoded content if accepted, ranges are always taken from the plain content
+				byte[] encoded = getEncodedContent(attributes, resourceResponse, resourceStream,
+					contentType, startbyte == null && endbyte == null);
+				if (encoded != null)
+				{
+					resourceResponse.setContentLength(encoded.length);
+					resourceResponse.setWriteCallback(new PartWriterCallback(
+						new ByteArrayInputStream(encoded), (long)encoded.length, null, null));
+					return resourceResponse;
+				}
+
 				// read resource data to get the content length
 				InputStream inputStream = resourceStream.getInputStream();
 
@@ -368,11 +430,6 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 					resourceResponse.setContentLength(resourceStream.length().bytes());
 				}
 
-				// get content range information
-				RequestCycle cycle = RequestCycle.get();
-				Long startbyte = cycle.getMetaData(CONTENT_RANGE_STARTBYTE);
-				Long endbyte = cycle.getMetaData(CONTENT_RANGE_ENDBYTE);
-
 				// send response body with resource data
 				PartWriterCallback partWriterCallback = new PartWriterCallback(bytes != null
 					? new ByteArrayInputStream(bytes) : inputStream,
@@ -411,6 +468,183 @@ public class PackageResource extends AbstractResource implements IStaticCacheabl
 		return resourceResponse;
 	}
 
+	/**
+	 * Is the content encoding of the response negotiated with the client.
+	 * 
+	 * @param attributes
+	 *            current request attributes from client
+	 * @return {@code true} if enabled in {@link ResourceSettings#isPackageResourceContentEncoding()}
+	 *         and requested by a web request
+	 */
+	private boolean isContentEncodingNegotiated(final Attributes attributes)
+	{
+		return Application.exists() &&
+			Application.get().getResourceSettings().isPackageResourceContentEncoding() &&
+			attributes.getRequest() instanceof WebRequest;
+	}
+
+	/**
+	 * Is the content of the resource changed by {@link #processResponse(Attributes, byte[])}, i.e.
+	 * by a compressor or an overridden implementation.
+	 * 
+	 * @return {@code true} if the content is processed
+	 */
+	private boolean isProcessed()
+	{
+		return (getCompress() && getCompressor() != null) ||
+			OVERRIDES_PROCESS_RESPONSE.get(getClass());
+	}
+
+	/**
+	 * Get the content encoded with an encoding accepted by the client, if enabled in
+	 * {@link ResourceSettings#isPackageResourceContentEncoding()}.
+	 * <p>
+	 * A pre-compressed sibling of the resource (e.g. <tt>jquery.js.br</tt> or
+	 * <tt>jquery.js.gz</tt>) is preferred and served as it is, unless the content is processed by
+	 * {@link #processResponse(Attributes, byte[])}. Otherwise compressible content is gzip encoded
+	 * once and kept in the {@link ResourceSettings#getContentEncodingCache()}.
+	 * 
+	 * @return encoded content or {@code null} if not applicable
+	 */
+	private byte[] getEncodedContent(final Attributes attributes,
+		final ResourceResponse resourceResponse, final IResourceStream resourceStream,
+		final String contentType, final boolean wholeContent)
+		throws IOException, ResourceStreamNotFoundException
+	{
+		if (isContentEncodingNegotiated(attributes) == false || wholeContent == false)
+		{
+			return null;
+		}
+
+		String acceptEncoding = ((WebRequest)attributes.getRequest())
+			.getHeader(ACCEPT_ENCODING_HEADER);
+		if (acceptEncoding == null)
+		{
+			return null;
+		}
+
+		ResourceSettings resourceSettings = Application.get().getResourceSettings();
+		String currentStyle = getCurrentStyle();
+		Locale currentLocale = getCurrentLocale();
+
+		// a sibling would bypass the processing, so clients would get different content
+		boolean processed = isProcessed();
+		for (int e = 0; processed == false && e < PRECOMPRESSED_ENCODINGS.length; e++)
+		{
+			String encoding = PRECOMPRESSED_ENCODINGS[e];
+			if (acceptsEncoding(acceptEncoding, encoding))
+			{
+				IResourceStream precompressed = resourceSettings.getResourceStreamLocator()
+					.locate(getScope(), absolutePath + PRECOMPRESSED_SUFFIXES[e], currentStyle,
+						variation, currentLocale, null, false);
+				if (precompressed != null)
+				{
+					try
+					{
+						byte[] bytes = IOUtils.toByteArray(precompressed.getInputStream());
+						resourceResponse.getHeaders().setHeader(CONTENT_ENCODING_HEADER, encoding);
+						return bytes;
+					}
+					finally
+					{
+						IOUtils.close(precompressed);
+					}
+				}
+			}
+		}
+
+		ContentEncodingCache cache = resourceSettings.getContentEncodingCache();
+		if (cache != null && readBuffered && isCompressible(contentType) &&
+			acceptsEncoding(acceptEncoding, ContentEncodingCache.GZIP))
+		{
+			CacheKey cacheKey = new CacheKey(scopeName, absolutePath, currentLocale, currentStyle,
+				variation);
+
+			byte[] encoded = cache.getEncoded(cacheKey, resourceStream.lastModifiedTime(), () -> {
+				try
+				{
+					return IOUtils.toByteArray(resourceStream.getInputStream());
+				}
+				catch (IOException | ResourceStreamNotFoundException ex)
+				{
+					throw new WicketRuntimeException(ex);
+				}
+			});
+			resourceResponse.getHeaders().setHeader(CONTENT_ENCODING_HEADER,
+				ContentEncodingCache.GZIP);
+			return encoded;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Is the given content type worth to be compressed.
+	 * 
+	 * @param contentType
+	 *            content type, may be {@code null}
+	 * @return {@code true} for textual content
+	 */
+	protected boolean isCompressible(final String contentType)
+	{
+		if (contentType == null)
+		{
+			return false;
+		}
+
+		String type = contentType.toLowerCase(Locale.ROOT);
+		return type.startsWith("text/") || type.contains("javascript") || type.contains("json") ||
+			type.contains("xml");
+	}
+
+	/**
+	 * Does the given <em>Accept-Encoding</em> header accept an encoding.
+	 * 
+	 * @param acceptEncoding
+	 *            header value
+	 * @param encoding
+	 *            encoding
+	 * @return {@code true} if accepted
+	 */
+	static boolean acceptsEncoding(final String acceptEncoding, final String encoding)
+	{
+		boolean wildcard = false;
+
+		for (String coding : Strings.split(acceptEncoding, ','))
+		{
+			String[] parameters = Strings.split(coding, ';');
+
+			boolean accepted = true;
+			for (int p = 1; p < parameters.length; p++)
+			{
+				String parameter = parameters[p].trim();
+				if (parameter.startsWith("q="))
+				{
+					try
+					{
+						accepted = Double.parseDouble(parameter.substring(2)) > 0;
+					}
+					catch (NumberFormatException ex)
+					{
+						accepted = false;
+					}
+				}
+			}
+
+			String name = parameters[0].trim();
+			if (name.equalsIgnoreCase(encoding))
+			{
+				return accepted;
+			}
+			else if (name.equals("*"))
+			{
+				wildcard = accepted;
+			}
+		}
+
+		return wildcard;
+	}
+
 	/**
 	 * Gives a chance to modify the resource going to be written in the response
 	 * 
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.resource;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A bounded cache for the strings looked up by {@link org.apache.wicket.Localizer}.
+ * <p>
+ * The entries are spread over several shards to keep threads from contending for the same
+ * locks. Lookups don't lock at all. When a shard grows beyond its share of the maximum size,
+ * entries are evicted with the <em>second chance</em> (clock) algorithm: entries which were
+ * read since the clock hand passed them the last time are spared once.
+ * <p>
+ * The cache counts hits, misses and evictions, which are available via JMX in wicket-jmx. A
+ * lookup is counted by {@link #containsKey(Object)}, which {@link org.apache.wicket.Localizer}
+ * calls before getting a value. The cache does not allow {@code null} keys or values, and
+ * {@link #entrySet()} is a snapshot.
+ *
+ * @param <K>
+ *            the type of keys
+ *
+ * @see org.apache.wicket.Localizer#newCache()
+ */
+public class LocalizerCache<K> extends AbstractMap<K, String>
+{
+	/** The default maximum number of entries */
+	public static final int DEFAULT_MAX_SIZE = 16384;
+
+	private final Shard[] shards;
+
+	private final int maxSize;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Construct a cache with {@value #DEFAULT_MAX_SIZE} entries at most.
+	 */
+	public LocalizerCache()
+	{
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxSize
+	 *            the maximum number of entries
+	 */
+	public LocalizerCache(int maxSize)
+	{
+		this(maxSize, Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param maxSize
+	 *            the maximum number of entries
+	 * @param concurrency
+	 *            the expected number of threads using the cache at the same time, rounded up to
+	 *            a power of two for the number of shards
+	 */
+	@SuppressWarnings("unchecked")
+	public LocalizerCache(int maxSize, int concurrency)
+	{
+		Args.withinRange(1, Integer.MAX_VALUE, maxSize, "maxSize");
+		Args.withinRange(1, 1 << 16, concurrency, "concurrency");
+
+		int shardCount = Integer.highestOneBit(Math.min(concurrency, maxSize) * 2 - 1);
+		this.maxSize = maxSize;
+		shards = (Shard[])new LocalizerCache.Shard[shardCount];
+		int shardCapacity = (maxSize + shardCount - 1) / shardCount;
+		for (int i = 0; i < shardCount; i++)
+		{
+			shards[i] = new Shard(shardCapacity);
+		}
+	}
+
+	/**
+	 * Checks for a cached value and counts the lookup as a hit or a miss.
+	 * <p>
+	 * A found entry is referenced, so it survives until the clock hand passes it twice and the
+	 * following {@link #get(Object)} still finds it.
+	 *
+	 * @param key
+	 *            the key
+	 * @return {@code true} if a value is cached for the key
+	 */
+	@Override
+	public boolean containsKey(final Object key)
+	{
+		if (lookup(key) == null)
+		{
+			misses.increment();
+			return false;
+		}
+		hits.increment();
+		return true;
+	}
+
+	/**
+	 * @param key
+	 *            the key
+	 * @return the cached value, or {@code null} if none is cached for the key
+	 */
+	@Override
+	public String get(final Object key)
+	{
+		CacheEntry entry = lookup(key);
+		return entry != null ? entry.value : null;
+	}
+
+	/**
+	 * Caches a value, possibly evicting other entries.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 * @return the value cached before, or {@code null}
+	 */
+	@Override
+	public String put(final K key, final String value)
+	{
+		Args.notNull(value, "value");
+
+		CacheEntry previous = shard(key).put(key, value);
+		return previous != null ? previous.value : null;
+	}
+
+	@Override
+	public String remove(final Object key)
+	{
+		CacheEntry removed = shard(key).entries.remove(key);
+		return removed != null ? removed.value : null;
+	}
+
+	/**
+	 * Removes all entries, but keeps the counts.
+	 */
+	@Override
+	public void clear()
+	{
+		for (Shard shard : shards)
+		{
+			shard.entries.clear();
+		}
+	}
+
+	/**
+	 * @return the number of cached entries
+	 */
+	@Override
+	public int size()
+	{
+		int size = 0;
+		for (Shard shard : shards)
+		{
+			size += shard.entries.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return a snapshot of the cached entries
+	 */
+	@Override
+	public Set<Map.Entry<K, String>> entrySet()
+	{
+		Map<K, String> snapshot = new HashMap<>();
+		for (Shard shard : shards)
+		{
+			for (Map.Entry<K, CacheEntry> entry : shard.entries.entrySet())
+			{
+				snapshot.put(entry.getKey(), entry.getValue().value);
+			}
+		}
+		return Collections.unmodifiableMap(snapshot).entrySet();
+	}
+
+	/**
+	 * @return the maximum number of entries
+	 */
+	public int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * @return the number of lookups which found a cached value
+	 */
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups which did not find a cached value
+	 */
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted to keep the cache within its maximum size
+	 */
+	public long getEvictionCount()
+	{
+		return evictions.sum();
+	}
+
+	private CacheEntry lookup(final Object key)
+	{
+		CacheEntry entry = shard(key).entries.get(key);
+		if (entry != null && entry.referenced == false)
+		{
+			// write only once, reads of hot entries must not contend for its cache line
+			entry.referenced = true;
+		}
+		return entry;
+	}
+
+	private Shard shard(final Object key)
+	{
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return shards[hash & (shards.length - 1)];
+	}
+
+	/**
+	 * A cached value with its second chance flag
+	 */
+	private static class CacheEntry
+	{
+		private final String value;
+
+		private volatile boolean referenced;
+
+		private CacheEntry(String value)
+		{
+			this.value = value;
+		}
+	}
+
+	/**
+	 * A part of the cache with its own clock hand
+	 */
+	private class Shard
+	{
+		private final ConcurrentHashMap<K, CacheEntry> entries = new ConcurrentHashMap<>();
+
+		private final int capacity;
+
+		/** guards the clock hand, only one thread evicts at a time */
+		private final ReentrantLock evictionLock = new ReentrantLock();
+
+		private Iterator<CacheEntry> hand;
+
+		private Shard(int capacity)
+		{
+			this.capacity = capacity;
+		}
+
+		private CacheEntry put(K key, String value)
+		{
+			CacheEntry previous = entries.put(key, new CacheEntry(value));
+			if (previous == null && entries.size() > capacity)
+			{
+				evict();
+			}
+			return previous;
+		}
+
+		private void evict()
+		{
+			// another thread evicting already makes room
+			if (evictionLock.tryLock() == false)
+			{
+				return;
+			}
+			try
+			{
+				// bounded, as each entry loses its second chance on the first pass
+				int steps = 2 * (capacity + 1);
+				while (entries.size() > capacity && steps-- > 0)
+				{
+					if (hand == null || hand.hasNext() == false)
+					{
+						hand = entries.values().iterator();
+						if (hand.hasNext() == false)
+						{
+							break;
+						}
+					}
+					CacheEntry entry = hand.next();
+					if (entry.referenced)
+					{
+						entry.referenced = false;
+					}
+					else
+					{
+						hand.remove();
+						evictions.increment();
+					}
+				}
+			}
+			finally
+			{
+				evictionLock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Fingerprints of the serialized fields of classes, used by {@link CompactJavaSerializer} to
+ * replace class descriptors with the name of each class and its fingerprint. Classes are resolved
+ * by name once only.
+ * <p>
+ * The name and the fingerprint are derived from the class only, thus they are stable across restarts and on all nodes of
+ * a cluster. A class whose serialVersionUID or serialized fields have changed gets another
+ * fingerprint, so data written by a previous version of the class is detected instead of misread.
+ */
+public class ClassFingerprints
+{
+	private final ConcurrentMap<Class<?>, Long> fingerprints = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+	/**
+	 * Get the fingerprint of the given class.
+	 *
+	 * @param clazz
+	 *            class
+	 * @return fingerprint of the serialVersionUID and the serialized fields of the class
+	 */
+	public long getFingerprint(Class<?> clazz)
+	{
+		Long fingerprint = fingerprints.get(clazz);
+		if (fingerprint == null)
+		{
+			fingerprint = fingerprint(ObjectStreamClass.lookupAny(Args.notNull(clazz, "clazz")));
+			fingerprints.put(clazz, fingerprint);
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Get the class with the given name.
+	 *
+	 * @param name
+	 *            name of class
+	 * @return class or {@code null} if it cannot be resolved
+	 */
+	public Class<?> getClass(String name)
+	{
+		Class<?> clazz = classes.get(name);
+		if (clazz == null)
+		{
+			clazz = WicketObjects.resolveClass(name);
+			if (clazz != null)
+			{
+				classes.put(name, clazz);
+			}
+		}
+		return clazz;
+	}
+
+	/**
+	 * Get the count of known classes.
+	 *
+	 * @return count of classes
+	 */
+	public int size()
+	{
+		return fingerprints.size();
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the serialVersionUID and the names and types of all serialized fields.
+	 */
+	private static long fingerprint(ObjectStreamClass desc)
+	{
+		StringBuilder layout = new StringBuilder();
+		layout.append(desc.getSerialVersionUID());
+		for (ObjectStreamField field : desc.getFields())
+		{
+			layout.append(';').append(field.getName()).append(':');
+			layout.append(field.isPrimitive() ? String.valueOf(field.getTypeCode())
+				: field.getTypeString());
+		}
+
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < layout.length(); i++)
+		{
+			hash ^= layout.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+}
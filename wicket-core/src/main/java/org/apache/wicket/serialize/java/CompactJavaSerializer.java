@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.serialize.java;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A {@link JavaSerializer} that writes the class name and a fingerprint from
+ * {@link ClassFingerprints} instead of a full class descriptor (class name, serialVersionUID and all
+ * field names and types) for each class in the serialized object graph. Everything else, including
+ * {@code Externalizable} and custom {@code writeObject()} methods, is handled by plain Java
+ * serialization.
+ * <p>
+ * To use this serializer, put the following code in your application's init:
+ *
+ * <pre>
+ * getFrameworkSettings().setSerializer(new CompactJavaSerializer(getApplicationKey()));
+ * </pre>
+ *
+ * Pages can be deserialized after a restart of the application and on other nodes of a cluster.
+ * Unlike plain Java serialization, a class whose serialized fields have changed in the meantime is
+ * not read field by field: this results in an {@link InvalidClassException} (wrapped in a
+ * {@link org.apache.wicket.WicketRuntimeException}), just as if the page had expired.
+ */
+public class CompactJavaSerializer extends JavaSerializer
+{
+	private final ClassFingerprints fingerprints;
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationKey
+	 *      the name of the application
+	 */
+	public CompactJavaSerializer(String applicationKey)
+	{
+		this(applicationKey, new ClassFingerprints());
+	}
+
+	/**
+	 * Construct.
+	 *
+	 * @param applicationKey
+	 *      the name of the application
+	 * @param fingerprints
+	 *      the fingerprints of classes
+	 */
+	public CompactJavaSerializer(String applicationKey, ClassFingerprints fingerprints)
+	{
+		super(applicationKey);
+
+		this.fingerprints = Args.notNull(fingerprints, "fingerprints");
+	}
+
+	/**
+	 * Get the fingerprints of classes.
+	 *
+	 * @return fingerprints
+	 */
+	public ClassFingerprints getFingerprints()
+	{
+		return fingerprints;
+	}
+
+	@Override
+	protected ObjectOutputStream newObjectOutputStream(OutputStream out) throws IOException
+	{
+		return new SerializationCheckerObjectOutputStream(out,
+			new FingerprintObjectOutputStream(out, fingerprints));
+	}
+
+	@Override
+	protected ObjectInputStream newObjectInputStream(InputStream in) throws IOException
+	{
+		return new FingerprintObjectInputStream(in, fingerprints);
+	}
+
+	/**
+	 * Writes names and fingerprints of classes instead of class descriptors.
+	 */
+	private static class FingerprintObjectOutputStream extends ObjectOutputStream
+	{
+		private final ClassFingerprints fingerprints;
+
+		private FingerprintObjectOutputStream(OutputStream out, ClassFingerprints fingerprints)
+			throws IOException
+		{
+			super(out);
+
+			this.fingerprints = fingerprints;
+		}
+
+		@Override
+		protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException
+		{
+			writeUTF(desc.getName());
+			writeLong(fingerprints.getFingerprint(desc.forClass()));
+		}
+	}
+
+	/**
+	 * Reads names and fingerprints of classes instead of class descriptors.
+	 */
+	private static class FingerprintObjectInputStream extends ClassResolverObjectInputStream
+	{
+		private final ClassFingerprints fingerprints;
+
+		private FingerprintObjectInputStream(InputStream in, ClassFingerprints fingerprints)
+			throws IOException
+		{
+			super(in);
+
+			this.fingerprints = fingerprints;
+		}
+
+		@Override
+		protected ObjectStreamClass readClassDescriptor() throws IOException,
+			ClassNotFoundException
+		{
+			String name = readUTF();
+			long fingerprint = readLong();
+
+			Class<?> clazz = fingerprints.getClass(name);
+			if (clazz == null)
+			{
+				throw new ClassNotFoundException(name);
+			}
+			if (fingerprints.getFingerprint(clazz) != fingerprint)
+			{
+				throw new InvalidClassException(name,
+					"serialized fields differ from the local class");
+			}
+			return ObjectStreamClass.lookupAny(clazz);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException,
+			ClassNotFoundException
+		{
+			// descriptors are always local
+			Class<?> clazz = desc.forClass();
+			if (clazz != null)
+			{
+				return clazz;
+			}
+			return super.resolveClass(desc);
+		}
+	}
+}
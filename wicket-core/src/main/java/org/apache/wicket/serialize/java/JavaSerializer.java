@@ -194,7 +194,7 @@ public class JavaSerializer implements ISerializer
 	/**
 	 * Extend {@link ObjectInputStream} to add framework class resolution logic.
 	 */
-	private static class ClassResolverObjectInputStream extends ObjectInputStream
+	protected static class ClassResolverObjectInputStream extends ObjectInputStream
 	{
 		public ClassResolverObjectInputStream(InputStream in) throws IOException
 		{
@@ -363,16 +363,31 @@ public class JavaSerializer implements ISerializer
 	 *     This is done so to save some CPU time to make the checks for no reason.
 	 * </p>
 	 */
-	private static class SerializationCheckerObjectOutputStream extends ObjectOutputStream
+	protected static class SerializationCheckerObjectOutputStream extends ObjectOutputStream
 	{
 		private final OutputStream outputStream;
 
 		private final ObjectOutputStream oos;
 
 		private SerializationCheckerObjectOutputStream(OutputStream outputStream) throws IOException
+		{
+			this(outputStream, new ObjectOutputStream(outputStream));
+		}
+
+		/**
+		 * Construct.
+		 * 
+		 * @param outputStream
+		 *            the output stream used to gather debug information on failure
+		 * @param oos
+		 *            the actual stream to write objects to
+		 * @throws IOException
+		 */
+		protected SerializationCheckerObjectOutputStream(OutputStream outputStream,
+			ObjectOutputStream oos) throws IOException
 		{
 			this.outputStream = outputStream;
-			oos = new ObjectOutputStream(outputStream);
+			this.oos = oos;
 		}
 
 		@Override
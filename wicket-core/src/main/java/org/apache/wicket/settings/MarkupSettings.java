@@ -16,6 +16,8 @@
  */
 package org.apache.wicket.settings;
 
+import java.io.File;
+
 import org.apache.wicket.DefaultMarkupIdGenerator;
 import org.apache.wicket.IMarkupIdGenerator;
 import org.apache.wicket.markup.MarkupFactory;
@@ -30,6 +32,9 @@ import org.apache.wicket.util.lang.Args;
  * <p>
  * <i>stripComments</i> (defaults to false) - Set to true to strip HTML comments during markup
  * loading
+ * <p>
+ * <i>compiledMarkupFolder</i> (defaults to null) - Folder to keep parsed markup in, so it does not
+ * have to be parsed again after a restart
  *
  * @author Jonathan Locke
  * @author Chris Turner
@@ -71,6 +76,9 @@ public class MarkupSettings
 	 */
 	private IMarkupIdGenerator markupIdGenerator = new DefaultMarkupIdGenerator();
 
+	/** Folder for compiled markup, null if markup should not be compiled */
+	private File compiledMarkupFolder;
+
 	/**
 	 * Construct
 	 */
@@ -273,4 +281,29 @@ public class MarkupSettings
 		this.markupIdGenerator = Args.notNull(markupIdGenerator, "markupIdGenerator");
 		return this;
 	}
+
+	/**
+	 * @return folder for compiled markup, may be {@code null}
+	 * @see #setCompiledMarkupFolder(File)
+	 */
+	public File getCompiledMarkupFolder()
+	{
+		return compiledMarkupFolder;
+	}
+
+	/**
+	 * Sets a folder to keep compiled markup in. Markup is parsed once and stored in a binary form
+	 * in this folder, so it can be loaded without parsing after a restart of the application, as
+	 * long as the markup file, the Wicket version and the markup filters did not change.
+	 *
+	 * @param compiledMarkupFolder
+	 *          the folder for compiled markup, {@code null} to always parse markup
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.markup.loader.CompiledMarkupLoader
+	 */
+	public MarkupSettings setCompiledMarkupFolder(File compiledMarkupFolder)
+	{
+		this.compiledMarkupFolder = compiledMarkupFolder;
+		return this;
+	}
 }
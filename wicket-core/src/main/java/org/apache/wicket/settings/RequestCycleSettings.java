@@ -31,6 +31,10 @@ import org.apache.wicket.util.lang.Args;
  * rendering process completes before the page is sent to the user, thus aRequestCycleSettingsing the possibility of
  * a partially rendered page.
  * <p>
+ * <i>bufferAjaxResponse </i> (defaults to true) - True if Ajax responses should be buffered before
+ * they are written to the response. Disabling the buffer lowers memory consumption for large Ajax
+ * updates, but might result in a partially written Ajax response if rendering fails.
+ * <p>
  * <i>renderStrategy </i>- Sets in what way the render part of a request is handled. Basically,
  * there are two different options:
  * <ul>
@@ -140,6 +144,9 @@ public class RequestCycleSettings
 	/** True if the response should be buffered */
 	private boolean bufferResponse = true;
 
+	/** True if Ajax responses should be buffered */
+	private boolean bufferAjaxResponse = true;
+
 	/**
 	 * Whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client
@@ -206,6 +213,18 @@ public class RequestCycleSettings
 		return bufferResponse;
 	}
 
+	/**
+	 * Decides whether Ajax responses are buffered completely before they are written to the
+	 * response.
+	 *
+	 * @return {@code true} if Ajax responses should be buffered
+	 * @see #setBufferAjaxResponse(boolean)
+	 */
+	public boolean getBufferAjaxResponse()
+	{
+		return bufferAjaxResponse;
+	}
+
 	/**
 	 * Gets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client capabilities}. This method is used by the
@@ -296,6 +315,23 @@ public class RequestCycleSettings
 		return this;
 	}
 
+	/**
+	 * Sets a flag whether Ajax responses should be buffered completely before they are written to
+	 * the response. Without buffering the markup of updated components is streamed directly to
+	 * the response, lowering memory consumption for large updates. Note that a failure while
+	 * rendering a component leaves a partially written response then. Buffering is used regardless
+	 * of this flag when {@link #getResponseFilters() response filters} are configured.
+	 *
+	 * @param bufferAjaxResponse
+	 *            {@code true} if Ajax responses should be buffered
+	 * @return {@code this} object for chaining
+	 */
+	public RequestCycleSettings setBufferAjaxResponse(boolean bufferAjaxResponse)
+	{
+		this.bufferAjaxResponse = bufferAjaxResponse;
+		return this;
+	}
+
 	/**
 	 * Sets whether Wicket should try to get extensive client info by redirecting to
 	 * {@link org.apache.wicket.markup.html.pages.BrowserInfoPage a page that polls for client capabilities}. This method is used by the
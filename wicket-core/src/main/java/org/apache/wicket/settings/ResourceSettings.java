@@ -36,6 +36,7 @@ import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItem;
 import org.apache.wicket.markup.html.IPackageResourceGuard;
 import org.apache.wicket.markup.html.SecurePackageResourceGuard;
 import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.request.resource.ContentEncodingCache;
 import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.IResourceCachingStrategy;
 import org.apache.wicket.request.resource.caching.NoOpResourceCachingStrategy;
@@ -55,6 +56,7 @@ import org.apache.wicket.resource.loader.ValidatorStringResourceLoader;
 import org.apache.wicket.util.file.IFileCleaner;
 import org.apache.wicket.util.file.IResourceFinder;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.lang.Generics;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.watch.IModificationWatcher;
@@ -172,6 +174,11 @@ public class ResourceSettings implements IPropertiesFactoryContext
 		false);
 
 	private boolean encodeJSessionId = false;
+
+	private boolean packageResourceContentEncoding = false;
+
+	private ContentEncodingCache contentEncodingCache = new ContentEncodingCache(
+		Bytes.megabytes(4));
 	
 	/**
 	 * Configures Wicket's default ResourceLoaders.<br>
@@ -770,4 +777,55 @@ public class ResourceSettings implements IPropertiesFactoryContext
 		this.encodeJSessionId = encodeJSessionId;
 		return this;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * A flag indicating whether package resources are served compressed to clients accepting it.
+	 *
+	 * @return {@code true} if package resources are served with a content encoding
+	 * @see #setPackageResourceContentEncoding(boolean)
+	 */
+	public boolean isPackageResourceContentEncoding()
+	{
+		return packageResourceContentEncoding;
+	}
+
+	/**
+	 * Sets a flag indicating whether package resources should be served compressed, if the client
+	 * accepts it.
+	 * <p>
+	 * Pre-compressed siblings of a resource are served as they are, e.g. <tt>jquery.js.br</tt> or
+	 * <tt>jquery.js.gz</tt> for <tt>jquery.js</tt>. Otherwise textual resources are gzip encoded
+	 * once and kept in the {@link #getContentEncodingCache()}.
+	 *
+	 * @param packageResourceContentEncoding
+	 *            {@code true} to serve compressed resources, {@code false} - otherwise
+	 * @return {@code this} object for chaining
+	 */
+	public ResourceSettings setPackageResourceContentEncoding(boolean packageResourceContentEncoding)
+	{
+		this.packageResourceContentEncoding = packageResourceContentEncoding;
+		return this;
+	}
+
+	/**
+	 * @return the cache of encoded package resources, may be {@code null}
+	 */
+	public ContentEncodingCache getContentEncodingCache()
+	{
+		return contentEncodingCache;
+	}
+
+	/**
+	 * Sets the cache of encoded package resources.
+	 *
+	 * @param contentEncodingCache
+	 *            cache, {@code null} to serve pre-compressed resources only
+	 * @return {@code this} object for chaining
+	 * @see #setPackageResourceContentEncoding(boolean)
+	 */
+	public ResourceSettings setContentEncodingCache(ContentEncodingCache contentEncodingCache)
+	{
+		this.contentEncodingCache = contentEncodingCache;
+		return this;
+	}
+}
@@ -60,7 +60,7 @@ public class SecuritySettings
 	private IAuthenticationStrategy authenticationStrategy;
 
 	/** factory for creating crypt objects */
-	private ICryptFactory cryptFactory;
+	private volatile ICryptFactory cryptFactory;
 
 	/** supplier of random data and SecureRandom */
 	private ISecureRandomSupplier randomSupplier = new DefaultSecureRandomSupplier();
@@ -126,11 +126,18 @@ public class SecuritySettings
 	 * 
 	 * @return crypt factory used to generate crypt objects
 	 */
-	public synchronized ICryptFactory getCryptFactory()
+	public ICryptFactory getCryptFactory()
 	{
 		if (cryptFactory == null)
 		{
-			cryptFactory = new KeyInSessionSunJceCryptFactory();
+			// CryptoMapper asks for every url, so do not synchronize once created
+			synchronized (this)
+			{
+				if (cryptFactory == null)
+				{
+					cryptFactory = new KeyInSessionSunJceCryptFactory();
+				}
+			}
 		}
 		return cryptFactory;
 	}
@@ -41,6 +41,8 @@ public class StoreSettings
 
 	private static final int DEFAULT_ASYNCHRONOUS_QUEUE_CAPACITY = 100;
 
+	private static final Bytes DEFAULT_SEGMENT_SIZE = Bytes.megabytes(32);
+
 	private Bytes maxSizePerSession = DEFAULT_MAX_SIZE_PER_SESSION;
 
 	private File fileStoreFolder = null;
@@ -51,6 +53,14 @@ public class StoreSettings
 	
 	private boolean encrypted = false;
 
+	private boolean memoryMapped = false;
+
+	private Bytes segmentSize = DEFAULT_SEGMENT_SIZE;
+
+	private Bytes offHeapCacheSize = null;
+
+	private boolean deltaEncoded = false;
+
 	/**
 	 * Construct.
 	 * 
@@ -203,4 +213,96 @@ public class StoreSettings
 	{
 		return encrypted;
 	}
+
+	/**
+	 * Sets a flag whether to persist pages with a {@link org.apache.wicket.pageStore.MappedPageStore}
+	 * instead of a {@link org.apache.wicket.pageStore.DiskPageStore}.
+	 *
+	 * @param memoryMapped
+	 *            {@code true} to use memory-mapped segments, {@code false} - otherwise
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setMemoryMapped(boolean memoryMapped)
+	{
+		this.memoryMapped = memoryMapped;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if pages are persisted in memory-mapped segments
+	 */
+	public boolean isMemoryMapped()
+	{
+		return memoryMapped;
+	}
+
+	/**
+	 * @return the size of each segment used by {@link org.apache.wicket.pageStore.MappedPageStore}
+	 */
+	public Bytes getSegmentSize()
+	{
+		return segmentSize;
+	}
+
+	/**
+	 * Sets the size of each segment used by {@link org.apache.wicket.pageStore.MappedPageStore}.
+	 * Pages larger than this size will be stored in a segment of their own.
+	 *
+	 * @param segmentSize
+	 *            the size of a segment
+	 * @return {@code this} object for chaining
+	 * @see #setMemoryMapped(boolean)
+	 */
+	public StoreSettings setSegmentSize(final Bytes segmentSize)
+	{
+		this.segmentSize = Args.notNull(segmentSize, "segmentSize");
+		return this;
+	}
+
+	/**
+	 * @return the size of the off-heap cache for serialized pages, {@code null} if disabled
+	 * @see org.apache.wicket.pageStore.OffHeapPageStore
+	 */
+	public Bytes getOffHeapCacheSize()
+	{
+		return offHeapCacheSize;
+	}
+
+	/**
+	 * Sets the size of an application-wide {@link org.apache.wicket.pageStore.OffHeapPageStore}
+	 * caching serialized pages in front of the persistent store. Each session is limited to
+	 * {@link #getMaxSizePerSession()} in this cache, or to the whole cache if it is smaller.
+	 *
+	 * @param offHeapCacheSize
+	 *            the size of the cache, {@code null} to disable the cache
+	 * @return {@code this} object for chaining
+	 */
+	public StoreSettings setOffHeapCacheSize(final Bytes offHeapCacheSize)
+	{
+		this.offHeapCacheSize = offHeapCacheSize;
+		return this;
+	}
+
+	/**
+	 * Sets a flag whether to pass pages as deltas to a base page of each session to the
+	 * persistent store.
+	 *
+	 * @param deltaEncoded
+	 *            {@code true} to store deltas, {@code false} - otherwise
+	 * @return {@code this} object for chaining
+	 * @see org.apache.wicket.pageStore.DeltaPageStore
+	 */
+	public StoreSettings setDeltaEncoded(boolean deltaEncoded)
+	{
+		this.deltaEncoded = deltaEncoded;
+		return this;
+	}
+
+	/**
+	 * @return {@code true} if pages are stored as deltas
+	 */
+	public boolean isDeltaEncoded()
+	{
+		return deltaEncoded;
+	}
 }
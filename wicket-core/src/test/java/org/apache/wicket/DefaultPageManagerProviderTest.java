@@ -18,6 +18,7 @@ package org.apache.wicket;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.apache.wicket.core.util.lang.PropertyResolver;
 import org.apache.wicket.page.IPageManager;
@@ -25,8 +26,10 @@ import org.apache.wicket.pageStore.AsynchronousPageStore;
 import org.apache.wicket.pageStore.CachingPageStore;
 import org.apache.wicket.pageStore.DiskPageStore;
 import org.apache.wicket.pageStore.InSessionPageStore;
+import org.apache.wicket.pageStore.OffHeapPageStore;
 import org.apache.wicket.pageStore.RequestPageStore;
 import org.apache.wicket.pageStore.SerializingPageStore;
+import org.apache.wicket.util.lang.Bytes;
 import org.apache.wicket.util.tester.WicketTestCase;
 import org.junit.jupiter.api.Test;
 
@@ -54,4 +57,25 @@ class DefaultPageManagerProviderTest extends WicketTestCase
 		
 		assertNotNull(disk);
 	}
+
+	/**
+	 * An off-heap cache smaller than the maximum size per session limits each session to its
+	 * size.
+	 */
+	@Test
+	void offHeapCacheSmallerThanMaxSizePerSession()
+	{
+		tester.getApplication().getStoreSettings().setMaxSizePerSession(Bytes.megabytes(10));
+		tester.getApplication().getStoreSettings().setOffHeapCacheSize(Bytes.megabytes(1));
+
+		IPageManager manager = new DefaultPageManagerProvider(tester.getApplication()).get();
+
+		RequestPageStore request = (RequestPageStore)manager.getPageStore();
+		CachingPageStore caching = (CachingPageStore)request.getDelegate();
+		SerializingPageStore serializing = (SerializingPageStore)caching.getDelegate();
+		CachingPageStore offHeapCaching = (CachingPageStore)serializing.getDelegate();
+		assertTrue(offHeapCaching.getCache() instanceof OffHeapPageStore);
+
+		manager.destroy();
+	}
 }
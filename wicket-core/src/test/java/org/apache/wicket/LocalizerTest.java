@@ -17,12 +17,15 @@
 package org.apache.wicket;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.MissingResourceException;
 
@@ -257,6 +260,50 @@ class LocalizerTest
 		}
 	}
 
+	/**
+	 * By default strings are cached with structured keys.
+	 */
+	@Test
+	void structuredCacheKeys()
+	{
+		Localizer localizer = new Localizer();
+		settings.setLocalizer(localizer);
+
+		assertEquals("This is a test", localizer.getString("test.string", null));
+		assertEquals("This is a test", localizer.getString("test.string", null));
+
+		assertEquals(1, localizer.getCache().getHitCount());
+		assertFalse(localizer.getCache().keySet().iterator().next() instanceof String);
+	}
+
+	/**
+	 * A subclass overriding a cache hook gets string keys, as before.
+	 */
+	@Test
+	void stringCacheKeysOfOverriddenHook()
+	{
+		List<String> cacheKeys = new ArrayList<>();
+		Localizer localizer = new Localizer()
+		{
+			@Override
+			protected String getCacheKey(String key, Component component, Locale locale,
+				String style, String variation)
+			{
+				String cacheKey = super.getCacheKey(key, component, locale, style, variation);
+				cacheKeys.add(cacheKey);
+				return cacheKey;
+			}
+		};
+		settings.setLocalizer(localizer);
+
+		assertEquals("This is a test", localizer.getString("test.string", null));
+		assertEquals("This is a test", localizer.getString("test.string", null));
+
+		assertEquals(2, cacheKeys.size());
+		assertEquals(1, localizer.getCache().getHitCount());
+		assertEquals(cacheKeys.get(0), localizer.getCache().keySet().iterator().next());
+	}
+
 	public static class MyMockPage extends WebPage
 	{
 		private static final long serialVersionUID = 1L;
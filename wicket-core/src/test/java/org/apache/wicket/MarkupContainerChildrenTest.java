@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.wicket.core.util.lang.WicketObjects;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link MarkupContainerChildren}
+ */
+class MarkupContainerChildrenTest extends WicketTestCase
+{
+	/**
+	 * Random additions, replacements and removals compared to a {@link LinkedHashMap}.
+	 */
+	@Test
+	void sameAsLinkedHashMap()
+	{
+		Random random = new Random(42);
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		Map<String, Component> expected = new LinkedHashMap<>();
+
+		for (int i = 0; i < 20000; i++)
+		{
+			String id = "c" + random.nextInt(200);
+			if (random.nextInt(3) == 0)
+			{
+				if (expected.remove(id) != null)
+				{
+					container.remove(id);
+				}
+			}
+			else
+			{
+				Component child = new WebComponent(id);
+				if (expected.containsKey(id))
+				{
+					container.replace(child);
+				}
+				else
+				{
+					container.add(child);
+				}
+				expected.put(id, child);
+			}
+
+			if (i % 100 == 0)
+			{
+				assertChildren(expected, container);
+			}
+		}
+		assertChildren(expected, container);
+	}
+
+	@Test
+	void removeDuringIteration()
+	{
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		for (int i = 0; i < 100; i++)
+		{
+			container.add(new WebComponent("c" + i));
+		}
+
+		List<String> iterated = new ArrayList<>();
+		Iterator<Component> iterator = container.iterator();
+		while (iterator.hasNext())
+		{
+			Component child = iterator.next();
+			iterated.add(child.getId());
+			if (iterated.size() % 2 == 0)
+			{
+				iterator.remove();
+			}
+		}
+
+		assertEquals(100, iterated.size());
+		assertEquals(50, container.size());
+		assertSame(container.get("c0"), container.iterator().next());
+		assertNull(container.get("c1"));
+	}
+
+	@Test
+	void serialization()
+	{
+		WebMarkupContainer container = new WebMarkupContainer("container");
+		for (int i = 0; i < 100; i++)
+		{
+			container.add(new WebComponent("c" + i));
+		}
+		for (int i = 0; i < 100; i += 3)
+		{
+			container.remove("c" + i);
+		}
+
+		WebMarkupContainer clone = WicketObjects.cloneObject(container);
+
+		assertEquals(container.size(), clone.size());
+		Iterator<Component> cloned = clone.iterator();
+		for (Component child : container)
+		{
+			Component clonedChild = cloned.next();
+			assertEquals(child.getId(), clonedChild.getId());
+			assertSame(clonedChild, clone.get(child.getId()));
+			assertSame(clone, clonedChild.getParent());
+		}
+
+		clone.add(new WebComponent("c0"));
+		assertEquals("c0", clone.get("c0").getId());
+	}
+
+	private void assertChildren(Map<String, Component> expected, MarkupContainer container)
+	{
+		assertEquals(expected.size(), container.size());
+		List<Component> children = new ArrayList<>();
+		container.forEach(children::add);
+		assertEquals(new ArrayList<>(expected.values()), children);
+		for (Map.Entry<String, Component> entry : expected.entrySet())
+		{
+			assertSame(entry.getValue(), container.get(entry.getKey()));
+		}
+	}
+}
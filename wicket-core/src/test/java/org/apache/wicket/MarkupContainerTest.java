@@ -33,7 +33,6 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.map.LinkedMap;
 import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.markup.IMarkupResourceStreamProvider;
 import org.apache.wicket.markup.html.WebComponent;
@@ -43,6 +42,7 @@ import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.Form;
 import org.apache.wicket.markup.html.form.TextField;
 import org.apache.wicket.markup.html.panel.EmptyPanel;
+import org.apache.wicket.model.Model;
 import org.apache.wicket.util.resource.IResourceStream;
 import org.apache.wicket.util.resource.StringResourceStream;
 import org.apache.wicket.util.tester.WicketTestCase;
@@ -385,7 +385,7 @@ class MarkupContainerTest extends WicketTestCase
 		Field childrenField = MarkupContainer.class.getDeclaredField("children");
 		childrenField.setAccessible(true);
 		Object field = childrenField.get(wmc);
-		assertThat(field).isInstanceOf(List.class);
+		assertThat(field).isInstanceOf(MarkupContainerChildren.class);
 	}
 
 	@Test
@@ -394,10 +394,12 @@ class MarkupContainerTest extends WicketTestCase
 		WebMarkupContainer wmc = new WebMarkupContainer("id");
 
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP - 1);
-		assertChildrenType(wmc, List.class);
+		assertChildrenType(wmc, MarkupContainerChildren.class);
+		assertChildrenIndexed(wmc, false);
 
 		addNChildren(wmc, 1);
-		assertChildrenType(wmc, LinkedMap.class);
+		assertChildrenType(wmc, MarkupContainerChildren.class);
+		assertChildrenIndexed(wmc, true);
 	}
 
 	@Test
@@ -407,7 +409,8 @@ class MarkupContainerTest extends WicketTestCase
 
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP + 1);
 
-		assertChildrenType(wmc, LinkedMap.class);
+		assertChildrenType(wmc, MarkupContainerChildren.class);
+		assertChildrenIndexed(wmc, true);
 	}
 
 	@Test
@@ -418,7 +421,8 @@ class MarkupContainerTest extends WicketTestCase
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP);
 		wmc.add(new EmptyPanel("panel"));
 
-		assertChildrenType(wmc, LinkedMap.class);
+		assertChildrenType(wmc, MarkupContainerChildren.class);
+		assertChildrenIndexed(wmc, true);
 
 		Iterator<Component> iterator = wmc.iterator();
 		removeNChildren(iterator, NUMBER_OF_CHILDREN_FOR_A_MAP);
@@ -434,7 +438,8 @@ class MarkupContainerTest extends WicketTestCase
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP - 2);
 		wmc.add(new EmptyPanel("panel"));
 
-		assertChildrenType(wmc, List.class);
+		assertChildrenType(wmc, MarkupContainerChildren.class);
+		assertChildrenIndexed(wmc, false);
 
 		Iterator<Component> iterator = wmc.iterator();
 		removeNChildren(iterator, NUMBER_OF_CHILDREN_FOR_A_MAP - 2);
@@ -862,6 +867,32 @@ class MarkupContainerTest extends WicketTestCase
 		assertNotNull(WicketObjects.cloneObject(wmc));
 	}
 
+	/**
+	 * The children of a container are deserialized with a child still reading its fields, when
+	 * the child is reached first and its model refers back to the container.
+	 */
+	@Test
+	void deserializeChildReferringToItsContainer()
+	{
+		WebMarkupContainer wmc = new WebMarkupContainer("id");
+		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP);
+		WebMarkupContainer child = new WebMarkupContainer("child", Model.of(wmc));
+		wmc.add(child);
+
+		WebMarkupContainer clone = WicketObjects.cloneObject(child);
+
+		MarkupContainer container = clone.getParent();
+		assertChildrenIndexed((WebMarkupContainer)container, false);
+		assertSame(clone, container.get("child"));
+		assertSame(container, clone.getDefaultModelObject());
+		assertChildrenIndexed((WebMarkupContainer)container, true);
+		assertEquals(NUMBER_OF_CHILDREN_FOR_A_MAP + 1, container.size());
+		for (int i = 0; i < NUMBER_OF_CHILDREN_FOR_A_MAP; i++)
+		{
+			assertEquals("padding" + i, container.get("padding" + i).getId());
+		}
+	}
+
 	@Test
 	void detachDuringIterationWorks()
 	{
@@ -1009,7 +1040,7 @@ class MarkupContainerTest extends WicketTestCase
 		WebMarkupContainer wmc = new WebMarkupContainer("id");
 		addNChildren(wmc, NUMBER_OF_CHILDREN_FOR_A_MAP - 2);
 
-		assertChildrenType(wmc, List.class);
+		assertChildrenType(wmc, MarkupContainerChildren.class);
 
 		Iterator<Component> iterator = wmc.iterator();
 
@@ -1145,6 +1176,29 @@ class MarkupContainerTest extends WicketTestCase
 		}
 	}
 
+	/**
+	 * Asserts whether the children of the {@code wmc} are looked up by their hash table.
+	 *
+	 * @param wmc
+	 *            the web markup container whose children are to be checked
+	 * @param indexed
+	 *            whether the children are expected to be indexed
+	 */
+	private void assertChildrenIndexed(WebMarkupContainer wmc, boolean indexed)
+	{
+		try
+		{
+			Field childrenField = MarkupContainer.class.getDeclaredField("children");
+			childrenField.setAccessible(true);
+			MarkupContainerChildren children = (MarkupContainerChildren)childrenField.get(wmc);
+			assertEquals(indexed, children.isIndexed());
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new AssertionError("Unable to read children", e);
+		}
+	}
+
 	/**
 	 * Adds {@code numberOfChildrenToAdd} anonymous children to the {@code parent}.
 	 *
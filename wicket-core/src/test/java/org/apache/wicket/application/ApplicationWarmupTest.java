@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.application;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.loader.CompiledMarkupPage;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
+import org.apache.wicket.request.resource.caching.IStaticCacheableResource;
+import org.apache.wicket.request.resource.caching.version.CachingResourceVersion;
+import org.apache.wicket.request.resource.caching.version.IResourceVersion;
+import org.apache.wicket.resource.IPropertiesChangeListener;
+import org.apache.wicket.resource.IPropertiesFactory;
+import org.apache.wicket.resource.Properties;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link ApplicationWarmup}.
+ */
+class ApplicationWarmupTest extends WicketTestCase
+{
+	@Test
+	void warmup()
+	{
+		CountingPropertiesFactory properties = new CountingPropertiesFactory(
+			tester.getApplication().getResourceSettings().getPropertiesFactory());
+		tester.getApplication().getResourceSettings().setPropertiesFactory(properties);
+
+		CountingResourceVersion version = new CountingResourceVersion();
+		tester.getApplication()
+			.getResourceSettings()
+			.setCachingStrategy(
+				new FilenameWithVersionResourceCachingStrategy(new CachingResourceVersion(version)));
+
+		tester.getApplication().mountPage("compiled", CompiledMarkupPage.class);
+		tester.getApplication().mountResource("compiled.html",
+			new PackageResourceReference(CompiledMarkupPage.class, "CompiledMarkupPage.html"));
+
+		new ApplicationWarmup(Locale.ENGLISH).setParallelism(2).warmup(tester.getApplication());
+
+		assertTrue(properties.paths.contains(
+			"org/apache/wicket/markup/loader/CompiledMarkupPage_en"));
+		assertEquals(1, version.count.get());
+
+		Markup markup = MarkupFactory.get().getMarkup(CompiledMarkupPage.class, Locale.ENGLISH,
+			null);
+		assertNotNull(markup);
+		assertSame(markup, MarkupFactory.get().getMarkup(CompiledMarkupPage.class,
+			Locale.ENGLISH, null));
+
+		tester.getSession().setLocale(Locale.ENGLISH);
+		tester.startPage(CompiledMarkupPage.class);
+		tester.assertRenderedPage(CompiledMarkupPage.class);
+		tester.assertContains("Compiled message");
+		assertEquals(1, version.count.get());
+	}
+
+	private static class CountingPropertiesFactory implements IPropertiesFactory
+	{
+		private final IPropertiesFactory delegate;
+
+		private final Set<String> paths = ConcurrentHashMap.newKeySet();
+
+		private CountingPropertiesFactory(IPropertiesFactory delegate)
+		{
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void addListener(IPropertiesChangeListener listener)
+		{
+			delegate.addListener(listener);
+		}
+
+		@Override
+		public void clearCache()
+		{
+			delegate.clearCache();
+		}
+
+		@Override
+		public Properties load(Class<?> clazz, String path)
+		{
+			paths.add(path);
+
+			return delegate.load(clazz, path);
+		}
+	}
+
+	private static class CountingResourceVersion implements IResourceVersion
+	{
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public String getVersion(IStaticCacheableResource resource)
+		{
+			count.incrementAndGet();
+
+			return "1";
+		}
+
+		@Override
+		public Pattern getVersionPattern()
+		{
+			return Pattern.compile("1");
+		}
+	}
+}
@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.request.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.wicket.core.request.handler.BookmarkablePageRequestHandler;
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
+import org.apache.wicket.core.request.handler.ListenerRequestHandler;
+import org.apache.wicket.core.request.handler.PageAndComponentProvider;
+import org.apache.wicket.core.request.handler.PageProvider;
+import org.apache.wicket.core.request.handler.RenderPageRequestHandler;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.markup.html.pages.AccessDeniedPage;
+import org.apache.wicket.markup.html.pages.InternalErrorPage;
+import org.apache.wicket.mock.MockHomePage;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.component.IRequestablePage;
+import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
+import org.apache.wicket.request.mapper.CompoundRequestMapper;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.caching.FilenameWithVersionResourceCachingStrategy;
+import org.apache.wicket.request.resource.caching.version.LastModifiedResourceVersion;
+import org.apache.wicket.util.lang.PackageName;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the indexed dispatch of {@link CompoundRequestMapper} with asking all mappers.
+ */
+class CompoundRequestMapperIndexTest extends WicketTestCase
+{
+	private static final List<Class<? extends IRequestablePage>> PAGES = Arrays.asList(
+		MockHomePage.class, AccessDeniedPage.class, InternalErrorPage.class);
+
+	private static final String[] SEGMENTS = { "a", "b", "C", "c", "shop", "Shop", "item",
+			"res.css", "res-ver-123.css", "AccessDeniedPage", "InternalErrorPage", "" };
+
+	private final Random random = new Random(13);
+
+	@Test
+	void sameAsScanningAllMappers()
+	{
+		int mapped = 0;
+		for (int round = 0; round < 250; round++)
+		{
+			CompoundRequestMapper compound = new CompoundRequestMapper();
+			for (int i = 0; i < 8; i++)
+			{
+				compound.add(newMapper());
+			}
+
+			for (int i = 0; i < 200; i++)
+			{
+				Request request = newRequest(newUrl());
+
+				String expected = describe(scanAll(compound, request));
+				assertEquals(expected, describe(compound.mapRequest(request)),
+					request.getUrl().toString());
+				if (!"null".equals(expected))
+				{
+					mapped++;
+				}
+			}
+		}
+		// both outcomes are covered
+		assertTrue(mapped > 10000 && mapped < 40000, "mapped " + mapped);
+	}
+
+	@Test
+	void mapHandlerSameAsScanningAllMappers()
+	{
+		int mapped = 0;
+		for (int round = 0; round < 250; round++)
+		{
+			CompoundRequestMapper compound = new CompoundRequestMapper();
+			for (int i = 0; i < 8; i++)
+			{
+				compound.add(newMapper());
+			}
+
+			for (int i = 0; i < 50; i++)
+			{
+				IRequestHandler handler = newHandler();
+
+				String expected = String.valueOf(scanAll(compound, handler));
+				assertEquals(expected, String.valueOf(compound.mapHandler(handler)),
+					describe(handler));
+				if (!"null".equals(expected))
+				{
+					mapped++;
+				}
+			}
+		}
+		// both outcomes are covered
+		assertTrue(mapped > 2500 && mapped < 12000, "mapped " + mapped);
+	}
+
+	@Test
+	void listenerOfMountedPage()
+	{
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+		compound.add(new MountedMapper("/home", MockHomePage.class));
+		compound.add(new MountedMapper("/denied", AccessDeniedPage.class));
+
+		MockHomePage page = new MockHomePage();
+		Link<Void> link = new Link<Void>("link")
+		{
+			@Override
+			public void onClick()
+			{
+			}
+		};
+		page.add(link);
+		IRequestHandler handler = new ListenerRequestHandler(new PageAndComponentProvider(page,
+			link));
+
+		assertEquals("home", compound.mapHandler(handler).getSegments().get(0));
+	}
+
+	@Test
+	void pageClassOfProviderChanges()
+	{
+		List<Class<? extends IRequestablePage>> pageClass = new ArrayList<>();
+		pageClass.add(MockHomePage.class);
+
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+		compound.add(new MountedMapper("/dynamic", () -> pageClass.get(0)));
+		compound.add(new MountedMapper("/home", MockHomePage.class));
+
+		assertEquals("home", compound.mapHandler(
+			new BookmarkablePageRequestHandler(new PageProvider(MockHomePage.class))).getPath());
+
+		pageClass.set(0, AccessDeniedPage.class);
+		assertEquals("dynamic", compound.mapHandler(
+			new BookmarkablePageRequestHandler(new PageProvider(AccessDeniedPage.class))).getPath());
+	}
+
+	@Test
+	void indexFollowsAddAndRemove()
+	{
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+		MountedMapper first = new MountedMapper("/shop/${id}", MockHomePage.class);
+		compound.add(first);
+
+		Request request = newRequest(Url.parse("shop/1"));
+		assertTrue(compound.mapRequest(request) instanceof IPageClassRequestHandler);
+
+		compound.remove(first);
+		assertEquals("null", describe(compound.mapRequest(request)));
+
+		compound.add(new MountedMapper("/SHOP/${id}", AccessDeniedPage.class).setCaseSensitiveMatch(false));
+		assertEquals(AccessDeniedPage.class,
+			((IPageClassRequestHandler)compound.mapRequest(request)).getPageClass());
+	}
+
+	@Test
+	void decoratedResourceUrl()
+	{
+		tester.getApplication().getResourceSettings().setCachingStrategy(
+			new FilenameWithVersionResourceCachingStrategy(new LastModifiedResourceVersion()));
+
+		CompoundRequestMapper compound = new CompoundRequestMapper();
+		compound.add(new ResourceMapper("/a/res.css",
+			new PackageResourceReference(MockHomePage.class, "res.css")));
+
+		Request request = newRequest(Url.parse("a/res-ver-123.css"));
+
+		assertTrue(compound.mapRequest(request) instanceof ResourceReferenceRequestHandler);
+	}
+
+	private IRequestMapper newMapper()
+	{
+		String path = newPath();
+		switch (random.nextInt(6))
+		{
+			case 0 :
+				return new ResourceMapper(path, new PackageResourceReference(MockHomePage.class,
+					random.nextBoolean() ? "res.css" : "other.css"));
+			case 1 :
+				return new PackageMapper(path, PackageName.forClass(AccessDeniedPage.class));
+			case 2 :
+				// not indexed
+				return new MountedMapper(path, InternalErrorPage.class)
+				{
+				};
+			case 3 :
+				return new MountedMapper(path, AccessDeniedPage.class).setCaseSensitiveMatch(false);
+			default :
+				return new MountedMapper(path, MockHomePage.class);
+		}
+	}
+
+	private IRequestHandler newHandler()
+	{
+		PageParameters parameters = new PageParameters();
+		for (int i = 0; i < 4; i++)
+		{
+			if (random.nextBoolean())
+			{
+				parameters.set("p" + i, SEGMENTS[random.nextInt(SEGMENTS.length - 1)]);
+			}
+		}
+
+		Class<? extends IRequestablePage> pageClass = PAGES.get(random.nextInt(PAGES.size()));
+		switch (random.nextInt(4))
+		{
+			case 0 :
+				return new ResourceReferenceRequestHandler(new PackageResourceReference(
+					MockHomePage.class, random.nextBoolean() ? "res.css" : "other.css"), parameters);
+			case 1 :
+				return new RenderPageRequestHandler(new PageProvider(pageClass, parameters));
+			default :
+				return new BookmarkablePageRequestHandler(new PageProvider(pageClass, parameters));
+		}
+	}
+
+	private String newPath()
+	{
+		StringBuilder path = new StringBuilder();
+		int length = 1 + random.nextInt(4);
+		for (int i = 0; i < length; i++)
+		{
+			path.append('/');
+			switch (random.nextInt(8))
+			{
+				case 0 :
+					path.append("${p").append(i).append('}');
+					break;
+				case 1 :
+					path.append("#{o").append(i).append('}');
+					break;
+				default :
+					String segment = SEGMENTS[random.nextInt(SEGMENTS.length - 1)];
+					path.append(segment);
+			}
+		}
+		return path.toString();
+	}
+
+	private Url newUrl()
+	{
+		List<String> segments = new ArrayList<>();
+		int length = random.nextInt(6);
+		for (int i = 0; i < length; i++)
+		{
+			segments.add(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+		}
+		return new Url(segments, Collections.emptyList());
+	}
+
+	/**
+	 * Asks all mappers for their score and tries them in order, as before indexing.
+	 */
+	private IRequestHandler scanAll(CompoundRequestMapper compound, Request request)
+	{
+		List<IRequestMapper> mappers = new ArrayList<>();
+		List<Integer> scores = new ArrayList<>();
+		for (IRequestMapper mapper : compound)
+		{
+			mappers.add(mapper);
+			scores.add(mapper.getCompatibilityScore(request));
+		}
+
+		List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < mappers.size(); i++)
+		{
+			order.add(i);
+		}
+		order.sort((lhs, rhs) -> Integer.compare(scores.get(rhs), scores.get(lhs)));
+
+		for (int i : order)
+		{
+			IRequestHandler handler = mappers.get(i).mapRequest(request);
+			if (handler != null)
+			{
+				return handler;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Asks all mappers in order, as before indexing.
+	 */
+	private Url scanAll(CompoundRequestMapper compound, IRequestHandler handler)
+	{
+		for (IRequestMapper mapper : compound)
+		{
+			Url url = mapper.mapHandler(handler);
+			if (url != null)
+			{
+				return url;
+			}
+		}
+		return null;
+	}
+
+	private String describe(IRequestHandler handler)
+	{
+		if (handler instanceof IPageClassRequestHandler)
+		{
+			IPageClassRequestHandler pageHandler = (IPageClassRequestHandler)handler;
+			return handler.getClass().getSimpleName() + " " + pageHandler.getPageClass().getName() +
+				" " + pageHandler.getPageParameters();
+		}
+		else if (handler instanceof ResourceReferenceRequestHandler)
+		{
+			ResourceReferenceRequestHandler resourceHandler = (ResourceReferenceRequestHandler)handler;
+			return handler.getClass().getSimpleName() + " " + resourceHandler.getResourceReference() +
+				" " + resourceHandler.getPageParameters();
+		}
+		return String.valueOf(handler);
+	}
+
+	private Request newRequest(final Url url)
+	{
+		return new Request()
+		{
+			@Override
+			public Url getUrl()
+			{
+				return url;
+			}
+
+			@Override
+			public Locale getLocale()
+			{
+				return null;
+			}
+
+			@Override
+			public Charset getCharset()
+			{
+				return StandardCharsets.UTF_8;
+			}
+
+			@Override
+			public Url getClientUrl()
+			{
+				return url;
+			}
+
+			@Override
+			public Object getContainerRequest()
+			{
+				return null;
+			}
+		};
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.core.util.crypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.wicket.mock.MockHomePage;
+import org.apache.wicket.util.crypt.AesGcmCrypt;
+import org.apache.wicket.util.crypt.ICrypt;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link KeyInSessionSunJceCryptFactory}
+ */
+class KeyInSessionSunJceCryptFactoryTest extends WicketTestCase
+{
+	@Test
+	void cryptIsReusedDuringRequest()
+	{
+		KeyInSessionSunJceCryptFactory factory = new KeyInSessionSunJceCryptFactory();
+
+		ICrypt crypt = factory.newCrypt();
+		assertSame(crypt, factory.newCrypt());
+
+		// another factory might create other crypts
+		assertNotSame(crypt, new KeyInSessionSunJceCryptFactory().newCrypt());
+		String encrypted = crypt.encryptUrlSafe("text");
+
+		tester.startPage(MockHomePage.class);
+
+		ICrypt next = factory.newCrypt();
+		assertNotSame(crypt, next);
+		assertEquals("text", next.decryptUrlSafe(encrypted));
+	}
+
+	@Test
+	void customCrypt()
+	{
+		KeyInSessionSunJceCryptFactory factory = new KeyInSessionSunJceCryptFactory()
+		{
+			@Override
+			protected ICrypt createCrypt()
+			{
+				return new AesGcmCrypt();
+			}
+		};
+
+		ICrypt crypt = factory.newCrypt();
+		assertTrue(crypt instanceof AesGcmCrypt);
+		assertEquals("text", crypt.decryptUrlSafe(crypt.encryptUrlSafe("text")));
+	}
+}
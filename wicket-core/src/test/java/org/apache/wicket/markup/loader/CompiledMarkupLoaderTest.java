@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.ComponentTag;
+import org.apache.wicket.markup.Markup;
+import org.apache.wicket.markup.MarkupElement;
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupResourceStream;
+import org.apache.wicket.util.file.Files;
+import org.apache.wicket.util.resource.ResourceStreamNotFoundException;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CompiledMarkupLoader}.
+ */
+class CompiledMarkupLoaderTest extends WicketTestCase
+{
+	private File folder;
+
+	@BeforeEach
+	void createFolder() throws IOException
+	{
+		folder = java.nio.file.Files.createTempDirectory("compiled-markup").toFile();
+	}
+
+	@AfterEach
+	void removeFolder()
+	{
+		Files.removeFolder(folder);
+	}
+
+	/**
+	 * Compiled markup renders identically to parsed markup.
+	 */
+	@Test
+	void render()
+	{
+		tester.getApplication().getMarkupSettings().setCompiledMarkupFolder(folder);
+
+		tester.startPage(CompiledMarkupPage.class);
+		String parsed = withoutMarkupIds(tester.getLastResponseAsString());
+		assertTrue(folder.list().length > 0);
+
+		tester.getApplication().getMarkupSettings().getMarkupFactory().getMarkupCache().clear();
+
+		tester.startPage(CompiledMarkupPage.class);
+		assertEquals(parsed, withoutMarkupIds(tester.getLastResponseAsString()));
+	}
+
+	private String withoutMarkupIds(String response)
+	{
+		return response.replaceAll("id=\"[^\"]*\"", "");
+	}
+
+	/**
+	 * Compiled markup is loaded without parsing.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void loadCompiled() throws Exception
+	{
+		CountingLoader delegate = new CountingLoader();
+		CompiledMarkupLoader loader = new CompiledMarkupLoader(folder, delegate);
+
+		CompiledMarkupPage page = new CompiledMarkupPage();
+
+		Markup parsed = loader.loadMarkup(page, newMarkupResourceStream(page), null, false);
+		assertEquals(1, delegate.count);
+
+		MarkupResourceStream stream = newMarkupResourceStream(page);
+		Markup compiled = loader.loadMarkup(page, stream, null, false);
+		assertEquals(1, delegate.count);
+
+		assertEquals(parsed.size(), compiled.size());
+		for (int i = 0; i < parsed.size(); i++)
+		{
+			MarkupElement element = parsed.get(i);
+			assertEquals(element.getClass(), compiled.get(i).getClass());
+			assertEquals(element.toString(), compiled.get(i).toString());
+			if (element instanceof ComponentTag)
+			{
+				assertEquals(((ComponentTag)element).getId(), ((ComponentTag)compiled.get(i)).getId());
+			}
+		}
+		assertEquals(parsed.getMarkupResourceStream().getEncoding(), stream.getEncoding());
+		assertEquals(parsed.getMarkupResourceStream().getDoctype(), stream.getDoctype());
+
+		loader.loadMarkup(page, newMarkupResourceStream(page), null, true);
+		assertEquals(2, delegate.count);
+	}
+
+	/**
+	 * Markup is parsed again on a different version.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void outdated() throws Exception
+	{
+		CountingLoader delegate = new CountingLoader();
+		final String[] version = { "1" };
+		CompiledMarkupLoader loader = new CompiledMarkupLoader(folder, delegate)
+		{
+			@Override
+			protected String getVersion(MarkupResourceStream markupResourceStream)
+			{
+				return version[0];
+			}
+		};
+
+		CompiledMarkupPage page = new CompiledMarkupPage();
+
+		loader.loadMarkup(page, newMarkupResourceStream(page), null, false);
+		loader.loadMarkup(page, newMarkupResourceStream(page), null, false);
+		assertEquals(1, delegate.count);
+
+		version[0] = "2";
+		loader.loadMarkup(page, newMarkupResourceStream(page), null, false);
+		assertEquals(2, delegate.count);
+		loader.loadMarkup(page, newMarkupResourceStream(page), null, false);
+		assertEquals(2, delegate.count);
+	}
+
+	/**
+	 * Classes other than markup elements are rejected.
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void rejectForeignClasses() throws Exception
+	{
+		CountingLoader delegate = new CountingLoader();
+		CompiledMarkupLoader loader = new CompiledMarkupLoader(folder, delegate)
+		{
+			@Override
+			protected String getVersion(MarkupResourceStream markupResourceStream)
+			{
+				return "1";
+			}
+		};
+
+		CompiledMarkupPage page = new CompiledMarkupPage();
+
+		MarkupResourceStream stream = newMarkupResourceStream(page);
+		loader.loadMarkup(page, stream, null, false);
+		assertEquals(1, delegate.count);
+
+		File[] files = folder.listFiles();
+		assertEquals(1, files.length);
+		try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(files[0])))
+		{
+			out.writeInt(1);
+			out.writeUTF("1");
+			out.writeLong(stream.lastModifiedTime().toEpochMilli());
+			out.writeObject(stream.locationAsString());
+			out.writeObject(stream.getEncoding());
+			out.writeObject(stream.getWicketNamespace());
+			out.writeObject(null);
+			out.writeObject(new ArrayList<>(Arrays.asList(new Foreign())));
+		}
+
+		loader.loadMarkup(page, newMarkupResourceStream(page), null, false);
+		assertEquals(2, delegate.count);
+		assertFalse(Foreign.deserialized);
+	}
+
+	private MarkupResourceStream newMarkupResourceStream(MarkupContainer container)
+	{
+		return MarkupFactory.get().getMarkupResourceStream(container, null);
+	}
+
+	private static class Foreign implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static boolean deserialized;
+
+		private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+		{
+			deserialized = true;
+		}
+	}
+
+	private static class CountingLoader implements IMarkupLoader
+	{
+		private int count;
+
+		@Override
+		public Markup loadMarkup(MarkupContainer container,
+			MarkupResourceStream markupResourceStream, IMarkupLoader baseLoader,
+			boolean enforceReload) throws IOException, ResourceStreamNotFoundException
+		{
+			count++;
+
+			return new SimpleMarkupLoader().loadMarkup(container, markupResourceStream, baseLoader,
+				enforceReload);
+		}
+	}
+}
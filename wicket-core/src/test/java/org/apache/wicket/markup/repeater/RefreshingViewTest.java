@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.markup.repeater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.ajax.AjaxEventBehavior;
+import org.apache.wicket.ajax.AjaxRequestTarget;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.model.IModel;
+import org.apache.wicket.model.Model;
+import org.apache.wicket.protocol.http.servlet.ServletWebRequest;
+import org.apache.wicket.protocol.http.servlet.ServletWebResponse;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.handler.render.WebPageRenderer;
+import org.apache.wicket.settings.RequestCycleSettings.RenderStrategy;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link RefreshingView}.
+ */
+class RefreshingViewTest extends WicketTestCase
+{
+	private int flushes;
+
+	@Test
+	void flyweightRendersLikeRegularView()
+	{
+		tester.startPage(new ViewPage(false));
+		String regular = tester.getLastResponseAsString();
+		tester.startPage(new ViewPage(true));
+		String flyweight = tester.getLastResponseAsString();
+
+		assertEquals(rows(regular), rows(flyweight));
+		assertTrue(flyweight.contains(">item 9</span>"));
+	}
+
+	@Test
+	void flyweightKeepsNoItems()
+	{
+		ViewPage page = tester.startPage(new ViewPage(true));
+
+		assertEquals(0, page.view.size());
+		assertEquals(10, page.populated);
+	}
+
+	@Test
+	void flyweightRerendersWithAjax()
+	{
+		ViewPage page = tester.startPage(new ViewPage(true));
+		page.count = 3;
+
+		tester.executeAjaxEvent(page.container, "click");
+
+		String response = tester.getLastResponseAsString();
+		assertTrue(response.contains(">item 2</span>"));
+		assertFalse(response.contains(">item 3</span>"));
+		assertEquals(0, page.view.size());
+	}
+
+	@Test
+	void flyweightReleasesRenderedItems()
+	{
+		ViewPage page = new ViewPage(true);
+		page.inspectLastItem = true;
+		tester.startPage(page);
+
+		// neither kept as children nor recorded as removals
+		assertEquals(0, page.sizeWhileLastPopulated);
+		assertNull(page.removalsWhileLastPopulated);
+	}
+
+	@Test
+	void flushesUnbufferedResponse()
+	{
+		ViewPage page = new ViewPage(true);
+		page.view.setFlushInterval(3);
+
+		FlushCountingResponse response = new FlushCountingResponse();
+		tester.getRequestCycle().setResponse(response);
+		page.renderPage();
+
+		assertEquals(3, response.flushes);
+		assertTrue(response.getTextResponse().toString().contains(">item 9</span>"));
+	}
+
+	@Test
+	void flushesUnbufferedPageRender()
+	{
+		tester.destroy();
+		tester = new WicketTester(new MockApplication())
+		{
+			@Override
+			protected Response newServletWebResponse(ServletWebRequest servletWebRequest)
+			{
+				return new ServletWebResponse(servletWebRequest, getResponse())
+				{
+					@Override
+					public void flush()
+					{
+						flushes++;
+						super.flush();
+					}
+				};
+			}
+		};
+		tester.getApplication()
+			.getRequestCycleSettings()
+			.setRenderStrategy(RenderStrategy.ONE_PASS_RENDER);
+
+		ViewPage page = new ViewPage(true);
+		page.view.setFlushInterval(3);
+		tester.startPage(page);
+		assertEquals(0, flushes);
+
+		tester.getApplication().setPageRendererProvider(handler -> new WebPageRenderer(handler)
+		{
+			@Override
+			protected boolean shouldRenderPageUnbuffered(RequestCycle requestCycle)
+			{
+				return true;
+			}
+		});
+		page = new ViewPage(true);
+		page.view.setFlushInterval(3);
+		tester.startPage(page);
+
+		assertEquals(3, flushes);
+		assertTrue(tester.getLastResponseAsString().contains(">item 9</span>"));
+	}
+
+	private String rows(String document)
+	{
+		return document.substring(document.indexOf("<p "), document.lastIndexOf("</p>"));
+	}
+
+	/**
+	 * @return the children removed from the container during the current request
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object getRemovals(MarkupContainer container)
+	{
+		try
+		{
+			Field removalsKey = MarkupContainer.class.getDeclaredField("REMOVALS_KEY");
+			removalsKey.setAccessible(true);
+			return container.getMetaData((MetaDataKey)removalsKey.get(null));
+		}
+		catch (ReflectiveOperationException e)
+		{
+			throw new AssertionError(e);
+		}
+	}
+
+	private static class FlushCountingResponse extends MockWebResponse
+	{
+		private int flushes;
+
+		@Override
+		public void flush()
+		{
+			flushes++;
+		}
+	}
+
+	private static class ViewPage extends WebPage implements IMarkupResourceStreamProvider
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final WebMarkupContainer container;
+
+		private final RefreshingView<Integer> view;
+
+		private int count = 10;
+
+		private int populated;
+
+		private boolean inspectLastItem;
+
+		/** the number of children of the view while the last item is populated */
+		private int sizeWhileLastPopulated = -1;
+
+		/** the removals of the view while the last item is populated */
+		private Object removalsWhileLastPopulated;
+
+		private ViewPage(boolean flyweight)
+		{
+			container = new WebMarkupContainer("container");
+			container.setOutputMarkupId(true);
+			container.add(new AjaxEventBehavior("click")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected void onEvent(AjaxRequestTarget target)
+				{
+					target.add(container);
+				}
+			});
+			add(container);
+
+			view = new RefreshingView<Integer>("view")
+			{
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected Iterator<IModel<Integer>> getItemModels()
+				{
+					List<IModel<Integer>> models = new ArrayList<>();
+					for (int i = 0; i < count; i++)
+					{
+						models.add(Model.of(i));
+					}
+					return models.iterator();
+				}
+
+				@Override
+				protected void populateItem(Item<Integer> item)
+				{
+					populated++;
+					item.add(new Label("label", "item " + item.getModelObject()));
+
+					if (inspectLastItem && item.getIndex() == count - 1)
+					{
+						sizeWhileLastPopulated = size();
+						removalsWhileLastPopulated = getRemovals(this);
+					}
+				}
+			};
+			view.setFlyweight(flyweight);
+			container.add(view);
+		}
+
+		@Override
+		public IResourceStream getMarkupResourceStream(MarkupContainer container,
+			Class<?> containerClass)
+		{
+			return new StringResourceStream(
+				"<html><body><div wicket:id='container'><p wicket:id='view'><span wicket:id='label'></span></p></div></body></html>");
+		}
+	}
+}
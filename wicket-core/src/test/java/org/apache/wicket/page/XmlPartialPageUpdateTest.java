@@ -23,6 +23,8 @@ import org.apache.wicket.Component;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.parser.filter.HtmlHeaderSectionHandler;
 import org.apache.wicket.mock.MockWebResponse;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.response.StringResponse;
 import org.apache.wicket.util.tester.WicketTestCase;
 import org.junit.jupiter.api.Test;
 
@@ -101,4 +103,46 @@ class XmlPartialPageUpdateTest extends WicketTestCase
 		
 		assertFalse(response.getTextResponse().toString().contains("notInPage"), "notInPage not written");
 	}
+
+	/**
+	 * Streamed components are written identically to buffered ones.
+	 */
+	@Test
+	void streaming()
+	{
+		PageForPartialUpdate page = new PageForPartialUpdate();
+
+		XmlPartialPageUpdate update = new XmlPartialPageUpdate(page);
+		update.add(page.container, page.container.getMarkupId());
+		MockWebResponse buffered = new MockWebResponse();
+		update.writeTo(buffered, "UTF-8");
+
+		update = new XmlPartialPageUpdate(page);
+		update.setStreaming(true);
+		update.add(page.container, page.container.getMarkupId());
+		MockWebResponse streamed = new MockWebResponse();
+		update.writeTo(streamed, "UTF-8");
+
+		assertEquals(buffered.getTextResponse().toString(), streamed.getTextResponse().toString());
+	}
+
+	/**
+	 * CData end split over several writes has to be encoded too.
+	 */
+	@Test
+	void streamingEncodesSplitCdataEnd()
+	{
+		XmlPartialPageUpdate update = new XmlPartialPageUpdate(new PageForPartialUpdate());
+
+		StringResponse response = new StringResponse();
+		Response contents = update.writeComponentStart(response, "id");
+		contents.write("a]");
+		contents.write("]");
+		contents.write(">b]]");
+		contents.write("]>c>]>");
+		update.writeComponentEnd(response, "id");
+
+		assertEquals("<component id=\"id\" ><![CDATA[" + update.encode("a]]>b]]]>c>]>") +
+			"]]></component>", response.toString());
+	}
 }
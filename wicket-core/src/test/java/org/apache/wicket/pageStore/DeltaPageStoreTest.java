@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.wicket.MockPage;
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.mock.MockPageStore;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link DeltaPageStore}.
+ */
+public class DeltaPageStoreTest
+{
+	private final Random random = new Random(42);
+
+	@Test
+	void versions()
+	{
+		MockPageStore delegate = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(delegate, 5);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data = new byte[10000];
+		random.nextBytes(data);
+
+		byte[][] versions = new byte[5][];
+		for (int p = 0; p < versions.length; p++)
+		{
+			data = change(data);
+			versions[p] = data;
+
+			store.addPage(context, new SerializedPage(p, "foo", data));
+		}
+
+		// single base plus deltas
+		assertEquals(versions.length + 1, delegate.getPages().size());
+		for (IManageablePage page : delegate.getPages())
+		{
+			if (page.getPageId() >= 0)
+			{
+				assertTrue(((SerializedPage)page).getData().length < 200);
+			}
+		}
+
+		for (int p = 0; p < versions.length; p++)
+		{
+			assertArrayEquals(versions[p], ((SerializedPage)store.getPage(context, p)).getData());
+		}
+
+		// decode from base in delegate only
+		context = new MockPageContext();
+		for (int p = 0; p < versions.length; p++)
+		{
+			assertArrayEquals(versions[p], ((SerializedPage)store.getPage(context, p)).getData());
+		}
+	}
+
+	@Test
+	void rebase()
+	{
+		MockPageStore delegate = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(delegate, 3);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data = new byte[1000];
+		random.nextBytes(data);
+
+		for (int p = 0; p < 7; p++)
+		{
+			data = change(data);
+			store.addPage(context, new SerializedPage(p, "foo", data));
+		}
+		assertEquals(3, countBases(delegate));
+
+		// unrelated data
+		byte[] other = new byte[1000];
+		random.nextBytes(other);
+		store.addPage(context, new SerializedPage(7, "foo", other));
+		assertEquals(4, countBases(delegate));
+
+		assertArrayEquals(data, ((SerializedPage)store.getPage(context, 6)).getData());
+		assertArrayEquals(other, ((SerializedPage)store.getPage(context, 7)).getData());
+	}
+
+	@Test
+	void baseWrittenOnRebaseOnly()
+	{
+		CountingPageStore delegate = new CountingPageStore();
+		DeltaPageStore store = new DeltaPageStore(delegate, 5);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data = new byte[10000];
+		random.nextBytes(data);
+
+		for (int p = 0; p < 10; p++)
+		{
+			data = change(data);
+			store.addPage(context, new SerializedPage(p, "foo", data));
+		}
+
+		// two bases plus small deltas
+		assertEquals(2, delegate.baseWrites);
+		assertTrue(delegate.bytesWritten < 2 * (data.length + 5 * 200));
+
+		for (int p = 5; p < 10; p++)
+		{
+			assertTrue(store.getPage(context, p) != null);
+		}
+		assertEquals(0, delegate.baseReads);
+	}
+
+	@Test
+	void currentBasePinned()
+	{
+		MockPageStore delegate = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(delegate, 5);
+
+		MockPageContext context = new MockPageContext();
+
+		byte[] data = new byte[1000];
+		random.nextBytes(data);
+
+		for (int p = 0; p < 3; p++)
+		{
+			data = change(data);
+			store.addPage(context, new SerializedPage(p, "foo", data));
+		}
+
+		// base is added before its deltas, thus evicted first
+		List<IManageablePage> pages = delegate.getPages();
+		assertEquals(-1, pages.get(0).getPageId());
+		pages.remove(0);
+
+		assertArrayEquals(data, ((SerializedPage)store.getPage(context, 2)).getData());
+
+		data = change(data);
+		store.addPage(context, new SerializedPage(3, "foo", data));
+		assertArrayEquals(data, ((SerializedPage)store.getPage(context, 3)).getData());
+
+		// deserialized session has to read the base from the delegate
+		context.clearSession();
+		assertNull(store.getPage(context, 3));
+	}
+
+	@Test
+	void serializedPages()
+	{
+		DeltaPageStore store = new DeltaPageStore(new MockPageStore());
+		JavaSerializer serializer = new JavaSerializer("test");
+
+		IPageContext context = new MockPageContext();
+
+		for (int p = 0; p < 20; p++)
+		{
+			store.addPage(context,
+				new SerializedPage(p, "foo", serializer.serialize(new MockPage(p))));
+		}
+
+		for (int p = 0; p < 20; p++)
+		{
+			SerializedPage page = (SerializedPage)store.getPage(context, p);
+			assertEquals(p, ((MockPage)serializer.deserialize(page.getData())).getPageId());
+		}
+	}
+
+	@Test
+	void baseRemoved()
+	{
+		MockPageStore delegate = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(delegate);
+
+		MockPageContext context = new MockPageContext();
+
+		byte[] data = new byte[1000];
+		random.nextBytes(data);
+		store.addPage(context, new SerializedPage(0, "foo", data));
+
+		delegate.removePage(context, new SerializedPage(-1, "foo", data));
+		context.clearSession();
+
+		assertNull(store.getPage(context, 0));
+	}
+
+	@Test
+	void baseReplaced()
+	{
+		MockPageStore delegate = new MockPageStore();
+		DeltaPageStore store = new DeltaPageStore(delegate);
+
+		MockPageContext context = new MockPageContext();
+
+		byte[] data = new byte[1000];
+		random.nextBytes(data);
+		store.addPage(context, new SerializedPage(0, "foo", data));
+
+		// new session data reuses id of base
+		context.clearSession();
+		store.addPage(context, new SerializedPage(1, "foo", change(data)));
+
+		assertNull(store.getPage(context, 0));
+		assertArrayEquals(change(data), ((SerializedPage)store.getPage(context, 1)).getData());
+	}
+
+	/**
+	 * Counts writes and reads of bases.
+	 */
+	private static class CountingPageStore extends MockPageStore
+	{
+		private int baseWrites;
+
+		private int baseReads;
+
+		private long bytesWritten;
+
+		@Override
+		public void addPage(IPageContext context, IManageablePage page)
+		{
+			if (page.getPageId() < 0)
+			{
+				baseWrites++;
+			}
+			bytesWritten += ((SerializedPage)page).getData().length;
+
+			super.addPage(context, page);
+		}
+
+		@Override
+		public IManageablePage getPage(IPageContext context, int id)
+		{
+			if (id < 0)
+			{
+				baseReads++;
+			}
+			return super.getPage(context, id);
+		}
+	}
+
+	private int countBases(MockPageStore delegate)
+	{
+		int bases = 0;
+		for (IManageablePage page : delegate.getPages())
+		{
+			if (page.getPageId() < 0)
+			{
+				bases++;
+			}
+		}
+		return bases;
+	}
+
+	/**
+	 * Change a few bytes and insert some.
+	 */
+	private byte[] change(byte[] data)
+	{
+		byte[] changed = Arrays.copyOf(data, data.length + 4);
+
+		changed[data.length / 3]++;
+
+		System.arraycopy(data, data.length / 2, changed, data.length / 2 + 4,
+			data.length - data.length / 2);
+		changed[data.length / 2] = 1;
+		changed[data.length / 2 + 1] = 2;
+		changed[data.length / 2 + 2] = 3;
+		changed[data.length / 2 + 3] = 4;
+
+		return changed;
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.util.WicketTestTag;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link MappedPageStore}.
+ */
+@Tag(WicketTestTag.SLOW)
+public class MappedPageStoreTest extends AbstractConcurrentPageStoreTest
+{
+
+	private static final Bytes MAX_SIZE_PER_SESSION = Bytes.megabytes(10);
+
+	private static final Bytes SEGMENT_SIZE = Bytes.megabytes(1);
+
+	/**
+	 * @throws IOException
+	 */
+	@Test
+	void store() throws IOException
+	{
+		File fileStoreFolder = Files.createTempDirectory(null).toFile();
+
+		IPageStore pageStore = new MappedPageStore("app1", fileStoreFolder, MAX_SIZE_PER_SESSION,
+			SEGMENT_SIZE);
+
+		doTestStore(pageStore);
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Oldest pages are evicted when the maximum size per session is exceeded.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void maxSizePerSession() throws IOException
+	{
+		File fileStoreFolder = Files.createTempDirectory(null).toFile();
+
+		MappedPageStore pageStore = new MappedPageStore("app1", fileStoreFolder, Bytes.bytes(300),
+			Bytes.bytes(250));
+
+		IPageContext context = new MockPageContext();
+
+		pageStore.addPage(context, new SerializedPage(1, "type1", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(2, "type2", new byte[100]));
+		pageStore.addPage(context, new SerializedPage(3, "type3", new byte[100]));
+		assertEquals(3, pageStore.getPersistedPages(pageStore.getSessionIdentifier(context)).size());
+
+		pageStore.addPage(context, new SerializedPage(4, "type4", new byte[100]));
+		assertNull(pageStore.getPage(context, 1));
+		assertEquals(3, pageStore.getPersistedPages(pageStore.getSessionIdentifier(context)).size());
+		assertEquals(Bytes.bytes(300), pageStore.getTotalSize());
+
+		// replaces page with same id
+		pageStore.addPage(context, new SerializedPage(3, "type3", new byte[50]));
+		assertEquals(Bytes.bytes(250), pageStore.getTotalSize());
+
+		// larger than a segment
+		pageStore.addPage(context, new SerializedPage(5, "type5", new byte[280]));
+		assertNull(pageStore.getPage(context, 2));
+		assertNull(pageStore.getPage(context, 4));
+		assertEquals(((SerializedPage)pageStore.getPage(context, 5)).getData().length, 280);
+
+		pageStore.removeAllPages(context);
+		assertEquals(Bytes.bytes(0), pageStore.getTotalSize());
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * Live pages of a mostly unused segment are copied forward, so the segment can be deleted.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void compaction() throws IOException
+	{
+		File fileStoreFolder = Files.createTempDirectory(null).toFile();
+
+		MappedPageStore pageStore = new MappedPageStore("app1", fileStoreFolder, MAX_SIZE_PER_SESSION,
+			Bytes.bytes(100));
+
+		IPageContext context = new MockPageContext();
+
+		for (int id = 1; id <= 6; id++)
+		{
+			pageStore.addPage(context, new SerializedPage(id, "type" + id, filled(id, 20)));
+		}
+		File segment = new File(fileStoreFolder, "app1-mappedstore/segment-1.data");
+		assertTrue(segment.exists());
+
+		for (int id = 1; id <= 4; id++)
+		{
+			pageStore.removePage(context, pageStore.getPage(context, id));
+		}
+		assertFalse(segment.exists());
+
+		assertArrayEquals(filled(5, 20), ((SerializedPage)pageStore.getPage(context, 5)).getData());
+		assertArrayEquals(filled(6, 20), ((SerializedPage)pageStore.getPage(context, 6)).getData());
+
+		List<Integer> ids = new ArrayList<>();
+		for (IPersistedPage page : pageStore.getPersistedPages(pageStore.getSessionIdentifier(context)))
+		{
+			ids.add(page.getPageId());
+		}
+		assertEquals(List.of(5, 6), ids);
+		assertEquals(Bytes.bytes(40), pageStore.getTotalSize());
+
+		pageStore.destroy();
+	}
+
+	/**
+	 * A page is found while it is relocated by concurrent compactions.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void readDuringCompaction() throws Exception
+	{
+		File fileStoreFolder = Files.createTempDirectory(null).toFile();
+
+		MappedPageStore pageStore = new MappedPageStore("app1", fileStoreFolder, MAX_SIZE_PER_SESSION,
+			Bytes.bytes(100));
+
+		IPageContext context = new MockPageContext();
+
+		pageStore.addPage(context, new SerializedPage(1, "type1", filled(1, 20)));
+
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicInteger missing = new AtomicInteger();
+		Thread reader = new Thread(() -> {
+			while (done.get() == false)
+			{
+				if (pageStore.getPage(context, 1) == null)
+				{
+					missing.incrementAndGet();
+				}
+			}
+		});
+		reader.start();
+
+		try
+		{
+			// each segment ends up with page 1 only, so it is relocated on every roll
+			for (int i = 0; i < 20000; i++)
+			{
+				int id = 2 + i % 4;
+				pageStore.addPage(context, new SerializedPage(id, "type" + id, filled(id, 20)));
+				pageStore.removePage(context, pageStore.getPage(context, id));
+			}
+		}
+		finally
+		{
+			done.set(true);
+			reader.join();
+		}
+
+		assertEquals(0, missing.get());
+		assertArrayEquals(filled(1, 20), ((SerializedPage)pageStore.getPage(context, 1)).getData());
+
+		pageStore.destroy();
+	}
+
+	private byte[] filled(int value, int length)
+	{
+		byte[] data = new byte[length];
+		Arrays.fill(data, (byte)value);
+		return data;
+	}
+
+	/**
+	 * Pages survive a restart.
+	 *
+	 * @throws IOException
+	 */
+	@Test
+	void restart() throws IOException
+	{
+		File fileStoreFolder = Files.createTempDirectory(null).toFile();
+
+		MappedPageStore pageStore = new MappedPageStore("app1", fileStoreFolder, MAX_SIZE_PER_SESSION,
+			SEGMENT_SIZE);
+
+		IPageContext context = new MockPageContext();
+
+		byte[] data = new byte[] { 1, 2, 3 };
+		pageStore.addPage(context, new SerializedPage(1, "type1", data));
+		pageStore.destroy();
+
+		pageStore = new MappedPageStore("app1", fileStoreFolder, MAX_SIZE_PER_SESSION,
+			SEGMENT_SIZE);
+
+		SerializedPage page = (SerializedPage)pageStore.getPage(context, 1);
+		assertEquals("type1", page.getPageType());
+		assertArrayEquals(data, page.getData());
+
+		pageStore.destroy();
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.pageStore;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.apache.wicket.mock.MockPageContext;
+import org.apache.wicket.util.lang.Bytes;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link OffHeapPageStore}.
+ */
+public class OffHeapPageStoreTest extends AbstractPageStoreTest
+{
+	@Override
+	protected IPageStore createPageStore(int maxEntries)
+	{
+		return new OffHeapPageStore("test", Bytes.bytes(pageData.length * maxEntries * 10),
+			Bytes.bytes(pageData.length * maxEntries), 1);
+	}
+
+	/**
+	 * Pages are spread over multiple blocks.
+	 */
+	@Test
+	void blocks()
+	{
+		pageStore.destroy();
+
+		OffHeapPageStore store = new OffHeapPageStore("test", Bytes.bytes(1000), Bytes.bytes(500), 16);
+		pageStore = store;
+
+		IPageContext context = new MockPageContext(sessionId);
+
+		byte[] data = new byte[100];
+		for (int i = 0; i < data.length; i++)
+		{
+			data[i] = (byte)i;
+		}
+		store.addPage(context, new SerializedPage(pageId, "type", data));
+
+		SerializedPage page = (SerializedPage)store.getPage(context, pageId);
+		assertEquals("type", page.getPageType());
+		assertArrayEquals(data, page.getData());
+		assertEquals(Bytes.bytes(100), store.getTotalSize());
+	}
+
+	/**
+	 * The least recently used pages are evicted when the total size is exceeded.
+	 */
+	@Test
+	void leastRecentlyUsed()
+	{
+		pageStore.destroy();
+
+		OffHeapPageStore store = new OffHeapPageStore("test", Bytes.bytes(30), Bytes.bytes(30), 10);
+		pageStore = store;
+
+		IPageContext context = new MockPageContext(sessionId);
+		IPageContext context2 = new MockPageContext("0987654321");
+
+		store.addPage(context, new SerializedPage(1, new byte[10]));
+		store.addPage(context, new SerializedPage(2, new byte[10]));
+		store.addPage(context2, new SerializedPage(3, new byte[10]));
+
+		// access first page
+		assertNotNull(store.getPage(context, 1));
+
+		store.addPage(context2, new SerializedPage(4, new byte[10]));
+
+		assertNotNull(store.getPage(context, 1));
+		assertNull(store.getPage(context, 2));
+		assertNotNull(store.getPage(context2, 3));
+		assertNotNull(store.getPage(context2, 4));
+		assertEquals(Bytes.bytes(30), store.getTotalSize());
+
+		// too large
+		store.addPage(context, new SerializedPage(5, new byte[31]));
+		assertNull(store.getPage(context, 5));
+
+		store.removeAllPages(context2);
+		assertEquals(Bytes.bytes(10), store.getTotalSize());
+		assertEquals(1, store.getSessionIdentifiers().size());
+	}
+}
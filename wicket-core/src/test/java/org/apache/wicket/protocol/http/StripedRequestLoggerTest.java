@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.protocol.http.IRequestLogger.RequestData;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link StripedRequestLogger}.
+ */
+class StripedRequestLoggerTest extends WicketTestCase
+{
+	private int counter;
+
+	@Test
+	void window()
+	{
+		tester.getApplication().getRequestLoggerSettings().setRequestsWindowSize(4);
+
+		StripedRequestLogger logger = new StripedRequestLogger(4);
+
+		for (int i = 0; i < 9; i++)
+		{
+			logger.addRequest(requestData(i));
+
+			List<RequestData> requests = logger.getRequests();
+			assertEquals(Math.min(4, i + 1), requests.size());
+			assertEquals("" + i, requests.get(requests.size() - 1).getRequestedUrl());
+			assertEquals(i + "value", requests.get(requests.size() - 1).getUserData("someKey"));
+		}
+		assertEquals("5", logger.getRequests().get(0).getRequestedUrl());
+		assertEquals((5 + 6 + 7 + 8) / 4, logger.getAverageRequestTime());
+		assertEquals(9, logger.getRequestCount());
+		assertEquals(4, logger.getTotalAverageRequestTime());
+
+		// window size is read on construction only
+		tester.getApplication().getRequestLoggerSettings().setRequestsWindowSize(2);
+		logger.addRequest(requestData(9));
+		assertEquals(4, logger.getRequests().size());
+		assertEquals(10, logger.getRequestCount());
+	}
+
+	@Test
+	void concurrent() throws Exception
+	{
+		tester.getApplication().getRequestLoggerSettings().setRequestsWindowSize(100);
+
+		StripedRequestLogger logger = new StripedRequestLogger(8);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<?>> futures = new ArrayList<>();
+			for (int t = 0; t < 8; t++)
+			{
+				futures.add(executor.submit(() -> {
+					ThreadContext.setApplication(tester.getApplication());
+					try
+					{
+						for (int i = 0; i < 1000; i++)
+						{
+							logger.addRequest(requestData(i));
+						}
+					}
+					finally
+					{
+						ThreadContext.detach();
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertEquals(8000, logger.getRequestCount());
+		assertEquals(100, logger.getRequests().size());
+		assertTrue(logger.getAverageRequestTime() >= 900);
+	}
+
+	@Test
+	void percentiles()
+	{
+		StripedRequestLogger logger = new StripedRequestLogger();
+
+		assertEquals(0, logger.getRequestTimePercentile(99));
+
+		for (int i = 1; i <= 100; i++)
+		{
+			logger.addRequest(requestData(i));
+		}
+
+		assertEquals(10, logger.getRequestTimePercentile(10));
+		assertEquals(51, logger.getRequestTimePercentile(50));
+		assertEquals(103, logger.getRequestTimePercentile(100));
+	}
+
+	private RequestData requestData(long timeTaken)
+	{
+		RequestData data = new RequestData();
+
+		synchronized (this)
+		{
+			data.addUserData("someKey", "" + counter + "value");
+			data.setRequestedUrl("" + counter++);
+		}
+		data.setTimeTaken(timeTaken);
+
+		return data;
+	}
+}
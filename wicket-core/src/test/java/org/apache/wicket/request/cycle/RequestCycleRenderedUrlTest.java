@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.cycle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Locale;
+
+import org.apache.wicket.Session;
+import org.apache.wicket.core.request.mapper.MountedMapper;
+import org.apache.wicket.core.request.mapper.ResourceMapper;
+import org.apache.wicket.mock.MockHomePage;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.request.resource.PackageResourceReference;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the memoization of rendered urls in {@link RequestCycle#urlFor(IRequestHandler)}.
+ */
+class RequestCycleRenderedUrlTest extends WicketTestCase
+{
+	private final ResourceReference reference = new PackageResourceReference(
+		MockHomePage.class, "res.css");
+
+	private int mapped;
+
+	private int notified;
+
+	@BeforeEach
+	void mount()
+	{
+		tester.getApplication().mount(new MountedMapper("/home/${id}", MockHomePage.class)
+		{
+			@Override
+			public Url mapHandler(IRequestHandler requestHandler)
+			{
+				mapped++;
+				return super.mapHandler(requestHandler);
+			}
+		});
+		tester.getApplication().mount(new ResourceMapper("/res", reference)
+		{
+			@Override
+			public Url mapHandler(IRequestHandler requestHandler)
+			{
+				mapped++;
+				return super.mapHandler(requestHandler);
+			}
+		});
+		tester.getRequestCycle().getListeners().add(new IRequestCycleListener()
+		{
+			@Override
+			public void onUrlMapped(RequestCycle cycle, IRequestHandler handler, Url url)
+			{
+				notified++;
+			}
+		});
+	}
+
+	@Test
+	void pageUrlIsMappedOnce()
+	{
+		RequestCycle cycle = tester.getRequestCycle();
+
+		CharSequence url = cycle.urlFor(MockHomePage.class, new PageParameters().set("id", 1));
+		int mappedOnce = mapped;
+
+		assertEquals(url, cycle.urlFor(MockHomePage.class, new PageParameters().set("id", 1)));
+		assertEquals(mappedOnce, mapped);
+		assertEquals(2, notified);
+
+		assertNotEquals(url, cycle.urlFor(MockHomePage.class, new PageParameters().set("id", 2)));
+		assertEquals(2 * mappedOnce, mapped);
+	}
+
+	@Test
+	void orderOfParametersIsKept()
+	{
+		RequestCycle cycle = tester.getRequestCycle();
+
+		CharSequence url = cycle.urlFor(MockHomePage.class,
+			new PageParameters().set("id", 1).set("a", "x").set("b", "y"));
+
+		assertNotEquals(url, cycle.urlFor(MockHomePage.class,
+			new PageParameters().set("id", 1).set("b", "y").set("a", "x")));
+	}
+
+	@Test
+	void baseUrlChangeRendersAgain()
+	{
+		RequestCycle cycle = tester.getRequestCycle();
+
+		CharSequence url = cycle.urlFor(MockHomePage.class, new PageParameters().set("id", 1));
+
+		cycle.getUrlRenderer().setBaseUrl(Url.parse("some/deeper/path"));
+
+		assertNotEquals(url, cycle.urlFor(MockHomePage.class, new PageParameters().set("id", 1)));
+	}
+
+	@Test
+	void resourceUrlFollowsSessionLocale()
+	{
+		RequestCycle cycle = tester.getRequestCycle();
+
+		Session.get().setLocale(Locale.ENGLISH);
+		CharSequence url = cycle.urlFor(reference, null);
+		int mappedOnce = mapped;
+
+		assertEquals(url, cycle.urlFor(reference, null));
+		assertEquals(mappedOnce, mapped);
+
+		Session.get().setLocale(Locale.GERMAN);
+		cycle.urlFor(reference, null);
+		assertEquals(2 * mappedOnce, mapped);
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.resource;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.wicket.util.io.IOUtils;
+import org.apache.wicket.util.tester.WicketTestCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for content encoding of {@link PackageResource}s.
+ */
+class PackageResourceContentEncodingTest extends WicketTestCase
+{
+	@BeforeEach
+	void enable()
+	{
+		tester.getApplication().getResourceSettings().setPackageResourceContentEncoding(true);
+	}
+
+	@Test
+	void gzip() throws IOException
+	{
+		JavaScriptPackageResource resource = new JavaScriptPackageResource(getClass(), "b.js",
+			null, null, null);
+
+		tester.startResource(resource);
+		String plain = tester.getLastResponseAsString();
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip, deflate");
+		tester.startResource(resource);
+		assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+
+		byte[] encoded = tester.getLastResponse().getBinaryContent();
+		assertEquals(String.valueOf(encoded.length),
+			tester.getLastResponse().getHeader("Content-Length"));
+		assertEquals(plain, gunzip(encoded));
+
+		assertEquals(1,
+			tester.getApplication().getResourceSettings().getContentEncodingCache().size());
+	}
+
+	@Test
+	void precompressed() throws IOException
+	{
+		JavaScriptPackageResource resource = new JavaScriptPackageResource(getClass(), "c.js",
+			null, null, null);
+
+		tester.getRequest().addHeader("Accept-Encoding", "br;q=0.9, gzip");
+		tester.startResource(resource);
+		assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+
+		byte[] precompressed;
+		try (InputStream in = getClass().getResourceAsStream("c.js.gz"))
+		{
+			precompressed = IOUtils.toByteArray(in);
+		}
+		assertArrayEquals(precompressed, tester.getLastResponse().getBinaryContent());
+		assertEquals("// precompressed\nvar c=\"c\";\n", gunzip(precompressed));
+
+		assertEquals(0,
+			tester.getApplication().getResourceSettings().getContentEncodingCache().size());
+	}
+
+	@Test
+	void precompressedNotProcessed() throws IOException
+	{
+		JavaScriptPackageResource resource = new JavaScriptPackageResource(getClass(), "c.js",
+			null, null, null)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected byte[] processResponse(Attributes attributes, byte[] original)
+			{
+				return "var processed;".getBytes();
+			}
+		};
+
+		tester.getRequest().addHeader("Accept-Encoding", "br, gzip");
+		tester.startResource(resource);
+		assertEquals("gzip", tester.getLastResponse().getHeader("Content-Encoding"));
+		assertEquals("var processed;", gunzip(tester.getLastResponse().getBinaryContent()));
+	}
+
+	@Test
+	void notModified()
+	{
+		JavaScriptPackageResource resource = new JavaScriptPackageResource(getClass(), "b.js",
+			null, null, null);
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip");
+		tester.getRequest().addDateHeader("If-Modified-Since",
+			System.currentTimeMillis() + Duration.ofDays(7).toMillis());
+		tester.startResource(resource);
+		assertEquals(304, tester.getLastResponse().getStatus());
+		assertEquals("Accept-Encoding", tester.getLastResponse().getHeader("Vary"));
+	}
+
+	@Test
+	void binary()
+	{
+		PackageResource resource = new PackageResource(getClass(), "resource.txt", null, null,
+			null)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean isCompressible(String contentType)
+			{
+				return false;
+			}
+		};
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip");
+		tester.startResource(resource);
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+	}
+
+	@Test
+	void disabled()
+	{
+		tester.getApplication().getResourceSettings().setPackageResourceContentEncoding(false);
+
+		JavaScriptPackageResource resource = new JavaScriptPackageResource(getClass(), "b.js",
+			null, null, null);
+
+		tester.getRequest().addHeader("Accept-Encoding", "gzip");
+		tester.startResource(resource);
+		assertNull(tester.getLastResponse().getHeader("Content-Encoding"));
+		assertNull(tester.getLastResponse().getHeader("Vary"));
+	}
+
+	@Test
+	void acceptsEncoding()
+	{
+		assertTrue(PackageResource.acceptsEncoding("gzip", "gzip"));
+		assertTrue(PackageResource.acceptsEncoding("deflate, GZIP;q=0.5", "gzip"));
+		assertTrue(PackageResource.acceptsEncoding("*", "br"));
+		assertFalse(PackageResource.acceptsEncoding("gzip;q=0", "gzip"));
+		assertFalse(PackageResource.acceptsEncoding("*, br;q=0", "br"));
+		assertFalse(PackageResource.acceptsEncoding("identity", "gzip"));
+		assertFalse(PackageResource.acceptsEncoding("", "gzip"));
+	}
+
+	private String gunzip(byte[] encoded) throws IOException
+	{
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded)))
+		{
+			return new String(IOUtils.toByteArray(in), "UTF-8");
+		}
+	}
+}
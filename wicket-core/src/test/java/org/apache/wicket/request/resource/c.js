@@ -0,0 +1,2 @@
+// precompressed
+var c = "c";
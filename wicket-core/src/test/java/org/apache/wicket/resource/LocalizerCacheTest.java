@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link LocalizerCache}
+ */
+class LocalizerCacheTest
+{
+	@Test
+	void getAndPut()
+	{
+		LocalizerCache<String> cache = new LocalizerCache<>(100, 4);
+		assertFalse(cache.containsKey("key"));
+		assertNull(cache.put("key", "value"));
+		assertTrue(cache.containsKey("key"));
+		assertEquals("value", cache.get("key"));
+		assertEquals("value", cache.put("key", "other"));
+		assertTrue(cache.containsKey("key"));
+		assertEquals("other", cache.get("key"));
+
+		assertEquals(1, cache.size());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	void boundedSize()
+	{
+		LocalizerCache<String> cache = new LocalizerCache<>(64, 4);
+		for (int i = 0; i < 1000; i++)
+		{
+			cache.put("key" + i, "value" + i);
+		}
+
+		assertTrue(cache.size() <= 64, "size: " + cache.size());
+		assertEquals(1000 - cache.size(), cache.getEvictionCount());
+	}
+
+	@Test
+	void referencedEntriesGetSecondChance()
+	{
+		LocalizerCache<String> cache = new LocalizerCache<>(10, 1);
+		for (int i = 0; i < 10; i++)
+		{
+			cache.put("key" + i, "value" + i);
+		}
+		for (int i = 0; i < 100; i++)
+		{
+			// keep using entry 0 while new entries come in
+			assertEquals("value0", cache.get("key0"));
+			cache.put("new" + i, "new");
+		}
+	}
+
+	@Test
+	void clearKeepsCounts()
+	{
+		LocalizerCache<String> cache = new LocalizerCache<>();
+		cache.put("key", "value");
+		cache.containsKey("key");
+		cache.clear();
+
+		assertEquals(0, cache.size());
+		assertFalse(cache.containsKey("key"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(LocalizerCache.DEFAULT_MAX_SIZE, cache.getMaxSize());
+	}
+}
@@ -22,12 +22,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.markup.head.HeaderItem;
 import org.apache.wicket.markup.head.PriorityHeaderItem;
 import org.apache.wicket.markup.head.ResourceAggregator;
+import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItem;
+import org.apache.wicket.markup.head.ResourceAggregator.RecordedHeaderItemLocation;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.resource.CircularDependencyException;
 import org.apache.wicket.util.tester.WicketTestCase;
@@ -105,6 +109,36 @@ class ResourceAggregatorTest extends WicketTestCase
 		assertItems(new ResourceReferenceA(), new ResourceReferenceC(), new ResourceReferenceD());
 	}
 
+	/**
+	 * render [d->c->a, b->a, d->c->a], should record all dependencies for every render
+	 */
+	@Test
+	void testRepeatedDependenciesRecorded()
+	{
+		Map<HeaderItem, List<Integer>> indices = new LinkedHashMap<>();
+		tester.getApplication().getResourceSettings().setHeaderItemComparator((o1, o2) -> {
+			for (RecordedHeaderItem item : Arrays.asList(o1, o2))
+			{
+				List<Integer> itemIndices = new ArrayList<>();
+				for (RecordedHeaderItemLocation location : item.getLocations())
+					itemIndices.add(location.getIndexInRequest());
+				indices.put(item.getItem(), itemIndices);
+			}
+			return 0;
+		});
+
+		aggregator.render(forReference(new ResourceReferenceD()));
+		aggregator.render(forReference(new ResourceReferenceB()));
+		aggregator.render(forReference(new ResourceReferenceD()));
+		assertItems(new ResourceReferenceA(), new ResourceReferenceC(), new ResourceReferenceD(),
+			new ResourceReferenceB());
+
+		assertEquals(Arrays.asList(0, 3, 5), indices.get(forReference(new ResourceReferenceA())));
+		assertEquals(Arrays.asList(1, 6), indices.get(forReference(new ResourceReferenceC())));
+		assertEquals(Arrays.asList(2, 7), indices.get(forReference(new ResourceReferenceD())));
+		assertEquals(Arrays.asList(4), indices.get(forReference(new ResourceReferenceB())));
+	}
+
 	/**
 	 * bundle {a, b->a}, render [a], should render [ab]
 	 */
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.lang;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Locale;
+
+import org.apache.wicket.ConverterLocator;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.core.util.lang.PropertyResolver;
+import org.apache.wicket.core.util.lang.PropertyResolver.CachingPropertyLocator;
+import org.apache.wicket.core.util.lang.PropertyResolver.LambdaPropertyLocator;
+import org.apache.wicket.core.util.lang.PropertyResolverConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs all tests of {@link PropertyResolverTest} with a {@link LambdaPropertyLocator}.
+ */
+class LambdaPropertyResolverTest extends PropertyResolverTest
+{
+	private static final PropertyResolverConverter CONVERTER = new PropertyResolverConverter(
+		new ConverterLocator(), Locale.US);
+
+	@BeforeEach
+	void lambdaLocator()
+	{
+		PropertyResolver.setLocator(tester.getApplication(),
+			new CachingPropertyLocator(new LambdaPropertyLocator()));
+	}
+
+	@Test
+	void primitiveProperties()
+	{
+		Bean bean = new Bean();
+
+		PropertyResolver.setValue("count", bean, "42", CONVERTER);
+		assertEquals(42, bean.count);
+		assertEquals(42, PropertyResolver.getValue("count", bean));
+
+		PropertyResolver.setValue("enabled", bean, true, CONVERTER);
+		assertEquals(true, PropertyResolver.getValue("enabled", bean));
+	}
+
+	@Test
+	void nonPublicClass()
+	{
+		Bean bean = new Bean();
+		bean.nested = new Bean();
+
+		PropertyResolver.setValue("nested.name", bean, "wicket", CONVERTER);
+		assertEquals("wicket", bean.nested.name);
+		assertEquals("wicket", PropertyResolver.getValue("nested.name", bean));
+	}
+
+	@Test
+	void exceptionsAreWrapped()
+	{
+		Bean bean = new Bean();
+
+		WicketRuntimeException ex = assertThrows(WicketRuntimeException.class,
+			() -> PropertyResolver.getValue("failing", bean));
+		assertEquals(IllegalStateException.class, ex.getCause().getClass());
+	}
+
+	static class Bean
+	{
+		private int count;
+		private boolean enabled;
+		private String name;
+		private Bean nested;
+
+		int getCount()
+		{
+			return count;
+		}
+
+		void setCount(int count)
+		{
+			this.count = count;
+		}
+
+		boolean isEnabled()
+		{
+			return enabled;
+		}
+
+		void setEnabled(boolean enabled)
+		{
+			this.enabled = enabled;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public void setName(String name)
+		{
+			this.name = name;
+		}
+
+		public Bean getNested()
+		{
+			return nested;
+		}
+
+		public String getFailing()
+		{
+			throw new IllegalStateException();
+		}
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.examples;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.examples.repeater.DataGridPage;
+import org.apache.wicket.examples.repeater.FormPage;
+import org.apache.wicket.examples.repeater.GridViewPage;
+import org.apache.wicket.examples.repeater.PagingPage;
+import org.apache.wicket.examples.repeater.RepeaterApplication;
+import org.apache.wicket.examples.repeater.SortingPage;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.serialize.java.CompactJavaSerializer;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round-trip of example pages through {@link CompactJavaSerializer}, comparing size with
+ * {@link JavaSerializer}.
+ */
+public class CompactJavaSerializerTest
+{
+	private static final List<Class<? extends WebPage>> PAGES = Arrays.asList(FormPage.class,
+		PagingPage.class, SortingPage.class, DataGridPage.class, GridViewPage.class);
+
+	/**
+	 * Serialize and deserialize example pages.
+	 */
+	@Test
+	public void roundTrip()
+	{
+		WicketTester tester = new WicketTester(new RepeaterApplication());
+		try
+		{
+			String key = tester.getApplication().getApplicationKey();
+
+			CompactJavaSerializer compact = new CompactJavaSerializer(key);
+			JavaSerializer java = new JavaSerializer(key);
+
+			for (Class<? extends WebPage> pageClass : PAGES)
+			{
+				tester.startPage(pageClass);
+				Page page = tester.getLastRenderedPage();
+
+				byte[] data = compact.serialize(page);
+				assertNotNull(data);
+
+				Page copy = (Page)compact.deserialize(data);
+				assertEquals(pageClass, copy.getClass());
+				assertEquals(page.getPageId(), copy.getPageId());
+				assertEquals(page.size(), copy.size());
+
+				assertTrue(data.length < java.serialize(page).length);
+			}
+		}
+		finally
+		{
+			tester.destroy();
+		}
+	}
+}
@@ -342,6 +342,38 @@ public class DataTable<T, S> extends Panel implements IPageableItems
 		return this;
 	}
 
+	/**
+	 * Sets the flyweight mode for tables which only display data, so the rows are not kept after
+	 * rendering.
+	 * 
+	 * @see RefreshingView#setFlyweight(boolean)
+	 * 
+	 * @param flyweight
+	 *            {@code true} to render the rows without keeping them
+	 * @return this for chaining
+	 */
+	public final DataTable<T, S> setFlyweight(final boolean flyweight)
+	{
+		datagrid.setFlyweight(flyweight);
+		return this;
+	}
+
+	/**
+	 * Sets the number of rows after which the response is flushed while rendering, if the page is
+	 * rendered unbuffered.
+	 * 
+	 * @see RefreshingView#setFlushInterval(int)
+	 * 
+	 * @param rows
+	 *            the number of rows, {@code 0} to never flush
+	 * @return this for chaining
+	 */
+	public final DataTable<T, S> setFlushInterval(final int rows)
+	{
+		datagrid.setFlushInterval(rows);
+		return this;
+	}
+
 	/**
 	 * Sets the number of items to be displayed per page
 	 * 
@@ -98,16 +98,10 @@ public abstract class Injector
 
 		for (final Field field : fields)
 		{
-			if (!field.canAccess(object))
-			{
-				field.setAccessible(true);
-			}
 			try
 			{
-
 				if (field.get(object) == null)
 				{
-
 					Object value = factory.getFieldValue(field, object);
 
 					if (value != null)
@@ -116,12 +110,7 @@ public abstract class Injector
 					}
 				}
 			}
-			catch (IllegalArgumentException e)
-			{
-				throw new RuntimeException("error while injecting object [" + object.toString() +
-					"] of type [" + object.getClass().getName() + "]", e);
-			}
-			catch (IllegalAccessException e)
+			catch (IllegalArgumentException | IllegalAccessException e)
 			{
 				throw new RuntimeException("error while injecting object [" + object.toString() +
 					"] of type [" + object.getClass().getName() + "]", e);
@@ -130,7 +119,8 @@ public abstract class Injector
 	}
 
 	/**
-	 * Returns an array of fields that can be injected using the given field value factory
+	 * Returns an array of fields that can be injected using the given field value factory. The
+	 * fields are made accessible once here, so injecting does not have to check them again.
 	 * 
 	 * @param clazz
 	 * @param factory
@@ -147,6 +137,7 @@ public abstract class Injector
 			{
 				if (factory.supportsField(field))
 				{
+					field.setAccessible(true);
 					matched.add(field);
 				}
 			}
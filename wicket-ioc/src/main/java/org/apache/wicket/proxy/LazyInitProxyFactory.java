@@ -18,6 +18,7 @@ package org.apache.wicket.proxy;
 
 import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
@@ -41,6 +42,7 @@ import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.core.util.lang.WicketObjects;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.proxy.objenesis.ObjenesisProxyFactory;
+import org.apache.wicket.util.collections.ClassMetaCache;
 import org.apache.wicket.util.io.IClusterable;
 import org.apache.wicket.util.string.Strings;
 
@@ -123,6 +125,49 @@ public class LazyInitProxyFactory
 
 	private static final boolean IS_OBJENESIS_AVAILABLE = isObjenesisAvailable();
 
+	private static final Class<?>[] PROXY_INTERFACES = { Serializable.class,
+			ILazyInitProxy.class, IWriteReplace.class };
+
+	/**
+	 * The generated JDK proxy classes, by proxied interface. A class lives as long as its class
+	 * loader, so the proxy classes are referenced weakly to not keep the class loader of e.g. a
+	 * redeployed web application.
+	 */
+	private static final ClassMetaCache<WeakReference<Class<?>>> JDK_PROXY_CLASSES = new ClassMetaCache<>();
+
+	/**
+	 * The generated CGLib proxy classes, by proxied class, referenced weakly as
+	 * {@link #JDK_PROXY_CLASSES}
+	 */
+	private static final ClassMetaCache<WeakReference<Class<?>>> CGLIB_PROXY_CLASSES = new ClassMetaCache<>();
+
+	/**
+	 * The constructors of the generated proxy classes, held by the proxy classes themselves
+	 */
+	private static final ClassValue<Constructor<?>> PROXY_CONSTRUCTORS = new ClassValue<>()
+	{
+		@Override
+		protected Constructor<?> computeValue(final Class<?> proxyClass)
+		{
+			try
+			{
+				if (Proxy.isProxyClass(proxyClass))
+				{
+					return proxyClass.getConstructor(InvocationHandler.class);
+				}
+
+				Constructor<?> constructor = proxyClass.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				return constructor;
+			}
+			catch (NoSuchMethodException e)
+			{
+				throw new WicketRuntimeException("Unable to create proxy for " +
+					proxyClass.getSuperclass(), e);
+			}
+		}
+	};
+
 	/**
 	 * Create a lazy init proxy for the specified type. The target object will be located using the
 	 * provided locator upon first method invocation.
@@ -146,12 +191,20 @@ public class LazyInitProxyFactory
 		else if (type.isInterface())
 		{
 			JdkHandler handler = new JdkHandler(type, locator);
+			ClassLoader classLoader = resolveClassLoader();
 
+			Class<?> proxyClass = getProxyClass(JDK_PROXY_CLASSES, type, classLoader);
+			if (proxyClass != null)
+			{
+				return newInstance(proxyClass, handler);
+			}
+
+			Class<?>[] interfaces = new Class[] { type, Serializable.class, ILazyInitProxy.class,
+					IWriteReplace.class };
+			Object proxy;
 			try
 			{
-				return Proxy.newProxyInstance(resolveClassLoader(),
-					new Class[] { type, Serializable.class, ILazyInitProxy.class,
-							IWriteReplace.class }, handler);
+				proxy = Proxy.newProxyInstance(classLoader, interfaces, handler);
 			}
 			catch (IllegalArgumentException e)
 			{
@@ -161,34 +214,128 @@ public class LazyInitProxyFactory
 				 * happens, we can try and fall back to the classloader (current) that actually
 				 * loaded this class.
 				 */
-				return Proxy.newProxyInstance(LazyInitProxyFactory.class.getClassLoader(),
-					new Class[] { type, Serializable.class, ILazyInitProxy.class,
-							IWriteReplace.class }, handler);
+				proxy = Proxy.newProxyInstance(LazyInitProxyFactory.class.getClassLoader(),
+					interfaces, handler);
 			}
 
-		}
-		else if (IS_OBJENESIS_AVAILABLE && !hasNoArgConstructor(type))
-		{
-			return ObjenesisProxyFactory.createProxy(type, locator, WicketNamingPolicy.INSTANCE);
+			// the generated class is public unless the interface is not, only then it cannot be
+			// instantiated from here
+			proxyClass = proxy.getClass();
+			if (Modifier.isPublic(proxyClass.getModifiers()))
+			{
+				JDK_PROXY_CLASSES.put(type, new WeakReference<>(proxyClass));
+			}
+
+			return proxy;
 		}
 		else
 		{
+			ClassLoader classLoader = resolveClassLoader();
+
+			Class<?> proxyClass = getProxyClass(CGLIB_PROXY_CLASSES, type, classLoader);
+			if (proxyClass == null)
+			{
+				if (IS_OBJENESIS_AVAILABLE && !hasNoArgConstructor(type))
+				{
+					return ObjenesisProxyFactory.createProxy(type, locator,
+						WicketNamingPolicy.INSTANCE);
+				}
+
+				proxyClass = createCGLibProxyClass(type, classLoader);
+				CGLIB_PROXY_CLASSES.put(type, new WeakReference<>(proxyClass));
+			}
+
 			CGLibInterceptor handler = new CGLibInterceptor(type, locator);
 
 			Callback[] callbacks = new Callback[2];
 			callbacks[CGLIB_CALLBACK_NO_OVERRIDE] = SerializableNoOpCallback.INSTANCE;
 			callbacks[CGLIB_CALLBACK_HANDLER] = handler;
 
-			Enhancer e = new Enhancer();
-			e.setClassLoader(resolveClassLoader());
-			e.setInterfaces(new Class[] { Serializable.class, ILazyInitProxy.class,
-					IWriteReplace.class });
-			e.setSuperclass(type);
-			e.setCallbackFilter(NoOpForProtectedMethodsCGLibCallbackFilter.INSTANCE);
-			e.setCallbacks(callbacks);
-			e.setNamingPolicy(WicketNamingPolicy.INSTANCE);
+			// the callbacks are picked up by the constructor of the generated class, just as
+			// Enhancer#create() does it
+			Enhancer.registerCallbacks(proxyClass, callbacks);
+			try
+			{
+				return newInstance(proxyClass);
+			}
+			finally
+			{
+				Enhancer.registerCallbacks(proxyClass, null);
+			}
+		}
+	}
+
+	/**
+	 * Generates the CGLib proxy class for the specified type, once for each type and class loader.
+	 * 
+	 * @param type
+	 *            type that proxy will represent
+	 * @param classLoader
+	 *            class loader to define the proxy class in
+	 * @return the proxy class
+	 */
+	private static Class<?> createCGLibProxyClass(final Class<?> type,
+		final ClassLoader classLoader)
+	{
+		Enhancer e = new Enhancer();
+		e.setClassLoader(classLoader);
+		e.setInterfaces(PROXY_INTERFACES);
+		e.setSuperclass(type);
+		e.setCallbackFilter(NoOpForProtectedMethodsCGLibCallbackFilter.INSTANCE);
+		e.setCallbackTypes(new Class[] { NoOp.class, MethodInterceptor.class });
+		e.setNamingPolicy(WicketNamingPolicy.INSTANCE);
+		return e.createClass();
+	}
+
+	/**
+	 * @param cache
+	 *            the cache of generated proxy classes
+	 * @param type
+	 *            type that proxy will represent
+	 * @param classLoader
+	 *            class loader the proxy class has to be defined by
+	 * @return the cached proxy class, or {@code null} if there is none for the class loader
+	 */
+	private static Class<?> getProxyClass(final ClassMetaCache<WeakReference<Class<?>>> cache,
+		final Class<?> type, final ClassLoader classLoader)
+	{
+		WeakReference<Class<?>> reference = cache.get(type);
+		Class<?> proxyClass = reference != null ? reference.get() : null;
+		if (proxyClass != null && proxyClass.getClassLoader() == classLoader)
+		{
+			return proxyClass;
+		}
+		return null;
+	}
 
-			return e.create();
+	/**
+	 * Instantiates a generated proxy class with its cached constructor.
+	 * 
+	 * @param proxyClass
+	 *            the generated proxy class
+	 * @param args
+	 *            the arguments of the constructor
+	 * @return the proxy
+	 */
+	private static Object newInstance(final Class<?> proxyClass, final Object... args)
+	{
+		try
+		{
+			return PROXY_CONSTRUCTORS.get(proxyClass).newInstance(args);
+		}
+		catch (InvocationTargetException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException)e.getCause();
+			}
+			throw new WicketRuntimeException("Unable to create proxy for " +
+				proxyClass.getSuperclass(), e.getCause());
+		}
+		catch (InstantiationException | IllegalAccessException e)
+		{
+			throw new WicketRuntimeException("Unable to create proxy for " +
+				proxyClass.getSuperclass(), e);
 		}
 	}
 
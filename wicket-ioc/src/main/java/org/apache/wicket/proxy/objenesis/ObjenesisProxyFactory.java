@@ -17,11 +17,14 @@
 package org.apache.wicket.proxy.objenesis;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 
 import org.apache.wicket.proxy.ILazyInitProxy;
 import org.apache.wicket.proxy.IProxyTargetLocator;
 import org.apache.wicket.proxy.LazyInitProxyFactory.IWriteReplace;
+import org.apache.wicket.util.collections.ClassMetaCache;
 import org.objenesis.ObjenesisStd;
+import org.objenesis.instantiator.ObjectInstantiator;
 
 import net.sf.cglib.core.NamingPolicy;
 import net.sf.cglib.proxy.Callback;
@@ -32,22 +35,75 @@ public class ObjenesisProxyFactory
 {
 	private static final ObjenesisStd OBJENESIS = new ObjenesisStd(false);
 
+	/**
+	 * The generated proxy classes, by proxied class. The proxy classes are referenced weakly to
+	 * not keep their class loaders.
+	 */
+	private static final ClassMetaCache<ProxyClass> PROXY_CLASSES = new ClassMetaCache<>();
+
+	/**
+	 * The instantiators of the generated proxy classes, held by the proxy classes themselves
+	 */
+	private static final ClassValue<ObjectInstantiator<?>> INSTANTIATORS = new ClassValue<>()
+	{
+		@Override
+		protected ObjectInstantiator<?> computeValue(final Class<?> proxyClass)
+		{
+			return OBJENESIS.getInstantiatorOf(proxyClass);
+		}
+	};
+
 	public static Object createProxy(final Class<?> type, final IProxyTargetLocator locator, NamingPolicy namingPolicy)
 	{
 		ObjenesisCGLibInterceptor handler = new ObjenesisCGLibInterceptor(type, locator);
 
-		Enhancer e = new Enhancer();
-		e.setInterfaces(new Class[]{Serializable.class, ILazyInitProxy.class, IWriteReplace.class});
-		e.setSuperclass(type);
-		e.setCallbackType(handler.getClass());
-		e.setNamingPolicy(namingPolicy);
-		Class<?> proxyClass = e.createClass();
-		
-		Object instance = OBJENESIS.newInstance(proxyClass);
+		ProxyClass cached = PROXY_CLASSES.get(type);
+		Class<?> proxyClass = cached != null ? cached.get(namingPolicy) : null;
+		if (proxyClass == null)
+		{
+			Enhancer e = new Enhancer();
+			e.setInterfaces(new Class[]{Serializable.class, ILazyInitProxy.class, IWriteReplace.class});
+			e.setSuperclass(type);
+			e.setCallbackType(handler.getClass());
+			e.setNamingPolicy(namingPolicy);
+			proxyClass = e.createClass();
+
+			PROXY_CLASSES.put(type, new ProxyClass(namingPolicy, proxyClass));
+		}
+
+		Object instance = INSTANTIATORS.get(proxyClass).newInstance();
 
 		// set callbacks directly (WICKET-6607) 
 		((Factory) instance).setCallbacks(new Callback[]{handler});
 		
 		return instance;
 	}
+
+	/**
+	 * A weakly referenced generated proxy class, along with the naming policy it was generated
+	 * with.
+	 */
+	private static final class ProxyClass
+	{
+		private final WeakReference<NamingPolicy> namingPolicy;
+
+		private final WeakReference<Class<?>> proxyClass;
+
+		private ProxyClass(NamingPolicy namingPolicy, Class<?> proxyClass)
+		{
+			this.namingPolicy = new WeakReference<>(namingPolicy);
+			this.proxyClass = new WeakReference<>(proxyClass);
+		}
+
+		/**
+		 * @param namingPolicy
+		 *            the naming policy the proxy class has to be generated with
+		 * @return the proxy class, or {@code null} if it was generated with another naming policy or
+		 *         was collected
+		 */
+		private Class<?> get(NamingPolicy namingPolicy)
+		{
+			return this.namingPolicy.get() == namingPolicy ? proxyClass.get() : null;
+		}
+	}
 }
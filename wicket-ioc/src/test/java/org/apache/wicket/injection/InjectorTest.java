@@ -21,6 +21,7 @@ import org.apache.wicket.injection.util.TestObject;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -77,5 +78,42 @@ public class InjectorTest
 		assertEquals("inject", testObject.getDependency4().getMessage());
 	}
 
+	/**
+	 * Test that the injectable fields of a class are found once only
+	 */
+	@Test
+	public void fieldsFoundOnce()
+	{
+		final AtomicInteger supportsField = new AtomicInteger();
+		final IFieldValueFactory countingFactory = new IFieldValueFactory()
+		{
+			@Override
+			public Object getFieldValue(final Field field, final Object fieldOwner)
+			{
+				return dependency;
+			}
+
+			@Override
+			public boolean supportsField(final Field field)
+			{
+				supportsField.incrementAndGet();
+				return true;
+			}
+		};
+
+		TestInjector injector = new TestInjector();
+
+		TestObject testObject = new TestObject();
+		injector.inject(testObject, countingFactory);
+		int found = supportsField.get();
+
+		TestObject testObject2 = new TestObject();
+		injector.inject(testObject2, countingFactory);
+
+		assertEquals(found, supportsField.get());
+		assertEquals("inject", testObject2.getDependency1().getMessage());
+		assertEquals("dont-inject", testObject2.getDependency2().getMessage());
+		assertEquals("inject", testObject2.getDependency4().getMessage());
+	}
 
 }
@@ -139,6 +139,34 @@ public class LazyInitProxyFactoryTest
 		assertTrue(tester.isValid());
 	}
 
+	/**
+	 * Tests that proxies of the same interface share their class, but not their locator
+	 */
+	@Test
+	public void testInterfaceProxyClassReused()
+	{
+		IProxyTargetLocator otherLocator = new IProxyTargetLocator()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public Object locateProxyTarget()
+			{
+				return new InterfaceObject("other");
+			}
+		};
+
+		IInterface proxy = (IInterface)LazyInitProxyFactory.createProxy(IInterface.class,
+			interfaceObjectLocator);
+		IInterface proxy2 = (IInterface)LazyInitProxyFactory.createProxy(IInterface.class,
+			otherLocator);
+
+		assertSame(proxy.getClass(), proxy2.getClass());
+		assertSame(otherLocator, ((ILazyInitProxy)proxy2).getObjectLocator());
+		assertEquals("interface", proxy.getMessage());
+		assertEquals("other", proxy2.getMessage());
+	}
+
 	/**
 	 * Tests lazy init proxy to represent concrete objects
 	 */
@@ -40,6 +40,7 @@ import org.apache.wicket.WicketRuntimeException;
 import org.apache.wicket.jmx.wrapper.Application;
 import org.apache.wicket.jmx.wrapper.ApplicationSettings;
 import org.apache.wicket.jmx.wrapper.DebugSettings;
+import org.apache.wicket.jmx.wrapper.Localizer;
 import org.apache.wicket.jmx.wrapper.MarkupSettings;
 import org.apache.wicket.jmx.wrapper.PageSettings;
 import org.apache.wicket.jmx.wrapper.RequestCycleSettings;
@@ -203,6 +204,9 @@ public class Initializer implements IInitializer
 			RequestLogger sessionsBean = new RequestLogger(application);
 			ObjectName sessionsBeanName = new ObjectName(domain + ":type=RequestLogger");
 			register(application, sessionsBean, sessionsBeanName);
+
+			register(application, new Localizer(application), new ObjectName(domain
+				+ ":type=Localizer"));
 		}
 		catch (MalformedObjectNameException | InstanceAlreadyExistsException |
 				MBeanRegistrationException | NotCompliantMBeanException e)
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx;
+
+import java.io.IOException;
+
+
+/**
+ * MBean interface for exposing the cache of the localizer.
+ */
+public interface LocalizerMBean
+{
+	/**
+	 * Clears the cache of the localizer, so that the strings will be looked up again.
+	 * 
+	 * @throws IOException
+	 */
+	void clearCache() throws IOException;
+
+	/**
+	 * Gets the number of strings currently in the cache.
+	 * 
+	 * @return the number of cached strings, -1 if caching is disabled
+	 * @throws IOException
+	 */
+	int getCacheSize() throws IOException;
+
+	/**
+	 * Gets the maximum number of strings in the cache.
+	 * 
+	 * @return the maximum number of cached strings, -1 if caching is disabled
+	 * @throws IOException
+	 */
+	int getCacheMaxSize() throws IOException;
+
+	/**
+	 * Gets the number of lookups which found a cached string.
+	 * 
+	 * @return the number of cache hits, -1 if caching is disabled
+	 * @throws IOException
+	 */
+	long getCacheHitCount() throws IOException;
+
+	/**
+	 * Gets the number of lookups which did not find a cached string.
+	 * 
+	 * @return the number of cache misses, -1 if caching is disabled
+	 * @throws IOException
+	 */
+	long getCacheMissCount() throws IOException;
+
+	/**
+	 * Gets the number of strings evicted to keep the cache within its maximum size.
+	 * 
+	 * @return the number of evictions, -1 if caching is disabled
+	 * @throws IOException
+	 */
+	long getCacheEvictionCount() throws IOException;
+}
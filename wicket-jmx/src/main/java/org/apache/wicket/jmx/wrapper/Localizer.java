@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.jmx.wrapper;
+
+import java.io.IOException;
+
+import org.apache.wicket.jmx.LocalizerMBean;
+import org.apache.wicket.resource.LocalizerCache;
+
+/**
+ * Exposes the cache of {@link org.apache.wicket.Localizer} for JMX.
+ */
+public class Localizer implements LocalizerMBean
+{
+	private final org.apache.wicket.Application application;
+
+	/**
+	 * Create.
+	 * 
+	 * @param application
+	 */
+	public Localizer(final org.apache.wicket.Application application)
+	{
+		this.application = application;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.LocalizerMBean#clearCache()
+	 */
+	@Override
+	public void clearCache() throws IOException
+	{
+		application.getResourceSettings().getLocalizer().clearCache();
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.LocalizerMBean#getCacheSize()
+	 */
+	@Override
+	public int getCacheSize() throws IOException
+	{
+		LocalizerCache<?> cache = getCache();
+		return cache != null ? cache.size() : -1;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.LocalizerMBean#getCacheMaxSize()
+	 */
+	@Override
+	public int getCacheMaxSize() throws IOException
+	{
+		LocalizerCache<?> cache = getCache();
+		return cache != null ? cache.getMaxSize() : -1;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.LocalizerMBean#getCacheHitCount()
+	 */
+	@Override
+	public long getCacheHitCount() throws IOException
+	{
+		LocalizerCache<?> cache = getCache();
+		return cache != null ? cache.getHitCount() : -1;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.LocalizerMBean#getCacheMissCount()
+	 */
+	@Override
+	public long getCacheMissCount() throws IOException
+	{
+		LocalizerCache<?> cache = getCache();
+		return cache != null ? cache.getMissCount() : -1;
+	}
+
+	/**
+	 * @see org.apache.wicket.jmx.LocalizerMBean#getCacheEvictionCount()
+	 */
+	@Override
+	public long getCacheEvictionCount() throws IOException
+	{
+		LocalizerCache<?> cache = getCache();
+		return cache != null ? cache.getEvictionCount() : -1;
+	}
+
+	/**
+	 * @return the cache of the application's localizer, {@code null} if caching is disabled
+	 */
+	private LocalizerCache<?> getCache()
+	{
+		return application.getResourceSettings().getLocalizer().getCache();
+	}
+}
@@ -17,10 +17,12 @@
 package org.apache.wicket.protocol.ws;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.Page;
 import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
 import org.apache.wicket.protocol.ws.api.IWebSocketConnectionFilter;
+import org.apache.wicket.protocol.ws.api.PushMessageCoalescer;
 import org.apache.wicket.protocol.ws.api.ServletRequestCopy;
 import org.apache.wicket.protocol.ws.api.WebSocketConnectionFilterCollection;
 import org.apache.wicket.protocol.ws.api.WebSocketRequest;
@@ -112,10 +114,51 @@ public class WebSocketSettings
 
 		public static void set(Application application, WebSocketSettings settings)
 		{
+			if (application.getMetaData(KEY) == null)
+			{
+				application.getApplicationListeners().add(new IApplicationListener()
+				{
+					@Override
+					public void onBeforeDestroyed(Application application)
+					{
+						WebSocketSettings current = application.getMetaData(KEY);
+						if (current != null)
+						{
+							current.closeExecutors();
+						}
+					}
+				});
+			}
 			application.setMetaData(KEY, settings);
 		}
 	}
 
+	/**
+	 * Closes the executors that are {@link AutoCloseable}, e.g. a
+	 * {@link org.apache.wicket.protocol.ws.concurrent.ShardedExecutor}, when the application is
+	 * destroyed.
+	 */
+	private void closeExecutors()
+	{
+		closeExecutor(webSocketPushMessageExecutor);
+		closeExecutor(sendPayloadExecutor);
+	}
+
+	private static void closeExecutor(Executor executor)
+	{
+		if (executor instanceof AutoCloseable)
+		{
+			try
+			{
+				((AutoCloseable)executor).close();
+			}
+			catch (Exception e)
+			{
+				LOG.warn("An error occurred while closing executor " + executor, e);
+			}
+		}
+	}
+
 	/**
 	 * The executor that handles the processing of Web Socket push message broadcasts.
 	 */
@@ -132,11 +175,26 @@ public class WebSocketSettings
 	 */
 	private IWebSocketConnectionRegistry connectionRegistry = new SimpleWebSocketConnectionRegistry();
 
+	/**
+	 * Keeps the latest pending push messages with a coalescing key
+	 */
+	private PushMessageCoalescer pushMessageCoalescer = new PushMessageCoalescer();
+
 	/**
 	 * A filter that may reject an incoming connection
 	 */
 	private IWebSocketConnectionFilter connectionFilter;
 
+	/**
+	 * Whether to deflate the text responses for clients which accept it
+	 */
+	private boolean compressResponses = false;
+
+	/**
+	 * The minimum length of a text response to deflate it
+	 */
+	private int compressionThreshold = 1024;
+
 	/**
 	 * A function that decides whether to notify the page/resource on
 	 * web socket connection closed event.
@@ -173,6 +231,10 @@ public class WebSocketSettings
 	 * Set the executor for processing websocket push messages broadcasted to all sessions.
 	 * Default executor does all the processing in the caller thread. Using a proper thread pool is adviced
 	 * for applications that send push events from ajax calls to avoid page level deadlocks.
+	 * <p>
+	 * {@link org.apache.wicket.protocol.ws.concurrent.VirtualThreadExecutor} processes each message
+	 * in its own virtual thread, {@link org.apache.wicket.protocol.ws.concurrent.ShardedExecutor}
+	 * processes the messages of each connection in order with bounded queues for many connections.
 	 *
 	 * @param executor
 	 *            The executor used for processing push messages.
@@ -214,6 +276,79 @@ public class WebSocketSettings
 		return this;
 	}
 
+	/**
+	 * @return The coalescer that keeps the latest pending push messages with a coalescing key
+	 */
+	public PushMessageCoalescer getPushMessageCoalescer()
+	{
+		return pushMessageCoalescer;
+	}
+
+	/**
+	 * Sets the coalescer for push messages with a coalescing key
+	 *
+	 * @param pushMessageCoalescer
+	 *              The coalescer that keeps the latest pending push messages
+	 * @return {@code this}, for method chaining
+	 */
+	public WebSocketSettings setPushMessageCoalescer(PushMessageCoalescer pushMessageCoalescer)
+	{
+		Args.notNull(pushMessageCoalescer, "pushMessageCoalescer");
+		this.pushMessageCoalescer = pushMessageCoalescer;
+		return this;
+	}
+
+	/**
+	 * Sets whether text responses, e.g. Ajax partial updates, are deflated by the application and
+	 * sent as binary frames which wicket-websocket-jquery.js inflates again.
+	 * <p>
+	 * This applies only to clients which are able to inflate (with <em>DecompressionStream</em>)
+	 * and whose connection did not negotiate the <em>permessage-deflate</em> extension with the
+	 * container already. When enabled the binary messages of the application are received as
+	 * <em>ArrayBuffer</em> instead of <em>Blob</em> by the client.
+	 *
+	 * @param compressResponses
+	 *              {@code true} to deflate text responses
+	 * @return {@code this}, for method chaining
+	 * @see #setCompressionThreshold(int)
+	 */
+	public WebSocketSettings setCompressResponses(boolean compressResponses)
+	{
+		this.compressResponses = compressResponses;
+		return this;
+	}
+
+	/**
+	 * @return whether text responses are deflated for clients which accept it
+	 */
+	public boolean isCompressResponses()
+	{
+		return compressResponses;
+	}
+
+	/**
+	 * Sets the minimum number of characters of a text response to deflate it, shorter ones are
+	 * not worth it.
+	 *
+	 * @param compressionThreshold
+	 *              the minimum length of a deflated response
+	 * @return {@code this}, for method chaining
+	 */
+	public WebSocketSettings setCompressionThreshold(int compressionThreshold)
+	{
+		Args.withinRange(0, Integer.MAX_VALUE, compressionThreshold, "compressionThreshold");
+		this.compressionThreshold = compressionThreshold;
+		return this;
+	}
+
+	/**
+	 * @return the minimum number of characters of a text response to deflate it
+	 */
+	public int getCompressionThreshold()
+	{
+		return compressionThreshold;
+	}
+
 	/**
 	 * The executor that broadcasts the {@link org.apache.wicket.protocol.ws.api.event.WebSocketPayload}
 	 * via Wicket's event bus.
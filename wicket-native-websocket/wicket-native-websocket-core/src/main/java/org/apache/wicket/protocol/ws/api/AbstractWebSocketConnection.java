@@ -17,6 +17,7 @@
 package org.apache.wicket.protocol.ws.api;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.Page;
 import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
 import org.apache.wicket.protocol.ws.api.registry.IKey;
 import org.apache.wicket.util.lang.Args;
@@ -53,6 +54,25 @@ public abstract class AbstractWebSocketConnection implements IWebSocketConnectio
 		webSocketProcessor.broadcastMessage(message);
 	}
 
+	@Override
+	public RenderedPushMessage renderMessage(IWebSocketPushMessage message)
+	{
+		RenderedPushMessage rendered = new RenderedPushMessage(this);
+		return webSocketProcessor.broadcastMessage(message, rendered.getConnection()) ? rendered : null;
+	}
+
+	@Override
+	public Class<? extends Page> getPageClass()
+	{
+		return webSocketProcessor.getPageClass();
+	}
+
+	@Override
+	public boolean isDeflateAccepted()
+	{
+		return webSocketProcessor.isDeflateAccepted();
+	}
+
 	@Override
 	public Application getApplication()
 	{
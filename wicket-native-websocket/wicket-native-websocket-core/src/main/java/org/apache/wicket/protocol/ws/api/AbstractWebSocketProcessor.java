@@ -82,6 +82,11 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 	 */
 	static final int NO_PAGE_ID = -1;
 
+	/**
+	 * The request parameter set by the client if it accepts deflated messages
+	 */
+	public static final String DEFLATE_PARAMETER = "wicket-ws-deflate";
+
 	private final WebRequest webRequest;
 	private final int pageId;
 	private final String resourceName;
@@ -93,6 +98,12 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 	private final IWebSocketConnectionRegistry connectionRegistry;
 	private final IWebSocketConnectionFilter connectionFilter;
 	private final HttpServletRequest servletRequest;
+	private final boolean deflateAccepted;
+
+	/**
+	 * The class of the page, known once a message was broadcast to it
+	 */
+	private volatile Class<? extends Page> pageClass;
 
 	/**
 	 * Constructor.
@@ -114,6 +125,7 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 		String pageId = request.getParameter("pageId");
 		this.resourceName = request.getParameter("resourceName");
 		this.connectionToken = request.getParameter("connectionToken");
+		this.deflateAccepted = Boolean.parseBoolean(request.getParameter(DEFLATE_PARAMETER));
 		if (Strings.isEmpty(pageId) && Strings.isEmpty(resourceName))
 		{
 			throw new IllegalArgumentException("The request should have either 'pageId' or 'resourceName' parameter!");
@@ -191,7 +203,12 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 		if (webSocketSettings.shouldNotifyOnCloseEvent(closeCode)) {
 			broadcastMessage(new ClosedMessage(getApplication(), getSessionId(), key, closeCode, message));
 		}
+		IWebSocketConnection connection = connectionRegistry.getConnection(getApplication(), getSessionId(), key);
 		connectionRegistry.removeConnection(getApplication(), getSessionId(), key);
+		if (connection != null)
+		{
+			webSocketSettings.getPushMessageCoalescer().remove(connection);
+		}
 	}
 
 	@Override
@@ -220,6 +237,24 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 		IKey key = getRegistryKey();
 		IWebSocketConnection connection = connectionRegistry.getConnection(application, sessionId, key);
 
+		broadcastMessage(message, connection);
+	}
+
+	/**
+	 * Broadcasts the message like {@link #broadcastMessage(IWebSocketMessage)}, but writes the
+	 * response to the given connection.
+	 *
+	 * @param message
+	 *      the message to broadcast
+	 * @param connection
+	 *      the connection to write the response to
+	 * @return {@code true} if the message was processed by the page, {@code false} if there is no
+	 *      open connection, no session or the page expired
+	 */
+	protected final boolean broadcastMessage(final IWebSocketMessage message, final IWebSocketConnection connection)
+	{
+		IKey key = getRegistryKey();
+
 		if (connection != null && (connection.isOpen() || isSpecialMessage(message)))
 		{
 			Application oldApplication = ThreadContext.getApplication();
@@ -251,7 +286,7 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 				{
 					connectionRegistry.removeConnection(application, sessionId, key);
 					LOG.debug("No Session could be found for session id '{}' and key '{}'!", sessionId, key);
-					return;
+					return false;
 				}
 
 				IPageManager pageManager = session.getPageManager();
@@ -259,6 +294,12 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 
 				if (page != null)
 				{
+					if (pageId != NO_PAGE_ID && pageClass == null)
+					{
+						pageClass = page.getClass();
+						connectionRegistry.updateConnection(application, sessionId, key);
+					}
+
 					WebSocketRequestHandler requestHandler = webSocketSettings.newWebSocketRequestHandler(page, connection);
 
 					WebSocketPayload payload = createEventPayload(message, requestHandler);
@@ -270,6 +311,7 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 					IRequestHandler broadcastingHandler = new WebSocketMessageBroadcastHandler(pageId, resourceName, payload);
 					requestMapper.setHandler(broadcastingHandler);
 					requestCycle.processRequestAndDetach();
+					return true;
 				}
 				else
 				{
@@ -298,6 +340,7 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 		{
 			LOG.debug("Either there is no connection({}) or it is closed.", connection);
 		}
+		return false;
 	}
 
 	private static boolean isSpecialMessage(IWebSocketMessage message)
@@ -346,6 +389,24 @@ public abstract class AbstractWebSocketProcessor implements IWebSocketProcessor
 		return page;
 	}
 
+	/**
+	 * @return {@code true} if the client accepts text messages deflated into binary frames
+	 * @see #DEFLATE_PARAMETER
+	 */
+	public boolean isDeflateAccepted()
+	{
+		return deflateAccepted;
+	}
+
+	/**
+	 * @return the class of the page this processor is connected to, {@code null} for a
+	 *      {@link WebSocketResource} or if no message has been broadcast to the page yet
+	 */
+	public final Class<? extends Page> getPageClass()
+	{
+		return pageClass;
+	}
+
 	protected final WebApplication getApplication()
 	{
 		return application;
@@ -162,6 +162,8 @@ public class BaseWebSocketBehavior extends Behavior
 
 		final CharSequence sessionId = getSessionId(component);
 		variables.put("sessionId", sessionId);
+
+		variables.put("compressResponses", webSocketSettings.isCompressResponses());
 		return variables;
 	}
 
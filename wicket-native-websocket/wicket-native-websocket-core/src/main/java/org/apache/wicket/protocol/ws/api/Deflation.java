@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+
+/**
+ * Deflates text messages into binary frames for clients which
+ * {@link IWebSocketConnection#isDeflateAccepted() accept} them.
+ * <p>
+ * A deflated frame starts with {@link #MARKER} followed by the zlib compressed UTF-8 text, so
+ * wicket-websocket-jquery.js can tell it apart from the binary messages of the application.
+ *
+ * @see WebSocketSettings#setCompressResponses(boolean)
+ */
+final class Deflation
+{
+	/**
+	 * The bytes a deflated frame starts with
+	 */
+	static final byte[] MARKER = { 0, 'W', 'D', 1 };
+
+	private Deflation()
+	{
+	}
+
+	/**
+	 * Sends the text to the connection, deflated if the connection accepts it and the text is
+	 * long enough to be worth it.
+	 *
+	 * @param connection
+	 *      the connection to send to
+	 * @param text
+	 *      the text to send
+	 * @throws IOException
+	 *      if the message could not be sent
+	 */
+	static void sendMessage(IWebSocketConnection connection, String text) throws IOException
+	{
+		if (shouldDeflate(connection, text))
+		{
+			byte[] deflated = deflate(text);
+			connection.sendMessage(deflated, 0, deflated.length);
+		}
+		else
+		{
+			connection.sendMessage(text);
+		}
+	}
+
+	/**
+	 * @param connection
+	 *      the connection to send to
+	 * @param text
+	 *      the text to send
+	 * @return {@code true} if the text should be sent deflated to the connection
+	 */
+	static boolean shouldDeflate(IWebSocketConnection connection, CharSequence text)
+	{
+		if (connection.isDeflateAccepted() == false)
+		{
+			return false;
+		}
+		WebSocketSettings webSocketSettings = WebSocketSettings.Holder.get(connection.getApplication());
+		return webSocketSettings.isCompressResponses() &&
+			text.length() >= webSocketSettings.getCompressionThreshold();
+	}
+
+	/**
+	 * @param text
+	 *      the text to deflate
+	 * @return the {@link #MARKER} followed by the deflated UTF-8 bytes of the text
+	 */
+	static byte[] deflate(String text)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 4 + MARKER.length);
+		bytes.write(MARKER, 0, MARKER.length);
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater))
+		{
+			out.write(text.getBytes(StandardCharsets.UTF_8));
+		}
+		catch (IOException iox)
+		{
+			// cannot happen with a ByteArrayOutputStream
+			throw new IllegalStateException(iox);
+		}
+		finally
+		{
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -19,6 +19,7 @@ package org.apache.wicket.protocol.ws.api;
 import java.io.IOException;
 
 import org.apache.wicket.Application;
+import org.apache.wicket.Page;
 import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
 import org.apache.wicket.protocol.ws.api.registry.IKey;
 
@@ -80,6 +81,46 @@ public interface IWebSocketConnection
 	 */
 	void sendMessage(IWebSocketPushMessage message);
 
+	/**
+	 * Broadcasts a push message like {@link #sendMessage(IWebSocketPushMessage)} and keeps a copy
+	 * of everything sent to the client, so it can be sent to other connections too.
+	 * <p>
+	 * By default the message is broadcast without keeping a copy.
+	 *
+	 * @param message
+	 *     the push message to send
+	 * @return the copy of the sent messages, or {@code null} if no copy is available, e.g. because
+	 *     the page has expired
+	 * @see IWebSocketPushMessage#isPageIndependent()
+	 */
+	default RenderedPushMessage renderMessage(IWebSocketPushMessage message)
+	{
+		sendMessage(message);
+		return null;
+	}
+
+	/**
+	 * @return The class of the page this WebSocket connection is registered for, or {@code null}
+	 *     if not known
+	 */
+	default Class<? extends Page> getPageClass()
+	{
+		return null;
+	}
+
+	/**
+	 * Whether the client accepts text messages deflated by the application into binary frames.
+	 * This is the case when the client can inflate them and the container did not already
+	 * negotiate the permessage-deflate extension.
+	 *
+	 * @return {@code true} if the client accepts deflated messages
+	 * @see org.apache.wicket.protocol.ws.WebSocketSettings#setCompressResponses(boolean)
+	 */
+	default boolean isDeflateAccepted()
+	{
+		return false;
+	}
+
 	/**
 	 * @return The application for which this WebSocket connection is registered
 	 */
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * Keeps the latest pending push message for each connection and
+ * {@link IWebSocketPushMessage#getCoalescingKey() coalescing key}, so messages superseded
+ * while waiting for processing are dropped instead of being processed.
+ * <p>
+ * All pending messages of a connection are taken at once, so any task processing messages for a
+ * connection takes the messages put before it, even if the tasks for earlier messages were
+ * dropped by the executor. The pending messages of a closed connection are
+ * {@link #remove(IWebSocketConnection) removed}.
+ *
+ * @see WebSocketPushBroadcaster
+ */
+public class PushMessageCoalescer
+{
+	/**
+	 * The pending messages by connection and coalescing key, a map of a connection is modified
+	 * while holding its entry only.
+	 */
+	private final ConcurrentMap<IWebSocketConnection, Map<Object, IWebSocketPushMessage>> pending = new ConcurrentHashMap<>();
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * Sets the latest message for a connection, superseding any pending message with the same
+	 * coalescing key.
+	 *
+	 * @param connection
+	 *      the connection the message is for
+	 * @param message
+	 *      the message with a coalescing key
+	 */
+	public void put(IWebSocketConnection connection, IWebSocketPushMessage message)
+	{
+		Object coalescingKey = Args.notNull(message.getCoalescingKey(), "coalescingKey");
+
+		pending.compute(connection, (c, messages) -> {
+			if (messages == null)
+			{
+				messages = new LinkedHashMap<>();
+			}
+
+			// keep the order of the messages by the latest one for each key
+			if (messages.remove(coalescingKey) != null)
+			{
+				coalesced.increment();
+			}
+			else
+			{
+				pendingCount.incrementAndGet();
+			}
+			messages.put(coalescingKey, message);
+			return messages;
+		});
+	}
+
+	/**
+	 * Removes the latest messages for a connection.
+	 *
+	 * @param connection
+	 *      the connection the messages are for
+	 * @return the latest message for each coalescing key in the order they were put, empty if
+	 *      they have already been taken
+	 */
+	public List<IWebSocketPushMessage> takeAll(IWebSocketConnection connection)
+	{
+		Map<Object, IWebSocketPushMessage> messages = pending.remove(connection);
+		if (messages == null)
+		{
+			return Collections.emptyList();
+		}
+
+		pendingCount.addAndGet(-messages.size());
+		return new ArrayList<>(messages.values());
+	}
+
+	/**
+	 * Drops the pending messages for a connection, e.g. when it is closed.
+	 *
+	 * @param connection
+	 *      the connection
+	 */
+	public void remove(IWebSocketConnection connection)
+	{
+		takeAll(connection);
+	}
+
+	/**
+	 * @return the number of pending messages
+	 */
+	public int getPendingCount()
+	{
+		return pendingCount.get();
+	}
+
+	/**
+	 * @return the number of messages dropped so far because a newer message superseded them
+	 */
+	public long getCoalescedCount()
+	{
+		return coalesced.sum();
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Page;
+import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
+import org.apache.wicket.protocol.ws.api.registry.IKey;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A copy of the messages sent to a client while processing a push message, for sending
+ * the same messages to other clients without processing the push message again.
+ *
+ * @see IWebSocketConnection#renderMessage(IWebSocketPushMessage)
+ * @see IWebSocketPushMessage#isPageIndependent()
+ */
+public class RenderedPushMessage
+{
+	private final IWebSocketConnection connection;
+
+	/**
+	 * The sent text and binary messages
+	 */
+	private final List<Object> messages = new ArrayList<>();
+
+	/**
+	 * The deflated text messages, shared by all targets accepting them
+	 */
+	private final Map<String, byte[]> deflated = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param connection
+	 *      the connection the push message is processed for
+	 */
+	public RenderedPushMessage(IWebSocketConnection connection)
+	{
+		this.connection = new RecordingConnection(Args.notNull(connection, "connection"));
+	}
+
+	/**
+	 * @return a connection sending to the client of the original connection while keeping a copy
+	 *      of all sent messages
+	 */
+	public IWebSocketConnection getConnection()
+	{
+		return connection;
+	}
+
+	/**
+	 * @return {@code true} if no message was sent
+	 */
+	public boolean isEmpty()
+	{
+		return messages.isEmpty();
+	}
+
+	/**
+	 * Sends the copied messages to another connection.
+	 *
+	 * @param target
+	 *      the connection to send to
+	 * @throws IOException when an IO error occurs during the write to the client
+	 */
+	public void sendTo(IWebSocketConnection target) throws IOException
+	{
+		for (Object message : messages)
+		{
+			if (message instanceof String)
+			{
+				String text = (String)message;
+				if (Deflation.shouldDeflate(target, text))
+				{
+					byte[] bytes = deflated.computeIfAbsent(text, Deflation::deflate);
+					target.sendMessage(bytes, 0, bytes.length);
+				}
+				else
+				{
+					target.sendMessage(text);
+				}
+			}
+			else
+			{
+				byte[] bytes = (byte[])message;
+				target.sendMessage(bytes, 0, bytes.length);
+			}
+		}
+	}
+
+	private class RecordingConnection implements IWebSocketConnection
+	{
+		private final IWebSocketConnection delegate;
+
+		private RecordingConnection(IWebSocketConnection delegate)
+		{
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return delegate.isOpen();
+		}
+
+		@Override
+		public void close(int code, String reason)
+		{
+			delegate.close(code, reason);
+		}
+
+		@Override
+		public IWebSocketConnection sendMessage(String message) throws IOException
+		{
+			messages.add(message);
+			Deflation.sendMessage(delegate, message);
+			return this;
+		}
+
+		@Override
+		public IWebSocketConnection sendMessage(byte[] message, int offset, int length) throws IOException
+		{
+			messages.add(Arrays.copyOfRange(message, offset, offset + length));
+			delegate.sendMessage(message, offset, length);
+			return this;
+		}
+
+		@Override
+		public void sendMessage(IWebSocketPushMessage message)
+		{
+			delegate.sendMessage(message);
+		}
+
+		@Override
+		public Application getApplication()
+		{
+			return delegate.getApplication();
+		}
+
+		@Override
+		public String getSessionId()
+		{
+			return delegate.getSessionId();
+		}
+
+		@Override
+		public IKey getKey()
+		{
+			return delegate.getKey();
+		}
+
+		@Override
+		public Class<? extends Page> getPageClass()
+		{
+			return delegate.getPageClass();
+		}
+
+		@Override
+		public boolean isDeflateAccepted()
+		{
+			// record plain text, it is deflated for each target which accepts it
+			return false;
+		}
+	}
+}
@@ -18,7 +18,13 @@ package org.apache.wicket.protocol.ws.api;
 
 import static java.util.Collections.singletonList;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.wicket.Application;
 import org.apache.wicket.protocol.ws.WebSocketSettings;
@@ -26,8 +32,13 @@ import org.apache.wicket.protocol.ws.api.message.ConnectedMessage;
 import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
 import org.apache.wicket.protocol.ws.api.registry.IKey;
 import org.apache.wicket.protocol.ws.api.registry.IWebSocketConnectionRegistry;
+import org.apache.wicket.protocol.ws.api.registry.IndexedWebSocketConnectionRegistry;
+import org.apache.wicket.protocol.ws.api.registry.ResourceNameKey;
+import org.apache.wicket.protocol.ws.api.registry.ResourceNameTokenKey;
 import org.apache.wicket.protocol.ws.concurrent.Executor;
 import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Allows pushing events for processing to Pages that have active web sockets.
@@ -37,6 +48,8 @@ import org.apache.wicket.util.lang.Args;
  */
 public class WebSocketPushBroadcaster
 {
+	private static final Logger LOG = LoggerFactory.getLogger(WebSocketPushBroadcaster.class);
+
 	private final IWebSocketConnectionRegistry registry;
 
 	public WebSocketPushBroadcaster(IWebSocketConnectionRegistry registry)
@@ -91,6 +104,14 @@ public class WebSocketPushBroadcaster
 	 *
 	 * If some connections are not in valid state they are silently ignored.
 	 *
+	 * If the message is {@link IWebSocketPushMessage#isPageIndependent() page independent} it is
+	 * processed only once for each page class (or resource) and the result is sent to all other
+	 * connections of the same page class.
+	 *
+	 * If the message has a {@link IWebSocketPushMessage#getCoalescingKey() coalescing key} and
+	 * a newer message with the same key is broadcast before it is processed for a connection, the
+	 * older message is dropped for that connection.
+	 *
 	 * @param application
 	 *			The wicket application
 	 * @param message
@@ -109,14 +130,63 @@ public class WebSocketPushBroadcaster
 		process(application, wsConnections, message);
 	}
 
+	/**
+	 * Processes the given message in all pages and resources whose Web Socket connections are
+	 * subscribed to the given topic.
+	 *
+	 * This method can be invoked from any thread, even a non-wicket thread. By default all processing
+	 * is done in the caller thread. Use
+	 * {@link WebSocketSettings#setWebSocketPushMessageExecutor(org.apache.wicket.protocol.ws.concurrent.Executor)}
+	 * to move processing to background threads.
+	 *
+	 * @param application
+	 *			The wicket application
+	 * @param topic
+	 *			The topic
+	 * @param message
+	 *			The push message event
+	 * @throws IllegalStateException
+	 *			if the registry is not an {@link IndexedWebSocketConnectionRegistry}
+	 * @see IndexedWebSocketConnectionRegistry#subscribe(Application, String, IKey, String)
+	 */
+	public void broadcastTopic(Application application, String topic, IWebSocketPushMessage message)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(topic, "topic");
+		Args.notNull(message, "message");
+
+		if (registry instanceof IndexedWebSocketConnectionRegistry == false)
+		{
+			throw new IllegalStateException("Topic broadcasts need an IndexedWebSocketConnectionRegistry, " +
+				"but the registry is " + registry.getClass().getName());
+		}
+		Collection<IWebSocketConnection> wsConnections =
+			((IndexedWebSocketConnectionRegistry)registry).getConnectionsByTopic(application, topic);
+		if (wsConnections.isEmpty())
+		{
+			return;
+		}
+		process(application, wsConnections, message);
+	}
+
 	private void process(final Application application, final Collection<IWebSocketConnection> wsConnections,
 	                     final IWebSocketPushMessage message)
 	{
 		WebSocketSettings webSocketSettings = WebSocketSettings.Holder.get(application);
 		Executor executor = webSocketSettings.getWebSocketPushMessageExecutor();
+		if (message.isPageIndependent() && wsConnections.size() > 1)
+		{
+			processOncePerGroup(executor, wsConnections, message);
+			return;
+		}
+		if (message.getCoalescingKey() != null)
+		{
+			processLatest(webSocketSettings.getPushMessageCoalescer(), executor, wsConnections, message);
+			return;
+		}
 		for (final IWebSocketConnection wsConnection : wsConnections)
 		{
-			executor.run(new Runnable()
+			executor.run(wsConnection, new Runnable()
 			{
 				@Override
 				public void run()
@@ -126,4 +196,150 @@ public class WebSocketPushBroadcaster
 			});
 		}
 	}
+
+	/**
+	 * Processes the latest messages for each connection. A task is run for every message, but
+	 * only the first task running after a message takes all latest messages of the connection,
+	 * the others find none and do nothing. If the executor rejects the task, the latest messages
+	 * are processed in the calling thread, so they are not left behind.
+	 */
+	private void processLatest(final PushMessageCoalescer coalescer, final Executor executor,
+	                           final Collection<IWebSocketConnection> wsConnections,
+	                           final IWebSocketPushMessage message)
+	{
+		for (final IWebSocketConnection wsConnection : wsConnections)
+		{
+			coalescer.put(wsConnection, message);
+			try
+			{
+				executor.run(wsConnection, () -> sendLatest(coalescer, wsConnection));
+			}
+			catch (RejectedExecutionException x)
+			{
+				LOG.debug("The executor rejected the task, processing the latest messages in the calling thread", x);
+				sendLatest(coalescer, wsConnection);
+			}
+		}
+	}
+
+	private void sendLatest(final PushMessageCoalescer coalescer, final IWebSocketConnection wsConnection)
+	{
+		for (IWebSocketPushMessage latest : coalescer.takeAll(wsConnection))
+		{
+			wsConnection.sendMessage(latest);
+		}
+	}
+
+	/**
+	 * Processes a page independent message for one connection of each group of connections
+	 * and sends the result to the other connections of the group.
+	 */
+	private void processOncePerGroup(final Executor executor, final Collection<IWebSocketConnection> wsConnections,
+	                                 final IWebSocketPushMessage message)
+	{
+		Map<Object, List<IWebSocketConnection>> groups = new LinkedHashMap<>();
+		for (final IWebSocketConnection wsConnection : wsConnections)
+		{
+			Object group = getGroup(wsConnection);
+			if (group == null)
+			{
+				executor.run(wsConnection, () -> wsConnection.sendMessage(message));
+			}
+			else
+			{
+				groups.computeIfAbsent(group, g -> new ArrayList<>()).add(wsConnection);
+			}
+		}
+
+		for (final List<IWebSocketConnection> group : groups.values())
+		{
+			executor.run(new GroupTaskKey(group.get(0)), () -> processGroup(executor, group, message));
+		}
+	}
+
+	/**
+	 * The key of the task processing a group: it hashes like the first connection of the group,
+	 * so the task is run in order with the tasks of that connection, but it is equal to no other
+	 * key, so an executor bounding the queued tasks per key never drops it in favour of the
+	 * tasks of that connection.
+	 */
+	private static final class GroupTaskKey
+	{
+		private final IWebSocketConnection first;
+
+		private GroupTaskKey(IWebSocketConnection first)
+		{
+			this.first = first;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return first.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			return this == obj;
+		}
+	}
+
+	private void processGroup(final Executor executor, final List<IWebSocketConnection> group,
+	                          final IWebSocketPushMessage message)
+	{
+		RenderedPushMessage rendered = null;
+		int index = 0;
+		// process for the first connection whose page is still available
+		while (rendered == null && index < group.size())
+		{
+			rendered = group.get(index++).renderMessage(message);
+		}
+
+		if (rendered == null || rendered.isEmpty())
+		{
+			return;
+		}
+
+		final RenderedPushMessage result = rendered;
+		for (final IWebSocketConnection wsConnection : group.subList(index, group.size()))
+		{
+			executor.run(wsConnection, () -> {
+				if (wsConnection.isOpen())
+				{
+					try
+					{
+						result.sendTo(wsConnection);
+					}
+					catch (IOException iox)
+					{
+						LOG.error("An error occurred while writing a broadcast message to WebSocket client.", iox);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * @return the page class or resource name of the connection, {@code null} if unknown
+	 */
+	private static Object getGroup(IWebSocketConnection wsConnection)
+	{
+		Class<?> pageClass = wsConnection.getPageClass();
+		if (pageClass != null)
+		{
+			return pageClass;
+		}
+
+		IKey key = wsConnection.getKey();
+		if (key instanceof ResourceNameKey)
+		{
+			return ((ResourceNameKey)key).getResourceName();
+		}
+		else if (key instanceof ResourceNameTokenKey)
+		{
+			return ((ResourceNameTokenKey)key).getResourceName();
+		}
+		return null;
+	}
 }
@@ -87,7 +87,7 @@ public class WebSocketResponse extends WebResponse
 			{
 				if (text != null)
 				{
-					connection.sendMessage(text.toString());
+					Deflation.sendMessage(connection, text.toString());
 					text = null;
 				}
 				else if (binary != null)
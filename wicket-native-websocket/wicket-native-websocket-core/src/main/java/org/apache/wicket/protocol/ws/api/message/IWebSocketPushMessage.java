@@ -23,4 +23,37 @@ package org.apache.wicket.protocol.ws.api.message;
  */
 public interface IWebSocketPushMessage extends IWebSocketMessage {
 
+	/**
+	 * Whether the update rendered for this message depends on the page class only, i.e. it is
+	 * the same for all page instances of a class, or for all connections to a
+	 * {@link org.apache.wicket.protocol.ws.api.WebSocketResource}.
+	 * <p>
+	 * The {@link org.apache.wicket.protocol.ws.api.WebSocketPushBroadcaster} then processes the
+	 * message only once per page class and sends the result to all other connections without
+	 * loading their pages.
+	 * <p>
+	 * Note that the payload is rendered with a representative page, so it contains the callback
+	 * urls and markup ids of that page instance. Only messages that update components whose markup
+	 * ids and callback urls are the same in all page instances of the class may be page
+	 * independent.
+	 *
+	 * @return {@code false} by default
+	 */
+	default boolean isPageIndependent()
+	{
+		return false;
+	}
+
+	/**
+	 * A key identifying what this message updates, e.g. the id of a ticker symbol. A newer
+	 * message with the same key supersedes this message, so if both are still waiting to be
+	 * processed for a connection only the newer one is processed and this one is dropped.
+	 *
+	 * @return the key, or {@code null} by default to process every message
+	 * @see org.apache.wicket.protocol.ws.api.PushMessageCoalescer
+	 */
+	default Object getCoalescingKey()
+	{
+		return null;
+	}
 }
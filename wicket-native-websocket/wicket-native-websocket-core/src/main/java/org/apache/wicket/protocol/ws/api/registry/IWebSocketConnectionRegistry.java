@@ -70,6 +70,22 @@ public interface IWebSocketConnectionRegistry
 	 */
 	void setConnection(Application application, String sessionId, IKey key, IWebSocketConnection connection);
 
+	/**
+	 * Notifies the registry that the web socket connection at the specified coordinates changed,
+	 * e.g. its {@link IWebSocketConnection#getPageClass() page class} became known.
+	 * Does nothing by default.
+	 *
+	 * @param application
+	 *      the web application to look in
+	 * @param sessionId
+	 *      the http session id
+	 * @param key
+	 *      the web socket client key
+	 */
+	default void updateConnection(Application application, String sessionId, IKey key)
+	{
+	}
+
 	/**
 	 * Removes a web socket connection from the registry at the specified coordinates (application+session+page)
 	 *
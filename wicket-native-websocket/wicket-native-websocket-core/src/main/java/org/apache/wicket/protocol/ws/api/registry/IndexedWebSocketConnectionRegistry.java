@@ -0,0 +1,484 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.api.registry;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Page;
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.apache.wicket.util.lang.Args;
+
+/**
+ * A registry that keeps all currently opened web socket connections in Application's meta data
+ * and additionally indexes them by page class, by shared resource name and by application defined
+ * topics.
+ * <p>
+ * All lookups return live, unmodifiable views of the registry instead of copies. The views are
+ * weakly consistent: connections registered or removed while iterating may or may not be
+ * returned, but the iteration never fails. Each access to a view looks up the current
+ * connections, so a view stays valid when the connections it is for come and go. Use
+ * {@link Collection#stream()} to stream over them.
+ * <p>
+ * A connection is indexed by its page class once the page class is known, i.e. after
+ * {@link #updateConnection(Application, String, IKey)} is called for it.
+ *
+ * @see org.apache.wicket.protocol.ws.api.WebSocketPushBroadcaster#broadcastTopic(Application, String, org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage)
+ */
+public class IndexedWebSocketConnectionRegistry implements IWebSocketConnectionRegistry
+{
+	private static final MetaDataKey<Connections> KEY = new MetaDataKey<>()
+	{
+	};
+
+	@Override
+	public IWebSocketConnection getConnection(Application application, String sessionId, IKey key)
+	{
+		Entry entry = getEntry(application, sessionId, key);
+		return entry != null ? entry.connection : null;
+	}
+
+	@Override
+	public Collection<IWebSocketConnection> getConnections(Application application, String sessionId)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(sessionId, "sessionId");
+
+		return view(application, connections -> {
+			Map<IKey, Entry> bySession = connections.bySession.get(sessionId);
+			return bySession != null ? bySession.values() : null;
+		});
+	}
+
+	/**
+	 * Returns a live view of the currently active websockets. The connections might close at any
+	 * time.
+	 *
+	 * @param application
+	 *          The application
+	 * @return a collection of currently active websockets
+	 */
+	@Override
+	public Collection<IWebSocketConnection> getConnections(Application application)
+	{
+		Args.notNull(application, "application");
+
+		return view(application, connections -> connections.all);
+	}
+
+	/**
+	 * @param application
+	 *            the web application to look in
+	 * @param pageClass
+	 *            the class of the page
+	 * @return a live view of the web socket connections of pages with exactly the given class
+	 */
+	public Collection<IWebSocketConnection> getConnectionsByPageClass(Application application,
+		Class<? extends Page> pageClass)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(pageClass, "pageClass");
+
+		return view(application, connections -> connections.byPageClass.get(pageClass));
+	}
+
+	/**
+	 * @param application
+	 *            the web application to look in
+	 * @param resourceName
+	 *            the name of the shared resource
+	 * @return a live view of the web socket connections of the shared resource with the given name
+	 */
+	public Collection<IWebSocketConnection> getConnectionsByResource(Application application,
+		String resourceName)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(resourceName, "resourceName");
+
+		return view(application, connections -> connections.byResource.get(resourceName));
+	}
+
+	/**
+	 * @param application
+	 *            the web application to look in
+	 * @param topic
+	 *            the topic
+	 * @return a live view of the web socket connections subscribed to the given topic
+	 * @see #subscribe(Application, String, IKey, String)
+	 */
+	public Collection<IWebSocketConnection> getConnectionsByTopic(Application application, String topic)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(topic, "topic");
+
+		return view(application, connections -> connections.byTopic.get(topic));
+	}
+
+	/**
+	 * Subscribes the connection at the specified coordinates to a topic. The subscription ends
+	 * when the connection is removed from the registry.
+	 *
+	 * @param application
+	 *      the web application to look in
+	 * @param sessionId
+	 *      the http session id
+	 * @param key
+	 *      the web socket client key
+	 * @param topic
+	 *      the application defined topic
+	 * @return {@code true} if the connection is registered and was not subscribed to the topic yet
+	 */
+	public boolean subscribe(Application application, String sessionId, IKey key, String topic)
+	{
+		Args.notNull(topic, "topic");
+
+		Entry entry = getEntry(application, sessionId, key);
+		if (entry == null || entry.topics.add(topic) == false)
+		{
+			return false;
+		}
+		Connections connections = application.getMetaData(KEY);
+		add(connections.byTopic, topic, entry);
+		if (entry.removed)
+		{
+			// removed concurrently, possibly before it was added to the index
+			unindex(connections, entry);
+		}
+		return true;
+	}
+
+	/**
+	 * Unsubscribes the connection at the specified coordinates from a topic.
+	 *
+	 * @param application
+	 *      the web application to look in
+	 * @param sessionId
+	 *      the http session id
+	 * @param key
+	 *      the web socket client key
+	 * @param topic
+	 *      the application defined topic
+	 * @return {@code true} if the connection was subscribed to the topic
+	 */
+	public boolean unsubscribe(Application application, String sessionId, IKey key, String topic)
+	{
+		Args.notNull(topic, "topic");
+
+		Entry entry = getEntry(application, sessionId, key);
+		if (entry == null || entry.topics.remove(topic) == false)
+		{
+			return false;
+		}
+		remove(application.getMetaData(KEY).byTopic, topic, entry);
+		return true;
+	}
+
+	@Override
+	public void setConnection(Application application, String sessionId, IKey key, IWebSocketConnection connection)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(sessionId, "sessionId");
+		Args.notNull(key, "key");
+
+		if (connection == null)
+		{
+			removeConnection(application, sessionId, key);
+			return;
+		}
+
+		Connections connections = getOrCreateConnections(application);
+		Entry entry = new Entry(key, connection);
+		Entry[] old = new Entry[1];
+		connections.bySession.compute(sessionId, (id, bySession) -> {
+			if (bySession == null)
+			{
+				bySession = new ConcurrentHashMap<>();
+			}
+			old[0] = bySession.put(key, entry);
+			return bySession;
+		});
+		if (old[0] != null)
+		{
+			old[0].removed = true;
+			unindex(connections, old[0]);
+		}
+		index(connections, entry);
+	}
+
+	@Override
+	public void updateConnection(Application application, String sessionId, IKey key)
+	{
+		Entry entry = getEntry(application, sessionId, key);
+		if (entry == null)
+		{
+			return;
+		}
+
+		Class<? extends Page> oldPageClass = entry.pageClass.get();
+		Class<? extends Page> pageClass = entry.connection.getPageClass();
+		if (pageClass != oldPageClass && entry.pageClass.compareAndSet(oldPageClass, pageClass))
+		{
+			Connections connections = application.getMetaData(KEY);
+			if (oldPageClass != null)
+			{
+				remove(connections.byPageClass, oldPageClass, entry);
+			}
+			if (pageClass != null)
+			{
+				add(connections.byPageClass, pageClass, entry);
+			}
+			if (entry.removed)
+			{
+				unindex(connections, entry);
+			}
+		}
+	}
+
+	@Override
+	public void removeConnection(Application application, String sessionId, IKey key)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(sessionId, "sessionId");
+		Args.notNull(key, "key");
+
+		Connections connections = application.getMetaData(KEY);
+		if (connections == null)
+		{
+			return;
+		}
+
+		Entry[] removed = new Entry[1];
+		connections.bySession.computeIfPresent(sessionId, (id, bySession) -> {
+			removed[0] = bySession.remove(key);
+			return bySession.isEmpty() ? null : bySession;
+		});
+		if (removed[0] != null)
+		{
+			removed[0].removed = true;
+			unindex(connections, removed[0]);
+		}
+	}
+
+	private Entry getEntry(Application application, String sessionId, IKey key)
+	{
+		Args.notNull(application, "application");
+		Args.notNull(sessionId, "sessionId");
+		Args.notNull(key, "key");
+
+		Connections connections = application.getMetaData(KEY);
+		if (connections == null)
+		{
+			return null;
+		}
+		Map<IKey, Entry> bySession = connections.bySession.get(sessionId);
+		return bySession != null ? bySession.get(key) : null;
+	}
+
+	private Connections getOrCreateConnections(Application application)
+	{
+		Connections connections = application.getMetaData(KEY);
+		if (connections == null)
+		{
+			// only the first connection of the application gets here
+			synchronized (KEY)
+			{
+				connections = application.getMetaData(KEY);
+				if (connections == null)
+				{
+					connections = new Connections();
+					application.setMetaData(KEY, connections);
+				}
+			}
+		}
+		return connections;
+	}
+
+	private static void index(Connections connections, Entry entry)
+	{
+		connections.all.add(entry);
+		String resourceName = getResourceName(entry.key);
+		if (resourceName != null)
+		{
+			add(connections.byResource, resourceName, entry);
+		}
+		Class<? extends Page> pageClass = entry.connection.getPageClass();
+		if (pageClass != null && entry.pageClass.compareAndSet(null, pageClass))
+		{
+			add(connections.byPageClass, pageClass, entry);
+		}
+		if (entry.removed)
+		{
+			// removed concurrently, possibly before it was indexed
+			unindex(connections, entry);
+		}
+	}
+
+	private static void unindex(Connections connections, Entry entry)
+	{
+		connections.all.remove(entry);
+		String resourceName = getResourceName(entry.key);
+		if (resourceName != null)
+		{
+			remove(connections.byResource, resourceName, entry);
+		}
+		Class<? extends Page> pageClass = entry.pageClass.get();
+		if (pageClass != null)
+		{
+			remove(connections.byPageClass, pageClass, entry);
+		}
+		for (String topic : entry.topics)
+		{
+			remove(connections.byTopic, topic, entry);
+		}
+	}
+
+	private static String getResourceName(IKey key)
+	{
+		if (key instanceof ResourceNameKey)
+		{
+			return ((ResourceNameKey)key).getResourceName();
+		}
+		else if (key instanceof ResourceNameTokenKey)
+		{
+			return ((ResourceNameTokenKey)key).getResourceName();
+		}
+		return null;
+	}
+
+	private static <K> void add(ConcurrentMap<K, Set<Entry>> index, K indexKey, Entry entry)
+	{
+		index.compute(indexKey, (k, entries) -> {
+			if (entries == null)
+			{
+				entries = ConcurrentHashMap.newKeySet();
+			}
+			entries.add(entry);
+			return entries;
+		});
+	}
+
+	private static <K> void remove(ConcurrentMap<K, Set<Entry>> index, K indexKey, Entry entry)
+	{
+		index.computeIfPresent(indexKey, (k, entries) -> {
+			entries.remove(entry);
+			return entries.isEmpty() ? null : entries;
+		});
+	}
+
+	/**
+	 * @param entries
+	 *      looks up the current entries of the view in the connections, may return {@code null}
+	 *      if there are none
+	 */
+	private static Collection<IWebSocketConnection> view(Application application,
+		Function<Connections, Collection<Entry>> entries)
+	{
+		return new ConnectionsView(() -> {
+			Connections connections = application.getMetaData(KEY);
+			Collection<Entry> current = connections != null ? entries.apply(connections) : null;
+			return current != null ? current : Collections.emptySet();
+		});
+	}
+
+	/**
+	 * The connections of one application and their indexes
+	 */
+	private static class Connections
+	{
+		private final ConcurrentMap<String, ConcurrentMap<IKey, Entry>> bySession = new ConcurrentHashMap<>();
+
+		private final Set<Entry> all = ConcurrentHashMap.newKeySet();
+
+		private final ConcurrentMap<Class<? extends Page>, Set<Entry>> byPageClass = new ConcurrentHashMap<>();
+
+		private final ConcurrentMap<String, Set<Entry>> byResource = new ConcurrentHashMap<>();
+
+		private final ConcurrentMap<String, Set<Entry>> byTopic = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * A registered connection with the index keys it is known by
+	 */
+	private static class Entry
+	{
+		private final IKey key;
+
+		private final IWebSocketConnection connection;
+
+		private final AtomicReference<Class<? extends Page>> pageClass = new AtomicReference<>();
+
+		private final Set<String> topics = ConcurrentHashMap.newKeySet();
+
+		private volatile boolean removed;
+
+		private Entry(IKey key, IWebSocketConnection connection)
+		{
+			this.key = key;
+			this.connection = connection;
+		}
+	}
+
+	/**
+	 * An unmodifiable view of the connections of some entries, looked up on each access
+	 */
+	private static class ConnectionsView extends AbstractCollection<IWebSocketConnection>
+	{
+		private final Supplier<Collection<Entry>> entries;
+
+		private ConnectionsView(Supplier<Collection<Entry>> entries)
+		{
+			this.entries = entries;
+		}
+
+		@Override
+		public Iterator<IWebSocketConnection> iterator()
+		{
+			final Iterator<Entry> iterator = entries.get().iterator();
+			return new Iterator<>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return iterator.hasNext();
+				}
+
+				@Override
+				public IWebSocketConnection next()
+				{
+					return iterator.next().connection;
+				}
+			};
+		}
+
+		@Override
+		public int size()
+		{
+			return entries.get().size();
+		}
+	}
+}
@@ -34,6 +34,14 @@ public class ResourceNameTokenKey implements IKey
 		this.connectionToken = Args.notNull(connectionToken, "connectionToken");
 	}
 
+	/**
+	 * @return the name of the shared resource
+	 */
+	public String getResourceName()
+	{
+		return resourceName;
+	}
+
 	@Override
 	public boolean equals(Object o)
 	{
@@ -16,7 +16,8 @@
  */
 
 /*jshint evil: true, nomen: false, onevar: false, regexp: false, strict: true, boss: true, undef: true, maxlen: 160, curly: true, eqeqeq: true */
-/*global document: false, jQuery:false, DOMParser: true, window: false, Wicket: true */
+/*global document: false, jQuery:false, DOMParser: true, window: false, Wicket: true, ArrayBuffer: false, Uint8Array: false,
+	Blob: false, Response: false, DecompressionStream: false */
 
 ;(function (undefined) {
 
@@ -40,6 +41,39 @@
 
 	Wicket.WebSocket.MESSAGE_CHANNEL = 'websocketMessage|s';
 
+	/**
+	 * The bytes a binary frame with a deflated text message starts with.
+	 * Must be the same as org.apache.wicket.protocol.ws.api.Deflation#MARKER
+	 */
+	Wicket.WebSocket.DEFLATE_MARKER = [0, 87, 68, 1];
+
+	/**
+	 * @param message {ArrayBuffer} a binary message
+	 * @returns {boolean} whether the message is a deflated text message
+	 */
+	Wicket.WebSocket.isDeflated = function (message) {
+		var marker = Wicket.WebSocket.DEFLATE_MARKER;
+		if (message.byteLength < marker.length) {
+			return false;
+		}
+		var bytes = new Uint8Array(message, 0, marker.length);
+		for (var i = 0; i < marker.length; i++) {
+			if (bytes[i] !== marker[i]) {
+				return false;
+			}
+		}
+		return true;
+	};
+
+	/**
+	 * @param message {ArrayBuffer} a deflated text message
+	 * @returns {Promise} the inflated text
+	 */
+	Wicket.WebSocket.inflate = function (message) {
+		var deflated = new Blob([new Uint8Array(message, Wicket.WebSocket.DEFLATE_MARKER.length)]);
+		return new Response(deflated.stream().pipeThrough(new DecompressionStream('deflate'))).text();
+	};
+
 	Wicket.WebSocket.prototype = {
 
 		ws: null,
@@ -84,29 +118,57 @@
 				url += '&wicket-ajax-baseurl=' + encodeURIComponent(WWS.baseUrl);
 				url += '&wicket-app-name=' + encodeURIComponent(WWS.appName);
 
+				var deflate = WWS.compressResponses && ('DecompressionStream' in window);
+				if (deflate) {
+					url += '&wicket-ws-deflate=true';
+				}
+
 				self.ws = new WebSocket(url);
+				if (deflate) {
+					self.ws.binaryType = 'arraybuffer';
+				}
 
 				self.ws.onopen = function (evt) {
 					Wicket.Event.publish(topics.Opened, evt);
 				};
 
+				var processAjaxResponse = function (call, message) {
+					var context = {
+						attrs: {},
+						steps: []
+					};
+					var xmlDocument = Wicket.Xml.parse(message);
+					call.loadedCallback(xmlDocument, context);
+					context.steps.push(function () {
+						Wicket.channelManager.done(Wicket.WebSocket.MESSAGE_CHANNEL);
+						return Wicket.ChannelManager.FunctionsExecuter.DONE;
+					});
+					var executer = new Wicket.ChannelManager.FunctionsExecuter(context.steps);
+					executer.start();
+				};
+
 				self.ws.onmessage = function (event) {
 
 					var message = event.data;
 					if (typeof(message) === 'string' && message.indexOf('<ajax-response>') > -1) {
 						Wicket.channelManager.schedule(Wicket.WebSocket.MESSAGE_CHANNEL, Wicket.bind(function () {
-							var context = {
-								attrs: {},
-								steps: []
-							};
-							var xmlDocument = Wicket.Xml.parse(message);
-							this.loadedCallback(xmlDocument, context);
-							context.steps.push(function () {
+							processAjaxResponse(this, message);
+						}, new Wicket.Ajax.Call()));
+					} else if (deflate && message instanceof ArrayBuffer && Wicket.WebSocket.isDeflated(message)) {
+						// inflate in the channel to keep the order of the responses
+						Wicket.channelManager.schedule(Wicket.WebSocket.MESSAGE_CHANNEL, Wicket.bind(function () {
+							var call = this;
+							Wicket.WebSocket.inflate(message).then(function (text) {
+								if (text.indexOf('<ajax-response>') > -1) {
+									processAjaxResponse(call, text);
+								} else {
+									Wicket.channelManager.done(Wicket.WebSocket.MESSAGE_CHANNEL);
+									Wicket.Event.publish(topics.Message, text);
+								}
+							}, function (error) {
 								Wicket.channelManager.done(Wicket.WebSocket.MESSAGE_CHANNEL);
-								return Wicket.ChannelManager.FunctionsExecuter.DONE;
+								Wicket.Log.error('[WebSocket.onmessage] Cannot inflate a message: ' + error);
 							});
-							var executer = new Wicket.ChannelManager.FunctionsExecuter(context.steps);
-							executer.start();
 						}, new Wicket.Ajax.Call()));
 					} else {
 						Wicket.Event.publish(topics.Message, message);
@@ -29,4 +29,20 @@ public interface Executor
 	 * @see     java.lang.Thread#run()
 	 */
 	void run(Runnable command);
+
+	/**
+	 * Runs a simple task that doesn't return a result on behalf of the given key, e.g.
+	 * a Web Socket connection. Implementations may use the key to run the tasks for the
+	 * same key in the order they were submitted.
+	 *
+	 * @param key
+	 *      the key the task is run for
+	 * @param command
+	 *      the task to run
+	 * @see ShardedExecutor
+	 */
+	default void run(Object key, Runnable command)
+	{
+		run(command);
+	}
 }
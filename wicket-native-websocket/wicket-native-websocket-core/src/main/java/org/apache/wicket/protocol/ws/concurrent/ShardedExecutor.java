@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.concurrent;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An executor that distributes the tasks over a fixed number of lanes. All tasks for the same
+ * {@link #run(Object, Runnable) key}, e.g. a Web Socket connection, go into the same lane and
+ * are run one after the other in the order they were submitted.
+ * <p>
+ * The number of queued tasks is bounded for each key. When a key has too many queued tasks, e.g.
+ * because of a slow client, tasks of that key are dropped according to the
+ * {@link OverflowPolicy}, tasks of other keys in the same lane are never dropped. Tasks run
+ * without a key share one bound per lane. The lanes are run by a delegate executor, e.g. a
+ * {@link java.util.concurrent.ThreadPoolExecutor} or a {@link VirtualThreadExecutor}, with at
+ * most one task of each lane running at a time.
+ * <p>
+ * The number of queued, run and dropped tasks can be monitored with {@link #getQueueDepth()},
+ * {@link #getCompletedCount()} and {@link #getDroppedCount()}.
+ * <p>
+ * An executor created with {@link #ShardedExecutor(int, int)} owns its threads, it is closed by
+ * the {@link org.apache.wicket.protocol.ws.WebSocketSettings} when the application is destroyed.
+ */
+public class ShardedExecutor implements Executor, AutoCloseable
+{
+	private static final Logger LOG = LoggerFactory.getLogger(ShardedExecutor.class);
+
+	/**
+	 * The maximum number of tasks a lane runs before giving its thread back to the delegate
+	 */
+	private static final int BATCH_SIZE = 64;
+
+	/**
+	 * What to do with a task when the queue of its lane is full.
+	 */
+	public enum OverflowPolicy
+	{
+		/**
+		 * Drop the oldest queued task of the key to make room for the new one
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Drop the new task
+		 */
+		DROP_NEWEST
+	}
+
+	private final java.util.concurrent.Executor delegate;
+
+	private final Lane[] lanes;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final AtomicInteger nextLane = new AtomicInteger();
+
+	private final LongAdder completed = new LongAdder();
+
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Whether the delegate was created by this executor
+	 */
+	private final boolean ownDelegate;
+
+	/**
+	 * Constructor with one thread per lane, dropping the oldest tasks on overflow.
+	 *
+	 * @param lanes
+	 *      the number of lanes
+	 * @param queueCapacity
+	 *      the maximum number of queued tasks per key
+	 */
+	public ShardedExecutor(int lanes, int queueCapacity)
+	{
+		this(Executors.newFixedThreadPool(lanes, new DaemonThreadFactory("Wicket-WebSocket-Lane-Thread-")), true, lanes, queueCapacity,
+			OverflowPolicy.DROP_OLDEST);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param delegate
+	 *      the executor running the lanes
+	 * @param lanes
+	 *      the number of lanes
+	 * @param queueCapacity
+	 *      the maximum number of queued tasks per key
+	 * @param overflowPolicy
+	 *      what to do when a key has too many queued tasks
+	 */
+	public ShardedExecutor(java.util.concurrent.Executor delegate, int lanes, int queueCapacity,
+		OverflowPolicy overflowPolicy)
+	{
+		this(delegate, false, lanes, queueCapacity, overflowPolicy);
+	}
+
+	private ShardedExecutor(java.util.concurrent.Executor delegate, boolean ownDelegate, int lanes,
+		int queueCapacity, OverflowPolicy overflowPolicy)
+	{
+		this.delegate = Args.notNull(delegate, "delegate");
+		this.ownDelegate = ownDelegate;
+		this.overflowPolicy = Args.notNull(overflowPolicy, "overflowPolicy");
+		Args.withinRange(1, Integer.MAX_VALUE, lanes, "lanes");
+		Args.withinRange(1, Integer.MAX_VALUE, queueCapacity, "queueCapacity");
+
+		this.lanes = new Lane[lanes];
+		for (int i = 0; i < lanes; i++)
+		{
+			this.lanes[i] = new Lane(queueCapacity);
+		}
+	}
+
+	/**
+	 * Runs the task in the next lane, without any ordering guarantee.
+	 */
+	@Override
+	public void run(Runnable command)
+	{
+		lanes[Math.floorMod(nextLane.getAndIncrement(), lanes.length)].submit(null, command);
+	}
+
+	@Override
+	public void run(Object key, Runnable command)
+	{
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		lanes[Math.floorMod(hash, lanes.length)].submit(key, command);
+	}
+
+	/**
+	 * Stops the threads of this executor, if it was created with
+	 * {@link #ShardedExecutor(int, int)}. A given delegate is left alone.
+	 */
+	@Override
+	public void close()
+	{
+		if (ownDelegate)
+		{
+			((ExecutorService)delegate).shutdown();
+		}
+	}
+
+	/**
+	 * @return the number of lanes
+	 */
+	public int getLaneCount()
+	{
+		return lanes.length;
+	}
+
+	/**
+	 * @return the number of tasks waiting in all lanes
+	 */
+	public int getQueueDepth()
+	{
+		int depth = 0;
+		for (Lane lane : lanes)
+		{
+			depth += lane.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * @return the maximum number of tasks waiting in a single lane
+	 */
+	public int getMaxQueueDepth()
+	{
+		int depth = 0;
+		for (Lane lane : lanes)
+		{
+			depth = Math.max(depth, lane.size());
+		}
+		return depth;
+	}
+
+	/**
+	 * @return the number of tasks run so far
+	 */
+	public long getCompletedCount()
+	{
+		return completed.sum();
+	}
+
+	/**
+	 * @return the number of tasks dropped so far because a key had too many queued tasks
+	 */
+	public long getDroppedCount()
+	{
+		return dropped.sum();
+	}
+
+	/**
+	 * A queued task and the key it is run for.
+	 */
+	private static class Task
+	{
+		private final Object key;
+
+		private final Runnable command;
+
+		private Task(Object key, Runnable command)
+		{
+			this.key = key;
+			this.command = command;
+		}
+	}
+
+	/**
+	 * A queue of tasks run one after the other.
+	 */
+	private class Lane implements Runnable
+	{
+		private final int capacity;
+
+		private final ArrayDeque<Task> queue = new ArrayDeque<>();
+
+		/**
+		 * The number of queued tasks by key
+		 */
+		private final Map<Object, Integer> queued = new HashMap<>();
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private Lane(int capacity)
+		{
+			this.capacity = capacity;
+		}
+
+		private void submit(Object key, Runnable command)
+		{
+			Args.notNull(command, "command");
+
+			synchronized (this)
+			{
+				int count = queued.getOrDefault(key, 0);
+				if (count < capacity)
+				{
+					queue.add(new Task(key, command));
+					queued.put(key, count + 1);
+				}
+				else if (overflowPolicy == OverflowPolicy.DROP_NEWEST)
+				{
+					dropped.increment();
+				}
+				else
+				{
+					removeOldest(key);
+					queue.add(new Task(key, command));
+					dropped.increment();
+				}
+			}
+
+			schedule();
+		}
+
+		/**
+		 * Removes the oldest queued task of the given key.
+		 */
+		private void removeOldest(Object key)
+		{
+			Iterator<Task> tasks = queue.iterator();
+			while (tasks.hasNext())
+			{
+				if (Objects.equals(tasks.next().key, key))
+				{
+					tasks.remove();
+					return;
+				}
+			}
+		}
+
+		private synchronized Runnable poll()
+		{
+			Task task = queue.poll();
+			if (task == null)
+			{
+				return null;
+			}
+
+			int count = queued.get(task.key);
+			if (count == 1)
+			{
+				queued.remove(task.key);
+			}
+			else
+			{
+				queued.put(task.key, count - 1);
+			}
+			return task.command;
+		}
+
+		private synchronized int size()
+		{
+			return queue.size();
+		}
+
+		private void schedule()
+		{
+			if (scheduled.compareAndSet(false, true))
+			{
+				try
+				{
+					delegate.execute(this);
+				}
+				catch (RejectedExecutionException x)
+				{
+					scheduled.set(false);
+					LOG.error("The lane could not be scheduled, its tasks are not run.", x);
+				}
+			}
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				for (int i = 0; i < BATCH_SIZE; i++)
+				{
+					Runnable command = poll();
+					if (command == null)
+					{
+						break;
+					}
+
+					try
+					{
+						command.run();
+					}
+					catch (RuntimeException x)
+					{
+						LOG.error("An error occurred while running a task", x);
+					}
+					completed.increment();
+				}
+			}
+			finally
+			{
+				scheduled.set(false);
+				if (size() > 0)
+				{
+					schedule();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.concurrent;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An executor that runs each task in a new virtual thread, so a blocked task (e.g. waiting for
+ * the lock of a page or a slow client) does not hold a platform thread.
+ * <p>
+ * Virtual threads are available with Java 21 and later only. On older Java versions the tasks
+ * are run by a cached pool of daemon platform threads instead, see {@link #isVirtual()}.
+ * <p>
+ * It can also be used to run the lanes of a {@link ShardedExecutor}.
+ */
+public class VirtualThreadExecutor implements Executor, java.util.concurrent.Executor
+{
+	private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+	private final ExecutorService executorService;
+
+	private final boolean virtual;
+
+	/**
+	 * Constructor.
+	 */
+	public VirtualThreadExecutor()
+	{
+		ExecutorService virtualExecutorService = newVirtualThreadPerTaskExecutor();
+		if (virtualExecutorService != null)
+		{
+			executorService = virtualExecutorService;
+			virtual = true;
+		}
+		else
+		{
+			LOG.info("Virtual threads are not supported by this JVM, using platform threads instead.");
+			executorService = Executors.newCachedThreadPool(new DaemonThreadFactory("Wicket-WebSocket-Push-Thread-"));
+			virtual = false;
+		}
+	}
+
+	@Override
+	public void run(Runnable command)
+	{
+		executorService.execute(command);
+	}
+
+	@Override
+	public void execute(Runnable command)
+	{
+		executorService.execute(command);
+	}
+
+	/**
+	 * @return {@code true} if the tasks are run in virtual threads
+	 */
+	public boolean isVirtual()
+	{
+		return virtual;
+	}
+
+	/**
+	 * Stops accepting new tasks.
+	 */
+	public void shutdown()
+	{
+		executorService.shutdown();
+	}
+
+	/**
+	 * Looks up {@code Executors#newVirtualThreadPerTaskExecutor()} reflectively, to support
+	 * virtual threads while still running on older Java versions.
+	 *
+	 * @return the executor service or {@code null} if not available
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor()
+	{
+		try
+		{
+			MethodHandle factory = MethodHandles.publicLookup().findStatic(Executors.class,
+				"newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+			return (ExecutorService)factory.invoke();
+		}
+		catch (Throwable t)
+		{
+			LOG.debug("Virtual threads are not available", t);
+			return null;
+		}
+	}
+}
@@ -24,6 +24,7 @@ import org.apache.wicket.Page;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
 import org.apache.wicket.protocol.ws.api.AbstractWebSocketProcessor;
+import org.apache.wicket.protocol.ws.api.RenderedPushMessage;
 import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
 import org.apache.wicket.request.http.WebRequest;
 import org.apache.wicket.util.lang.Args;
@@ -145,6 +146,19 @@ abstract class TestWebSocketProcessor extends AbstractWebSocketProcessor
 			{
 				TestWebSocketProcessor.this.broadcastMessage(message);
 			}
+
+			@Override
+			public RenderedPushMessage renderMessage(IWebSocketPushMessage message)
+			{
+				RenderedPushMessage rendered = new RenderedPushMessage(this);
+				return TestWebSocketProcessor.this.broadcastMessage(message, rendered.getConnection()) ? rendered : null;
+			}
+
+			@Override
+			public Class<? extends Page> getPageClass()
+			{
+				return TestWebSocketProcessor.this.getPageClass();
+			}
 		});
 	}
 
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.api;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
+import org.apache.wicket.protocol.ws.api.registry.IKey;
+import org.apache.wicket.protocol.ws.api.registry.PageIdKey;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for deflating text responses
+ */
+class DeflationTest
+{
+	private static final String LONG_TEXT = "<ajax-response>" + "<td>cell</td>".repeat(100) + "</ajax-response>";
+
+	private WicketTester tester;
+
+	@BeforeEach
+	void before()
+	{
+		tester = new WicketTester();
+		WebSocketSettings.Holder.get(tester.getApplication())
+			.setCompressResponses(true)
+			.setCompressionThreshold(100);
+	}
+
+	@AfterEach
+	void after()
+	{
+		tester.destroy();
+	}
+
+	@Test
+	void deflatesLongTextForAcceptingClient() throws IOException
+	{
+		Connection connection = new Connection(true);
+		send(connection, LONG_TEXT);
+
+		assertNull(connection.text);
+		assertEquals(LONG_TEXT, inflate(connection.binary));
+		assertEquals(true, connection.binary.length < LONG_TEXT.length() / 4);
+	}
+
+	@Test
+	void sendsShortTextAsIs()
+	{
+		Connection connection = new Connection(true);
+		send(connection, "<ajax-response></ajax-response>");
+
+		assertEquals("<ajax-response></ajax-response>", connection.text);
+		assertNull(connection.binary);
+	}
+
+	@Test
+	void sendsTextAsIsForOtherClients()
+	{
+		Connection connection = new Connection(false);
+		send(connection, LONG_TEXT);
+
+		assertEquals(LONG_TEXT, connection.text);
+		assertNull(connection.binary);
+	}
+
+	@Test
+	void sendsTextAsIsIfDisabled()
+	{
+		WebSocketSettings.Holder.get(tester.getApplication()).setCompressResponses(false);
+		Connection connection = new Connection(true);
+		send(connection, LONG_TEXT);
+
+		assertEquals(LONG_TEXT, connection.text);
+		assertNull(connection.binary);
+	}
+
+	@Test
+	void renderedMessageIsDeflatedPerTarget() throws IOException
+	{
+		Connection first = new Connection(true);
+		RenderedPushMessage rendered = new RenderedPushMessage(first);
+		send(rendered.getConnection(), LONG_TEXT);
+		assertEquals(LONG_TEXT, inflate(first.binary));
+
+		Connection accepting = new Connection(true);
+		Connection other = new Connection(false);
+		rendered.sendTo(accepting);
+		rendered.sendTo(other);
+
+		assertEquals(LONG_TEXT, inflate(accepting.binary));
+		assertEquals(LONG_TEXT, other.text);
+
+		Connection another = new Connection(true);
+		rendered.sendTo(another);
+		assertSame(accepting.binary, another.binary);
+	}
+
+	private static void send(IWebSocketConnection connection, String text)
+	{
+		WebSocketResponse response = new WebSocketResponse(connection);
+		response.write(text);
+		response.close();
+	}
+
+	private static String inflate(byte[] message) throws IOException
+	{
+		assertArrayEquals(Deflation.MARKER, Arrays.copyOf(message, Deflation.MARKER.length));
+		try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(message,
+			Deflation.MARKER.length, message.length - Deflation.MARKER.length)))
+		{
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static class Connection implements IWebSocketConnection
+	{
+		private final boolean deflateAccepted;
+
+		private String text;
+
+		private byte[] binary;
+
+		private Connection(boolean deflateAccepted)
+		{
+			this.deflateAccepted = deflateAccepted;
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		@Override
+		public void close(int code, String reason)
+		{
+		}
+
+		@Override
+		public IWebSocketConnection sendMessage(String message)
+		{
+			text = message;
+			return this;
+		}
+
+		@Override
+		public IWebSocketConnection sendMessage(byte[] message, int offset, int length)
+		{
+			binary = offset == 0 && length == message.length ? message : Arrays.copyOfRange(message, offset, offset + length);
+			return this;
+		}
+
+		@Override
+		public void sendMessage(IWebSocketPushMessage message)
+		{
+		}
+
+		@Override
+		public boolean isDeflateAccepted()
+		{
+			return deflateAccepted;
+		}
+
+		@Override
+		public Application getApplication()
+		{
+			return Application.get();
+		}
+
+		@Override
+		public String getSessionId()
+		{
+			return "session";
+		}
+
+		@Override
+		public IKey getKey()
+		{
+			return new PageIdKey(1);
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.api.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.Page;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link IndexedWebSocketConnectionRegistry}
+ */
+class IndexedWebSocketConnectionRegistryTest
+{
+	private WicketTester tester;
+
+	private Application application;
+
+	private final IndexedWebSocketConnectionRegistry registry = new IndexedWebSocketConnectionRegistry();
+
+	@BeforeEach
+	void before()
+	{
+		tester = new WicketTester();
+		application = tester.getApplication();
+	}
+
+	@AfterEach
+	void after()
+	{
+		tester.destroy();
+	}
+
+	@Test
+	void connectionsBySession()
+	{
+		Connection c1 = connect("s1", new PageIdKey(1));
+		Connection c2 = connect("s1", new PageIdKey(2));
+		Connection c3 = connect("s2", new PageIdKey(1));
+
+		assertSame(c1, registry.getConnection(application, "s1", new PageIdKey(1)));
+		assertSame(c3, registry.getConnection(application, "s2", new PageIdKey(1)));
+		assertEquals(2, registry.getConnections(application, "s1").size());
+		assertEquals(3, registry.getConnections(application).size());
+		assertTrue(registry.getConnections(application).contains(c2));
+
+		registry.removeConnection(application, "s1", new PageIdKey(1));
+		registry.removeConnection(application, "s1", new PageIdKey(2));
+		assertTrue(registry.getConnections(application, "s1").isEmpty());
+		assertNull(registry.getConnection(application, "s1", new PageIdKey(1)));
+		assertEquals(1, registry.getConnections(application).size());
+	}
+
+	@Test
+	void connectionsViewIsLive()
+	{
+		Collection<IWebSocketConnection> all = registry.getConnections(application);
+		Collection<IWebSocketConnection> bySession = registry.getConnections(application, "s1");
+		Collection<IWebSocketConnection> news = registry.getConnectionsByTopic(application, "news");
+		assertTrue(all.isEmpty());
+
+		Connection c1 = connect("s1", new PageIdKey(1));
+		connect("s2", new PageIdKey(1));
+		assertEquals(2, all.size());
+		assertEquals(1, bySession.size());
+
+		registry.subscribe(application, "s1", new PageIdKey(1), "news");
+		assertTrue(news.contains(c1));
+
+		// the index entries are dropped when empty and created again
+		registry.removeConnection(application, "s1", new PageIdKey(1));
+		assertTrue(bySession.isEmpty());
+		assertTrue(news.isEmpty());
+
+		Connection c3 = connect("s1", new PageIdKey(1));
+		registry.subscribe(application, "s1", new PageIdKey(1), "news");
+		assertTrue(bySession.contains(c3));
+		assertTrue(news.contains(c3));
+	}
+
+	@Test
+	void connectionsByResource()
+	{
+		Connection c1 = connect("s1", new ResourceNameKey("chat"));
+		Connection c2 = connect("s2", new ResourceNameTokenKey("chat", "token"));
+		connect("s3", new ResourceNameKey("other"));
+		connect("s3", new PageIdKey(1));
+
+		Collection<IWebSocketConnection> chat = registry.getConnectionsByResource(application, "chat");
+		assertEquals(2, chat.size());
+		assertTrue(chat.contains(c1));
+		assertTrue(chat.contains(c2));
+
+		registry.removeConnection(application, "s1", new ResourceNameKey("chat"));
+		registry.removeConnection(application, "s2", new ResourceNameTokenKey("chat", "token"));
+		assertTrue(registry.getConnectionsByResource(application, "chat").isEmpty());
+		assertEquals(1, registry.getConnectionsByResource(application, "other").size());
+	}
+
+	@Test
+	void connectionsByPageClass()
+	{
+		Connection c1 = connect("s1", new PageIdKey(1));
+		assertTrue(registry.getConnectionsByPageClass(application, PageA.class).isEmpty());
+
+		c1.pageClass = PageA.class;
+		registry.updateConnection(application, "s1", new PageIdKey(1));
+		Connection c2 = connect("s2", new PageIdKey(1));
+		c2.pageClass = PageB.class;
+		registry.updateConnection(application, "s2", new PageIdKey(1));
+
+		assertEquals(1, registry.getConnectionsByPageClass(application, PageA.class).size());
+		assertTrue(registry.getConnectionsByPageClass(application, PageA.class).contains(c1));
+		assertTrue(registry.getConnectionsByPageClass(application, PageB.class).contains(c2));
+
+		registry.removeConnection(application, "s1", new PageIdKey(1));
+		assertTrue(registry.getConnectionsByPageClass(application, PageA.class).isEmpty());
+	}
+
+	@Test
+	void connectionsByTopic()
+	{
+		Connection c1 = connect("s1", new PageIdKey(1));
+		Connection c2 = connect("s2", new ResourceNameKey("chat"));
+		connect("s3", new PageIdKey(1));
+
+		assertTrue(registry.subscribe(application, "s1", new PageIdKey(1), "news"));
+		assertFalse(registry.subscribe(application, "s1", new PageIdKey(1), "news"));
+		assertTrue(registry.subscribe(application, "s2", new ResourceNameKey("chat"), "news"));
+		assertTrue(registry.subscribe(application, "s2", new ResourceNameKey("chat"), "sports"));
+		assertFalse(registry.subscribe(application, "unknown", new PageIdKey(1), "news"));
+
+		Collection<IWebSocketConnection> news = registry.getConnectionsByTopic(application, "news");
+		assertEquals(2, news.size());
+		assertTrue(news.contains(c1));
+		assertTrue(news.contains(c2));
+
+		assertTrue(registry.unsubscribe(application, "s1", new PageIdKey(1), "news"));
+		assertFalse(registry.unsubscribe(application, "s1", new PageIdKey(1), "news"));
+		assertEquals(1, registry.getConnectionsByTopic(application, "news").size());
+
+		// removing the connection ends its subscriptions
+		registry.removeConnection(application, "s2", new ResourceNameKey("chat"));
+		assertTrue(registry.getConnectionsByTopic(application, "news").isEmpty());
+		assertTrue(registry.getConnectionsByTopic(application, "sports").isEmpty());
+	}
+
+	@Test
+	void replacedConnectionIsUnindexed()
+	{
+		connect("s1", new ResourceNameKey("chat"));
+		registry.subscribe(application, "s1", new ResourceNameKey("chat"), "news");
+		Connection c2 = connect("s1", new ResourceNameKey("chat"));
+
+		assertEquals(1, registry.getConnections(application).size());
+		assertEquals(1, registry.getConnectionsByResource(application, "chat").size());
+		assertTrue(registry.getConnectionsByResource(application, "chat").contains(c2));
+		assertTrue(registry.getConnectionsByTopic(application, "news").isEmpty());
+	}
+
+	private Connection connect(String sessionId, IKey key)
+	{
+		Connection connection = new Connection(sessionId, key);
+		registry.setConnection(application, sessionId, key, connection);
+		return connection;
+	}
+
+	private class Connection implements IWebSocketConnection
+	{
+		private final String sessionId;
+
+		private final IKey key;
+
+		private Class<? extends Page> pageClass;
+
+		private Connection(String sessionId, IKey key)
+		{
+			this.sessionId = sessionId;
+			this.key = key;
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return true;
+		}
+
+		@Override
+		public void close(int code, String reason)
+		{
+		}
+
+		@Override
+		public IWebSocketConnection sendMessage(String message)
+		{
+			return this;
+		}
+
+		@Override
+		public IWebSocketConnection sendMessage(byte[] message, int offset, int length)
+		{
+			return this;
+		}
+
+		@Override
+		public void sendMessage(IWebSocketPushMessage message)
+		{
+		}
+
+		@Override
+		public Class<? extends Page> getPageClass()
+		{
+			return pageClass;
+		}
+
+		@Override
+		public Application getApplication()
+		{
+			return application;
+		}
+
+		@Override
+		public String getSessionId()
+		{
+			return sessionId;
+		}
+
+		@Override
+		public IKey getKey()
+		{
+			return key;
+		}
+	}
+
+	private static class PageA extends WebPage
+	{
+	}
+
+	private static class PageB extends WebPage
+	{
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.protocol.ws.concurrent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.protocol.ws.concurrent.ShardedExecutor.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link ShardedExecutor} and {@link VirtualThreadExecutor}.
+ */
+class ShardedExecutorTest
+{
+	@Test
+	void runsTasksOfAKeyInOrder() throws Exception
+	{
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		try
+		{
+			ShardedExecutor executor = new ShardedExecutor(threads, 4, 10000, OverflowPolicy.DROP_NEWEST);
+
+			List<List<Integer>> results = new ArrayList<>();
+			for (int key = 0; key < 8; key++)
+			{
+				results.add(Collections.synchronizedList(new ArrayList<>()));
+			}
+
+			CountDownLatch done = new CountDownLatch(8 * 1000);
+			for (int i = 0; i < 1000; i++)
+			{
+				for (int key = 0; key < 8; key++)
+				{
+					final List<Integer> result = results.get(key);
+					final int value = i;
+					executor.run(key, () -> {
+						result.add(value);
+						done.countDown();
+					});
+				}
+			}
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+			for (List<Integer> result : results)
+			{
+				for (int i = 0; i < 1000; i++)
+				{
+					assertEquals(i, result.get(i));
+				}
+			}
+			assertEquals(8000, executor.getCompletedCount());
+			assertEquals(0, executor.getDroppedCount());
+			assertEquals(0, executor.getQueueDepth());
+		}
+		finally
+		{
+			threads.shutdown();
+		}
+	}
+
+	@Test
+	void dropOldest()
+	{
+		List<Runnable> lanes = new ArrayList<>();
+		ShardedExecutor executor = new ShardedExecutor(lanes::add, 1, 2, OverflowPolicy.DROP_OLDEST);
+
+		List<Integer> result = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+		{
+			final int value = i;
+			executor.run("key", () -> result.add(value));
+		}
+
+		assertEquals(2, executor.getQueueDepth());
+		assertEquals(3, executor.getDroppedCount());
+
+		assertEquals(1, lanes.size());
+		lanes.get(0).run();
+		assertEquals(Arrays.asList(3, 4), result);
+		assertEquals(0, executor.getQueueDepth());
+		assertEquals(2, executor.getCompletedCount());
+	}
+
+	@Test
+	void dropOnlyTasksOfTheSameKey()
+	{
+		List<Runnable> lanes = new ArrayList<>();
+		ShardedExecutor executor = new ShardedExecutor(lanes::add, 1, 2, OverflowPolicy.DROP_OLDEST);
+
+		List<String> result = new ArrayList<>();
+		executor.run("other", () -> result.add("other"));
+		for (int i = 0; i < 5; i++)
+		{
+			final int value = i;
+			executor.run("key", () -> result.add("key" + value));
+		}
+
+		assertEquals(3, executor.getQueueDepth());
+		assertEquals(3, executor.getDroppedCount());
+
+		lanes.get(0).run();
+		assertEquals(Arrays.asList("other", "key3", "key4"), result);
+	}
+
+	@Test
+	void close() throws Exception
+	{
+		ShardedExecutor executor = new ShardedExecutor(2, 10);
+
+		CountDownLatch done = new CountDownLatch(1);
+		executor.run("key", done::countDown);
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+
+		executor.close();
+		executor.run("key", () -> fail("closed"));
+		assertEquals(1, executor.getCompletedCount());
+		assertEquals(1, executor.getQueueDepth());
+	}
+
+	@Test
+	void dropNewest()
+	{
+		List<Runnable> lanes = new ArrayList<>();
+		ShardedExecutor executor = new ShardedExecutor(lanes::add, 1, 2, OverflowPolicy.DROP_NEWEST);
+
+		List<Integer> result = new ArrayList<>();
+		for (int i = 0; i < 5; i++)
+		{
+			final int value = i;
+			executor.run("key", () -> result.add(value));
+		}
+
+		assertEquals(3, executor.getDroppedCount());
+
+		lanes.get(0).run();
+		assertEquals(Arrays.asList(0, 1), result);
+	}
+
+	@Test
+	void virtualThreads() throws Exception
+	{
+		VirtualThreadExecutor executor = new VirtualThreadExecutor();
+		try
+		{
+			CountDownLatch done = new CountDownLatch(1);
+			executor.run(done::countDown);
+
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
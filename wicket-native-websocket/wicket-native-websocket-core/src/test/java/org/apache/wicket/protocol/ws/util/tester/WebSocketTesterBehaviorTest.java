@@ -16,6 +16,9 @@
  */
 package org.apache.wicket.protocol.ws.util.tester;
 
+import org.apache.wicket.protocol.ws.WebSocketSettings;
+import org.apache.wicket.protocol.ws.api.WebSocketBehavior;
+import org.apache.wicket.protocol.ws.api.WebSocketRequestHandler;
 import org.apache.wicket.protocol.ws.api.message.IWebSocketPushMessage;
 import org.apache.wicket.protocol.ws.api.registry.PageIdKey;
 import org.apache.wicket.util.string.Strings;
@@ -25,7 +28,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -137,6 +145,138 @@ public class WebSocketTesterBehaviorTest
 		webSocketTester.destroy();
 	}
 
+	/**
+	 * A page independent message is processed once per page class, the result is sent
+	 * to all connections.
+	 */
+	@Test
+	public void serverSideBroadcastAllPageIndependent()
+	{
+		final String expectedMessage = "Broadcasted Message";
+		final PageIndependentMessage broadcastMessage = new PageIndependentMessage(expectedMessage);
+		final AtomicInteger messagesReceived = new AtomicInteger();
+
+		WebSocketBehaviorTestPage page1 = new WebSocketBehaviorTestPage(broadcastMessage);
+		tester.startPage(page1);
+		WebSocketBehaviorTestPage page2 = new WebSocketBehaviorTestPage(broadcastMessage);
+		tester.startPage(page2);
+
+		WebSocketTester webSocketTester1 = new WebSocketTester(tester, page1)
+		{
+			@Override
+			protected void onOutMessage(String message)
+			{
+				assertEquals(expectedMessage.toUpperCase(), message);
+				messagesReceived.incrementAndGet();
+			}
+		};
+		WebSocketTester webSocketTester2 = new WebSocketTester(tester, page2)
+		{
+			@Override
+			protected void onOutMessage(String message)
+			{
+				assertEquals(expectedMessage.toUpperCase(), message);
+				messagesReceived.incrementAndGet();
+			}
+		};
+		webSocketTester1.broadcastAll(tester.getApplication(), broadcastMessage);
+
+		assertEquals(2, messagesReceived.get());
+		assertEquals(1, broadcastMessage.processed.get());
+		webSocketTester1.destroy();
+		webSocketTester2.destroy();
+	}
+
+	/**
+	 * Messages with the same coalescing key broadcast before the connection processes them
+	 * are pushed only once, with the latest one.
+	 */
+	@Test
+	public void serverSideBroadcastCoalesced()
+	{
+		final List<String> pushed = new ArrayList<>();
+		final List<Runnable> tasks = new ArrayList<>();
+
+		WebSocketBehaviorTestPage page = new WebSocketBehaviorTestPage();
+		page.add(new WebSocketBehavior()
+		{
+			@Override
+			protected void onPush(WebSocketRequestHandler handler, IWebSocketPushMessage message)
+			{
+				handler.push(((BroadcastMessage)message).getText());
+			}
+		});
+		tester.startPage(page);
+
+		WebSocketTester webSocketTester = new WebSocketTester(tester, page)
+		{
+			@Override
+			protected void onOutMessage(String message)
+			{
+				pushed.add(message);
+			}
+		};
+		WebSocketSettings webSocketSettings = WebSocketSettings.Holder.get(tester.getApplication());
+		webSocketSettings.setWebSocketPushMessageExecutor(tasks::add);
+
+		webSocketTester.broadcastAll(tester.getApplication(), new CoalescedMessage("first"));
+		webSocketTester.broadcastAll(tester.getApplication(), new CoalescedMessage("second"));
+		webSocketTester.broadcastAll(tester.getApplication(), new CoalescedMessage("third"));
+		assertEquals(3, tasks.size());
+		tasks.forEach(Runnable::run);
+
+		assertEquals(1, pushed.size());
+		assertEquals("third", pushed.get(0));
+		assertEquals(2, webSocketSettings.getPushMessageCoalescer().getCoalescedCount());
+		assertEquals(0, webSocketSettings.getPushMessageCoalescer().getPendingCount());
+		webSocketTester.destroy();
+	}
+
+	/**
+	 * Coalesced messages are not left behind when the executor rejects their task or the
+	 * connection is closed.
+	 */
+	@Test
+	public void serverSideBroadcastCoalescedRejectedOrClosed()
+	{
+		final List<String> pushed = new ArrayList<>();
+
+		WebSocketBehaviorTestPage page = new WebSocketBehaviorTestPage();
+		page.add(new WebSocketBehavior()
+		{
+			@Override
+			protected void onPush(WebSocketRequestHandler handler, IWebSocketPushMessage message)
+			{
+				handler.push(((BroadcastMessage)message).getText());
+			}
+		});
+		tester.startPage(page);
+
+		WebSocketTester webSocketTester = new WebSocketTester(tester, page)
+		{
+			@Override
+			protected void onOutMessage(String message)
+			{
+				pushed.add(message);
+			}
+		};
+		WebSocketSettings webSocketSettings = WebSocketSettings.Holder.get(tester.getApplication());
+		webSocketSettings.setWebSocketPushMessageExecutor(command -> {
+			throw new RejectedExecutionException();
+		});
+
+		webSocketTester.broadcastAll(tester.getApplication(), new CoalescedMessage("rejected"));
+		assertEquals(Arrays.asList("rejected"), pushed);
+		assertEquals(0, webSocketSettings.getPushMessageCoalescer().getPendingCount());
+
+		webSocketSettings.setWebSocketPushMessageExecutor(command -> {});
+		webSocketTester.broadcastAll(tester.getApplication(), new CoalescedMessage("pending"));
+		assertEquals(1, webSocketSettings.getPushMessageCoalescer().getPendingCount());
+
+		webSocketTester.destroy();
+		assertEquals(0, webSocketSettings.getPushMessageCoalescer().getPendingCount());
+	}
+
 	static class BroadcastMessage implements IWebSocketPushMessage
 	{
 		private final String message;
@@ -151,4 +291,41 @@ public class WebSocketTesterBehaviorTest
 			return message;
 		}
 	}
+
+	static class PageIndependentMessage extends BroadcastMessage
+	{
+		private final AtomicInteger processed = new AtomicInteger();
+
+		private PageIndependentMessage(String message)
+		{
+			super(message);
+		}
+
+		@Override
+		public String getText()
+		{
+			processed.incrementAndGet();
+			return super.getText();
+		}
+
+		@Override
+		public boolean isPageIndependent()
+		{
+			return true;
+		}
+	}
+
+	static class CoalescedMessage extends BroadcastMessage
+	{
+		private CoalescedMessage(String message)
+		{
+			super(message);
+		}
+
+		@Override
+		public Object getCoalescingKey()
+		{
+			return "status";
+		}
+	}
 }
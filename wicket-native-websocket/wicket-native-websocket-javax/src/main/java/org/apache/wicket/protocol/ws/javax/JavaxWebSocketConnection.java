@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import javax.websocket.CloseReason;
+import javax.websocket.Extension;
 import javax.websocket.Session;
 
 import org.apache.wicket.protocol.ws.api.AbstractWebSocketConnection;
@@ -38,6 +39,8 @@ public class JavaxWebSocketConnection extends AbstractWebSocketConnection
 {
 	private static final Logger LOG = LoggerFactory.getLogger(JavaxWebSocketConnection.class);
 
+	private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
 	private final Session session;
 
 	/**
@@ -58,6 +61,27 @@ public class JavaxWebSocketConnection extends AbstractWebSocketConnection
 		return session.isOpen();
 	}
 
+	/**
+	 * Deflating by the application is not needed if the container negotiated the
+	 * <em>permessage-deflate</em> extension with the client already.
+	 */
+	@Override
+	public boolean isDeflateAccepted()
+	{
+		if (super.isDeflateAccepted() == false)
+		{
+			return false;
+		}
+		for (Extension extension : session.getNegotiatedExtensions())
+		{
+			if (PERMESSAGE_DEFLATE.equals(extension.getName()))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public synchronized void close(int code, String reason)
 	{
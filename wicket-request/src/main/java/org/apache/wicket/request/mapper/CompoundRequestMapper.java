@@ -17,10 +17,15 @@
 package org.apache.wicket.request.mapper;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 import org.apache.wicket.request.IRequestHandler;
 import org.apache.wicket.request.IRequestMapper;
@@ -34,6 +39,11 @@ import org.slf4j.LoggerFactory;
  * Thread safe compound {@link IRequestMapper}. The mappers are searched depending on their
  * compatibility score and the orders they were registered. If two or more {@link IRequestMapper}s
  * have the same compatibility score, the last registered mapper has highest priority.
+ * <p>
+ * {@link IMountedRequestMapper}s are indexed by their required segments, so only those whose
+ * segments match the URL of a request are asked for their score and to map it, together with all
+ * other mappers. Likewise only those with the {@link IMountedRequestMapper#getHandlerKey() key} of
+ * a handler are asked to map it.
  * 
  * @author igor.vaynberg
  * @author Matej Knopp
@@ -95,27 +105,254 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 		}
 	}
 
+	/**
+	 * A node in the trie of required segments.
+	 */
+	private static final class Node
+	{
+		/** the nodes for fixed segments, by {@link CompoundRequestMapper#fold(String) folded} value */
+		private Map<String, Node> children;
+
+		/** the node for any segment */
+		private Node wildcard;
+
+		/** the mappers whose required segments end at this node */
+		private final BitSet mappers = new BitSet();
+
+		private Node child(String segment)
+		{
+			if (segment == null)
+			{
+				if (wildcard == null)
+				{
+					wildcard = new Node();
+				}
+				return wildcard;
+			}
+
+			if (children == null)
+			{
+				children = new HashMap<>();
+			}
+			return children.computeIfAbsent(fold(segment), key -> new Node());
+		}
+	}
+
+	/**
+	 * An immutable snapshot of the registered mappers with the trie of their required segments and
+	 * their handler keys.
+	 */
+	private static final class Index
+	{
+		/** the mappers in the order of {@link CompoundRequestMapper#iterator()} */
+		private final IRequestMapper[] mappers;
+
+		/** the mappers which cannot be indexed */
+		private final BitSet unindexed = new BitSet();
+
+		private final Node root = new Node();
+
+		/** the mappers without a handler key */
+		private final BitSet unkeyed = new BitSet();
+
+		/** the mappers with a handler key, by the function computing the key and the key */
+		private final Map<Function<IRequestHandler, Object>, Map<Object, BitSet>> keyed = new IdentityHashMap<>();
+
+		private Index(List<IRequestMapper> mappers)
+		{
+			this.mappers = mappers.toArray(new IRequestMapper[0]);
+
+			for (int i = 0; i < this.mappers.length; i++)
+			{
+				String[] segments = null;
+				Object key = null;
+				Function<IRequestHandler, Object> keyFunction = null;
+				if (this.mappers[i] instanceof IMountedRequestMapper)
+				{
+					IMountedRequestMapper mapper = (IMountedRequestMapper)this.mappers[i];
+					segments = mapper.getRequiredSegments();
+					key = mapper.getHandlerKey();
+					keyFunction = mapper.getHandlerKeyFunction();
+				}
+
+				if (key == null || keyFunction == null)
+				{
+					unkeyed.set(i);
+				}
+				else
+				{
+					keyed.computeIfAbsent(keyFunction, function -> new HashMap<>())
+						.computeIfAbsent(key, k -> new BitSet())
+						.set(i);
+				}
+
+				if (segments == null)
+				{
+					unindexed.set(i);
+				}
+				else
+				{
+					Node node = root;
+					for (String segment : segments)
+					{
+						node = node.child(segment);
+					}
+					node.mappers.set(i);
+				}
+			}
+		}
+
+		/**
+		 * @return the mappers which might map a URL with the given segments
+		 */
+		private BitSet getCandidates(List<String> segments)
+		{
+			BitSet candidates = new BitSet(mappers.length);
+			if (segments.isEmpty())
+			{
+				candidates.set(0, mappers.length);
+			}
+			else
+			{
+				candidates.or(unindexed);
+				String[] folded = new String[segments.size()];
+				collect(root, segments, folded, 0, candidates);
+			}
+			return candidates;
+		}
+
+		/**
+		 * @return the mappers which might map the given handler
+		 */
+		private BitSet getCandidates(IRequestHandler handler)
+		{
+			BitSet candidates = (BitSet)unkeyed.clone();
+			for (Map.Entry<Function<IRequestHandler, Object>, Map<Object, BitSet>> entry : keyed.entrySet())
+			{
+				Object key = entry.getKey().apply(handler);
+				if (key != null)
+				{
+					BitSet mappers = entry.getValue().get(key);
+					if (mappers != null)
+					{
+						candidates.or(mappers);
+					}
+				}
+			}
+			return candidates;
+		}
+
+		private void collect(Node node, List<String> segments, String[] folded, int depth,
+			BitSet candidates)
+		{
+			candidates.or(node.mappers);
+
+			if (depth == segments.size())
+			{
+				return;
+			}
+
+			if (node.children != null)
+			{
+				if (folded[depth] == null)
+				{
+					folded[depth] = fold(segments.get(depth));
+				}
+				Node child = node.children.get(folded[depth]);
+				if (child != null)
+				{
+					collect(child, segments, folded, depth + 1, candidates);
+				}
+			}
+			if (node.wildcard != null)
+			{
+				collect(node.wildcard, segments, folded, depth + 1, candidates);
+			}
+		}
+	}
+
 	private final List<IRequestMapper> mappers = new CopyOnWriteArrayList<>();
 
+	/** the index of the current mappers, {@code null} if it has to be rebuilt */
+	private volatile Index index;
+
 	@Override
 	public CompoundRequestMapper add(final IRequestMapper mapper)
 	{
-		mappers.add(0, mapper);
+		synchronized (mappers)
+		{
+			mappers.add(0, mapper);
+			index = null;
+		}
 		return this;
 	}
 
 	@Override
 	public CompoundRequestMapper remove(final IRequestMapper mapper)
 	{
-		mappers.remove(mapper);
+		synchronized (mappers)
+		{
+			mappers.remove(mapper);
+			index = null;
+		}
 		return this;
 	}
 
+	/**
+	 * @return the index of the registered mappers
+	 */
+	private Index getIndex()
+	{
+		Index current = index;
+		if (current == null)
+		{
+			synchronized (mappers)
+			{
+				current = index;
+				if (current == null)
+				{
+					List<IRequestMapper> list = new ArrayList<>();
+					for (IRequestMapper mapper : this)
+					{
+						list.add(mapper);
+					}
+					current = new Index(list);
+					index = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Folds the case of all characters like {@link String#equalsIgnoreCase(String)} does, so
+	 * segments equal ignoring case have the same folded value.
+	 */
+	private static String fold(String segment)
+	{
+		char[] chars = null;
+		for (int i = 0; i < segment.length(); i++)
+		{
+			char c = segment.charAt(i);
+			char folded = Character.toLowerCase(Character.toUpperCase(c));
+			if (folded != c)
+			{
+				if (chars == null)
+				{
+					chars = segment.toCharArray();
+				}
+				chars[i] = folded;
+			}
+		}
+		return chars == null ? segment : new String(chars);
+	}
+
 	/**
 	 * Searches the registered {@link IRequestMapper}s to find one that can map the {@link Request}.
 	 * Each registered {@link IRequestMapper} is asked to provide its compatibility score. Then the
 	 * mappers are asked to map the request in order depending on the provided compatibility
-	 * score.
+	 * score. {@link IMountedRequestMapper}s whose required segments do not match the URL are
+	 * skipped, as they cannot map the request.
 	 * <p>
 	 * The mapper with highest compatibility score which can map the request is returned.
 	 * 
@@ -126,10 +363,14 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	@Override
 	public IRequestHandler mapRequest(final Request request)
 	{
-		List<MapperWithScore> list = new ArrayList<>(mappers.size());
+		Index current = getIndex();
+		BitSet candidates = current.getCandidates(request.getUrl().getSegments());
 
-		for (IRequestMapper mapper : this)
+		List<MapperWithScore> list = new ArrayList<>(candidates.cardinality());
+
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
 		{
+			IRequestMapper mapper = current.mappers[i];
 			int score = mapper.getCompatibilityScore(request);
 			list.add(new MapperWithScore(mapper, score));
 		}
@@ -197,7 +438,8 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	 * no more mappers are left.
 	 * <p>
 	 * The mappers are searched in reverse order as they have been registered. More recently
-	 * registered mappers have bigger priority.
+	 * registered mappers have bigger priority. {@link IMountedRequestMapper}s with a handler key
+	 * different from the one of the {@link IRequestHandler} are skipped, as they cannot map it.
 	 * 
 	 * @param handler
 	 * @return Url for the handler or <code>null</code> if no mapper for the handler is found.
@@ -205,9 +447,12 @@ public class CompoundRequestMapper implements ICompoundRequestMapper
 	@Override
 	public Url mapHandler(final IRequestHandler handler)
 	{
-		for (IRequestMapper mapper : this)
+		Index current = getIndex();
+		BitSet candidates = current.getCandidates(handler);
+
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1))
 		{
-			Url url = mapper.mapHandler(handler);
+			Url url = current.mappers[i].mapHandler(handler);
 			if (url != null)
 			{
 				return url;
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.request.mapper;
+
+import java.util.function.Function;
+
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+
+/**
+ * A {@link IRequestMapper} which maps only URLs starting with the segments of its mount path, and
+ * optionally only handlers for the target it is mounted for. This allows a
+ * {@link CompoundRequestMapper} to look up the mappers for a URL or a handler in an index instead
+ * of asking all of them.
+ * 
+ * @see CompoundRequestMapper
+ */
+public interface IMountedRequestMapper extends IRequestMapper
+{
+	/**
+	 * Returns the leading segments every URL mapped by this mapper starts with. A {@code null}
+	 * element matches any segment, other elements match a segment with the same value, ignoring
+	 * case. A URL has to have at least as many segments as returned.
+	 * <p>
+	 * {@link #mapRequest(Request)} must return {@code null} for all requests with a URL which has
+	 * segments but does not start with the returned ones. URLs without any segments are always
+	 * passed to the mapper.
+	 * 
+	 * @return the required segments, or {@code null} if this mapper may map any URL
+	 */
+	String[] getRequiredSegments();
+
+	/**
+	 * Returns the key of all handlers mapped by this mapper, e.g. the class of the mounted page.
+	 * The key of a handler is computed with {@link #getHandlerKeyFunction()}.
+	 * <p>
+	 * {@link #mapHandler(IRequestHandler)} must return {@code null} for all handlers with a
+	 * different key, including handlers without a key.
+	 * 
+	 * @return the key of the mapped handlers, or {@code null} if this mapper may map any handler
+	 */
+	default Object getHandlerKey()
+	{
+		return null;
+	}
+
+	/**
+	 * Returns the function computing the key of a handler, which is compared with
+	 * {@link #getHandlerKey()}. All mappers using the same kind of keys have to return the same
+	 * function instance, so the key of a handler is computed only once for all of them.
+	 * 
+	 * @return the function computing the key of a handler, or {@code null} if this mapper has no
+	 *         {@link #getHandlerKey() handler key}
+	 */
+	default Function<IRequestHandler, Object> getHandlerKeyFunction()
+	{
+		return null;
+	}
+}
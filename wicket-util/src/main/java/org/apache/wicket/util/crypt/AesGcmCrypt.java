@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.crypt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+
+/**
+ * Encrypts and decrypts strings with AES in Galois/Counter Mode, an authenticated encryption
+ * mode: tampered input is detected and fails to decrypt. Each encryption uses a random
+ * initialization vector, which is prepended to the encrypted data.
+ * <p>
+ * Instances are thread-safe. The secret key is derived from the {@link #setKey(String) key} only
+ * once, and initialized {@link Cipher}s are pooled and reused, so the provider lookup and the key
+ * expansion are not repeated for every string. Hence an instance should be shared, e.g. with
+ * {@link CachingAesGcmCryptFactory}.
+ * <p>
+ * The secret key is a SHA-256 hash of the key, so the key has to be random, not a password.
+ * 
+ * @see CachingAesGcmCryptFactory
+ */
+public class AesGcmCrypt extends AbstractCrypt
+{
+	/** Name of the cipher */
+	public static final String CRYPT_METHOD = "AES/GCM/NoPadding";
+
+	/** Length of the initialization vector in bytes */
+	private static final int IV_LENGTH = 12;
+
+	/** Length of the authentication tag in bits */
+	private static final int TAG_LENGTH = 128;
+
+	private static final SecureRandom RANDOM = new SecureRandom();
+
+	/** the ciphers not in use by any thread */
+	private final Queue<Cipher> ciphers = new ConcurrentLinkedQueue<>();
+
+	/** the secret key along with the key it was derived from */
+	private volatile DerivedKey derivedKey;
+
+	@Override
+	protected byte[] crypt(final byte[] input, final int mode) throws GeneralSecurityException
+	{
+		SecretKey key = getSecretKey();
+
+		Cipher cipher = ciphers.poll();
+		if (cipher == null)
+		{
+			cipher = Cipher.getInstance(CRYPT_METHOD);
+		}
+
+		try
+		{
+			if (mode == Cipher.ENCRYPT_MODE)
+			{
+				byte[] iv = new byte[IV_LENGTH];
+				RANDOM.nextBytes(iv);
+				cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH, iv));
+
+				byte[] output = new byte[IV_LENGTH + cipher.getOutputSize(input.length)];
+				System.arraycopy(iv, 0, output, 0, IV_LENGTH);
+				int length = cipher.doFinal(input, 0, input.length, output, IV_LENGTH);
+				return length == output.length - IV_LENGTH ? output : Arrays.copyOf(output,
+					IV_LENGTH + length);
+			}
+			else
+			{
+				if (input.length < IV_LENGTH + TAG_LENGTH / 8)
+				{
+					throw new GeneralSecurityException("Input is too short to be decrypted");
+				}
+				cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH, input, 0, IV_LENGTH));
+				return cipher.doFinal(input, IV_LENGTH, input.length - IV_LENGTH);
+			}
+		}
+		finally
+		{
+			ciphers.offer(cipher);
+		}
+	}
+
+	/**
+	 * @return the secret key derived from the current key
+	 * @throws GeneralSecurityException
+	 */
+	private SecretKey getSecretKey() throws GeneralSecurityException
+	{
+		String key = getKey();
+		DerivedKey derived = derivedKey;
+		if (derived == null || Objects.equals(derived.key, key) == false)
+		{
+			derived = new DerivedKey(key, createSecretKey(key));
+			derivedKey = derived;
+		}
+		return derived.secretKey;
+	}
+
+	/**
+	 * Derives the secret key from the key.
+	 * 
+	 * @param key
+	 *            the key set with {@link #setKey(String)}
+	 * @return the AES secret key
+	 * @throws GeneralSecurityException
+	 */
+	protected SecretKey createSecretKey(final String key) throws GeneralSecurityException
+	{
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		return new SecretKeySpec(digest.digest(key.getBytes(StandardCharsets.UTF_8)), "AES");
+	}
+
+	/**
+	 * A secret key and the key it was derived from.
+	 */
+	private static final class DerivedKey
+	{
+		private final String key;
+
+		private final SecretKey secretKey;
+
+		private DerivedKey(String key, SecretKey secretKey)
+		{
+			this.key = key;
+			this.secretKey = secretKey;
+		}
+	}
+}
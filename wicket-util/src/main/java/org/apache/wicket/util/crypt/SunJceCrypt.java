@@ -21,6 +21,7 @@ import java.security.NoSuchAlgorithmException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
+import java.util.Objects;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -58,6 +59,9 @@ public class SunJceCrypt extends AbstractCrypt
 	/** The name of encryption method (cipher) */
 	private final String cryptMethod;
 
+	/** The generated secret key along with the key it was generated for */
+	private volatile GeneratedKey generatedKey;
+
 	/**
 	 * Constructor
 	 */
@@ -93,12 +97,35 @@ public class SunJceCrypt extends AbstractCrypt
 	protected byte[] crypt(final byte[] input, final int mode)
 		throws GeneralSecurityException
 	{
-		SecretKey key = generateSecretKey();
+		SecretKey key = getSecretKey();
 		AlgorithmParameterSpec spec = createParameterSpec();
 		Cipher ciph = createCipher(key, spec, mode);
 		return ciph.doFinal(input);
 	}
 
+	/**
+	 * @return the secret key generated for the current key
+	 * @throws GeneralSecurityException
+	 */
+	private SecretKey getSecretKey() throws GeneralSecurityException
+	{
+		String key = getKey();
+		GeneratedKey generated = generatedKey;
+		if (generated != null && Objects.equals(generated.key, key))
+		{
+			return generated.secretKey;
+		}
+
+		SecretKey secretKey = generateSecretKey();
+
+		// generateSecretKey() reads the key again, keep it only if the key was not changed meanwhile
+		if (Objects.equals(key, getKey()))
+		{
+			generatedKey = new GeneratedKey(key, secretKey);
+		}
+		return secretKey;
+	}
+
 	/**
 	 * Creates the {@link javax.crypto.Cipher} that will do the de-/encryption.
 	 *
@@ -119,7 +146,8 @@ public class SunJceCrypt extends AbstractCrypt
 	}
 
 	/**
-	 * Generate the de-/encryption key.
+	 * Generate the de-/encryption key. It is generated once and reused until the key is
+	 * {@link #setKey(String) changed}.
 	 * <p>
 	 * Note: if you don't provide your own encryption key, the implementation will use a default. Be
 	 * aware that this is potential security risk. Thus make sure you always provide your own one.
@@ -153,4 +181,20 @@ public class SunJceCrypt extends AbstractCrypt
 	{
 		return new PBEKeySpec(getKey().toCharArray());
 	}
+
+	/**
+	 * A secret key and the key it was generated for.
+	 */
+	private static final class GeneratedKey
+	{
+		private final String key;
+
+		private final SecretKey secretKey;
+
+		private GeneratedKey(String key, SecretKey secretKey)
+		{
+			this.key = key;
+			this.secretKey = secretKey;
+		}
+	}
 }
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.wicket.util.crypt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link AesGcmCrypt}
+ */
+class AesGcmCryptTest
+{
+	@Test
+	void roundTrip()
+	{
+		AesGcmCrypt crypt = new AesGcmCrypt();
+		crypt.setKey("key");
+
+		for (String text : new String[] { "", "a", "wicket/bookmarkable/Page?0-1.-link",
+				"üñîçødé €" })
+		{
+			assertEquals(text, crypt.decryptUrlSafe(crypt.encryptUrlSafe(text)));
+		}
+	}
+
+	@Test
+	void encryptionIsRandomized()
+	{
+		AesGcmCrypt crypt = new AesGcmCrypt();
+
+		assertNotEquals(crypt.encryptUrlSafe("text"), crypt.encryptUrlSafe("text"));
+	}
+
+	@Test
+	void tamperedTextIsRejected()
+	{
+		AesGcmCrypt crypt = new AesGcmCrypt();
+		String encrypted = crypt.encryptUrlSafe("some text");
+
+		// the last character might only carry unused bits
+		char[] chars = encrypted.toCharArray();
+		int middle = chars.length / 2;
+		chars[middle] = chars[middle] == 'A' ? 'B' : 'A';
+
+		assertNull(crypt.decryptUrlSafe(new String(chars)));
+		assertNull(crypt.decryptUrlSafe(encrypted.substring(0, 10)));
+	}
+
+	@Test
+	void keyIsRequiredToDecrypt()
+	{
+		AesGcmCrypt crypt = new AesGcmCrypt();
+		crypt.setKey("first");
+		String encrypted = crypt.encryptUrlSafe("text");
+
+		crypt.setKey("second");
+		assertNull(crypt.decryptUrlSafe(encrypted));
+
+		AesGcmCrypt other = new AesGcmCrypt();
+		other.setKey("first");
+		assertEquals("text", other.decryptUrlSafe(encrypted));
+	}
+
+	@Test
+	void concurrentUse() throws Exception
+	{
+		AesGcmCrypt crypt = new AesGcmCrypt();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try
+		{
+			List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < 8; thread++)
+			{
+				final String prefix = "thread" + thread + "-";
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 500; i++)
+					{
+						String text = prefix + i;
+						assertEquals(text, crypt.decryptUrlSafe(crypt.encryptUrlSafe(text)));
+					}
+				}));
+			}
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
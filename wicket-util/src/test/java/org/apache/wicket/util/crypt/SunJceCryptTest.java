@@ -24,6 +24,7 @@ import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 @SuppressWarnings("javadoc")
 public class SunJceCryptTest
@@ -42,6 +43,21 @@ public class SunJceCryptTest
 		assertEquals(new String(decrypted), input);
 	}
 
+	/**
+	 * The secret key is generated again after the key was changed
+	 */
+	@Test
+	public void changedKey()
+	{
+		SunJceCrypt crypt = new SunJceCrypt();
+		crypt.setKey("first");
+		String encrypted = crypt.encryptUrlSafe("input");
+		assertEquals("input", crypt.decryptUrlSafe(encrypted));
+
+		crypt.setKey("second");
+		assertNotEquals("input", crypt.decryptUrlSafe(encrypted));
+	}
+
 	/**
 	 * Uses <em>PBEWithMD5AndTripleDES</em> if unlimited cryptography is installed
 	 */